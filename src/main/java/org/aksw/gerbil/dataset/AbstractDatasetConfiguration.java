@@ -16,20 +16,48 @@
  */
 package org.aksw.gerbil.dataset;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.aksw.gerbil.dataset.check.EntityCheckerManager;
 import org.aksw.gerbil.datatypes.AbstractAdapterConfiguration;
 import org.aksw.gerbil.datatypes.ErrorTypes;
 import org.aksw.gerbil.datatypes.ExperimentType;
+import org.aksw.gerbil.datatypes.marking.MeaningsContainingMarking;
 import org.aksw.gerbil.exceptions.GerbilException;
 import org.aksw.gerbil.semantic.sameas.SameAsRetriever;
 import org.aksw.gerbil.semantic.sameas.SameAsRetrieverUtils;
 import org.aksw.gerbil.semantic.sameas.impl.MultipleSameAsRetriever;
 import org.aksw.gerbil.semantic.sameas.impl.model.DatasetBasedSameAsRetriever;
 import org.aksw.gerbil.transfer.nif.Document;
+import org.aksw.gerbil.transfer.nif.Marking;
+import org.aksw.gerbil.transfer.nif.Meaning;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public abstract class AbstractDatasetConfiguration extends AbstractAdapterConfiguration
         implements DatasetConfiguration {
 
+    /**
+     * The number of URIs that are sent to the sameAs retriever with a single
+     * batch request while preparing a dataset.
+     */
+    protected static final int PREPARATION_BATCH_SIZE = 500;
+    /**
+     * The maximum number of batches that are retrieved in parallel.
+     */
+    protected static final int NUMBER_OF_PREPARATION_THREADS = 4;
+
     protected EntityCheckerManager entityCheckerManager;
     protected SameAsRetriever globalRetriever;
 
@@ -70,16 +98,103 @@ public abstract class AbstractDatasetConfiguration extends AbstractAdapterConfig
         } else {
             retriever = globalRetriever;
         }
-        for (Document document : instance.getInstances()) {
-            if (retriever != null) {
-                SameAsRetrieverUtils.addSameURIsToMarkings(retriever, document.getMarkings());
+        if (retriever != null) {
+            addSameURIs(retriever, instance.getInstances());
+        }
+        // check the meanings
+        if (entityCheckerManager != null) {
+            checkMeanings(instance.getInstances());
+        }
+        return instance;
+    }
+
+    /**
+     * Adds the sameAs links to all markings of the given documents. The URIs
+     * of all documents are collected first, so that every URI is retrieved
+     * only once, even if it is used by many markings.
+     */
+    protected void addSameURIs(SameAsRetriever retriever, List<Document> documents)
+            throws InterruptedException, ExecutionException {
+        List<Set<String>> uriSets = new ArrayList<Set<String>>();
+        for (Document document : documents) {
+            SameAsRetrieverUtils.collectUriSets(document.getMarkings(), uriSets);
+        }
+        Set<String> uris = new HashSet<String>();
+        for (Set<String> uriSet : uriSets) {
+            uris.addAll(uriSet);
+        }
+        uris.remove(null);
+        if (uris.isEmpty()) {
+            return;
+        }
+        Map<String, Set<String>> sameUris = retrieveSameURIs(retriever, uris);
+        for (Set<String> uriSet : uriSets) {
+            SameAsRetrieverUtils.addSameURIs(sameUris, uriSet);
+        }
+    }
+
+    /**
+     * Retrieves the sameAs links of the given URIs using parallel batch
+     * requests.
+     */
+    protected Map<String, Set<String>> retrieveSameURIs(final SameAsRetriever retriever, Collection<String> uris)
+            throws InterruptedException, ExecutionException {
+        if (uris.size() <= PREPARATION_BATCH_SIZE) {
+            return retriever.retrieveSameURIs(uris);
+        }
+        final Map<String, Set<String>> sameUris = new ConcurrentHashMap<String, Set<String>>();
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+        List<String> batch = new ArrayList<String>(PREPARATION_BATCH_SIZE);
+        for (String uri : uris) {
+            batch.add(uri);
+            if (batch.size() == PREPARATION_BATCH_SIZE) {
+                tasks.add(createRetrievalTask(retriever, batch, sameUris));
+                batch = new ArrayList<String>(PREPARATION_BATCH_SIZE);
             }
-            // check the meanings
-            if (entityCheckerManager != null) {
-                entityCheckerManager.checkMarkings(document.getMarkings());
+        }
+        if (batch.size() > 0) {
+            tasks.add(createRetrievalTask(retriever, batch, sameUris));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(tasks.size(), NUMBER_OF_PREPARATION_THREADS),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("DatasetPreparation-%d").build());
+        try {
+            for (Future<Object> future : executor.invokeAll(tasks)) {
+                future.get();
             }
+        } finally {
+            executor.shutdownNow();
         }
-        return instance;
+        return sameUris;
+    }
+
+    private static Callable<Object> createRetrievalTask(final SameAsRetriever retriever, final List<String> batch,
+            final Map<String, Set<String>> sameUris) {
+        return new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                // the batches are disjoint, i.e., no result is overwritten
+                sameUris.putAll(retriever.retrieveSameURIs(batch));
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Checks the meanings of all documents with a single call of the
+     * {@link EntityCheckerManager}, so that every URI is checked only once.
+     */
+    protected void checkMeanings(List<Document> documents) {
+        List<Meaning> meanings = new ArrayList<Meaning>();
+        for (Document document : documents) {
+            for (Marking marking : document.getMarkings()) {
+                if (marking instanceof Meaning) {
+                    meanings.add((Meaning) marking);
+                } else if (marking instanceof MeaningsContainingMarking) {
+                    meanings.addAll(((MeaningsContainingMarking) marking).getMeanings());
+                }
+            }
+        }
+        entityCheckerManager.checkMeanings(meanings);
     }
 
     protected abstract Dataset loadDataset() throws Exception;
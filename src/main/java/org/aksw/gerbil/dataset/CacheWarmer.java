@@ -0,0 +1,321 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.dataset;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+
+import org.aksw.gerbil.dataset.check.EntityCheckerManager;
+import org.aksw.gerbil.datatypes.marking.MeaningsContainingMarking;
+import org.aksw.gerbil.exceptions.GerbilException;
+import org.aksw.gerbil.semantic.sameas.SameAsRetriever;
+import org.aksw.gerbil.semantic.sameas.impl.HotKeyRecordingSameAsRetriever;
+import org.aksw.gerbil.transfer.nif.Document;
+import org.aksw.gerbil.transfer.nif.Marking;
+import org.aksw.gerbil.transfer.nif.Meaning;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Fills the sameAs and entity checking caches in the background after the
+ * start of the server. At first, the URIs of a persisted hot key file (one URI
+ * per line) are replayed. After that, the configured datasets are loaded one
+ * after the other. The preparation of a dataset retrieves the sameAs links and
+ * checks the meanings of all its URIs, i.e., the caches of the global
+ * {@link SameAsRetriever} and the {@link EntityCheckerManager} are filled. The
+ * URIs of the datasets are written to the hot key file, so that the next
+ * start can replay them without loading the datasets.
+ * 
+ * <p>
+ * If a {@link HotKeyRecordingSameAsRetriever} is given, the URIs requested
+ * from the sameAs retriever while the server is running (including the
+ * replayed URIs) are written to the hot key file when the JVM shuts down.
+ * Hence, the file is seeded by the experiments without walking the datasets.
+ * </p>
+ * 
+ * <p>
+ * The warm up runs in a single daemon thread and can be stopped by
+ * interrupting this thread. Note that the requests it triggers are executed by
+ * the same thread pools and share the same per-domain request limits as the
+ * requests of experiments. Walking the datasets loads and prepares every
+ * configured dataset and might slow down experiments that are running at the
+ * same time.
+ * </p>
+ */
+public class CacheWarmer implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheWarmer.class);
+
+    /**
+     * The number of hot keys that are retrieved and checked with a single
+     * batch.
+     */
+    protected static final int WARM_UP_BATCH_SIZE = 500;
+
+    private static final String HOT_KEY_FILE_ENCODING = "UTF-8";
+
+    protected List<DatasetConfiguration> datasets;
+    protected SameAsRetriever sameAsRetriever;
+    protected EntityCheckerManager entityCheckerManager;
+    /**
+     * File containing the hot keys. If it is null, no keys are replayed or
+     * persisted.
+     */
+    protected File hotKeyFile;
+    /**
+     * Retriever recording the requested URIs that are written to the hot key
+     * file at shutdown. If it is null, the hot key file is only written after
+     * walking the datasets.
+     */
+    protected HotKeyRecordingSameAsRetriever hotKeyRecorder;
+    /**
+     * The number of URIs that have been replayed or collected from the
+     * datasets.
+     */
+    private volatile int warmedUris = 0;
+
+    public CacheWarmer(List<DatasetConfiguration> datasets, SameAsRetriever sameAsRetriever,
+            EntityCheckerManager entityCheckerManager, File hotKeyFile) {
+        this(datasets, sameAsRetriever, entityCheckerManager, hotKeyFile, null);
+    }
+
+    public CacheWarmer(List<DatasetConfiguration> datasets, SameAsRetriever sameAsRetriever,
+            EntityCheckerManager entityCheckerManager, File hotKeyFile,
+            HotKeyRecordingSameAsRetriever hotKeyRecorder) {
+        this.datasets = datasets;
+        this.sameAsRetriever = sameAsRetriever;
+        this.entityCheckerManager = entityCheckerManager;
+        this.hotKeyFile = hotKeyFile;
+        this.hotKeyRecorder = hotKeyRecorder;
+    }
+
+    /**
+     * Starts the warm up in a new daemon thread. If there is a hot key
+     * recorder, a shutdown hook is registered that writes the recorded URIs to
+     * the hot key file.
+     * 
+     * @return the thread of the warm up
+     */
+    public Thread start() {
+        ThreadFactory factory = new ThreadFactoryBuilder().setDaemon(true).setNameFormat("CacheWarmer-%d").build();
+        if ((hotKeyFile != null) && (hotKeyRecorder != null)) {
+            Runtime.getRuntime().addShutdownHook(factory.newThread(new Runnable() {
+                @Override
+                public void run() {
+                    storeRecordedHotKeys();
+                }
+            }));
+        }
+        Thread thread = factory.newThread(this);
+        thread.start();
+        return thread;
+    }
+
+    @Override
+    public void run() {
+        long startTime = System.currentTimeMillis();
+        replayHotKeys();
+        if ((datasets != null) && !Thread.currentThread().isInterrupted()) {
+            Set<String> hotKeys = warmUpDatasets();
+            if (hotKeyRecorder != null) {
+                hotKeyRecorder.record(hotKeys);
+            }
+            if ((hotKeyFile != null) && !Thread.currentThread().isInterrupted()) {
+                storeHotKeys(hotKeys);
+            }
+        }
+        LOGGER.info("Finished warming up the caches with {} URIs after {} ms.", warmedUris,
+                System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Replays the URIs of the hot key file (if it exists).
+     */
+    protected void replayHotKeys() {
+        if ((hotKeyFile == null) || !hotKeyFile.exists()) {
+            return;
+        }
+        List<String> lines;
+        try {
+            lines = FileUtils.readLines(hotKeyFile, HOT_KEY_FILE_ENCODING);
+        } catch (IOException e) {
+            LOGGER.error("Couldn't read the hot key file " + hotKeyFile + ". It will be ignored.", e);
+            return;
+        }
+        if (hotKeyRecorder != null) {
+            // keep the old hot keys even if the replay is interrupted
+            for (String line : lines) {
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    hotKeyRecorder.record(line);
+                }
+            }
+        }
+        List<String> batch = new ArrayList<String>(WARM_UP_BATCH_SIZE);
+        for (String line : lines) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            line = line.trim();
+            if (!line.isEmpty()) {
+                batch.add(line);
+                if (batch.size() == WARM_UP_BATCH_SIZE) {
+                    warmUp(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (batch.size() > 0) {
+            warmUp(batch);
+        }
+        LOGGER.info("Replayed {} hot keys from {}.", lines.size(), hotKeyFile);
+    }
+
+    /**
+     * Retrieves the sameAs links of the given URIs and checks the URIs
+     * together with the retrieved links.
+     */
+    protected void warmUp(List<String> uris) {
+        try {
+            Set<String> urisToCheck = new HashSet<String>(uris);
+            if (sameAsRetriever != null) {
+                Map<String, Set<String>> sameUris = sameAsRetriever.retrieveSameURIs(uris);
+                for (Set<String> sameUriSet : sameUris.values()) {
+                    urisToCheck.addAll(sameUriSet);
+                }
+            }
+            urisToCheck.remove(null);
+            if (entityCheckerManager != null) {
+                entityCheckerManager.checkUris(urisToCheck);
+            }
+            warmedUris += uris.size();
+        } catch (Exception e) {
+            LOGGER.warn("Exception while warming up the caches. The batch will be skipped.", e);
+        }
+    }
+
+    /**
+     * Loads all datasets, which fills the caches as part of their
+     * preparation.
+     * 
+     * @return the URIs of the meanings of all datasets
+     */
+    protected Set<String> warmUpDatasets() {
+        Set<String> hotKeys = new HashSet<String>();
+        Dataset dataset;
+        for (DatasetConfiguration config : datasets) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            dataset = null;
+            try {
+                dataset = config.getDataset(config.getExperimentType());
+                if (dataset != null) {
+                    int size = hotKeys.size();
+                    collectUris(dataset.getInstances(), hotKeys);
+                    warmedUris += hotKeys.size() - size;
+                }
+            } catch (GerbilException e) {
+                LOGGER.warn("Couldn't load the dataset \"" + config.getName()
+                        + "\" to warm up the caches. It will be skipped.", e);
+            } catch (Exception e) {
+                LOGGER.warn("Exception while warming up the caches with the dataset \"" + config.getName()
+                        + "\". It will be skipped.", e);
+            } finally {
+                IOUtils.closeQuietly(dataset);
+            }
+        }
+        return hotKeys;
+    }
+
+    /**
+     * Adds the URIs of all meanings of the given documents to the given set.
+     */
+    protected static void collectUris(List<Document> documents, Set<String> uris) {
+        for (Document document : documents) {
+            for (Marking marking : document.getMarkings()) {
+                if (marking instanceof Meaning) {
+                    addUris(((Meaning) marking).getUris(), uris);
+                } else if (marking instanceof MeaningsContainingMarking) {
+                    for (Meaning meaning : ((MeaningsContainingMarking) marking).getMeanings()) {
+                        addUris(meaning.getUris(), uris);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void addUris(Collection<String> meaningUris, Set<String> uris) {
+        if (meaningUris != null) {
+            uris.addAll(meaningUris);
+        }
+        uris.remove(null);
+    }
+
+    /**
+     * Writes the URIs recorded by the {@link #hotKeyRecorder} to the hot key
+     * file.
+     */
+    protected void storeRecordedHotKeys() {
+        List<String> hotKeys = hotKeyRecorder.getHotKeys();
+        storeHotKeys(hotKeys);
+        LOGGER.info("Stored {} recorded hot keys in {}.", hotKeys.size(), hotKeyFile);
+    }
+
+    /**
+     * Writes the given URIs to the hot key file. The file is written to a
+     * temporary file first, so that an interrupted write does not destroy the
+     * old file.
+     */
+    protected synchronized void storeHotKeys(Collection<String> hotKeys) {
+        if (hotKeys.isEmpty()) {
+            return;
+        }
+        File tempFile = new File(hotKeyFile.getAbsolutePath() + ".tmp");
+        try {
+            File parent = hotKeyFile.getAbsoluteFile().getParentFile();
+            if ((parent != null) && !parent.exists()) {
+                parent.mkdirs();
+            }
+            FileUtils.writeLines(tempFile, HOT_KEY_FILE_ENCODING, hotKeys);
+            if (hotKeyFile.exists() && !hotKeyFile.delete()) {
+                LOGGER.error("Couldn't replace the hot key file {}.", hotKeyFile);
+                return;
+            }
+            if (!tempFile.renameTo(hotKeyFile)) {
+                LOGGER.error("Couldn't rename {} to {}.", tempFile, hotKeyFile);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Couldn't write the hot key file " + hotKeyFile + ".", e);
+        }
+    }
+
+    public int getNumberOfWarmedUris() {
+        return warmedUris;
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.dataset.check;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * An {@link EntityChecker} that is able to check several URIs at once, e.g.,
+ * by sending requests concurrently.
+ */
+public interface BulkEntityChecker extends EntityChecker {
+
+    /**
+     * Checks the existence of all given URIs.
+     * 
+     * @param uris
+     *            the URIs that should be checked
+     * @return a mapping of every given URI to the result of its check
+     */
+    public Map<String, Boolean> entitiesExist(Collection<String> uris);
+}
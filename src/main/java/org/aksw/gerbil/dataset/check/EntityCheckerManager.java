@@ -17,6 +17,7 @@
 package org.aksw.gerbil.dataset.check;
 
 import java.util.Collection;
+import java.util.Map;
 
 import org.aksw.gerbil.transfer.nif.Marking;
 import org.aksw.gerbil.transfer.nif.Meaning;
@@ -68,4 +69,19 @@ public interface EntityCheckerManager {
      *            existence.
      */
     public void checkMeanings(Collection<? extends Meaning> meanings);
+
+    /**
+     * Checks the existence of the given URIs based on the available
+     * {@link EntityChecker}. URIs whose result is already known (e.g., because
+     * it has been cached) are not checked again. URIs of a
+     * {@link BulkEntityChecker} are checked at once, i.e., the checker can
+     * check them concurrently.
+     * 
+     * @param uris
+     *            the URIs that should be checked
+     * @return a mapping of every given URI to its existence. URIs with a name
+     *         space for which no {@link EntityChecker} is available are mapped
+     *         to true.
+     */
+    public Map<String, Boolean> checkUris(Collection<String> uris);
 }
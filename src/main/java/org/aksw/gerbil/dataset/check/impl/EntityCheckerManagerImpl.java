@@ -18,28 +18,34 @@ package org.aksw.gerbil.dataset.check.impl;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import org.aksw.gerbil.dataset.check.BulkEntityChecker;
 import org.aksw.gerbil.dataset.check.EntityChecker;
 import org.aksw.gerbil.dataset.check.EntityCheckerManager;
 import org.aksw.gerbil.datatypes.marking.MeaningsContainingMarking;
+import org.aksw.gerbil.semantic.kb.NamespacePrefixMatcher;
 import org.aksw.gerbil.transfer.nif.Marking;
 import org.aksw.gerbil.transfer.nif.Meaning;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.carrotsearch.hppc.ObjectObjectOpenHashMap;
-
 /**
  * <p>
  * Standard implementation of the {@link EntityCheckerManager} interface.
  * Internally it uses a cache for storing the results of the
  * {@link EntityChecker}.
  * </p>
- * TODO The current implementation is not thread safe if
- * {@link #registerEntityChecker(String, EntityChecker)} is called while another
- * thread already is inside the {@link #checkMeanings(Collection)} method.
+ * <p>
+ * The name spaces of the registered checkers are compiled into a
+ * {@link NamespacePrefixMatcher} that is replaced every time a checker is
+ * registered. A URI is routed to the checker of the longest name space that
+ * is a prefix of the URI.
+ * </p>
  * 
  * @author Michael R&ouml;der (roeder@informatik.uni-leipzig.de)
  *
@@ -50,38 +56,105 @@ public class EntityCheckerManagerImpl implements EntityCheckerManager {
 
     private static final String SYNTHETIC_URI_NAME_SPACE = "http://aksw.org/unknown_entity/";
 
-    private ObjectObjectOpenHashMap<String, EntityChecker> registeredCheckers = new ObjectObjectOpenHashMap<String, EntityChecker>();
+    private Map<String, EntityChecker> registeredCheckers = new HashMap<String, EntityChecker>();
+    private volatile NamespacePrefixMatcher<EntityChecker> checkerMatcher = NamespacePrefixMatcher
+            .create(registeredCheckers);
 
     @Override
-    public void registerEntityChecker(String namespace, EntityChecker checker) {
+    public synchronized void registerEntityChecker(String namespace, EntityChecker checker) {
         registeredCheckers.put(namespace, checker);
+        checkerMatcher = NamespacePrefixMatcher.create(registeredCheckers);
     }
 
     @Override
     public void checkMarkings(Collection<? extends Marking> markings) {
+        List<Meaning> meanings = new ArrayList<Meaning>();
         for (Marking marking : markings) {
             if (marking instanceof Meaning) {
-                checkMeaning((Meaning) marking);
+                meanings.add((Meaning) marking);
             } else if (marking instanceof MeaningsContainingMarking) {
-                checkMeanings(((MeaningsContainingMarking) marking).getMeanings());
+                meanings.addAll(((MeaningsContainingMarking) marking).getMeanings());
             }
         }
+        checkMeanings(meanings);
     }
 
+    /**
+     * Checks the given meanings. Every URI is checked only once, even if it
+     * is part of several meanings. The URIs of all meanings are checked at
+     * once using {@link #checkUris(Collection)}.
+     */
     @Override
     public void checkMeanings(Collection<? extends Meaning> meanings) {
+        Set<String> uris = new LinkedHashSet<String>();
         for (Meaning meaning : meanings) {
-            checkMeaning(meaning);
+            uris.addAll(meaning.getUris());
+        }
+        uris.remove(null);
+        Map<String, Boolean> checkedUris = checkUris(uris);
+        for (Meaning meaning : meanings) {
+            checkMeaning(meaning, checkedUris);
+        }
+    }
+
+    /**
+     * Checks the given URIs. The URIs are grouped by their
+     * {@link EntityChecker}. The URIs of a {@link BulkEntityChecker} are
+     * handed to the checker at once while all other URIs are checked one
+     * after the other.
+     */
+    @Override
+    public Map<String, Boolean> checkUris(Collection<String> uris) {
+        Map<String, Boolean> results = new HashMap<String, Boolean>();
+        Map<EntityChecker, List<String>> urisOfCheckers = new HashMap<EntityChecker, List<String>>();
+        EntityChecker checker;
+        List<String> urisOfChecker;
+        for (String uri : uris) {
+            checker = getChecker(uri);
+            if (checker == null) {
+                results.put(uri, Boolean.TRUE);
+            } else {
+                urisOfChecker = urisOfCheckers.get(checker);
+                if (urisOfChecker == null) {
+                    urisOfChecker = new ArrayList<String>();
+                    urisOfCheckers.put(checker, urisOfChecker);
+                }
+                urisOfChecker.add(uri);
+            }
         }
+        for (Map.Entry<EntityChecker, List<String>> entry : urisOfCheckers.entrySet()) {
+            checker = entry.getKey();
+            if (checker instanceof BulkEntityChecker) {
+                results.putAll(((BulkEntityChecker) checker).entitiesExist(entry.getValue()));
+            } else {
+                for (String uri : entry.getValue()) {
+                    results.put(uri, checker.entityExists(uri));
+                }
+            }
+        }
+        return results;
     }
 
     public void checkMeaning(Meaning meaning) {
+        checkMeaning(meaning, new HashMap<String, Boolean>());
+    }
+
+    protected void checkMeaning(Meaning meaning, Map<String, Boolean> checkedUris) {
         Set<String> uris = meaning.getUris();
         List<String> wrongUris = null;
         List<String> newUris = null;
+        Boolean exists;
         for (String uri : uris) {
+            if (uri == null) {
+                continue;
+            }
+            exists = checkedUris.get(uri);
+            if (exists == null) {
+                exists = checkUri(uri);
+                checkedUris.put(uri, exists);
+            }
             // If the URI does not exist
-            if ((uri != null) && (!checkUri(uri))) {
+            if (!exists) {
                 if (wrongUris == null) {
                     wrongUris = new ArrayList<String>(3);
                     newUris = new ArrayList<String>(3);
@@ -118,19 +191,9 @@ public class EntityCheckerManagerImpl implements EntityCheckerManager {
     }
 
     public boolean checkUri(String uri) {
-        String namespace;
-        int matchingId = -1;
-        for (int i = 0; (i < registeredCheckers.allocated.length) && (matchingId < 0); ++i) {
-            if (registeredCheckers.allocated[i]) {
-                namespace = (String) ((Object[]) registeredCheckers.keys)[i];
-                if (uri.startsWith(namespace)) {
-                    matchingId = i;
-                }
-            }
-        }
+        EntityChecker checker = getChecker(uri);
         // If there is a checker available for this URI
-        if (matchingId >= 0) {
-            EntityChecker checker = (EntityChecker) ((Object[]) registeredCheckers.values)[matchingId];
+        if (checker != null) {
             // Return whether this URI does exist
             return checker.entityExists(uri);
         } else {
@@ -138,4 +201,12 @@ public class EntityCheckerManagerImpl implements EntityCheckerManager {
         }
     }
 
+    /**
+     * @return the checker registered for the name space of the given URI or
+     *         null if there is no such checker
+     */
+    protected EntityChecker getChecker(String uri) {
+        return checkerMatcher.getLongestMatch(uri);
+    }
+
 }
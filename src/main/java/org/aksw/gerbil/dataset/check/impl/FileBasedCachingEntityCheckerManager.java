@@ -23,8 +23,17 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Semaphore;
 
+import org.aksw.gerbil.utils.RequestCoalescer;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -112,6 +121,7 @@ public class FileBasedCachingEntityCheckerManager extends EntityCheckerManagerIm
     private int forceStorageAfterChanges = 10000;
     private Semaphore cacheReadMutex = new Semaphore(MAX_CONCURRENT_READERS);
     private Semaphore cacheWriteMutex = new Semaphore(1);
+    private RequestCoalescer<String, Boolean> coalescer = new RequestCoalescer<String, Boolean>();
     protected File cacheFile;
     protected File tempCacheFile;
 
@@ -123,6 +133,45 @@ public class FileBasedCachingEntityCheckerManager extends EntityCheckerManagerIm
         this.tempCacheFile = tempCacheFile;
     }
 
+    /**
+     * Checks only the URIs that are not already cached (or whose cache entries
+     * are outdated) and adds their results to the cache.
+     */
+    @Override
+    public Map<String, Boolean> checkUris(Collection<String> uris) {
+        Map<String, Boolean> results = new HashMap<String, Boolean>();
+        List<String> uncachedUris = new ArrayList<String>();
+        try {
+            cacheReadMutex.acquire();
+        } catch (InterruptedException e) {
+            LOGGER.error("Exception while waiting for read mutex. Returning true for all URIs.", e);
+            for (String uri : uris) {
+                results.put(uri, Boolean.TRUE);
+            }
+            return results;
+        }
+        try {
+            long currentTime = System.currentTimeMillis();
+            long timestamp;
+            for (String uri : uris) {
+                if (cache.containsKey(uri)) {
+                    timestamp = cache.get(uri);
+                    if ((currentTime - timestamp) < cacheEntryLifetime) {
+                        results.put(uri, (timestamp & EXISTS_FLAG_MASK) != ENTITY_DOES_NOT_EXIST_BIT);
+                        continue;
+                    }
+                }
+                uncachedUris.add(uri);
+            }
+        } finally {
+            cacheReadMutex.release();
+        }
+        if (!uncachedUris.isEmpty()) {
+            results.putAll(coalescedRequestUris(uncachedUris));
+        }
+        return results;
+    }
+
     @Override
     public boolean checkUri(String uri) {
         boolean uriIsCached = false;
@@ -151,45 +200,115 @@ public class FileBasedCachingEntityCheckerManager extends EntityCheckerManagerIm
         // If the URI is not in the cache, or it has been cached but the result
         // is null and the request should be retried
         if (!uriIsCached) {
-            resultBit = super.checkUri(uri) ? ENTITY_EXISTS_BIT : ENTITY_DOES_NOT_EXIST_BIT;
-            // Set the new timestamp inside the cache
+            return coalescedRequestUri(uri);
+        }
+        return resultBit != ENTITY_DOES_NOT_EXIST_BIT;
+    }
+
+    /**
+     * Checks the given URI using {@link #requestUri(String)}. If the URI is
+     * already checked by another thread, the result of this check is used
+     * instead of checking the URI again.
+     */
+    protected boolean coalescedRequestUri(final String uri) {
+        try {
+            return coalescer.request(uri, new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return requestUri(uri);
+                }
+            });
+        } catch (InterruptedException | ExecutionException e) {
+            LOGGER.error("Exception while checking the URI. Returning true.", e);
+            return true;
+        }
+    }
+
+    /**
+     * Checks the given URI and adds the result to the cache.
+     */
+    protected boolean requestUri(String uri) {
+        boolean exists = super.checkUri(uri);
+        addToCache(Collections.singletonMap(uri, exists));
+        return exists;
+    }
+
+    /**
+     * Checks the given URIs using {@link #requestUris(List)}. URIs that are
+     * already checked by another thread are not checked again. Instead, the
+     * results of these checks are used.
+     */
+    protected Map<String, Boolean> coalescedRequestUris(List<String> uris) {
+        try {
+            return coalescer.requestAll(uris, new RequestCoalescer.BatchRequest<String, Boolean>() {
+                @Override
+                public Map<String, Boolean> request(List<String> keys) throws Exception {
+                    return requestUris(keys);
+                }
+            });
+        } catch (InterruptedException | ExecutionException e) {
+            LOGGER.error("Exception while checking the URIs. Returning true for all URIs.", e);
+            Map<String, Boolean> results = new HashMap<String, Boolean>();
+            for (String uri : uris) {
+                results.put(uri, Boolean.TRUE);
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Checks the given URIs and adds the results to the cache.
+     */
+    protected Map<String, Boolean> requestUris(List<String> uris) {
+        Map<String, Boolean> checkedUris = super.checkUris(uris);
+        addToCache(checkedUris);
+        return checkedUris;
+    }
+
+    /**
+     * Adds the given results to the cache.
+     */
+    protected void addToCache(Map<String, Boolean> results) {
+        long timestamp;
+        // Set the new timestamps inside the cache
+        try {
+            cacheWriteMutex.acquire();
+        } catch (InterruptedException e) {
+            LOGGER.error("Exception while waiting for write mutex. Returning.", e);
+            return;
+        }
+
+        // Make sure that the write mutex is released
+        try {
             try {
-                cacheWriteMutex.acquire();
+                // now we need all other read mutexes
+                cacheReadMutex.acquire(MAX_CONCURRENT_READERS);
             } catch (InterruptedException e) {
-                LOGGER.error("Exception while waiting for write mutex. Returning.", e);
-                return resultBit != ENTITY_DOES_NOT_EXIST_BIT;
+                LOGGER.error("Exception while waiting for read mutex. Returning.", e);
+                return;
             }
-
-            // Make sure that the write mutex is released
+            // Make sure that the read mutex is released
             try {
-                try {
-                    // now we need all other read mutexes
-                    cacheReadMutex.acquire(MAX_CONCURRENT_READERS);
-                } catch (InterruptedException e) {
-                    LOGGER.error("Exception while waiting for read mutex. Returning.", e);
-                    return resultBit != ENTITY_DOES_NOT_EXIST_BIT;
-                }
-                // Make sure that the read mutex is released
-                try {
-                    timestamp = (System.currentTimeMillis() & ERASE_EXISTS_FLAG_MASK) | resultBit;
-                    cache.put(uri, timestamp);
+                long timestampBase = System.currentTimeMillis() & ERASE_EXISTS_FLAG_MASK;
+                for (Map.Entry<String, Boolean> result : results.entrySet()) {
+                    timestamp = timestampBase | (result.getValue() ? ENTITY_EXISTS_BIT : ENTITY_DOES_NOT_EXIST_BIT);
+                    cache.put(result.getKey(), timestamp);
                     ++cacheChanges;
-                    if ((forceStorageAfterChanges > 0) && (cacheChanges >= forceStorageAfterChanges)) {
-                        LOGGER.info("Storing the cache has been forced...");
-                        try {
-                            performCacheStorage();
-                        } catch (IOException e) {
-                            LOGGER.error("Exception while writing cache to file. Aborting.", e);
-                        }
+                }
+                if ((forceStorageAfterChanges > 0) && (cacheChanges >= forceStorageAfterChanges)) {
+                    LOGGER.info("Storing the cache has been forced...");
+                    try {
+                        performCacheStorage();
+                    } catch (IOException e) {
+                        LOGGER.error("Exception while writing cache to file. Aborting.", e);
                     }
-                } finally {
-                    cacheReadMutex.release(MAX_CONCURRENT_READERS);
                 }
             } finally {
-                cacheWriteMutex.release();
+                cacheReadMutex.release(MAX_CONCURRENT_READERS);
             }
+        } finally {
+            cacheWriteMutex.release();
         }
-        return resultBit != ENTITY_DOES_NOT_EXIST_BIT;
     }
 
     protected boolean performCheck(String uri) {
@@ -0,0 +1,253 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.dataset.check.impl;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.aksw.gerbil.utils.RequestCoalescer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.carrotsearch.hppc.ObjectLongOpenHashMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * <p>
+ * An extension of the {@link EntityCheckerManagerImpl} that caches the results
+ * using a {@link FingerprintEntityCheckCache}. In contrast to the
+ * {@link FileBasedCachingEntityCheckerManager}, the URIs are not stored and
+ * the checking threads are not blocked while the cache is written.
+ * </p>
+ * <p>
+ * A background thread writes the changed segments of the cache every
+ * {@link #DEFAULT_STORAGE_INTERVAL} milliseconds and removes expired entries
+ * every {@link #DEFAULT_EXPIRATION_INTERVAL} milliseconds.
+ * </p>
+ */
+public class FingerprintCachingEntityCheckerManager extends EntityCheckerManagerImpl implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FingerprintCachingEntityCheckerManager.class);
+
+    public static final long DEFAULT_STORAGE_INTERVAL = 60000;
+    public static final long DEFAULT_EXPIRATION_INTERVAL = 60 * 60 * 1000;
+
+    /**
+     * Creates a manager using the cache stored in the given directory.
+     *
+     * @param legacyCacheFile
+     *            a cache file of the {@link FileBasedCachingEntityCheckerManager}
+     *            whose entries are added if the cache directory does not exist,
+     *            yet, or null if there is no such file
+     */
+    public static FingerprintCachingEntityCheckerManager create(long cacheEntryLifetime, File cacheDirectory,
+            File legacyCacheFile) {
+        boolean newCache = !cacheDirectory.exists();
+        FingerprintEntityCheckCache cache = FingerprintEntityCheckCache.load(cacheDirectory, cacheEntryLifetime);
+        if (newCache && (legacyCacheFile != null)) {
+            ObjectLongOpenHashMap<String> legacyCache = FileBasedCachingEntityCheckerManager
+                    .readCacheFile(legacyCacheFile);
+            if (legacyCache != null) {
+                importLegacyCache(legacyCache, cache);
+            }
+        }
+        LOGGER.info("Loaded entity checking cache with {} entries.", cache.size());
+        return new FingerprintCachingEntityCheckerManager(cache, DEFAULT_STORAGE_INTERVAL,
+                DEFAULT_EXPIRATION_INTERVAL);
+    }
+
+    private static void importLegacyCache(ObjectLongOpenHashMap<String> legacyCache,
+            FingerprintEntityCheckCache cache) {
+        long timestamp;
+        for (int i = 0; i < legacyCache.allocated.length; ++i) {
+            if (legacyCache.allocated[i]) {
+                timestamp = legacyCache.values[i];
+                cache.put((String) ((Object[]) legacyCache.keys)[i], (timestamp & 0x1L) != 0, timestamp);
+            }
+        }
+        LOGGER.info("Imported {} entries of the legacy entity checking cache.", legacyCache.assigned);
+    }
+
+    protected FingerprintEntityCheckCache cache;
+    private RequestCoalescer<String, Boolean> coalescer = new RequestCoalescer<String, Boolean>();
+    private ScheduledExecutorService maintenanceExecutor;
+
+    /**
+     * @param storageInterval
+     *            the interval (in ms) in which the changed segments of the
+     *            cache are written or 0 if they shouldn't be written
+     *            automatically
+     * @param expirationInterval
+     *            the interval (in ms) in which expired entries are removed or 0
+     *            if they shouldn't be removed automatically
+     */
+    public FingerprintCachingEntityCheckerManager(FingerprintEntityCheckCache cache, long storageInterval,
+            long expirationInterval) {
+        this.cache = cache;
+        if ((storageInterval > 0) || (expirationInterval > 0)) {
+            maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setDaemon(true).setNameFormat("EntityCheckCacheMaintenance-%d").build());
+            if (expirationInterval > 0) {
+                maintenanceExecutor.scheduleWithFixedDelay(new Runnable() {
+                    @Override
+                    public void run() {
+                        removeExpiredEntries();
+                    }
+                }, expirationInterval, expirationInterval, TimeUnit.MILLISECONDS);
+            }
+            if (storageInterval > 0) {
+                maintenanceExecutor.scheduleWithFixedDelay(new Runnable() {
+                    @Override
+                    public void run() {
+                        storeCache();
+                    }
+                }, storageInterval, storageInterval, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    @Override
+    public boolean checkUri(final String uri) {
+        int cached = cache.get(uri);
+        if (cached != FingerprintEntityCheckCache.NOT_CACHED) {
+            return cached == FingerprintEntityCheckCache.EXISTS;
+        }
+        // if the URI is already checked by another thread, the result of this
+        // check is used
+        try {
+            return coalescer.request(uri, new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return requestUri(uri);
+                }
+            });
+        } catch (InterruptedException | ExecutionException e) {
+            LOGGER.error("Exception while checking the URI. Returning true.", e);
+            return true;
+        }
+    }
+
+    /**
+     * Checks the given URI and adds the result to the cache.
+     */
+    protected boolean requestUri(String uri) {
+        boolean exists = super.checkUri(uri);
+        cache.put(uri, exists);
+        return exists;
+    }
+
+    /**
+     * Checks only the URIs that are not already cached and adds their results
+     * to the cache.
+     */
+    @Override
+    public Map<String, Boolean> checkUris(Collection<String> uris) {
+        Map<String, Boolean> results = new HashMap<String, Boolean>();
+        List<String> uncachedUris = new ArrayList<String>();
+        int cached;
+        for (String uri : uris) {
+            cached = cache.get(uri);
+            if (cached != FingerprintEntityCheckCache.NOT_CACHED) {
+                results.put(uri, cached == FingerprintEntityCheckCache.EXISTS);
+            } else {
+                uncachedUris.add(uri);
+            }
+        }
+        if (!uncachedUris.isEmpty()) {
+            results.putAll(coalescedRequestUris(uncachedUris));
+        }
+        return results;
+    }
+
+    /**
+     * Checks the given URIs using {@link #requestUris(List)}. URIs that are
+     * already checked by another thread are not checked again. Instead, the
+     * results of these checks are used.
+     */
+    protected Map<String, Boolean> coalescedRequestUris(List<String> uris) {
+        try {
+            return coalescer.requestAll(uris, new RequestCoalescer.BatchRequest<String, Boolean>() {
+                @Override
+                public Map<String, Boolean> request(List<String> keys) throws Exception {
+                    return requestUris(keys);
+                }
+            });
+        } catch (InterruptedException | ExecutionException e) {
+            LOGGER.error("Exception while checking the URIs. Returning true for all URIs.", e);
+            Map<String, Boolean> results = new HashMap<String, Boolean>();
+            for (String uri : uris) {
+                results.put(uri, Boolean.TRUE);
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Checks the given URIs and adds the results to the cache.
+     */
+    protected Map<String, Boolean> requestUris(List<String> uris) {
+        Map<String, Boolean> checkedUris = super.checkUris(uris);
+        for (Map.Entry<String, Boolean> result : checkedUris.entrySet()) {
+            cache.put(result.getKey(), result.getValue());
+        }
+        return checkedUris;
+    }
+
+    public void storeCache() {
+        try {
+            int written = cache.store();
+            if (written > 0) {
+                LOGGER.debug("Wrote {} segments of the entity checking cache.", written);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Exception while writing the entity checking cache. Aborting.", e);
+        }
+    }
+
+    public void removeExpiredEntries() {
+        try {
+            int removed = cache.removeExpiredEntries();
+            if (removed > 0) {
+                LOGGER.info("Removed {} expired entries from the entity checking cache.", removed);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Exception while removing expired entries from the entity checking cache.", e);
+        }
+    }
+
+    /**
+     * Stops the background thread and writes the cache.
+     */
+    @Override
+    public void close() throws IOException {
+        if (maintenanceExecutor != null) {
+            maintenanceExecutor.shutdownNow();
+        }
+        storeCache();
+    }
+}
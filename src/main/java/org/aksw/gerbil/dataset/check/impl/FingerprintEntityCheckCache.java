@@ -0,0 +1,372 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.dataset.check.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.aksw.gerbil.dataset.check.index.MappedFingerprintEntityChecker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * A cache of entity checking results keyed by the 64-bit fingerprints of the
+ * URIs (see {@link MappedFingerprintEntityChecker#fingerprint(String)}). The
+ * entries are stored in open-addressed primitive arrays that are split into
+ * {@link #NUMBER_OF_SEGMENTS} segments. Every entry is a single long value
+ * containing the time stamp at which the URI has been checked. The lowest bit
+ * of the time stamp is used to store the result of the check.
+ * </p>
+ * <p>
+ * Reading does not need any locks. Writing locks only the segment of the
+ * fingerprint. Removing expired entries creates a new table for a segment
+ * which replaces the old table. The segments are stored in separate files,
+ * i.e., only segments that have been changed have to be written.
+ * </p>
+ */
+public class FingerprintEntityCheckCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FingerprintEntityCheckCache.class);
+
+    public static final int NOT_CACHED = -1;
+    public static final int DOES_NOT_EXIST = 0;
+    public static final int EXISTS = 1;
+
+    protected static final int NUMBER_OF_SEGMENTS_BITS = 6;
+    protected static final int NUMBER_OF_SEGMENTS = 1 << NUMBER_OF_SEGMENTS_BITS;
+    private static final int INITIAL_SEGMENT_CAPACITY = 1 << 10;
+
+    private static final int SEGMENT_FILE_MAGIC_NUMBER = 0x45434348;
+    private static final int SEGMENT_FILE_VERSION = 1;
+    private static final String SEGMENT_FILE_PREFIX = "segment_";
+    private static final String SEGMENT_FILE_SUFFIX = ".cache";
+    private static final String TEMP_FILE_SUFFIX = "_temp";
+
+    private static final long EXISTS_FLAG_MASK = 0x1L;
+    private static final long ERASE_EXISTS_FLAG_MASK = ~EXISTS_FLAG_MASK;
+    /**
+     * Marks an empty slot. Fingerprints with this value are mapped to
+     * {@link #ZERO_FINGERPRINT_REPLACEMENT}.
+     */
+    private static final long EMPTY_KEY = 0;
+    private static final long ZERO_FINGERPRINT_REPLACEMENT = 1;
+
+    /**
+     * Creates a cache and loads the segments stored in the given directory.
+     * Segments that can not be read are ignored.
+     */
+    public static FingerprintEntityCheckCache load(File cacheDirectory, long cacheEntryLifetime) {
+        FingerprintEntityCheckCache cache = new FingerprintEntityCheckCache(cacheDirectory, cacheEntryLifetime);
+        File segmentFile;
+        for (int i = 0; i < NUMBER_OF_SEGMENTS; ++i) {
+            segmentFile = cache.getSegmentFile(i);
+            if (segmentFile.exists()) {
+                try {
+                    cache.segments[i].read(segmentFile);
+                } catch (IOException e) {
+                    LOGGER.error("Couldn't read cache segment " + segmentFile + ". It will be ignored.", e);
+                }
+            }
+        }
+        return cache;
+    }
+
+    private File cacheDirectory;
+    private long cacheEntryLifetime;
+    private Segment segments[] = new Segment[NUMBER_OF_SEGMENTS];
+
+    public FingerprintEntityCheckCache(File cacheDirectory, long cacheEntryLifetime) {
+        this.cacheDirectory = cacheDirectory;
+        this.cacheEntryLifetime = cacheEntryLifetime;
+        for (int i = 0; i < segments.length; ++i) {
+            segments[i] = new Segment(INITIAL_SEGMENT_CAPACITY);
+        }
+    }
+
+    /**
+     * @return {@link #EXISTS}, {@link #DOES_NOT_EXIST} or {@link #NOT_CACHED}
+     *         if the URI is not cached or its entry is expired
+     */
+    public int get(String uri) {
+        long fingerprint = fingerprint(uri);
+        long value = getSegment(fingerprint).get(fingerprint);
+        if ((value == 0) || ((System.currentTimeMillis() - value) >= cacheEntryLifetime)) {
+            return NOT_CACHED;
+        }
+        return (int) (value & EXISTS_FLAG_MASK);
+    }
+
+    public void put(String uri, boolean exists) {
+        put(uri, exists, System.currentTimeMillis());
+    }
+
+    /**
+     * Adds the result of a check that has been done at the given time.
+     */
+    public void put(String uri, boolean exists, long timestamp) {
+        long fingerprint = fingerprint(uri);
+        getSegment(fingerprint).put(fingerprint,
+                (timestamp & ERASE_EXISTS_FLAG_MASK) | (exists ? EXISTS : DOES_NOT_EXIST));
+    }
+
+    /**
+     * Removes all expired entries.
+     *
+     * @return the number of removed entries
+     */
+    public int removeExpiredEntries() {
+        long oldestTimestamp = System.currentTimeMillis() - cacheEntryLifetime;
+        int removed = 0;
+        for (int i = 0; i < segments.length; ++i) {
+            removed += segments[i].removeEntriesOlderThan(oldestTimestamp);
+        }
+        return removed;
+    }
+
+    /**
+     * Writes all segments that have been changed since they have been written
+     * the last time. Entries that are added while a segment is written might
+     * be missing in the file, but the segment will be written again. Only
+     * one thread can write the cache at the same time, but reading and adding
+     * entries is not blocked.
+     *
+     * @return the number of written segments
+     */
+    public synchronized int store() throws IOException {
+        if (!cacheDirectory.exists() && !cacheDirectory.mkdirs()) {
+            throw new IOException("Couldn't create the cache directory " + cacheDirectory + ".");
+        }
+        int written = 0;
+        for (int i = 0; i < segments.length; ++i) {
+            if (segments[i].write(getSegmentFile(i))) {
+                ++written;
+            }
+        }
+        return written;
+    }
+
+    public long size() {
+        long size = 0;
+        for (int i = 0; i < segments.length; ++i) {
+            size += segments[i].size;
+        }
+        return size;
+    }
+
+    private File getSegmentFile(int segmentId) {
+        return new File(cacheDirectory, SEGMENT_FILE_PREFIX + segmentId + SEGMENT_FILE_SUFFIX);
+    }
+
+    private Segment getSegment(long fingerprint) {
+        return segments[(int) (fingerprint >>> (64 - NUMBER_OF_SEGMENTS_BITS))];
+    }
+
+    private static long fingerprint(String uri) {
+        long fingerprint = MappedFingerprintEntityChecker.fingerprint(uri);
+        return (fingerprint == EMPTY_KEY) ? ZERO_FINGERPRINT_REPLACEMENT : fingerprint;
+    }
+
+    /**
+     * The hash table of a segment. The position of a fingerprint is derived
+     * from its lower bits while the segment is chosen using the upper bits.
+     * Collisions are resolved using linear probing.
+     */
+    private static class Table {
+        private final AtomicLongArray keys;
+        private final AtomicLongArray values;
+        private final int mask;
+
+        public Table(int capacity) {
+            keys = new AtomicLongArray(capacity);
+            values = new AtomicLongArray(capacity);
+            mask = capacity - 1;
+        }
+
+        public long get(long fingerprint) {
+            long key;
+            for (int pos = (int) fingerprint & mask;; pos = (pos + 1) & mask) {
+                key = keys.get(pos);
+                if (key == fingerprint) {
+                    // might be 0 if the entry is currently added
+                    return values.get(pos);
+                } else if (key == EMPTY_KEY) {
+                    return 0;
+                }
+            }
+        }
+
+        /**
+         * Adds the given entry. Must only be called by a thread holding the
+         * lock of the segment.
+         *
+         * @return true if a new entry has been added, false if the value of an
+         *         existing entry has been replaced
+         */
+        public boolean put(long fingerprint, long value) {
+            long key;
+            for (int pos = (int) fingerprint & mask;; pos = (pos + 1) & mask) {
+                key = keys.get(pos);
+                if (key == fingerprint) {
+                    values.set(pos, value);
+                    return false;
+                } else if (key == EMPTY_KEY) {
+                    // the value is set before the key to make sure that a
+                    // reader that finds the key will find the value as well
+                    values.set(pos, value);
+                    keys.set(pos, fingerprint);
+                    return true;
+                }
+            }
+        }
+
+        public int capacity() {
+            return mask + 1;
+        }
+    }
+
+    private static class Segment {
+        private volatile Table table;
+        private volatile int size = 0;
+        private volatile boolean changed = false;
+
+        public Segment(int capacity) {
+            table = new Table(capacity);
+        }
+
+        public long get(long fingerprint) {
+            return table.get(fingerprint);
+        }
+
+        public synchronized void put(long fingerprint, long value) {
+            if (table.put(fingerprint, value)) {
+                ++size;
+                // keep the load factor below 0.5
+                if ((2 * size) > table.capacity()) {
+                    table = copy(table, 2 * table.capacity(), Long.MIN_VALUE);
+                }
+            }
+            changed = true;
+        }
+
+        public synchronized int removeEntriesOlderThan(long oldestTimestamp) {
+            Table newTable = copy(table, table.capacity(), oldestTimestamp);
+            int newSize = countEntries(newTable);
+            int removed = size - newSize;
+            if (removed > 0) {
+                table = newTable;
+                size = newSize;
+                changed = true;
+            }
+            return removed;
+        }
+
+        /**
+         * Creates a copy of the given table containing only the entries that
+         * are not older than the given time stamp.
+         */
+        private static Table copy(Table table, int capacity, long oldestTimestamp) {
+            Table newTable = new Table(capacity);
+            long key, value;
+            for (int i = 0; i < table.capacity(); ++i) {
+                key = table.keys.get(i);
+                value = table.values.get(i);
+                if ((key != EMPTY_KEY) && (value >= oldestTimestamp)) {
+                    newTable.put(key, value);
+                }
+            }
+            return newTable;
+        }
+
+        private static int countEntries(Table table) {
+            int count = 0;
+            for (int i = 0; i < table.capacity(); ++i) {
+                if (table.keys.get(i) != EMPTY_KEY) {
+                    ++count;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Writes the segment to the given file if it has been changed.
+         *
+         * @return true if the segment has been written
+         */
+        public boolean write(File file) throws IOException {
+            if (!changed) {
+                return false;
+            }
+            // reset the flag before reading the table to make sure that
+            // parallel changes lead to a further write
+            changed = false;
+            Table currentTable = table;
+            File tempFile = new File(file.getAbsolutePath() + TEMP_FILE_SUFFIX);
+            try {
+                try (DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                    out.writeInt(SEGMENT_FILE_MAGIC_NUMBER);
+                    out.writeInt(SEGMENT_FILE_VERSION);
+                    // entries that are added after counting are not written
+                    int count = countEntries(currentTable);
+                    out.writeInt(count);
+                    long key;
+                    for (int i = 0; (i < currentTable.capacity()) && (count > 0); ++i) {
+                        key = currentTable.keys.get(i);
+                        if (key != EMPTY_KEY) {
+                            out.writeLong(key);
+                            out.writeLong(currentTable.values.get(i));
+                            --count;
+                        }
+                    }
+                }
+                if (file.exists() && !file.delete()) {
+                    throw new IOException("Couldn't delete the old cache segment " + file + ".");
+                }
+                if (!tempFile.renameTo(file)) {
+                    throw new IOException("Couldn't rename the temporary cache segment " + tempFile + ".");
+                }
+            } catch (IOException e) {
+                changed = true;
+                throw e;
+            }
+            return true;
+        }
+
+        public synchronized void read(File file) throws IOException {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if ((in.readInt() != SEGMENT_FILE_MAGIC_NUMBER) || (in.readInt() != SEGMENT_FILE_VERSION)) {
+                    throw new IOException("The file " + file + " is not a cache segment of version "
+                            + SEGMENT_FILE_VERSION + ".");
+                }
+                int count = in.readInt();
+                for (int i = 0; i < count; ++i) {
+                    put(in.readLong(), in.readLong());
+                }
+            }
+            // the content is equal to the file
+            changed = false;
+        }
+    }
+}
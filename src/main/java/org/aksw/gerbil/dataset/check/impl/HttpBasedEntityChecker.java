@@ -16,8 +16,25 @@
  */
 package org.aksw.gerbil.dataset.check.impl;
 
-import org.aksw.gerbil.dataset.check.EntityChecker;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.aksw.gerbil.dataset.check.BulkEntityChecker;
 import org.aksw.gerbil.http.AbstractHttpRequestEmitter;
+import org.aksw.gerbil.http.HttpManagement;
+import org.aksw.gerbil.semantic.sameas.impl.SimpleDomainExtractor;
 import org.apache.http.StatusLine;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpHead;
@@ -25,10 +42,35 @@ import org.apache.http.impl.client.CloseableHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class HttpBasedEntityChecker extends AbstractHttpRequestEmitter implements EntityChecker {
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Checks the existence of an entity by sending a HEAD request to its URI. If
+ * several URIs are checked at once, the requests are sent concurrently with
+ * at most {@link #MAX_CONCURRENT_REQUESTS_PER_HOST} requests per host. The
+ * rate limits of hosts that might block clients are handled by the
+ * {@link HttpManagement}.
+ */
+public class HttpBasedEntityChecker extends AbstractHttpRequestEmitter implements BulkEntityChecker {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpBasedEntityChecker.class);
 
+    /**
+     * Maximum number of requests that are sent to a single host at the same
+     * time. It matches the number of connections the client of the
+     * {@link HttpManagement} keeps open per host.
+     */
+    public static final int MAX_CONCURRENT_REQUESTS_PER_HOST = HttpManagement.MAX_CONNECTIONS_PER_ROUTE;
+    /**
+     * Maximum number of threads that are shared by all bulk checks.
+     */
+    private static final int MAX_THREADS = 32;
+    /**
+     * The executor shared by all bulk checks. It is created when it is needed
+     * for the first time. Its threads are terminated if they are idle.
+     */
+    private static ThreadPoolExecutor executor = null;
+
     public HttpBasedEntityChecker() {
     }
 
@@ -78,4 +120,81 @@ public class HttpBasedEntityChecker extends AbstractHttpRequestEmitter implement
         }
     }
 
+    /**
+     * Checks the given URIs concurrently. The URIs are grouped by their host
+     * and every host is requested by at most
+     * {@link #MAX_CONCURRENT_REQUESTS_PER_HOST} threads.
+     */
+    @Override
+    public Map<String, Boolean> entitiesExist(Collection<String> uris) {
+        // group the URIs by their host
+        Map<String, Queue<String>> urisOfHosts = new HashMap<String, Queue<String>>();
+        String host;
+        Queue<String> urisOfHost;
+        for (String uri : uris) {
+            host = SimpleDomainExtractor.extractDomain(uri);
+            if (host == null) {
+                host = "";
+            }
+            urisOfHost = urisOfHosts.get(host);
+            if (urisOfHost == null) {
+                urisOfHost = new ConcurrentLinkedQueue<String>();
+                urisOfHosts.put(host, urisOfHost);
+            }
+            urisOfHost.add(uri);
+        }
+        // create the workers that send the requests of a host
+        final Map<String, Boolean> results = new ConcurrentHashMap<String, Boolean>();
+        List<Callable<Object>> workers = new ArrayList<Callable<Object>>();
+        for (final Queue<String> queue : urisOfHosts.values()) {
+            for (int i = Math.min(MAX_CONCURRENT_REQUESTS_PER_HOST, queue.size()); i > 0; --i) {
+                workers.add(Executors.callable(new Runnable() {
+                    @Override
+                    public void run() {
+                        String uri = queue.poll();
+                        while (uri != null) {
+                            results.put(uri, entityExists(uri));
+                            uri = queue.poll();
+                        }
+                    }
+                }));
+            }
+        }
+        if (workers.size() == 1) {
+            try {
+                workers.get(0).call();
+            } catch (Exception e) {
+                LOGGER.error("Exception while checking entities. Unchecked URIs are treated as existing.", e);
+            }
+        } else if (workers.size() > 1) {
+            try {
+                // waits until all workers are done or cancels them if this
+                // thread is interrupted
+                getExecutor().invokeAll(workers);
+            } catch (InterruptedException e) {
+                LOGGER.error("Interrupted while waiting for the entity checks. Unchecked URIs are treated as existing.",
+                        e);
+                Thread.currentThread().interrupt();
+            }
+        }
+        // URIs that couldn't be checked are treated as existing
+        Map<String, Boolean> completeResults = new HashMap<String, Boolean>(results);
+        for (String uri : uris) {
+            if (!completeResults.containsKey(uri)) {
+                completeResults.put(uri, Boolean.TRUE);
+            }
+        }
+        return completeResults;
+    }
+
+    protected static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("HttpEntityChecker-%d").build());
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
 }
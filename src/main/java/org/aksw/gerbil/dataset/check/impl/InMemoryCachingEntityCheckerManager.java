@@ -16,9 +16,16 @@
  */
 package org.aksw.gerbil.dataset.check.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
+import org.aksw.gerbil.utils.RequestCoalescer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,6 +41,7 @@ public class InMemoryCachingEntityCheckerManager extends EntityCheckerManagerImp
     private static final int DEFAULT_CACHE_LIFETIME = 2 * 24 * 60 * 60 * 1000;
 
     private LoadingCache<String, Boolean> cache;
+    private RequestCoalescer<String, Boolean> coalescer = new RequestCoalescer<String, Boolean>();
 
     public InMemoryCachingEntityCheckerManager() {
         this(DEFAULT_CACHE_SIZE, DEFAULT_CACHE_LIFETIME);
@@ -43,8 +51,15 @@ public class InMemoryCachingEntityCheckerManager extends EntityCheckerManagerImp
         cache = CacheBuilder.newBuilder().maximumSize(cacheSize).expireAfterWrite(cacheLifeTime, TimeUnit.MILLISECONDS)
                 .build(new CacheLoader<String, Boolean>() {
                     @Override
-                    public Boolean load(String key) throws Exception {
-                        return performCheck(key);
+                    public Boolean load(final String key) throws Exception {
+                        // a batch of another thread might already check
+                        // this URI
+                        return coalescer.request(key, new Callable<Boolean>() {
+                            @Override
+                            public Boolean call() throws Exception {
+                                return performCheck(key);
+                            }
+                        });
                     }
                 });
     }
@@ -59,6 +74,61 @@ public class InMemoryCachingEntityCheckerManager extends EntityCheckerManagerImp
         }
     }
 
+    /**
+     * Checks only the URIs that are not already cached and adds their results
+     * to the cache.
+     */
+    @Override
+    public Map<String, Boolean> checkUris(Collection<String> uris) {
+        Map<String, Boolean> results = new HashMap<String, Boolean>();
+        List<String> uncachedUris = new ArrayList<String>();
+        Boolean exists;
+        for (String uri : uris) {
+            exists = cache.getIfPresent(uri);
+            if (exists != null) {
+                results.put(uri, exists);
+            } else {
+                uncachedUris.add(uri);
+            }
+        }
+        if (!uncachedUris.isEmpty()) {
+            results.putAll(coalescedRequestUris(uncachedUris));
+        }
+        return results;
+    }
+
+    /**
+     * Checks the given URIs using {@link #requestUris(List)}. URIs that are
+     * already checked by another thread are not checked again. Instead, the
+     * results of these checks are used.
+     */
+    protected Map<String, Boolean> coalescedRequestUris(List<String> uris) {
+        try {
+            return coalescer.requestAll(uris, new RequestCoalescer.BatchRequest<String, Boolean>() {
+                @Override
+                public Map<String, Boolean> request(List<String> keys) throws Exception {
+                    return requestUris(keys);
+                }
+            });
+        } catch (InterruptedException | ExecutionException e) {
+            LOGGER.error("Exception while checking the URIs. Returning true for all URIs.", e);
+            Map<String, Boolean> results = new HashMap<String, Boolean>();
+            for (String uri : uris) {
+                results.put(uri, Boolean.TRUE);
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Checks the given URIs and adds the results to the cache.
+     */
+    protected Map<String, Boolean> requestUris(List<String> uris) {
+        Map<String, Boolean> checkedUris = super.checkUris(uris);
+        cache.putAll(checkedUris);
+        return checkedUris;
+    }
+
     protected boolean performCheck(String uri) {
         return super.checkUri(uri);
     }
@@ -0,0 +1,215 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.dataset.check.index;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.code.externalsorting.ExternalSort;
+
+/**
+ * Creates the files of a {@link MappedFingerprintEntityChecker}. The URIs are
+ * written together with their fingerprints to a temporary file which is
+ * sorted externally, i.e., the number of URIs is not limited by the available
+ * memory. Adding the same URI several times is allowed. The builder can be
+ * used by several threads at the same time.
+ */
+public class FingerprintIndexBuilder implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FingerprintIndexBuilder.class);
+
+    private static final char SEPARATOR = '\t';
+    private static final int FINGERPRINT_HEX_LENGTH = 16;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private File tempDirectory;
+    private File unsortedFile;
+    private Writer writer;
+    private long addedUris = 0;
+
+    /**
+     * @param tempDirectory
+     *            the directory in which the temporary files are created
+     */
+    public FingerprintIndexBuilder(File tempDirectory) throws IOException {
+        this.tempDirectory = tempDirectory;
+        tempDirectory.mkdirs();
+        unsortedFile = File.createTempFile("fingerprints", ".tmp", tempDirectory);
+        writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(unsortedFile), StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Adds the given URI to the index.
+     */
+    public synchronized void add(String uri) throws IOException {
+        if ((uri.indexOf('\n') >= 0) || (uri.indexOf('\r') >= 0)) {
+            LOGGER.warn("The URI \"{}\" contains a line break and will be ignored.", uri);
+            return;
+        }
+        // flipping the sign bit makes the lexical order of the hex strings
+        // equal to the signed order of the fingerprints
+        String hex = Long.toHexString(MappedFingerprintEntityChecker.fingerprint(uri) ^ Long.MIN_VALUE);
+        for (int i = hex.length(); i < FINGERPRINT_HEX_LENGTH; ++i) {
+            writer.write('0');
+        }
+        writer.write(hex);
+        writer.write(SEPARATOR);
+        writer.write(uri);
+        writer.write('\n');
+        ++addedUris;
+    }
+
+    /**
+     * Sorts the added URIs and writes the index files. The builder can not be
+     * used after calling this method.
+     *
+     * @param verificationFile
+     *            the file to which the URIs are written for verifying matching
+     *            fingerprints or null if no verification file should be
+     *            created
+     * @return the number of (distinct) indexed URIs
+     */
+    public synchronized long build(File fingerprintFile, File verificationFile) throws IOException {
+        writer.close();
+        LOGGER.info("Sorting {} URIs...", addedUris);
+        File sortedFile = File.createTempFile("fingerprints", ".sorted", tempDirectory);
+        List<File> sortedRuns = ExternalSort.sortInBatch(unsortedFile, ExternalSort.defaultcomparator,
+                ExternalSort.DEFAULTMAXTEMPFILES, StandardCharsets.UTF_8, tempDirectory, true);
+        ExternalSort.mergeSortedFiles(sortedRuns, sortedFile, ExternalSort.defaultcomparator, StandardCharsets.UTF_8,
+                true);
+        unsortedFile.delete();
+
+        LOGGER.info("Writing index files...");
+        File fingerprintTempFile = File.createTempFile("fingerprints", ".part", tempDirectory);
+        File offsetsTempFile = null;
+        File stringsTempFile = null;
+        DataOutputStream fingerprintOut = null;
+        DataOutputStream offsetsOut = null;
+        OutputStream stringsOut = null;
+        BufferedReader reader = null;
+        long count = 0;
+        try {
+            fingerprintOut = openOutput(fingerprintTempFile);
+            writeHeader(fingerprintOut, MappedFingerprintEntityChecker.FINGERPRINT_MAGIC_NUMBER);
+            if (verificationFile != null) {
+                offsetsTempFile = File.createTempFile("offsets", ".part", tempDirectory);
+                stringsTempFile = File.createTempFile("uris", ".part", tempDirectory);
+                offsetsOut = openOutput(offsetsTempFile);
+                stringsOut = new BufferedOutputStream(new FileOutputStream(stringsTempFile), BUFFER_SIZE);
+            }
+            reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(sortedFile), StandardCharsets.UTF_8), BUFFER_SIZE);
+            long offset = 0;
+            byte bytes[];
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.length() <= FINGERPRINT_HEX_LENGTH) {
+                    continue;
+                }
+                fingerprintOut.writeLong(
+                        Long.parseUnsignedLong(line.substring(0, FINGERPRINT_HEX_LENGTH), 16) ^ Long.MIN_VALUE);
+                if (offsetsOut != null) {
+                    offsetsOut.writeLong(offset);
+                    bytes = line.substring(FINGERPRINT_HEX_LENGTH + 1).getBytes(StandardCharsets.UTF_8);
+                    stringsOut.write(bytes);
+                    offset += bytes.length;
+                }
+                ++count;
+            }
+            if (offsetsOut != null) {
+                // the end of the last URI
+                offsetsOut.writeLong(offset);
+            }
+        } finally {
+            IOUtils.closeQuietly(reader);
+            IOUtils.closeQuietly(fingerprintOut);
+            IOUtils.closeQuietly(offsetsOut);
+            IOUtils.closeQuietly(stringsOut);
+            sortedFile.delete();
+        }
+        writeCount(fingerprintTempFile, count);
+        moveFile(fingerprintTempFile, fingerprintFile);
+        if (verificationFile != null) {
+            File verificationTempFile = File.createTempFile("verification", ".part", tempDirectory);
+            try (DataOutputStream out = openOutput(verificationTempFile)) {
+                writeHeader(out, MappedFingerprintEntityChecker.VERIFICATION_MAGIC_NUMBER);
+                FileUtils.copyFile(offsetsTempFile, out);
+                FileUtils.copyFile(stringsTempFile, out);
+            }
+            offsetsTempFile.delete();
+            stringsTempFile.delete();
+            writeCount(verificationTempFile, count);
+            moveFile(verificationTempFile, verificationFile);
+        }
+        LOGGER.info("Indexed {} distinct URIs.", count);
+        return count;
+    }
+
+    private static DataOutputStream openOutput(File file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+    }
+
+    /**
+     * Writes the header. The number of URIs is set later using
+     * {@link #writeCount(File, long)}.
+     */
+    private static void writeHeader(DataOutputStream out, int magicNumber) throws IOException {
+        out.writeInt(magicNumber);
+        out.writeInt(MappedFingerprintEntityChecker.VERSION);
+        out.writeLong(0);
+    }
+
+    private static void writeCount(File file, long count) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(8);
+            raf.writeLong(count);
+        }
+    }
+
+    private static void moveFile(File source, File target) throws IOException {
+        if (target.exists() && !target.delete()) {
+            throw new IOException("Couldn't replace the existing file " + target + ".");
+        }
+        FileUtils.moveFile(source, target);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+        unsortedFile.delete();
+    }
+}
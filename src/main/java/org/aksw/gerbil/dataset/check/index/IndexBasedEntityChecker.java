@@ -5,36 +5,33 @@ import java.io.File;
 import java.io.IOException;
 
 import org.aksw.gerbil.dataset.check.EntityChecker;
-import org.apache.commons.io.IOUtils;
-import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.index.IndexReader;
+import org.aksw.gerbil.utils.IndexPointerWatcher.IndexSwapper;
+import org.aksw.gerbil.utils.SwappableSearcherManager;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
-import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.FSDirectory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class IndexBasedEntityChecker implements EntityChecker, Closeable {
+/**
+ * An {@link EntityChecker} based on a Lucene index containing all existing
+ * URIs. The index can be replaced with a newly built index while the checker
+ * is in use (see {@link #swapIndex(String)}).
+ */
+public class IndexBasedEntityChecker implements EntityChecker, IndexSwapper, Closeable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(IndexBasedEntityChecker.class);
 
     public static final String URI_FIELD_NAME = "URI";
 
     public static IndexBasedEntityChecker create(String indexDirPath) {
-        Directory indexDirectory = null;
         File directoryPath = new File(indexDirPath);
-        if (directoryPath.exists() && directoryPath.isDirectory() && (directoryPath.list().length > 0)) {
+        if (isIndexDirectory(directoryPath)) {
             try {
-                indexDirectory = FSDirectory.open(directoryPath.toPath());
-                IndexReader indexReader = DirectoryReader.open(indexDirectory);
-                IndexSearcher indexSearcher = new IndexSearcher(indexReader);
-                return new IndexBasedEntityChecker(indexSearcher, indexDirectory, indexReader);
+                return new IndexBasedEntityChecker(SwappableSearcherManager.open(directoryPath));
             } catch (IOException e) {
                 LOGGER.error("Exception while trying to open index for entity checking. Returning null.", e);
-                IOUtils.closeQuietly(indexDirectory);
                 return null;
             }
         } else {
@@ -45,14 +42,14 @@ public class IndexBasedEntityChecker implements EntityChecker, Closeable {
         }
     }
 
-    private IndexSearcher indexSearcher;
-    private Directory indexDirectory;
-    private IndexReader indexReader;
+    private static boolean isIndexDirectory(File directoryPath) {
+        return directoryPath.exists() && directoryPath.isDirectory() && (directoryPath.list().length > 0);
+    }
+
+    private SwappableSearcherManager searcherManager;
 
-    protected IndexBasedEntityChecker(IndexSearcher indexSearcher, Directory indexDirectory, IndexReader indexReader) {
-        this.indexSearcher = indexSearcher;
-        this.indexDirectory = indexDirectory;
-        this.indexReader = indexReader;
+    protected IndexBasedEntityChecker(SwappableSearcherManager searcherManager) {
+        this.searcherManager = searcherManager;
     }
 
     @Override
@@ -60,16 +57,45 @@ public class IndexBasedEntityChecker implements EntityChecker, Closeable {
         TopDocs docs = null;
         try {
             TermQuery query = new TermQuery(new Term(URI_FIELD_NAME, uri));
-            docs = indexSearcher.search(query, 1);
+            IndexSearcher indexSearcher = searcherManager.acquire();
+            try {
+                docs = indexSearcher.search(query, 1);
+            } finally {
+                searcherManager.release(indexSearcher);
+            }
+            searcherManager.addWarmingQuery(query);
         } catch (IOException e) {
             LOGGER.error("Got an exception while searching for \"" + uri + "\" in the index. Returning false.", e);
         }
         return (docs != null) && (docs.totalHits > 0);
     }
 
+    /**
+     * Replaces the index with the index in the given directory. Checks that
+     * are running in parallel are not affected.
+     *
+     * @return true if the new index is used, false if it couldn't be opened
+     */
+    @Override
+    public boolean swapIndex(String indexDirPath) {
+        File directoryPath = new File(indexDirPath);
+        if (!isIndexDirectory(directoryPath)) {
+            LOGGER.error("The new entity checking index (\"{}\") does not exist or is empty. It won't be used.",
+                    directoryPath);
+            return false;
+        }
+        try {
+            searcherManager.swapIndex(directoryPath);
+            return true;
+        } catch (IOException e) {
+            LOGGER.error("Exception while switching to the new entity checking index. The old index is still used.",
+                    e);
+            return false;
+        }
+    }
+
     public void close() throws IOException {
-        IOUtils.closeQuietly(indexReader);
-        IOUtils.closeQuietly(indexDirectory);
+        searcherManager.close();
     }
 
 }
@@ -10,22 +10,60 @@ import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.index.TieredMergePolicy;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Creates the index used by the {@link IndexBasedEntityChecker}. URIs can be
+ * added with {@link #index(String)}, which replaces a document of the same URI,
+ * or, if the URIs are known to be unique, with {@link #add(String)}, which
+ * is much cheaper. The indexer can be used by several threads at the same
+ * time.
+ */
 public class Indexer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Indexer.class);
 
+    /**
+     * Segments per tier of the merge policy used for bulk loads. Since the
+     * index is merged into a single segment at the end, merging while the
+     * index is built is reduced.
+     */
+    private static final int BULK_SEGMENTS_PER_TIER = 50;
+
     public static Indexer create(String indexDirPath) {
+        IndexWriterConfig config = new IndexWriterConfig();
+        config.setOpenMode(OpenMode.CREATE);
+        return create(indexDirPath, config);
+    }
+
+    /**
+     * Creates an indexer for adding a large number of unique URIs using
+     * {@link #add(String)} and several threads. The index should be merged
+     * using {@link #forceMerge()} before it is closed.
+     *
+     * @param ramBufferSizeMB
+     *            the amount of RAM that is used for buffering documents before
+     *            they are flushed to a new segment
+     */
+    public static Indexer createForBulkLoad(String indexDirPath, double ramBufferSizeMB) {
+        IndexWriterConfig config = new IndexWriterConfig();
+        config.setOpenMode(OpenMode.CREATE);
+        config.setRAMBufferSizeMB(ramBufferSizeMB);
+        TieredMergePolicy mergePolicy = new TieredMergePolicy();
+        mergePolicy.setSegmentsPerTier(BULK_SEGMENTS_PER_TIER);
+        config.setMergePolicy(mergePolicy);
+        return create(indexDirPath, config);
+    }
+
+    private static Indexer create(String indexDirPath, IndexWriterConfig config) {
         Directory indexDirectory = null;
         try {
             indexDirectory = FSDirectory.open(new File(indexDirPath).toPath());
-            IndexWriterConfig config = new IndexWriterConfig();
-            config.setOpenMode(OpenMode.CREATE);
             IndexWriter indexWriter = new IndexWriter(indexDirectory, config);
             return new Indexer(indexDirectory, indexWriter);
         } catch (IOException e) {
@@ -54,8 +92,7 @@ public class Indexer {
     }
 
     public long index(String uri) {
-        Document document = new Document();
-        document.add(new StringField(IndexBasedEntityChecker.URI_FIELD_NAME, uri, Field.Store.NO));
+        Document document = createDocument(uri);
         try {
         	Term term = new Term(IndexBasedEntityChecker.URI_FIELD_NAME, uri);
             long seqNo = indexWriter.updateDocument(term, document);
@@ -66,6 +103,34 @@ public class Indexer {
         }
         return -1;
     }
+
+    /**
+     * Adds the given URI without checking whether it is already part of the
+     * index, i.e., the caller has to make sure that every URI is added only
+     * once.
+     *
+     * @throws IOException
+     *             if the URI couldn't be written to the index
+     */
+    public long add(String uri) throws IOException {
+        return indexWriter.addDocument(createDocument(uri));
+    }
+
+    private static Document createDocument(String uri) {
+        Document document = new Document();
+        document.add(new StringField(IndexBasedEntityChecker.URI_FIELD_NAME, uri, Field.Store.NO));
+        return document;
+    }
+
+    /**
+     * Merges the index into a single segment.
+     *
+     * @throws IOException
+     *             if the index couldn't be merged
+     */
+    public void forceMerge() throws IOException {
+        indexWriter.forceMerge(1);
+    }
     
     public int docs() {
     	return indexWriter.numDocs();
@@ -0,0 +1,258 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.dataset.check.index;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.aksw.gerbil.dataset.check.EntityChecker;
+import org.aksw.gerbil.utils.ChunkedMappedFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * <p>
+ * An {@link EntityChecker} based on a memory-mapped, sorted array of 64-bit
+ * fingerprints of all existing URIs. A check computes the fingerprint of the
+ * URI and searches it using an interpolation search (the fingerprints are
+ * uniformly distributed), i.e., it needs only a few memory accesses and does
+ * not create any objects except the UTF-8 bytes of the URI.
+ * </p>
+ * <p>
+ * Without the optional verification file, two different URIs with the same
+ * fingerprint can not be distinguished, i.e., a URI that does not exist might
+ * be accepted with a probability of about n / 2<sup>64</sup> for n indexed
+ * URIs. The verification file contains the URIs in the order of their
+ * fingerprints and is used to compare the URIs of matching fingerprints.
+ * </p>
+ * <p>
+ * The files are created with the {@link FingerprintIndexBuilder}.
+ * </p>
+ */
+public class MappedFingerprintEntityChecker implements EntityChecker, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedFingerprintEntityChecker.class);
+
+    public static final String FINGERPRINT_FILE_NAME = "uris.fingerprints";
+    public static final String VERIFICATION_FILE_NAME = "uris.verification";
+
+    protected static final int FINGERPRINT_MAGIC_NUMBER = 0x55524946;
+    protected static final int VERIFICATION_MAGIC_NUMBER = 0x55524956;
+    protected static final int VERSION = 1;
+    /**
+     * magic number (int), version (int), number of URIs (long)
+     */
+    protected static final int HEADER_LENGTH = 16;
+
+    /**
+     * Number of interpolation steps after which the search falls back to a
+     * binary search.
+     */
+    private static final int MAX_INTERPOLATION_STEPS = 8;
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    /**
+     * Creates a checker based on the files in the given directory.
+     *
+     * @return the checker or null if the directory does not contain a
+     *         fingerprint file or the files couldn't be opened
+     */
+    public static MappedFingerprintEntityChecker create(String indexDirPath) {
+        File fingerprintFile = new File(indexDirPath, FINGERPRINT_FILE_NAME);
+        if (!fingerprintFile.exists()) {
+            return null;
+        }
+        File verificationFile = new File(indexDirPath, VERIFICATION_FILE_NAME);
+        try {
+            MappedFingerprintEntityChecker checker = open(fingerprintFile,
+                    verificationFile.exists() ? verificationFile : null);
+            LOGGER.info("Mapped {} URI fingerprints from {} ({} verification).", checker.getNumberOfUris(),
+                    fingerprintFile, checker.verification != null ? "with" : "without");
+            return checker;
+        } catch (IOException e) {
+            LOGGER.error("Exception while trying to map the URI fingerprints for entity checking. Returning null.",
+                    e);
+            return null;
+        }
+    }
+
+    /**
+     * Maps the given files.
+     *
+     * @param verificationFile
+     *            the verification file or null if the fingerprints should not
+     *            be verified
+     */
+    public static MappedFingerprintEntityChecker open(File fingerprintFile, File verificationFile)
+            throws IOException {
+        ChunkedMappedFile fingerprints = mapFile(fingerprintFile, FINGERPRINT_MAGIC_NUMBER);
+        ChunkedMappedFile verification = null;
+        if (verificationFile != null) {
+            try {
+                verification = mapFile(verificationFile, VERIFICATION_MAGIC_NUMBER);
+            } catch (IOException e) {
+                fingerprints.close();
+                throw e;
+            }
+            if (verification.getLong(8) != fingerprints.getLong(8)) {
+                fingerprints.close();
+                verification.close();
+                throw new IOException("The verification file " + verificationFile
+                        + " does not belong to the fingerprint file " + fingerprintFile + ".");
+            }
+        }
+        return new MappedFingerprintEntityChecker(fingerprints, verification);
+    }
+
+    private static ChunkedMappedFile mapFile(File file, int magicNumber) throws IOException {
+        ChunkedMappedFile mappedFile = ChunkedMappedFile.map(file);
+        if ((mappedFile.length() < HEADER_LENGTH) || (mappedFile.getInt(0) != magicNumber)
+                || (mappedFile.getInt(4) != VERSION)) {
+            mappedFile.close();
+            throw new IOException("The file " + file + " is not a URI fingerprint file of version " + VERSION + ".");
+        }
+        return mappedFile;
+    }
+
+    /**
+     * @return the 64-bit fingerprint of the given URI
+     */
+    public static long fingerprint(String uri) {
+        return HASH_FUNCTION.hashString(uri, StandardCharsets.UTF_8).asLong();
+    }
+
+    private ChunkedMappedFile fingerprints;
+    private ChunkedMappedFile verification;
+    private long numberOfUris;
+    /**
+     * Start of the URI bytes in the verification file.
+     */
+    private long stringsStart;
+
+    protected MappedFingerprintEntityChecker(ChunkedMappedFile fingerprints, ChunkedMappedFile verification) {
+        this.fingerprints = fingerprints;
+        this.verification = verification;
+        numberOfUris = fingerprints.getLong(8);
+        stringsStart = HEADER_LENGTH + (8L * (numberOfUris + 1));
+    }
+
+    @Override
+    public boolean entityExists(String uri) {
+        long fingerprint = fingerprint(uri);
+        long position = search(fingerprint);
+        if (position < 0) {
+            return false;
+        }
+        if (verification == null) {
+            return true;
+        }
+        // check all URIs with the same fingerprint
+        byte bytes[] = uri.getBytes(StandardCharsets.UTF_8);
+        while ((position > 0) && (getFingerprint(position - 1) == fingerprint)) {
+            --position;
+        }
+        while ((position < numberOfUris) && (getFingerprint(position) == fingerprint)) {
+            if (uriEquals(position, bytes)) {
+                return true;
+            }
+            ++position;
+        }
+        return false;
+    }
+
+    /**
+     * Searches the given fingerprint.
+     *
+     * @return the position of the fingerprint or -1 if it is not contained
+     */
+    protected long search(long fingerprint) {
+        long low = 0;
+        long high = numberOfUris - 1;
+        if (high < 0) {
+            return -1;
+        }
+        long lowValue = getFingerprint(low);
+        long highValue = getFingerprint(high);
+        long middle, middleValue;
+        int steps = 0;
+        while ((fingerprint >= lowValue) && (fingerprint <= highValue)) {
+            if ((steps < MAX_INTERPOLATION_STEPS) && (lowValue != highValue)) {
+                // the double values avoid overflows of the differences
+                middle = low + (long) ((((double) fingerprint - (double) lowValue)
+                        / ((double) highValue - (double) lowValue)) * (high - low));
+                middle = Math.max(low, Math.min(high, middle));
+            } else {
+                middle = (low + high) >>> 1;
+            }
+            ++steps;
+            middleValue = getFingerprint(middle);
+            if (middleValue < fingerprint) {
+                low = middle + 1;
+                if (low > high) {
+                    return -1;
+                }
+                lowValue = getFingerprint(low);
+            } else if (middleValue > fingerprint) {
+                high = middle - 1;
+                if (low > high) {
+                    return -1;
+                }
+                highValue = getFingerprint(high);
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private long getFingerprint(long position) {
+        return fingerprints.getLong(HEADER_LENGTH + (8L * position));
+    }
+
+    private boolean uriEquals(long position, byte bytes[]) {
+        long start = verification.getLong(HEADER_LENGTH + (8L * position));
+        long end = verification.getLong(HEADER_LENGTH + (8L * (position + 1)));
+        if ((end - start) != bytes.length) {
+            return false;
+        }
+        start += stringsStart;
+        for (int i = 0; i < bytes.length; ++i) {
+            if (verification.getByte(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getNumberOfUris() {
+        return numberOfUris;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fingerprints.close();
+        if (verification != null) {
+            verification.close();
+        }
+    }
+}
@@ -36,4 +36,23 @@ public class ClassifiedMarkingFactory {
         }
         return null;
     }
+
+    /**
+     * Creates a copy of the given {@link ClassifiedMarking} including its
+     * classes. The copy can be changed without influencing the original
+     * marking.
+     * 
+     * @param marking
+     *            the classified marking that should be copied
+     * @return the copy or null if the marking type is not supported
+     */
+    public static ClassifiedMarking copyClassifiedMarking(ClassifiedMarking marking) {
+        ClassifiedMarking copy = createClassifiedMeaning(marking);
+        if (copy != null) {
+            for (MarkingClasses clazz : marking.getClasses()) {
+                copy.setClass(clazz);
+            }
+        }
+        return copy;
+    }
 }
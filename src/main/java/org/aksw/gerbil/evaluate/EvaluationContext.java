@@ -0,0 +1,186 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.evaluate;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * <p>
+ * A memoizing context that is shared by all evaluators of a single experiment
+ * task. The evaluator decorators use it to store intermediate results, e.g.,
+ * classified or filtered marking lists, that are identical for several
+ * evaluators. Such a result is computed only once and reused by every
+ * evaluator that needs it.
+ * </p>
+ * <p>
+ * An intermediate result is identified by an operation, which is compared
+ * using its {@link Object#equals(Object)} method, and the input objects of
+ * the operation, which are compared by their identity. Thus, the operation
+ * has to contain every parameter that influences the result.
+ * </p>
+ * <p>
+ * Note that the results returned by this context might be shared among
+ * several evaluators and must not be changed.
+ * </p>
+ */
+public class EvaluationContext {
+
+    /**
+     * A computation of an intermediate result.
+     *
+     * @param <R>
+     *            the type of the result
+     */
+    public static interface Computation<R> {
+
+        public R compute();
+    }
+
+    private ConcurrentMap<Key, FutureTask<Object>> results = new ConcurrentHashMap<Key, FutureTask<Object>>();
+
+    /**
+     * Returns the result of the given operation for the given input objects.
+     * If it hasn't been computed before, the given computation is executed.
+     * If another thread is already computing the result, the method waits for
+     * this thread.
+     *
+     * @param operation
+     *            the operation that is performed
+     * @param computation
+     *            the computation that is used if the result is not known
+     * @param inputs
+     *            the input objects of the operation
+     * @return the (maybe shared) result of the operation
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R getOrCompute(Object operation, final Computation<R> computation, Object... inputs) {
+        Key key = new Key(operation, inputs);
+        FutureTask<Object> task = results.get(key);
+        if (task == null) {
+            FutureTask<Object> newTask = new FutureTask<Object>(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    return computation.compute();
+                }
+            });
+            task = results.putIfAbsent(key, newTask);
+            if (task == null) {
+                task = newTask;
+                task.run();
+            }
+        }
+        try {
+            return (R) task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return computation.compute();
+        } catch (ExecutionException e) {
+            // remove the failed task to make sure that it is not reused
+            results.remove(key, task);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IllegalStateException("Exception while computing intermediate evaluation result.", cause);
+            }
+        }
+    }
+
+    /**
+     * @return the number of intermediate results that are currently stored in
+     *         this context.
+     */
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * Removes all stored intermediate results.
+     */
+    public void clear() {
+        results.clear();
+    }
+
+    /**
+     * The key of an intermediate result comprising the operation and the
+     * input objects. The latter are compared based on their identity.
+     */
+    protected static class Key {
+        private final Object operation;
+        private final Object inputs[];
+        private final int hashCode;
+
+        public Key(Object operation, Object[] inputs) {
+            this.operation = operation;
+            this.inputs = inputs;
+            int hash = (operation == null) ? 0 : operation.hashCode();
+            for (int i = 0; i < inputs.length; ++i) {
+                hash = (31 * hash) + System.identityHashCode(inputs[i]);
+            }
+            this.hashCode = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key))
+                return false;
+            Key other = (Key) obj;
+            if (hashCode != other.hashCode)
+                return false;
+            if (operation == null) {
+                if (other.operation != null)
+                    return false;
+            } else if (!operation.equals(other.operation))
+                return false;
+            if (inputs.length != other.inputs.length)
+                return false;
+            for (int i = 0; i < inputs.length; ++i) {
+                if (inputs[i] != other.inputs[i])
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "(operation=" + operation + ",#inputs=" + inputs.length + ",inputIds="
+                    + Arrays.toString(identities()) + ")";
+        }
+
+        private int[] identities() {
+            int ids[] = new int[inputs.length];
+            for (int i = 0; i < inputs.length; ++i) {
+                ids[i] = System.identityHashCode(inputs[i]);
+            }
+            return ids;
+        }
+    }
+}
@@ -76,6 +76,13 @@ public class EvaluatorFactory {
 
     protected UriKBClassifier globalClassifier = null;
     protected SubClassInferencer inferencer = null;
+    /**
+     * The {@link EvaluationContext} of the evaluator that is currently created
+     * by this thread. It is used to hand the context to
+     * {@link #createEvaluator(ExperimentType, ExperimentTaskConfiguration, Dataset, UriKBClassifier, SubClassInferencer)}
+     * which stays the extension point for sub classes.
+     */
+    private final ThreadLocal<EvaluationContext> currentContext = new ThreadLocal<EvaluationContext>();
 
     public EvaluatorFactory() {
         this(null, null);
@@ -107,16 +114,51 @@ public class EvaluatorFactory {
         return createEvaluator(type, configuration, dataset, globalClassifier, inferencer);
     }
 
+    /**
+     * Creates the evaluator for the given experiment type using the given
+     * {@link EvaluationContext}. The context is shared by all decorators of the
+     * created evaluator (and the evaluators of its sub tasks) which enables
+     * them to reuse intermediate results, e.g., classified or filtered marking
+     * lists. The evaluator itself is created by
+     * {@link #createEvaluator(ExperimentType, ExperimentTaskConfiguration, Dataset, UriKBClassifier, SubClassInferencer)}.
+     */
+    @SuppressWarnings("rawtypes")
+    public Evaluator createEvaluator(ExperimentType type, ExperimentTaskConfiguration configuration, Dataset dataset,
+            UriKBClassifier classifier, SubClassInferencer inferencer, EvaluationContext context) {
+        EvaluationContext previousContext = currentContext.get();
+        currentContext.set(context);
+        try {
+            return createEvaluator(type, configuration, dataset, classifier, inferencer);
+        } finally {
+            if (previousContext == null) {
+                currentContext.remove();
+            } else {
+                currentContext.set(previousContext);
+            }
+        }
+    }
+
+    /**
+     * Creates the evaluator for the given experiment type. This method is the
+     * extension point for sub classes. The {@link EvaluationContext} that
+     * should be used by the created evaluator can be retrieved using
+     * {@link #getCurrentContext()}.
+     */
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public Evaluator createEvaluator(ExperimentType type, ExperimentTaskConfiguration configuration, Dataset dataset,
             UriKBClassifier classifier, SubClassInferencer inferencer) {
+        EvaluationContext context = currentContext.get();
+        if (context == null) {
+            return createEvaluator(type, configuration, dataset, classifier, inferencer, new EvaluationContext());
+        }
         switch (type) {
         case C2KB: {
             return new ClassifyingEvaluatorDecorator<Meaning, ClassifiedMeaning>(
                     new ClassConsideringFMeasureCalculator<ClassifiedMeaning>(
                             new MatchingsCounterImpl<ClassifiedMeaning>(new ClassifiedMeaningMatchingsSearcher()),
-                            MarkingClasses.IN_KB, MarkingClasses.EE), new UriBasedMeaningClassifier<ClassifiedMeaning>(
-                            classifier, MarkingClasses.IN_KB), new EmergingEntityMeaningClassifier<ClassifiedMeaning>());
+                            MarkingClasses.IN_KB, MarkingClasses.EE),
+                    context, new UriBasedMeaningClassifier<ClassifiedMeaning>(classifier, MarkingClasses.IN_KB),
+                    new EmergingEntityMeaningClassifier<ClassifiedMeaning>());
         }
         case Sa2KB:
         case A2KB: {
@@ -128,7 +170,7 @@ public class EvaluatorFactory {
                                     new CompoundMatchingsSearcher<ClassifiedSpanMeaning>(searcher,
                                             new ClassifiedMeaningMatchingsSearcher<ClassifiedSpanMeaning>())),
                             MarkingClasses.IN_KB, MarkingClasses.EE, MarkingClasses.GS_IN_KB),
-                    new UriBasedMeaningClassifier<ClassifiedSpanMeaning>(classifier, MarkingClasses.IN_KB),
+                    context, new UriBasedMeaningClassifier<ClassifiedSpanMeaning>(classifier, MarkingClasses.IN_KB),
                     new EmergingEntityMeaningClassifier<ClassifiedSpanMeaning>());
         }
         case ERec: {
@@ -149,8 +191,10 @@ public class EvaluatorFactory {
                                                             new ClassifiedMeaningMatchingsSearcher<ClassifiedSpanMeaning>())),
                                             MarkingClasses.IN_KB, MarkingClasses.EE, MarkingClasses.GS_IN_KB),
                                     new StrongSpanMatchingsSearcher<ClassifiedSpanMeaning>()),
+                            context,
                             new UriBasedMeaningClassifier<ClassifiedSpanMeaning>(classifier, MarkingClasses.IN_KB),
-                            new EmergingEntityMeaningClassifier<ClassifiedSpanMeaning>()), true);
+                            new EmergingEntityMeaningClassifier<ClassifiedSpanMeaning>()),
+                    true, context);
         }
         case ETyping: {
             return new SearcherBasedNotMatchingMarkingFilter<TypedSpan>(
@@ -160,7 +204,7 @@ public class EvaluatorFactory {
                                     (MatchingsSearcher<TypedSpan>) MatchingsSearcherFactory
                                             .createSpanMatchingsSearcher(configuration.matching), classifier,
                                     inferencer)), FMeasureCalculator.MICRO_F1_SCORE_NAME, new DoubleResultComparator()),
-                    true);
+                    true, context);
         }
         case RT2KB: {
             return new ConfidenceScoreEvaluatorDecorator<TypedSpan>(new HierarchicalFMeasureCalculator<TypedSpan>(
@@ -181,15 +225,15 @@ public class EvaluatorFactory {
             subTaskConfig = new ExperimentTaskConfiguration(configuration.annotatorConfig, configuration.datasetConfig,
                     ExperimentType.ERec, configuration.matching);
             evaluators.add(new SubTaskEvaluator<>(subTaskConfig, (Evaluator<TypedNamedEntity>) createEvaluator(
-                    ExperimentType.ERec, subTaskConfig, dataset)));
+                    ExperimentType.ERec, subTaskConfig, dataset, globalClassifier, this.inferencer, context)));
             subTaskConfig = new ExperimentTaskConfiguration(configuration.annotatorConfig, configuration.datasetConfig,
                     ExperimentType.D2KB, Matching.STRONG_ENTITY_MATCH);
             evaluators.add(new SubTaskEvaluator<>(subTaskConfig, (Evaluator<TypedNamedEntity>) createEvaluator(
-                    ExperimentType.D2KB, subTaskConfig, dataset)));
+                    ExperimentType.D2KB, subTaskConfig, dataset, globalClassifier, this.inferencer, context)));
             subTaskConfig = new ExperimentTaskConfiguration(configuration.annotatorConfig, configuration.datasetConfig,
                     ExperimentType.ETyping, Matching.STRONG_ENTITY_MATCH);
             evaluators.add(new SubTaskEvaluator<>(subTaskConfig, (Evaluator<TypedNamedEntity>) createEvaluator(
-                    ExperimentType.ETyping, subTaskConfig, dataset, okeClassifierTask1, inferencer)));
+                    ExperimentType.ETyping, subTaskConfig, dataset, okeClassifierTask1, inferencer, context)));
             return new ConfidenceScoreEvaluatorDecorator<TypedNamedEntity>(
                     new SubTaskAverageCalculator<TypedNamedEntity>(evaluators), FMeasureCalculator.MICRO_F1_SCORE_NAME,
                     new DoubleResultComparator());
@@ -209,7 +253,7 @@ public class EvaluatorFactory {
             evaluators.add(new SubTaskEvaluator<>(subTaskConfig, new MarkingFilteringEvaluatorDecorator<>(
                     new TypeBasedMarkingFilter<TypedNamedEntity>(false, classTypes),
                     (Evaluator<TypedNamedEntity>) createEvaluator(ExperimentType.ETyping, subTaskConfig, dataset,
-                            okeClassifierTask2, inferencer))));
+                            okeClassifierTask2, inferencer, context))));
             // sub task 2, find the correct position of the type in the text
             // (use only entities with a class type!)
             subTaskConfig = new ExperimentTaskConfiguration(configuration.annotatorConfig, configuration.datasetConfig,
@@ -217,7 +261,8 @@ public class EvaluatorFactory {
             evaluators.add(new SubTaskEvaluator<>(subTaskConfig, new MarkingFilteringEvaluatorDecorator<>(
                     new TypeBasedMarkingFilter<TypedNamedEntity>(true, classTypes),
                     new SpanMergingEvaluatorDecorator<>((Evaluator<TypedNamedEntity>) createEvaluator(
-                            ExperimentType.ERec, subTaskConfig, dataset)))));
+                            ExperimentType.ERec, subTaskConfig, dataset, globalClassifier, this.inferencer,
+                            context), context))));
 
             return new ConfidenceScoreEvaluatorDecorator<TypedNamedEntity>(
                     new SubTaskAverageCalculator<TypedNamedEntity>(evaluators), FMeasureCalculator.MICRO_F1_SCORE_NAME,
@@ -233,11 +278,12 @@ public class EvaluatorFactory {
             subTaskConfig = new ExperimentTaskConfiguration(configuration.annotatorConfig, configuration.datasetConfig,
                     ExperimentType.RE, Matching.STRONG_ENTITY_MATCH);
             evaluators.add(new ClassSubTaskEvaluator<>(subTaskConfig, (Evaluator<Marking>) createEvaluator(
-                    ExperimentType.RE, subTaskConfig, dataset), Relation.class));
+                    ExperimentType.RE, subTaskConfig, dataset, globalClassifier, this.inferencer, context),
+                    Relation.class));
             subTaskConfig = new ExperimentTaskConfiguration(configuration.annotatorConfig, configuration.datasetConfig,
                     ExperimentType.A2KB, configuration.matching);
             evaluators.add(new ClassSubTaskEvaluator<Meaning>(subTaskConfig, (Evaluator<Meaning>) createEvaluator(
-                    ExperimentType.A2KB, subTaskConfig, dataset, classifier,inferencer ), Meaning.class));
+                    ExperimentType.A2KB, subTaskConfig, dataset, classifier, inferencer, context), Meaning.class));
             
             
             return new ConfidenceScoreEvaluatorDecorator(
@@ -249,9 +295,14 @@ public class EvaluatorFactory {
         }
     }
 
-    @SuppressWarnings({ "unchecked" })
     protected void addSubTaskEvaluators(List<Evaluator<?>> evaluators, ExperimentTaskConfiguration configuration,
             Dataset dataset) {
+        addSubTaskEvaluators(evaluators, configuration, dataset, new EvaluationContext());
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    protected void addSubTaskEvaluators(List<Evaluator<?>> evaluators, ExperimentTaskConfiguration configuration,
+            Dataset dataset, EvaluationContext context) {
         ExperimentTaskConfiguration subTaskConfig;
         switch (configuration.type) {
         case ERec: // falls through
@@ -274,26 +325,26 @@ public class EvaluatorFactory {
             subTaskConfig = new ExperimentTaskConfiguration(configuration.annotatorConfig, configuration.datasetConfig,
                     ExperimentType.ERec, configuration.matching);
             evaluators.add(new SubTaskEvaluator<>(subTaskConfig, createEvaluator(ExperimentType.ERec, subTaskConfig,
-                    dataset)));
+                    dataset, globalClassifier, inferencer, context)));
             subTaskConfig = new ExperimentTaskConfiguration(configuration.annotatorConfig, configuration.datasetConfig,
                     ExperimentType.D2KB, Matching.STRONG_ENTITY_MATCH);
             // evaluators.add(createEvaluator(ExperimentType.ELink,
             // configuration, dataset));
             evaluators.add(new SubTaskEvaluator<>(subTaskConfig, createEvaluator(ExperimentType.D2KB, subTaskConfig,
-                    dataset)));
+                    dataset, globalClassifier, inferencer, context)));
             return;
         }
         case RT2KB: {
             subTaskConfig = new ExperimentTaskConfiguration(configuration.annotatorConfig, configuration.datasetConfig,
                     ExperimentType.ERec, configuration.matching);
             evaluators.add(new SubTaskEvaluator<>(subTaskConfig, createEvaluator(ExperimentType.ERec, subTaskConfig,
-                    dataset)));
+                    dataset, globalClassifier, inferencer, context)));
             subTaskConfig = new ExperimentTaskConfiguration(configuration.annotatorConfig, configuration.datasetConfig,
                     ExperimentType.ETyping, Matching.STRONG_ENTITY_MATCH);
             // evaluators.add(createEvaluator(ExperimentType.ELink,
             // configuration, dataset));
             evaluators.add(new SubTaskEvaluator<>(subTaskConfig, createEvaluator(ExperimentType.ETyping, subTaskConfig,
-                    dataset)));
+                    dataset, globalClassifier, inferencer, context)));
             return;
         }
 
@@ -303,8 +354,23 @@ public class EvaluatorFactory {
         }
     }
 
+    /**
+     * @return the {@link EvaluationContext} of the evaluator that is currently
+     *         created or <code>null</code> if no evaluator is created.
+     */
+    protected EvaluationContext getCurrentContext() {
+        return currentContext.get();
+    }
+
+    /**
+     * Adds the evaluator of the given experiment task and the evaluators of
+     * its sub tasks to the given list. All these evaluators share a single
+     * {@link EvaluationContext}.
+     */
     public void addEvaluators(List<Evaluator<?>> evaluators, ExperimentTaskConfiguration configuration, Dataset dataset) {
-        evaluators.add(createEvaluator(configuration.type, configuration, dataset));
-        addSubTaskEvaluators(evaluators, configuration, dataset);
+        EvaluationContext context = new EvaluationContext();
+        evaluators.add(createEvaluator(configuration.type, configuration, dataset, globalClassifier, inferencer,
+                context));
+        addSubTaskEvaluators(evaluators, configuration, dataset, context);
     }
 }
@@ -0,0 +1,132 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.evaluate;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.aksw.gerbil.config.GerbilConfiguration;
+import org.aksw.gerbil.transfer.nif.Marking;
+
+/**
+ * This class runs a list of independent {@link Evaluator}s on the same
+ * annotator results and gold standard. If the concurrent evaluation is
+ * enabled, the single evaluators are executed concurrently on a dedicated
+ * {@link ForkJoinPool}. Every evaluator writes into its own
+ * {@link EvaluationResultContainer} and the results are added to the given
+ * container in the order of the evaluators. Thus, the result is the same as
+ * the one of a serial execution.
+ *
+ * <p>
+ * Note that the evaluators must not change the given lists.
+ * </p>
+ */
+public class EvaluatorOrchestrator {
+
+    private static final String CONCURRENT_EVALUATION_KEY = "org.aksw.gerbil.evaluate.EvaluatorOrchestrator.concurrentEvaluation";
+    private static final String PARALLELISM_KEY = "org.aksw.gerbil.evaluate.EvaluatorOrchestrator.parallelism";
+
+    private static boolean concurrentEvaluation = GerbilConfiguration.getInstance()
+            .getBoolean(CONCURRENT_EVALUATION_KEY, false);
+    /**
+     * The pool used for the concurrent evaluation. It is created when it is
+     * needed for the first time.
+     */
+    private static ForkJoinPool pool = null;
+
+    /**
+     * Runs the given evaluators and adds their results to the given result
+     * container in the order of the evaluators.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Marking> void evaluate(List<? extends Evaluator<? extends Marking>> evaluators,
+            List<List<T>> annotatorResults, List<List<T>> goldStandard, EvaluationResultContainer results) {
+        if (!concurrentEvaluation || (evaluators.size() < 2)) {
+            for (Evaluator<? extends Marking> e : evaluators) {
+                ((Evaluator<T>) e).evaluate(annotatorResults, goldStandard, results);
+            }
+            return;
+        }
+        EvaluationTask<?> tasks[] = new EvaluationTask<?>[evaluators.size()];
+        for (int i = 0; i < tasks.length; ++i) {
+            tasks[i] = new EvaluationTask<T>((Evaluator<T>) evaluators.get(i), annotatorResults, goldStandard);
+        }
+        getPool().invoke(new EvaluationTasksAction(tasks));
+        for (int i = 0; i < tasks.length; ++i) {
+            for (EvaluationResult result : tasks[i].results.getResults()) {
+                results.addResult(result);
+            }
+        }
+    }
+
+    public static synchronized void setConcurrentEvaluation(boolean flag) {
+        concurrentEvaluation = flag;
+    }
+
+    protected static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(GerbilConfiguration.getInstance().getInt(PARALLELISM_KEY,
+                    Runtime.getRuntime().availableProcessors()));
+        }
+        return pool;
+    }
+
+    /**
+     * Runs all given tasks and waits for them.
+     */
+    protected static class EvaluationTasksAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private ForkJoinTask<?> tasks[];
+
+        public EvaluationTasksAction(ForkJoinTask<?>[] tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     * Runs a single evaluator and stores its results in its own container.
+     */
+    protected static class EvaluationTask<T extends Marking> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private Evaluator<T> evaluator;
+        private List<List<T>> annotatorResults;
+        private List<List<T>> goldStandard;
+        private EvaluationResultContainer results = new EvaluationResultContainer();
+
+        public EvaluationTask(Evaluator<T> evaluator, List<List<T>> annotatorResults, List<List<T>> goldStandard) {
+            this.evaluator = evaluator;
+            this.annotatorResults = annotatorResults;
+            this.goldStandard = goldStandard;
+        }
+
+        @Override
+        protected void compute() {
+            evaluator.evaluate(annotatorResults, goldStandard, results);
+        }
+    }
+}
@@ -17,11 +17,13 @@
 package org.aksw.gerbil.evaluate.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.aksw.gerbil.datatypes.marking.ClassifiedMarking;
 import org.aksw.gerbil.datatypes.marking.ClassifiedMarkingFactory;
 import org.aksw.gerbil.evaluate.AbstractTypeTransformingEvaluatorDecorator;
+import org.aksw.gerbil.evaluate.EvaluationContext;
 import org.aksw.gerbil.evaluate.Evaluator;
 import org.aksw.gerbil.evaluate.TypeTransformingEvaluatorDecorator;
 import org.aksw.gerbil.matching.impl.clas.MarkingClassifier;
@@ -30,7 +32,9 @@ import org.aksw.gerbil.transfer.nif.Marking;
 /**
  * This {@link TypeTransformingEvaluatorDecorator} transforms {@link Marking}
  * instances into {@link ClassifiedMarking} instances based on the given
- * {@link MarkingClassifier} instances.
+ * {@link MarkingClassifier} instances. If an {@link EvaluationContext} is
+ * given, the classified lists are shared with other decorators that use the
+ * same classifiers on the same lists.
  * 
  * @author Michael R&ouml;der (roeder@informatik.uni-leipzig.de)
  *
@@ -43,13 +47,37 @@ public class ClassifyingEvaluatorDecorator<U extends Marking, V extends Classifi
         extends AbstractTypeTransformingEvaluatorDecorator<U, V> {
 
     protected MarkingClassifier<V> classifiers[];
+    /**
+     * The context in which the classified lists are stored. Might be null.
+     */
+    protected EvaluationContext context;
 
     public ClassifyingEvaluatorDecorator(Evaluator<V> evaluator,
             @SuppressWarnings("unchecked") MarkingClassifier<V>... classifiers) {
+        this(evaluator, null, classifiers);
+    }
+
+    public ClassifyingEvaluatorDecorator(Evaluator<V> evaluator, EvaluationContext context,
+            @SuppressWarnings("unchecked") MarkingClassifier<V>... classifiers) {
         super(evaluator);
+        this.context = context;
         this.classifiers = classifiers;
     }
 
+    @Override
+    protected List<List<V>> changeListType(final List<List<U>> markings) {
+        if (context == null) {
+            return super.changeListType(markings);
+        }
+        return context.getOrCompute(Arrays.asList(ClassifyingEvaluatorDecorator.class, Arrays.asList(classifiers)),
+                new EvaluationContext.Computation<List<List<V>>>() {
+                    @Override
+                    public List<List<V>> compute() {
+                        return ClassifyingEvaluatorDecorator.super.changeListType(markings);
+                    }
+                }, markings);
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     protected List<V> changeType(List<U> markings) {
@@ -17,7 +17,10 @@
 package org.aksw.gerbil.evaluate.impl;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import org.aksw.gerbil.config.GerbilConfiguration;
 import org.aksw.gerbil.evaluate.DoubleEvaluationResult;
 import org.aksw.gerbil.evaluate.EvaluationResultContainer;
 import org.aksw.gerbil.evaluate.Evaluator;
@@ -38,8 +41,34 @@ public class ConfidenceBasedFMeasureCalculator<T extends Marking> implements Eva
     protected static final int RECALL = 1;
     protected static final int F1_SCORE = 2;
 
+    private static final String PARALLEL_EVALUATION_KEY = "org.aksw.gerbil.evaluate.impl.ConfidenceBasedFMeasureCalculator.parallelEvaluation";
+    private static final String DOCUMENTS_PER_TASK_KEY = "org.aksw.gerbil.evaluate.impl.ConfidenceBasedFMeasureCalculator.documentsPerTask";
+    private static final String PARALLELISM_KEY = "org.aksw.gerbil.evaluate.impl.ConfidenceBasedFMeasureCalculator.parallelism";
+
+    private static final int DEFAULT_DOCUMENTS_PER_TASK = 8;
+
     private static boolean printDebugMsg = true;
 
+    /**
+     * Flag indicating whether the documents should be counted in parallel
+     * using the {@link #pool}.
+     */
+    private static boolean parallelEvaluation = GerbilConfiguration.getInstance()
+            .getBoolean(PARALLEL_EVALUATION_KEY, false);
+    /**
+     * The maximum number of documents that are counted by a single task
+     * without splitting it further.
+     */
+    private static int documentsPerTask = GerbilConfiguration.getInstance().getInt(DOCUMENTS_PER_TASK_KEY,
+            DEFAULT_DOCUMENTS_PER_TASK);
+    /**
+     * The pool used for counting the documents in parallel. It is created
+     * when it is needed for the first time. A dedicated pool is used to make
+     * sure that the evaluation neither blocks nor is blocked by other users
+     * of the common pool.
+     */
+    private static ForkJoinPool pool = null;
+
     protected ScoredMatchingsCounter<T> matchingsCounter;
 
     public ConfidenceBasedFMeasureCalculator(MatchingsCounter<T> matchingsCounter) {
@@ -61,13 +90,28 @@ public class ConfidenceBasedFMeasureCalculator<T extends Marking> implements Eva
     protected ScoredEvaluationCountsArray generateMatchingCounts(List<List<T>> annotatorResults,
             List<List<T>> goldStandard) {
         ScoredEvaluationCounts counts[][] = new ScoredEvaluationCounts[annotatorResults.size()][];
-        for (int i = 0; i < counts.length; ++i) {
+        if (parallelEvaluation && (counts.length > documentsPerTask)) {
+            // Every task writes only to its own part of the array. Thus, the
+            // merged result is the same as the one of the serial counting.
+            getPool().invoke(new MatchingsCountingTask(annotatorResults, goldStandard, counts, 0, counts.length));
+        } else {
+            generateMatchingCounts(annotatorResults, goldStandard, counts, 0, counts.length);
+        }
+        return ScoredEvaluationCountsArray.create(counts);
+    }
+
+    /**
+     * Counts the matchings of the documents in the range [start, end) and
+     * stores them in the given array.
+     */
+    protected void generateMatchingCounts(List<List<T>> annotatorResults, List<List<T>> goldStandard,
+            ScoredEvaluationCounts counts[][], int start, int end) {
+        for (int i = start; i < end; ++i) {
             if (printDebugMsg && LOGGER.isDebugEnabled()) {
                 LOGGER.debug("${pom_version} " + i + "|||||||||");
             }
             counts[i] = matchingsCounter.countMatchings(annotatorResults.get(i), goldStandard.get(i));
         }
-        return ScoredEvaluationCountsArray.create(counts);
     }
 
     @SuppressWarnings("deprecation")
@@ -187,4 +231,56 @@ public class ConfidenceBasedFMeasureCalculator<T extends Marking> implements Eva
     public static synchronized void setPrintDebugMsg(boolean flag) {
         printDebugMsg = flag;
     }
+
+    public static synchronized void setParallelEvaluation(boolean flag) {
+        parallelEvaluation = flag;
+    }
+
+    protected static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(GerbilConfiguration.getInstance().getInt(PARALLELISM_KEY,
+                    Runtime.getRuntime().availableProcessors()));
+        }
+        return pool;
+    }
+
+    public static synchronized void setDocumentsPerTask(int documentsPerTask) {
+        ConfidenceBasedFMeasureCalculator.documentsPerTask = documentsPerTask;
+    }
+
+    /**
+     * A task counting the matchings of a range of documents. If the range is
+     * larger than {@link ConfidenceBasedFMeasureCalculator#documentsPerTask},
+     * it is split into two sub tasks.
+     */
+    protected class MatchingsCountingTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private List<List<T>> annotatorResults;
+        private List<List<T>> goldStandard;
+        private ScoredEvaluationCounts counts[][];
+        private int start;
+        private int end;
+
+        public MatchingsCountingTask(List<List<T>> annotatorResults, List<List<T>> goldStandard,
+                ScoredEvaluationCounts[][] counts, int start, int end) {
+            this.annotatorResults = annotatorResults;
+            this.goldStandard = goldStandard;
+            this.counts = counts;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (((end - start) <= documentsPerTask) || ((end - start) < 2)) {
+                generateMatchingCounts(annotatorResults, goldStandard, counts, start, end);
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new MatchingsCountingTask(annotatorResults, goldStandard, counts, start, middle),
+                        new MatchingsCountingTask(annotatorResults, goldStandard, counts, middle, end));
+            }
+        }
+    }
 }
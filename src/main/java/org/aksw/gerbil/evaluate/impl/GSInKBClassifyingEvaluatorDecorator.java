@@ -16,8 +16,10 @@
  */
 package org.aksw.gerbil.evaluate.impl;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import org.aksw.gerbil.datatypes.marking.ClassifiedMarkingFactory;
 import org.aksw.gerbil.datatypes.marking.ClassifiedSpanMeaning;
 import org.aksw.gerbil.datatypes.marking.MarkingClasses;
 import org.aksw.gerbil.evaluate.AbstractEvaluatorDecorator;
@@ -34,6 +36,13 @@ import com.carrotsearch.hppc.BitSet;
  * class. Note that its implementation is based on the assumption that the
  * {@link ClassifiedSpanMeaning}s
  * 
+ * <p>
+ * Since the given lists might be shared with other evaluators (see
+ * {@link org.aksw.gerbil.evaluate.EvaluationContext}), they are not changed.
+ * Instead, a marking that has to be classified is replaced by a copy inside
+ * a new list.
+ * </p>
+ * 
  * @author Michael R&ouml;der (roeder@informatik.uni-leipzig.de)
  *
  * @param <T>
@@ -51,28 +60,36 @@ public class GSInKBClassifyingEvaluatorDecorator<T extends ClassifiedSpanMeaning
     @Override
     public void evaluate(List<List<T>> annotatorResults, List<List<T>> goldStandard,
             EvaluationResultContainer results) {
-        classify(annotatorResults, goldStandard);
-        evaluator.evaluate(annotatorResults, goldStandard, results);
+        List<List<T>> classifiedAnnotatorResults = new ArrayList<List<T>>(annotatorResults.size());
+        List<List<T>> classifiedGoldStandard = new ArrayList<List<T>>(goldStandard.size());
+        classify(annotatorResults, goldStandard, classifiedAnnotatorResults, classifiedGoldStandard);
+        evaluator.evaluate(classifiedAnnotatorResults, classifiedGoldStandard, results);
     }
 
-    protected void classify(List<List<T>> annotatorResults, List<List<T>> goldStandard) {
+    protected void classify(List<List<T>> annotatorResults, List<List<T>> goldStandard,
+            List<List<T>> classifiedAnnotatorResults, List<List<T>> classifiedGoldStandard) {
         List<T> goldList;
         for (int i = 0; i < annotatorResults.size(); ++i) {
-            goldList = goldStandard.get(i);
-            classifyGoldStdList(goldList);
-            classifyAnnotatorList(annotatorResults.get(i), goldList);
+            goldList = classifyGoldStdList(goldStandard.get(i));
+            classifiedGoldStandard.add(goldList);
+            classifiedAnnotatorResults.add(classifyAnnotatorList(annotatorResults.get(i), goldList));
         }
     }
 
-    private void classifyGoldStdList(List<T> goldStandard) {
+    private List<T> classifyGoldStdList(List<T> goldStandard) {
+        List<T> classifiedList = new ArrayList<T>(goldStandard.size());
         for (T marking : goldStandard) {
             if (marking.hasClass(MarkingClasses.IN_KB)) {
+                marking = copy(marking);
                 marking.setClass(MarkingClasses.GS_IN_KB);
             }
+            classifiedList.add(marking);
         }
+        return classifiedList;
     }
 
-    private void classifyAnnotatorList(List<T> annotatorResults, List<T> goldStandard) {
+    private List<T> classifyAnnotatorList(List<T> annotatorResults, List<T> goldStandard) {
+        List<T> classifiedList = new ArrayList<T>(annotatorResults.size());
         BitSet matchingElements;
         BitSet alreadyUsedResults = new BitSet(goldStandard.size());
         int matchingElementId;
@@ -88,10 +105,18 @@ public class GSInKBClassifyingEvaluatorDecorator<T extends ClassifiedSpanMeaning
                     matchingElementId = matchingElements.nextSetBit(matchingElementId + 1);
                 }
                 if (elementInKb) {
+                    marking = copy(marking);
                     marking.setClass(MarkingClasses.GS_IN_KB);
                 }
             }
+            classifiedList.add(marking);
         }
+        return classifiedList;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T copy(T marking) {
+        return (T) ClassifiedMarkingFactory.copyClassifiedMarking(marking);
     }
 
 }
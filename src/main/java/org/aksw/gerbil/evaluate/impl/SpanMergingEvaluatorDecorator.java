@@ -23,6 +23,7 @@ import java.util.HashSet;
 import java.util.List;
 
 import org.aksw.gerbil.evaluate.AbstractEvaluatorDecorator;
+import org.aksw.gerbil.evaluate.EvaluationContext;
 import org.aksw.gerbil.evaluate.EvaluationResultContainer;
 import org.aksw.gerbil.evaluate.Evaluator;
 import org.aksw.gerbil.transfer.nif.Meaning;
@@ -34,11 +35,14 @@ import org.aksw.gerbil.transfer.nif.data.NamedEntity;
 import org.aksw.gerbil.transfer.nif.data.SpanImpl;
 import org.aksw.gerbil.transfer.nif.data.TypedNamedEntity;
 import org.aksw.gerbil.transfer.nif.data.TypedSpanImpl;
-
-import com.carrotsearch.hppc.IntIntOpenHashMap;
+import org.aksw.gerbil.utils.SpanEnclosureDetector;
 
 /**
- * Merges {@link Span} instances if one is completely enclosed by the other.
+ * Merges {@link Span} instances if one is completely enclosed by the other. If
+ * an {@link EvaluationContext} is given, the merged lists are shared with
+ * other decorators merging the same lists. The enclosed spans are detected
+ * using the {@link SpanEnclosureDetector}. Every enclosed span is merged into
+ * the longest span enclosing it.
  * 
  * @author Michael R&ouml;der (roeder@informatik.uni-leipzig.de)
  * 
@@ -47,8 +51,18 @@ import com.carrotsearch.hppc.IntIntOpenHashMap;
 public class SpanMergingEvaluatorDecorator<T extends Span> extends AbstractEvaluatorDecorator<T> implements
         Comparator<Span> {
 
+    /**
+     * The context in which the merged lists are stored. Might be null.
+     */
+    protected EvaluationContext context;
+
     public SpanMergingEvaluatorDecorator(Evaluator<T> evaluator) {
+        this(evaluator, null);
+    }
+
+    public SpanMergingEvaluatorDecorator(Evaluator<T> evaluator, EvaluationContext context) {
         super(evaluator);
+        this.context = context;
     }
 
     @Override
@@ -56,7 +70,20 @@ public class SpanMergingEvaluatorDecorator<T extends Span> extends AbstractEvalu
         evaluator.evaluate(mergeListOfLists(annotatorResults), mergeListOfLists(goldStandard), results);
     }
 
-    protected List<List<T>> mergeListOfLists(List<List<T>> spans) {
+    protected List<List<T>> mergeListOfLists(final List<List<T>> spans) {
+        if (context == null) {
+            return mergeListOfListsDirectly(spans);
+        }
+        return context.getOrCompute(SpanMergingEvaluatorDecorator.class,
+                new EvaluationContext.Computation<List<List<T>>>() {
+                    @Override
+                    public List<List<T>> compute() {
+                        return mergeListOfListsDirectly(spans);
+                    }
+                }, spans);
+    }
+
+    protected List<List<T>> mergeListOfListsDirectly(List<List<T>> spans) {
         List<List<T>> mergedLists = new ArrayList<List<T>>(spans.size());
         for (List<T> list : spans) {
             mergedLists.add(merge(list));
@@ -67,38 +94,40 @@ public class SpanMergingEvaluatorDecorator<T extends Span> extends AbstractEvalu
     @SuppressWarnings("unchecked")
     protected List<T> merge(List<T> spans) {
         Span spanArray[] = spans.toArray(new Span[spans.size()]);
-        Arrays.sort(spanArray, this);
-        IntIntOpenHashMap enclosedByMap = new IntIntOpenHashMap();
-        boolean isEnclosed;
-        for (int i = 0; i < spanArray.length; ++i) {
-            isEnclosed = false;
-            for (int j = spanArray.length - 1; (j > i) && (!isEnclosed); --j) {
-                // if spanArray[i] is enclosed by spanArray[j]
-                if ((spanArray[i].getStartPosition() >= spanArray[j].getStartPosition())
-                        && ((spanArray[i].getStartPosition() + spanArray[i].getLength()) <= (spanArray[j]
-                                .getStartPosition() + spanArray[j].getLength()))) {
-                    enclosedByMap.put(i, j);
-                    isEnclosed = true;
-                }
+        int enclosingSpans[] = SpanEnclosureDetector.findEnclosingSpans(spanArray);
+        int numberOfMaximalSpans = 0;
+        for (int i = 0; i < enclosingSpans.length; ++i) {
+            if (enclosingSpans[i] == SpanEnclosureDetector.NOT_ENCLOSED) {
+                ++numberOfMaximalSpans;
             }
         }
         // if no match could be found
-        if (enclosedByMap.size() == 0) {
+        if (numberOfMaximalSpans == spanArray.length) {
             return spans;
         }
 
-        List<T> mergedMarkings = new ArrayList<T>(spans.size());
-        // starting with the smallest span, check if a span is enclosed by
-        // another
+        // merge every enclosed span into the span that encloses it
         int largerSpanId;
         for (int i = 0; i < spanArray.length; ++i) {
-            if (enclosedByMap.containsKey(i)) {
-                largerSpanId = enclosedByMap.lget();
+            largerSpanId = enclosingSpans[i];
+            if (largerSpanId != SpanEnclosureDetector.NOT_ENCLOSED) {
                 spanArray[largerSpanId] = merge(spanArray[i], spanArray[largerSpanId]);
-            } else {
-                mergedMarkings.add((T) spanArray[i]);
             }
         }
+        Span mergedSpans[] = new Span[numberOfMaximalSpans];
+        int pos = 0;
+        for (int i = 0; i < spanArray.length; ++i) {
+            if (enclosingSpans[i] == SpanEnclosureDetector.NOT_ENCLOSED) {
+                mergedSpans[pos] = spanArray[i];
+                ++pos;
+            }
+        }
+        // return the spans sorted by their length
+        Arrays.sort(mergedSpans, this);
+        List<T> mergedMarkings = new ArrayList<T>(mergedSpans.length);
+        for (int i = 0; i < mergedSpans.length; ++i) {
+            mergedMarkings.add((T) mergedSpans[i]);
+        }
         return mergedMarkings;
     }
 
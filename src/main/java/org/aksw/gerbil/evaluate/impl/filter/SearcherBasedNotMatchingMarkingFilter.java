@@ -17,9 +17,11 @@
 package org.aksw.gerbil.evaluate.impl.filter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.aksw.gerbil.evaluate.AbstractEvaluatorDecorator;
+import org.aksw.gerbil.evaluate.EvaluationContext;
 import org.aksw.gerbil.evaluate.EvaluationResultContainer;
 import org.aksw.gerbil.evaluate.Evaluator;
 import org.aksw.gerbil.evaluate.EvaluatorDecorator;
@@ -31,7 +33,9 @@ import com.carrotsearch.hppc.BitSet;
 /**
  * This evaluator decorator removes every marking from the given list that does
  * not match the given gold standard list based on a given
- * {@link MatchingsSearcher} instance.
+ * {@link MatchingsSearcher} instance. If an {@link EvaluationContext} is given,
+ * the filtered lists are shared with other filters that use an equal
+ * searcher on the same lists.
  * 
  * @author Michael R&ouml;der (roeder@informatik.uni-leipzig.de)
  *
@@ -47,6 +51,10 @@ public class SearcherBasedNotMatchingMarkingFilter<T extends Marking> extends Ab
      * match several markings or only a single one.
      */
     protected boolean multiMatchingAllowed;
+    /**
+     * The context in which the filtered lists are stored. Might be null.
+     */
+    protected EvaluationContext context;
 
     /**
      * Constructor.
@@ -63,12 +71,48 @@ public class SearcherBasedNotMatchingMarkingFilter<T extends Marking> extends Ab
      */
     public SearcherBasedNotMatchingMarkingFilter(MatchingsSearcher<T> searcher, Evaluator<T> evaluator,
             boolean multiMatchingAllowed) {
+        this(searcher, evaluator, multiMatchingAllowed, null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param searcher
+     *            The MatchingsSearcher that is used to identify matching
+     *            {@link Marking}s.
+     * @param evaluator
+     *            The {@link Evaluator} that is decorated by this
+     *            {@link EvaluatorDecorator}.
+     * @param multiMatchingAllowed
+     *            This flag indicates whether a marking of the gold standard is
+     *            allowed to match several markings or only a single one.
+     * @param context
+     *            The context in which the filtered lists are shared with
+     *            other evaluators (might be null).
+     */
+    public SearcherBasedNotMatchingMarkingFilter(MatchingsSearcher<T> searcher, Evaluator<T> evaluator,
+            boolean multiMatchingAllowed, EvaluationContext context) {
         super(evaluator);
         this.searcher = searcher;
         this.multiMatchingAllowed = multiMatchingAllowed;
+        this.context = context;
+    }
+
+    protected List<List<T>> filterListOfMarkings(final List<List<T>> markings, final List<List<T>> goldStandard) {
+        if (context == null) {
+            return filterListOfMarkingsDirectly(markings, goldStandard);
+        }
+        return context.getOrCompute(
+                Arrays.asList(SearcherBasedNotMatchingMarkingFilter.class, searcher, multiMatchingAllowed),
+                new EvaluationContext.Computation<List<List<T>>>() {
+                    @Override
+                    public List<List<T>> compute() {
+                        return filterListOfMarkingsDirectly(markings, goldStandard);
+                    }
+                }, markings, goldStandard);
     }
 
-    protected List<List<T>> filterListOfMarkings(List<List<T>> markings, List<List<T>> goldStandard) {
+    protected List<List<T>> filterListOfMarkingsDirectly(List<List<T>> markings, List<List<T>> goldStandard) {
         List<List<T>> filteredMarkings = new ArrayList<List<T>>(markings.size());
         for (int i = 0; i < markings.size(); ++i) {
             filteredMarkings.add(filterMarkings(markings.get(i), goldStandard.get(i)));
@@ -46,6 +46,7 @@ import org.aksw.gerbil.evaluate.EvaluationResult;
 import org.aksw.gerbil.evaluate.EvaluationResultContainer;
 import org.aksw.gerbil.evaluate.Evaluator;
 import org.aksw.gerbil.evaluate.EvaluatorFactory;
+import org.aksw.gerbil.evaluate.EvaluatorOrchestrator;
 import org.aksw.gerbil.evaluate.IntEvaluationResult;
 import org.aksw.gerbil.evaluate.SubTaskResult;
 import org.aksw.gerbil.exceptions.GerbilException;
@@ -540,13 +541,10 @@ public class ExperimentTask implements Task {
 
 	}
 
-	@SuppressWarnings("unchecked")
 	protected <T extends Marking> EvaluationResult evaluate(List<Evaluator<? extends Marking>> evaluators,
 			List<List<T>> annotatorResults, List<List<T>> goldStandard) {
 		EvaluationResultContainer evalResults = new EvaluationResultContainer();
-		for (Evaluator<? extends Marking> e : evaluators) {
-			((Evaluator<T>) e).evaluate(annotatorResults, goldStandard, evalResults);
-		}
+		EvaluatorOrchestrator.evaluate(evaluators, annotatorResults, goldStandard, evalResults);
 		return evalResults;
 	}
 
@@ -56,6 +56,17 @@ public class HttpManagement {
      * could block the system.
      */
     private static final long BLOCKING_DOMAIN_WAITING_TIME = 500;
+    /**
+     * The maximum number of connections the client keeps open to a single
+     * host. Note that the
+     * {@link org.aksw.gerbil.dataset.check.impl.HttpBasedEntityChecker} sends
+     * up to this number of concurrent requests to a host.
+     */
+    public static final int MAX_CONNECTIONS_PER_ROUTE = 4;
+    /**
+     * The maximum number of connections the client keeps open in total.
+     */
+    public static final int MAX_CONNECTIONS_TOTAL = 64;
 
     private static final String INTERRUPTER_THREAD_NAME = "HttpInterrupter";
     private static final String USER_AGENT_STRING = "GERBIL/" + GerbilConfiguration.getGerbilVersion()
@@ -143,9 +154,11 @@ public class HttpManagement {
             }
         }
 
+        // sleep until the reserved point in time. Note that concurrent
+        // requests to the same domain reserve consecutive points in time.
         if (timeToSleep > 0) {
             try {
-                Thread.sleep(BLOCKING_DOMAIN_WAITING_TIME);
+                Thread.sleep(timeToSleep);
             } catch (InterruptedException e) {
                 LOGGER.error("Interrupted while waiting for permission. Sending will start now.");
             }
@@ -194,6 +207,8 @@ public class HttpManagement {
     public HttpClientBuilder generateHttpClientBuilder() {
         HttpClientBuilder builder = HttpClientBuilder.create();
         builder.setUserAgent(userAgent);
+        builder.setMaxConnPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+        builder.setMaxConnTotal(MAX_CONNECTIONS_TOTAL);
 
         String proxyHost = GerbilConfiguration.getInstance().getString(PROXY_HOST_KEY);
         int proxyPort = GerbilConfiguration.getInstance().getInt(PROXY_PORT_KEY, DEFAULT_PROXY_PORT);
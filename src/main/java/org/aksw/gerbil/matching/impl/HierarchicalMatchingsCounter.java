@@ -17,6 +17,8 @@
 package org.aksw.gerbil.matching.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -28,6 +30,8 @@ import org.aksw.gerbil.semantic.subclass.ClassNode;
 import org.aksw.gerbil.semantic.subclass.ClassSet;
 import org.aksw.gerbil.semantic.subclass.ClassifiedClassNode;
 import org.aksw.gerbil.semantic.subclass.ClassifyingClassNodeFactory;
+import org.aksw.gerbil.semantic.subclass.CompiledClassHierarchy;
+import org.aksw.gerbil.semantic.subclass.CompiledSubClassInferencer;
 import org.aksw.gerbil.semantic.subclass.SimpleClassSet;
 import org.aksw.gerbil.semantic.subclass.SubClassInferencer;
 import org.aksw.gerbil.transfer.nif.TypedMarking;
@@ -52,12 +56,31 @@ public class HierarchicalMatchingsCounter<T extends TypedMarking> {
     protected List<List<int[]>> counts = new ArrayList<List<int[]>>();
     protected SubClassInferencer inferencer;
     private UriKBClassifier uriKBClassifier;
+    /**
+     * The compiled hierarchy of the inferencer or <code>null</code> if the
+     * inferencer is not based on a compiled hierarchy.
+     */
+    private CompiledClassHierarchy hierarchy;
+    /**
+     * The ids of all nodes of the compiled hierarchy that have at least one URI
+     * of a known KB.
+     */
+    private BitSet kbNodes;
 
     public HierarchicalMatchingsCounter(MatchingsSearcher<T> matchingsSearcher, UriKBClassifier uriKBClassifier,
             SubClassInferencer inferencer) {
         this.matchingsSearcher = matchingsSearcher;
         this.uriKBClassifier = uriKBClassifier;
         this.inferencer = inferencer;
+        if (inferencer instanceof CompiledSubClassInferencer) {
+            hierarchy = ((CompiledSubClassInferencer) inferencer).getHierarchy();
+            kbNodes = new BitSet(hierarchy.getNumberOfNodes());
+            for (int i = 0; i < hierarchy.getNumberOfNodes(); ++i) {
+                if (uriKBClassifier.containsKBUri(Arrays.asList(hierarchy.getUris(i)))) {
+                    kbNodes.set(i);
+                }
+            }
+        }
     }
 
     public List<EvaluationCounts> countMatchings(List<T> annotatorResult, List<T> goldStandard) {
@@ -80,22 +103,26 @@ public class HierarchicalMatchingsCounter<T extends TypedMarking> {
                 matchedResult = annotatorResult.get(matchedResultId);
                 alreadyUsedResults.set(matchedResultId);
 
-                // Derive the classes and sub classes for the types given by the
-                // dataset
-                classes = new SimpleClassSet();
-                types = expectedElement.getTypes();
-                for (String typeURI : types) {
-                    inferencer.inferSubClasses(typeURI, classes, expectedClassesFactory);
-                }
-                // Derive the classes and sub classes for the types returned by
-                // the annotator
-                types = matchedResult.getTypes();
-                for (String typeURI : types) {
-                    inferencer.inferSubClasses(typeURI, classes, annotatorClassesFactory);
+                if (hierarchy != null) {
+                    documentCounts = countMatchings(expectedElement.getTypes(), matchedResult.getTypes());
+                } else {
+                    // Derive the classes and sub classes for the types given by the
+                    // dataset
+                    classes = new SimpleClassSet();
+                    types = expectedElement.getTypes();
+                    for (String typeURI : types) {
+                        inferencer.inferSubClasses(typeURI, classes, expectedClassesFactory);
+                    }
+                    // Derive the classes and sub classes for the types returned by
+                    // the annotator
+                    types = matchedResult.getTypes();
+                    for (String typeURI : types) {
+                        inferencer.inferSubClasses(typeURI, classes, annotatorClassesFactory);
+                    }
+                    // Count the matchings
+                    documentCounts = countMatchings(classes);
+                    LOGGER.debug("Type matching found {} (classes={}).", documentCounts, classes);
                 }
-                // Count the matchings
-                documentCounts = countMatchings(classes);
-                LOGGER.debug("Type matching found {} (classes={}).", documentCounts, classes);
 
                 // If the annotator did not return a type of a known KB and the
                 // gold standard did not contain a type of a known KB
@@ -122,6 +149,58 @@ public class HierarchicalMatchingsCounter<T extends TypedMarking> {
         return localCounts;
     }
 
+    /**
+     * Counts the matchings of the given types using the bit sets of the
+     * compiled class hierarchy.
+     */
+    private EvaluationCounts countMatchings(Set<String> expectedTypes, Set<String> annotatorTypes) {
+        Set<String> unknownExpectedTypes = new HashSet<String>();
+        Set<String> unknownAnnotatorTypes = new HashSet<String>();
+        BitSet expectedClasses = deriveClasses(expectedTypes, unknownExpectedTypes);
+        BitSet annotatorClasses = deriveClasses(annotatorTypes, unknownAnnotatorTypes);
+        expectedClasses.and(kbNodes);
+        annotatorClasses.and(kbNodes);
+        BitSet matchingClasses = (BitSet) expectedClasses.clone();
+        matchingClasses.and(annotatorClasses);
+
+        EvaluationCounts documentCounts = new EvaluationCounts();
+        documentCounts.truePositives = (int) matchingClasses.cardinality();
+        documentCounts.falseNegatives = (int) expectedClasses.cardinality() - documentCounts.truePositives;
+        documentCounts.falsePositives = (int) annotatorClasses.cardinality() - documentCounts.truePositives;
+        // Types that are not part of the hierarchy are handled as single nodes
+        for (String uri : unknownExpectedTypes) {
+            if (uriKBClassifier.isKBUri(uri)) {
+                if (unknownAnnotatorTypes.contains(uri)) {
+                    ++documentCounts.truePositives;
+                } else {
+                    ++documentCounts.falseNegatives;
+                }
+            }
+        }
+        for (String uri : unknownAnnotatorTypes) {
+            if (!unknownExpectedTypes.contains(uri) && uriKBClassifier.isKBUri(uri)) {
+                ++documentCounts.falsePositives;
+            }
+        }
+        LOGGER.debug("Type matching found {} (expected={}, annotator={}).", documentCounts, expectedTypes,
+                annotatorTypes);
+        return documentCounts;
+    }
+
+    private BitSet deriveClasses(Set<String> types, Set<String> unknownTypes) {
+        BitSet classes = new BitSet(hierarchy.getNumberOfNodes());
+        int nodeId;
+        for (String typeURI : types) {
+            nodeId = hierarchy.getNodeId(typeURI);
+            if (nodeId == CompiledClassHierarchy.UNKNOWN_CLASS) {
+                unknownTypes.add(typeURI);
+            } else {
+                classes.or(hierarchy.getSubClasses(nodeId));
+            }
+        }
+        return classes;
+    }
+
     private EvaluationCounts countMatchings(ClassSet classes) {
         EvaluationCounts documentCounts = new EvaluationCounts();
         Iterator<ClassNode> iterator = classes.iterator();
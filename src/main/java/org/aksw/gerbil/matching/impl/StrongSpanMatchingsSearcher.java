@@ -41,4 +41,15 @@ public class StrongSpanMatchingsSearcher<T extends Span> implements MatchingsSea
         return matching;
     }
 
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        // the searcher has no state, i.e., all instances of the same class are
+        // equal
+        return (obj != null) && (getClass() == obj.getClass());
+    }
 }
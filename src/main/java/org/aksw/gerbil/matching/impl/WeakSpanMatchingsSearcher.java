@@ -51,4 +51,15 @@ public class WeakSpanMatchingsSearcher<T extends Span> implements MatchingsSearc
         return matching;
     }
 
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        // the searcher has no state, i.e., all instances of the same class are
+        // equal
+        return (obj != null) && (getClass() == obj.getClass());
+    }
 }
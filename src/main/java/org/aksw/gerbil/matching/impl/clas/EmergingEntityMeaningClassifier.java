@@ -36,4 +36,16 @@ public class EmergingEntityMeaningClassifier<T extends ClassifiedMarking> implem
         }
     }
 
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        // the classifier has no state, i.e., all instances of the same class
+        // are equal
+        return (obj != null) && (getClass() == obj.getClass());
+    }
+
 }
\ No newline at end of file
@@ -36,4 +36,32 @@ public class UriBasedMeaningClassifier<T extends ClassifiedMeaning> implements M
             marking.setClass(clazz);
         }
     }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((classifier == null) ? 0 : classifier.hashCode());
+        result = prime * result + ((clazz == null) ? 0 : clazz.hashCode());
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        UriBasedMeaningClassifier<?> other = (UriBasedMeaningClassifier<?>) obj;
+        if (classifier == null) {
+            if (other.classifier != null)
+                return false;
+        } else if (!classifier.equals(other.classifier))
+            return false;
+        if (clazz != other.clazz)
+            return false;
+        return true;
+    }
 }
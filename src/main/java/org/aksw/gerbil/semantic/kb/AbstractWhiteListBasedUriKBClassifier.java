@@ -16,31 +16,33 @@
  */
 package org.aksw.gerbil.semantic.kb;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
+/**
+ * Classifies URIs as part of the KB if they start with one of the given name
+ * spaces. The name spaces are compiled into a {@link NamespacePrefixMatcher},
+ * i.e., the classification of a URI does not depend on the number of name
+ * spaces.
+ */
 public abstract class AbstractWhiteListBasedUriKBClassifier implements UriKBClassifier {
 
     protected String kbNamespaces[];
+    protected NamespacePrefixMatcher<String> namespaceMatcher;
 
     public AbstractWhiteListBasedUriKBClassifier(String kbNamespaces[]) {
         this.kbNamespaces = kbNamespaces;
+        this.namespaceMatcher = NamespacePrefixMatcher.create(Arrays.asList(kbNamespaces));
     }
 
     public AbstractWhiteListBasedUriKBClassifier(List<String> kbNamespaces) {
-        this.kbNamespaces = kbNamespaces.toArray(new String[kbNamespaces.size()]);
+        this(kbNamespaces.toArray(new String[kbNamespaces.size()]));
     }
 
     @Override
     public boolean isKBUri(String uri) {
-        if (uri != null) {
-            for (int i = 0; i < kbNamespaces.length; ++i) {
-                if (uri.startsWith(kbNamespaces[i])) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return namespaceMatcher.matches(uri);
     }
 
     @Override
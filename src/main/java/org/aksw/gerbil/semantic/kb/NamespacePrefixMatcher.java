@@ -0,0 +1,166 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.kb;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A prefix tree (trie) of URI name spaces. It finds the longest name space
+ * that is a prefix of a given URI with a single pass over the characters of
+ * the URI, i.e., independent of the number of name spaces. Every name space
+ * can be associated with a value. Instances are immutable and can be shared
+ * between threads.
+ * 
+ * @param <V>
+ *            the type of the values associated with the name spaces
+ */
+public class NamespacePrefixMatcher<V> {
+
+    private static final char EMPTY_LABELS[] = new char[0];
+    private static final Node EMPTY_CHILDREN[] = new Node[0];
+
+    /**
+     * Creates a matcher for the given name spaces. The name spaces are used as
+     * their own values.
+     */
+    public static NamespacePrefixMatcher<String> create(Collection<String> namespaces) {
+        Node root = new Node();
+        for (String namespace : namespaces) {
+            if (namespace != null) {
+                root.insert(namespace, namespace);
+            }
+        }
+        return new NamespacePrefixMatcher<String>(root);
+    }
+
+    /**
+     * Creates a matcher for the name spaces (keys) of the given map associated
+     * with their values.
+     */
+    public static <V> NamespacePrefixMatcher<V> create(Map<String, V> namespaces) {
+        Node root = new Node();
+        for (Map.Entry<String, V> entry : namespaces.entrySet()) {
+            if (entry.getKey() != null) {
+                root.insert(entry.getKey(), entry.getValue());
+            }
+        }
+        return new NamespacePrefixMatcher<V>(root);
+    }
+
+    private final Node root;
+
+    protected NamespacePrefixMatcher(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * @return true if at least one name space is a prefix of the given URI
+     */
+    public boolean matches(String uri) {
+        if (uri == null) {
+            return false;
+        }
+        Node node = root;
+        int length = uri.length();
+        for (int i = 0; !node.isNamespace; ++i) {
+            if (i == length) {
+                return false;
+            }
+            node = node.getChild(uri.charAt(i));
+            if (node == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the value of the longest name space that is a prefix of the
+     *         given URI or null if there is no such name space
+     */
+    @SuppressWarnings("unchecked")
+    public V getLongestMatch(String uri) {
+        if (uri == null) {
+            return null;
+        }
+        Node node = root;
+        Object value = node.value;
+        int length = uri.length();
+        for (int i = 0; i < length; ++i) {
+            node = node.getChild(uri.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.isNamespace) {
+                value = node.value;
+            }
+        }
+        return (V) value;
+    }
+
+    /**
+     * A node of the tree. The children are stored in an array sorted by the
+     * characters of their labels.
+     */
+    private static class Node {
+        private char labels[] = EMPTY_LABELS;
+        private Node children[] = EMPTY_CHILDREN;
+        private boolean isNamespace = false;
+        private Object value;
+
+        private Node getChild(char c) {
+            int pos = Arrays.binarySearch(labels, c);
+            return (pos >= 0) ? children[pos] : null;
+        }
+
+        private void insert(String namespace, Object value) {
+            Node node = this;
+            Node child;
+            char c;
+            int pos;
+            for (int i = 0; i < namespace.length(); ++i) {
+                c = namespace.charAt(i);
+                pos = Arrays.binarySearch(node.labels, c);
+                if (pos >= 0) {
+                    child = node.children[pos];
+                } else {
+                    pos = -pos - 1;
+                    child = new Node();
+                    node.addChild(pos, c, child);
+                }
+                node = child;
+            }
+            node.isNamespace = true;
+            node.value = value;
+        }
+
+        private void addChild(int pos, char c, Node child) {
+            char newLabels[] = new char[labels.length + 1];
+            Node newChildren[] = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, pos);
+            System.arraycopy(children, 0, newChildren, 0, pos);
+            newLabels[pos] = c;
+            newChildren[pos] = child;
+            System.arraycopy(labels, pos, newLabels, pos + 1, labels.length - pos);
+            System.arraycopy(children, pos, newChildren, pos + 1, children.length - pos);
+            labels = newLabels;
+            children = newChildren;
+        }
+    }
+}
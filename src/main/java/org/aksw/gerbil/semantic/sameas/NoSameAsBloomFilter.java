@@ -0,0 +1,169 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.sameas;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.Funnels;
+
+/**
+ * <p>
+ * A Bloom filter containing URIs that are known to have no sameAs links. It
+ * can be used to answer requests for these URIs without sending them through
+ * the retrievers. Note that a Bloom filter can have false positives, i.e.,
+ * with the probability given at creation time, a URI with sameAs links is
+ * seen as a URI without links. The filter can not be resized. If more URIs
+ * than expected are added, the false positive probability increases and the
+ * filter should be rebuilt with the
+ * {@link org.aksw.gerbil.tools.NoSameAsBloomFilterTool}.
+ * </p>
+ * <p>
+ * The filter is thread safe.
+ * </p>
+ */
+public class NoSameAsBloomFilter {
+
+    public static final int DEFAULT_EXPECTED_INSERTIONS = 1000000;
+    public static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.0001;
+
+    private static final int MAGIC_NUMBER = 0x4E534142;
+    private static final int VERSION = 1;
+    private static final Funnel<CharSequence> FUNNEL = Funnels.stringFunnel(StandardCharsets.UTF_8);
+
+    public static NoSameAsBloomFilter create() {
+        return create(DEFAULT_EXPECTED_INSERTIONS, DEFAULT_FALSE_POSITIVE_PROBABILITY);
+    }
+
+    public static NoSameAsBloomFilter create(int expectedInsertions, double falsePositiveProbability) {
+        return new NoSameAsBloomFilter(BloomFilter.create(FUNNEL, expectedInsertions, falsePositiveProbability),
+                expectedInsertions, 0);
+    }
+
+    /**
+     * Reads the filter from the given file.
+     *
+     * @throws IOException
+     *             if the file can not be read or does not contain a filter
+     */
+    public static NoSameAsBloomFilter readFrom(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if ((in.readInt() != MAGIC_NUMBER) || (in.readInt() != VERSION)) {
+                throw new IOException("The file " + file + " does not contain a filter of version " + VERSION + ".");
+            }
+            int expectedInsertions = in.readInt();
+            long numberOfUris = in.readLong();
+            return new NoSameAsBloomFilter(BloomFilter.readFrom(in, FUNNEL), expectedInsertions, numberOfUris);
+        }
+    }
+
+    private BloomFilter<CharSequence> filter;
+    private int expectedInsertions;
+    private long numberOfUris;
+    private ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    protected NoSameAsBloomFilter(BloomFilter<CharSequence> filter, int expectedInsertions, long numberOfUris) {
+        this.filter = filter;
+        this.expectedInsertions = expectedInsertions;
+        this.numberOfUris = numberOfUris;
+    }
+
+    /**
+     * @return true if the given URI (most probably) has no sameAs links
+     */
+    public boolean hasNoSameAs(String uri) {
+        lock.readLock().lock();
+        try {
+            return filter.mightContain(uri);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the given URI as URI without sameAs links.
+     *
+     * @return true if the filter has been changed
+     */
+    public boolean addUriWithoutSameAs(String uri) {
+        lock.writeLock().lock();
+        try {
+            if (filter.put(uri)) {
+                ++numberOfUris;
+                return true;
+            } else {
+                return false;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the filter to a temporary file that replaces the given file
+     * afterwards.
+     */
+    public void writeTo(File file) throws IOException {
+        File tempFile = new File(file.getAbsolutePath() + "_temp");
+        lock.readLock().lock();
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC_NUMBER);
+            out.writeInt(VERSION);
+            out.writeInt(expectedInsertions);
+            out.writeLong(numberOfUris);
+            filter.writeTo(out);
+        } finally {
+            lock.readLock().unlock();
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @return the number of URIs that have been added (URIs that have been
+     *         seen as already contained are not counted)
+     */
+    public long getNumberOfUris() {
+        return numberOfUris;
+    }
+
+    public int getExpectedInsertions() {
+        return expectedInsertions;
+    }
+
+    /**
+     * @return true if more URIs than expected have been added, i.e., the
+     *         false positive probability is higher than expected and the
+     *         filter should be rebuilt
+     */
+    public boolean isSaturated() {
+        return numberOfUris > expectedInsertions;
+    }
+}
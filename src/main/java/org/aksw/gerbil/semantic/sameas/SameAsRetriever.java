@@ -16,10 +16,28 @@
  */
 package org.aksw.gerbil.semantic.sameas;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 public interface SameAsRetriever extends SingleUriSameAsRetriever {
 
     public void addSameURIs(Set<String> uris);
 
+    /**
+     * Retrieves the URIs having a sameAs link for all given URIs at once.
+     * Implementations can use this to resolve the URIs with batched requests
+     * and a single cache transaction.
+     * 
+     * @param uris
+     *            the URIs for which sameAs links should be discovered
+     * @return a mapping of the given URIs to their sets of URIs. URIs for which
+     *         no URIs could be found are not part of the mapping.
+     */
+    public default Map<String, Set<String>> retrieveSameURIs(Collection<String> uris) {
+        // retrieves the URIs one by one. Retrievers that can handle the URIs
+        // as batch should override this method.
+        return SameAsRetrieverUtils.retrieveSameURIs(this, uris);
+    }
+
 }
@@ -16,7 +16,14 @@
  */
 package org.aksw.gerbil.semantic.sameas;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 
 import org.aksw.gerbil.datatypes.marking.MeaningsContainingMarking;
 import org.aksw.gerbil.transfer.nif.Marking;
@@ -25,29 +32,136 @@ import org.aksw.gerbil.transfer.nif.Relation;
 
 public class SameAsRetrieverUtils {
 
+	/**
+	 * Adds the sameAs links of all URIs of the given markings. The URIs of
+	 * all markings are retrieved with a single batch request.
+	 */
 	public static void addSameURIsToMarkings(SameAsRetriever retriever, Collection<? extends Marking> markings) {
+		List<Set<String>> uriSets = new ArrayList<Set<String>>();
+		collectUriSets(markings, uriSets);
+		addSameURIs(retriever, uriSets);
+	}
+
+	/**
+	 * Adds the URI sets of all meanings of the given markings to the given
+	 * list.
+	 */
+	public static void collectUriSets(Collection<? extends Marking> markings, List<Set<String>> uriSets) {
 		for (Marking marking : markings) {
 			if (marking instanceof Meaning) {
-				retriever.addSameURIs(((Meaning) marking).getUris());
+				uriSets.add(((Meaning) marking).getUris());
 			} else if (marking instanceof MeaningsContainingMarking) {
-				addSameURIsToMeanings(retriever, ((MeaningsContainingMarking) marking).getMeanings());
+				for (Meaning meaning : ((MeaningsContainingMarking) marking).getMeanings()) {
+					uriSets.add(meaning.getUris());
+				}
 			} else if (marking instanceof Relation) {
-				addSameURIsToRelation(retriever, (Relation) marking);
+				addUriSetsOfRelation((Relation) marking, uriSets);
 			}
 		}
 	}
 
 	public static void addSameURIsToRelation(SameAsRetriever retriever, Relation relation) {
-		retriever.addSameURIs(relation.getSubject().getUris());
-		retriever.addSameURIs(relation.getPredicate().getUris());
-		retriever.addSameURIs(relation.getObject().getUris());
-
+		List<Set<String>> uriSets = new ArrayList<Set<String>>(3);
+		addUriSetsOfRelation(relation, uriSets);
+		addSameURIs(retriever, uriSets);
 	}
 
+	private static void addUriSetsOfRelation(Relation relation, List<Set<String>> uriSets) {
+		uriSets.add(relation.getSubject().getUris());
+		uriSets.add(relation.getPredicate().getUris());
+		uriSets.add(relation.getObject().getUris());
+	}
 
 	public static void addSameURIsToMeanings(SameAsRetriever retriever, Collection<? extends Meaning> meanings) {
+		List<Set<String>> uriSets = new ArrayList<Set<String>>(meanings.size());
 		for (Meaning meaning : meanings) {
-			retriever.addSameURIs(meaning.getUris());
+			uriSets.add(meaning.getUris());
+		}
+		addSameURIs(retriever, uriSets);
+	}
+
+	/**
+	 * Retrieves the sameAs links of all URIs of the given sets with a single
+	 * batch request and adds them to the sets.
+	 */
+	public static void addSameURIs(SameAsRetriever retriever, List<Set<String>> uriSets) {
+		Set<String> uris = new HashSet<String>();
+		for (Set<String> uriSet : uriSets) {
+			uris.addAll(uriSet);
+		}
+		if (uris.isEmpty()) {
+			return;
+		}
+		Map<String, Set<String>> sameUris = retriever.retrieveSameURIs(uris);
+		for (Set<String> uriSet : uriSets) {
+			addSameURIs(sameUris, uriSet);
+		}
+	}
+
+	/**
+	 * Adds the retrieved sets of all URIs of the given set to the set.
+	 */
+	public static void addSameURIs(Map<String, Set<String>> sameUris, Set<String> uris) {
+		Set<String> temp = null;
+		Set<String> result;
+		for (String uri : uris) {
+			result = sameUris.get(uri);
+			if (result != null) {
+				if (temp == null) {
+					temp = new HashSet<String>();
+				}
+				temp.addAll(result);
+			}
+		}
+		if (temp != null) {
+			uris.addAll(temp);
+		}
+	}
+
+	/**
+	 * Merges the second mapping into the first mapping. Sets of URIs that are
+	 * part of both mappings are merged into a new set.
+	 * 
+	 * @return the merged mapping
+	 */
+	public static Map<String, Set<String>> mergeSameURIs(Map<String, Set<String>> sameUris,
+			Map<String, Set<String>> newSameUris) {
+		if (sameUris == null) {
+			return newSameUris;
+		}
+		if (newSameUris == null) {
+			return sameUris;
+		}
+		Set<String> uris;
+		for (Entry<String, Set<String>> entry : newSameUris.entrySet()) {
+			uris = sameUris.get(entry.getKey());
+			if (uris == null) {
+				sameUris.put(entry.getKey(), entry.getValue());
+			} else {
+				uris = new HashSet<String>(uris);
+				uris.addAll(entry.getValue());
+				sameUris.put(entry.getKey(), uris);
+			}
+		}
+		return sameUris;
+	}
+
+	/**
+	 * Retrieves the sameAs links of the given URIs one by one. This can be
+	 * used by retrievers that can not make use of batch requests.
+	 */
+	public static Map<String, Set<String>> retrieveSameURIs(SingleUriSameAsRetriever retriever,
+			Collection<String> uris) {
+		Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+		Set<String> sameUris;
+		for (String uri : uris) {
+			if (!result.containsKey(uri)) {
+				sameUris = retriever.retrieveSameURIs(uri);
+				if (sameUris != null) {
+					result.put(uri, sameUris);
+				}
+			}
 		}
+		return result;
 	}
 }
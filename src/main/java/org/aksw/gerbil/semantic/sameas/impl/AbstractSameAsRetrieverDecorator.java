@@ -16,11 +16,11 @@
  */
 package org.aksw.gerbil.semantic.sameas.impl;
 
-import java.util.HashSet;
 import java.util.Set;
 
 import org.aksw.gerbil.semantic.sameas.SameAsRetriever;
 import org.aksw.gerbil.semantic.sameas.SameAsRetrieverDecorator;
+import org.aksw.gerbil.semantic.sameas.SameAsRetrieverUtils;
 
 public abstract class AbstractSameAsRetrieverDecorator implements SameAsRetrieverDecorator {
 
@@ -37,15 +37,7 @@ public abstract class AbstractSameAsRetrieverDecorator implements SameAsRetrieve
 
     @Override
     public void addSameURIs(Set<String> uris) {
-        Set<String> temp = new HashSet<String>();
-        Set<String> result;
-        for (String uri : uris) {
-            result = retrieveSameURIs(uri);
-            if (result != null) {
-                temp.addAll(retrieveSameURIs(uri));
-            }
-        }
-        uris.addAll(temp);
+        SameAsRetrieverUtils.addSameURIs(retrieveSameURIs(uris), uris);
     }
 
     @Override
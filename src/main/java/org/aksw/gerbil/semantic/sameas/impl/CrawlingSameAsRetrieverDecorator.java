@@ -16,10 +16,27 @@
  */
 package org.aksw.gerbil.semantic.sameas.impl;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 import org.aksw.gerbil.semantic.sameas.SameAsRetriever;
 import org.aksw.gerbil.semantic.sameas.SameAsRetrieverDecorator;
@@ -27,22 +44,75 @@ import org.aksw.gerbil.utils.URIValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
+ * <p>
  * This {@link SameAsRetrieverDecorator} implements a crawling strategy for
  * retrieving new URIs. As long as new URIs are found, it calls the decorated
  * {@link SameAsRetriever} with these new links.
+ * </p>
+ * <p>
+ * The crawling is a breadth first search. All URIs of a level are requested
+ * at once. If the decorator has been created with a number of threads, the
+ * URIs of a level are grouped by their domain and requested in parallel. The
+ * number of requests that are sent to a single domain at the same time is
+ * limited by {@link #setMaxRequestsPerDomain(int)}. URIs that are currently
+ * requested by another crawl are not requested again. Instead, the crawl waits
+ * for the result of the other crawl. The crawling stops after
+ * {@link #setMaxDepth(int)} levels or if {@link #setMaxUris(int)} URIs have
+ * been requested.
+ * </p>
  * 
  * @author Michael R&ouml;der (roeder@informatik.uni-leipzig.de)
  *
  */
-public class CrawlingSameAsRetrieverDecorator extends AbstractSameAsRetrieverDecorator {
+public class CrawlingSameAsRetrieverDecorator extends AbstractSameAsRetrieverDecorator implements Closeable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CrawlingSameAsRetrieverDecorator.class);
 
+    public static final int DEFAULT_MAX_DEPTH = 10;
+    public static final int DEFAULT_MAX_URIS = 5000;
+    public static final int DEFAULT_MAX_REQUESTS_PER_DOMAIN = 4;
+
+    private static final String UNKNOWN_DOMAIN = "";
+
     private boolean debugCrawling = false;
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    private int maxUris = DEFAULT_MAX_URIS;
+    private int maxRequestsPerDomain = DEFAULT_MAX_REQUESTS_PER_DOMAIN;
+    /**
+     * Executor used to request the URIs of a level in parallel or null if the
+     * URIs should be requested by the crawling thread.
+     */
+    private ExecutorService executor;
+    private ConcurrentMap<String, Semaphore> domainPermits = new ConcurrentHashMap<String, Semaphore>();
+    /**
+     * URIs that are currently requested by one of the crawls.
+     */
+    private ConcurrentMap<String, PendingLinks> pendingLinks = new ConcurrentHashMap<String, PendingLinks>();
 
     public CrawlingSameAsRetrieverDecorator(SameAsRetriever decoratedRetriever) {
+        this(decoratedRetriever, 0);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param decoratedRetriever
+     *            the retriever that is used to retrieve the links of the
+     *            single URIs
+     * @param numberOfThreads
+     *            the number of threads used to request the URIs of a level in
+     *            parallel. If it is smaller than 2, the URIs are requested
+     *            using a single batch call.
+     */
+    public CrawlingSameAsRetrieverDecorator(SameAsRetriever decoratedRetriever, int numberOfThreads) {
         super(decoratedRetriever);
+        if (numberOfThreads > 1) {
+            executor = Executors.newFixedThreadPool(numberOfThreads,
+                    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("SameAsCrawler-%d").build());
+        }
     }
 
     @Override
@@ -64,23 +134,202 @@ public class CrawlingSameAsRetrieverDecorator extends AbstractSameAsRetrieverDec
 
     @Override
     public void addSameURIs(Set<String> uris) {
+        addCrawledURIs(uris, crawl(uris));
+    }
+
+    @Override
+    public Map<String, Set<String>> retrieveSameURIs(Collection<String> uris) {
+        Map<String, Set<String>> links = crawl(uris);
+        Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+        Set<String> sameUris;
+        for (String uri : uris) {
+            if (!result.containsKey(uri)) {
+                sameUris = new HashSet<String>();
+                sameUris.add(uri);
+                addCrawledURIs(sameUris, links);
+                if (sameUris.size() > 1) {
+                    result.put(uri, sameUris);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Crawls the sameAs links starting from the given URIs. All URIs that are
+     * found in one round are requested from the decorated retriever as a
+     * single batch.
+     * 
+     * @return the links that have been retrieved for the single URIs
+     */
+    protected Map<String, Set<String>> crawl(Collection<String> uris) {
+        Map<String, Set<String>> links = new HashMap<String, Set<String>>();
+        Set<String> knownUris = new HashSet<String>(uris);
+        Set<String> nextUris = knownUris;
+        Map<String, Set<String>> newLinks;
+        int depth = 0;
+        while ((nextUris.size() > 0) && (depth < maxDepth)) {
+            newLinks = retrieveLevel(nextUris);
+            links.putAll(newLinks);
+            nextUris = new HashSet<String>();
+            for (Entry<String, Set<String>> entry : newLinks.entrySet()) {
+                for (String newUri : entry.getValue()) {
+                    // check whether the URI was really not known before and
+                    // request it in the next round
+                    if (!knownUris.contains(newUri) && URIValidator.isValidURI(newUri)) {
+                        if (knownUris.size() >= maxUris) {
+                            LOGGER.info("Reached the maximum number of {} crawled URIs. Stopping crawl.", maxUris);
+                            return links;
+                        }
+                        if (debugCrawling && LOGGER.isDebugEnabled()) {
+                            LOGGER.debug(entry.getKey() + " -> " + newUri);
+                        }
+                        knownUris.add(newUri);
+                        nextUris.add(newUri);
+                    }
+                }
+            }
+            ++depth;
+        }
+        return links;
+    }
+
+    /**
+     * Retrieves the links of the given URIs. URIs that are already requested
+     * by another crawl are not requested again.
+     */
+    protected Map<String, Set<String>> retrieveLevel(Set<String> uris) {
+        List<String> ownUris = new ArrayList<String>(uris.size());
+        Map<String, PendingLinks> ownRequests = new HashMap<String, PendingLinks>();
+        Map<String, PendingLinks> foreignRequests = new HashMap<String, PendingLinks>();
+        PendingLinks pending, existing;
+        for (String uri : uris) {
+            pending = new PendingLinks();
+            existing = pendingLinks.putIfAbsent(uri, pending);
+            if (existing == null) {
+                ownUris.add(uri);
+                ownRequests.put(uri, pending);
+            } else {
+                foreignRequests.put(uri, existing);
+            }
+        }
+        Map<String, Set<String>> newLinks = null;
+        try {
+            newLinks = requestLinks(ownUris);
+        } finally {
+            // publish the results (even if the request failed) before waiting
+            // for other crawls to make sure that no crawl waits forever
+            for (Entry<String, PendingLinks> entry : ownRequests.entrySet()) {
+                entry.getValue().finish((newLinks == null) ? null : newLinks.get(entry.getKey()));
+                pendingLinks.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        Set<String> links;
+        for (Entry<String, PendingLinks> entry : foreignRequests.entrySet()) {
+            links = entry.getValue().await();
+            if (links != null) {
+                newLinks.put(entry.getKey(), links);
+            }
+        }
+        return newLinks;
+    }
+
+    /**
+     * Requests the links of the given URIs from the decorated retriever. If an
+     * executor is available, the URIs are grouped by domain and requested in
+     * parallel.
+     */
+    protected Map<String, Set<String>> requestLinks(List<String> uris) {
+        Map<String, Set<String>> links = new HashMap<String, Set<String>>();
+        if (uris.size() == 0) {
+            return links;
+        }
+        if (executor == null) {
+            links.putAll(decoratedRetriever.retrieveSameURIs(uris));
+            return links;
+        }
+        // group the URIs by domain
+        Map<String, List<String>> urisOfDomains = new HashMap<String, List<String>>();
+        List<String> urisOfDomain;
+        String domain;
+        for (String uri : uris) {
+            domain = SimpleDomainExtractor.extractDomain(uri);
+            if (domain == null) {
+                domain = UNKNOWN_DOMAIN;
+            }
+            urisOfDomain = urisOfDomains.get(domain);
+            if (urisOfDomain == null) {
+                urisOfDomain = new ArrayList<String>();
+                urisOfDomains.put(domain, urisOfDomain);
+            }
+            urisOfDomain.add(uri);
+        }
+        // split the URIs of every domain into at most maxRequestsPerDomain
+        // requests
+        List<RequestTask> tasks = new ArrayList<RequestTask>();
+        List<List<String>> chunks = new ArrayList<List<String>>();
+        int numberOfChunks;
+        for (Entry<String, List<String>> entry : urisOfDomains.entrySet()) {
+            urisOfDomain = entry.getValue();
+            numberOfChunks = Math.min(maxRequestsPerDomain, urisOfDomain.size());
+            chunks.clear();
+            for (int i = 0; i < numberOfChunks; ++i) {
+                chunks.add(new ArrayList<String>());
+            }
+            for (int i = 0; i < urisOfDomain.size(); ++i) {
+                chunks.get(i % numberOfChunks).add(urisOfDomain.get(i));
+            }
+            for (List<String> chunk : chunks) {
+                tasks.add(new RequestTask(entry.getKey(), chunk));
+            }
+        }
+        if (tasks.size() == 1) {
+            links.putAll(tasks.get(0).call());
+            return links;
+        }
+        try {
+            for (Future<Map<String, Set<String>>> future : executor.invokeAll(tasks)) {
+                try {
+                    links.putAll(future.get());
+                } catch (ExecutionException e) {
+                    LOGGER.error("Exception while requesting sameAs links. Ignoring the URIs of this request.", e);
+                }
+            }
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted while requesting sameAs links. Returning the links retrieved so far.", e);
+            Thread.currentThread().interrupt();
+        }
+        return links;
+    }
+
+    protected Semaphore getDomainPermits(String domain) {
+        Semaphore permits = domainPermits.get(domain);
+        if (permits == null) {
+            permits = new Semaphore(maxRequestsPerDomain);
+            Semaphore existing = domainPermits.putIfAbsent(domain, permits);
+            if (existing != null) {
+                permits = existing;
+            }
+        }
+        return permits;
+    }
+
+    /**
+     * Adds all URIs that can be reached from the given URIs using the given
+     * links to the given set.
+     */
+    protected static void addCrawledURIs(Set<String> uris, Map<String, Set<String>> links) {
         Queue<String> queue = new LinkedList<String>();
         queue.addAll(uris);
-        String uri;
         Set<String> newUris;
         while (queue.size() > 0) {
-            uri = queue.poll();
-            newUris = decoratedRetriever.retrieveSameURIs(uri);
+            newUris = links.get(queue.poll());
             // if new URIs have been retrieved
             if (newUris != null) {
                 for (String newUri : newUris) {
-                	
                     // check whether the URI was really not known before and add
                     // it to the queue and the result set
                     if (!uris.contains(newUri) && URIValidator.isValidURI(newUri)) {
-                        if (debugCrawling && LOGGER.isDebugEnabled()) {
-                            LOGGER.debug(uri + " -> " + newUri);
-                        }
                         queue.add(newUri);
                         uris.add(newUri);
                     }
@@ -97,5 +346,115 @@ public class CrawlingSameAsRetrieverDecorator extends AbstractSameAsRetrieverDec
         this.debugCrawling = debugCrawling;
     }
 
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Sets the maximum number of levels that are crawled.
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public int getMaxUris() {
+        return maxUris;
+    }
+
+    /**
+     * Sets the maximum number of URIs that are requested during a single
+     * crawl.
+     */
+    public void setMaxUris(int maxUris) {
+        this.maxUris = maxUris;
+    }
+
+    public int getMaxRequestsPerDomain() {
+        return maxRequestsPerDomain;
+    }
+
+    /**
+     * Sets the maximum number of requests that are sent to a single domain at
+     * the same time. Note that this should be set before the decorator is
+     * used.
+     *
+     * @throws IllegalArgumentException
+     *             if the given number is lower than 1
+     */
+    public void setMaxRequestsPerDomain(int maxRequestsPerDomain) {
+        if (maxRequestsPerDomain < 1) {
+            throw new IllegalArgumentException("The maximum number of requests per domain has to be at least 1 (got "
+                    + maxRequestsPerDomain + ").");
+        }
+        this.maxRequestsPerDomain = maxRequestsPerDomain;
+        domainPermits.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * A request for the links of the URIs of a single domain.
+     */
+    protected class RequestTask implements Callable<Map<String, Set<String>>> {
 
+        private String domain;
+        private List<String> uris;
+
+        public RequestTask(String domain, List<String> uris) {
+            this.domain = domain;
+            this.uris = uris;
+        }
+
+        @Override
+        public Map<String, Set<String>> call() {
+            Semaphore permits = getDomainPermits(domain);
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                LOGGER.error("Interrupted while waiting for a request permit for \"" + domain
+                        + "\". Returning empty result.", e);
+                Thread.currentThread().interrupt();
+                return new HashMap<String, Set<String>>();
+            }
+            try {
+                return decoratedRetriever.retrieveSameURIs(uris);
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * The links of a URI that is currently requested by a crawl.
+     */
+    protected static class PendingLinks {
+
+        private CountDownLatch latch = new CountDownLatch(1);
+        private volatile Set<String> links;
+
+        public void finish(Set<String> links) {
+            this.links = links;
+            latch.countDown();
+        }
+
+        /**
+         * @return the links of the URI or null if no links have been found or
+         *         the waiting thread has been interrupted
+         */
+        public Set<String> await() {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                LOGGER.error("Interrupted while waiting for the links of a URI requested by another crawl.", e);
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            return links;
+        }
+    }
 }
@@ -18,13 +18,16 @@ package org.aksw.gerbil.semantic.sameas.impl;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import org.aksw.gerbil.semantic.sameas.SameAsRetriever;
+import org.aksw.gerbil.semantic.sameas.SameAsRetrieverUtils;
 import org.aksw.gerbil.semantic.sameas.SingleUriSameAsRetriever;
 
 public class DomainBasedSameAsRetrieverManager implements SameAsRetriever {
@@ -101,6 +104,65 @@ public class DomainBasedSameAsRetrieverManager implements SameAsRetriever {
         return result;
     }
 
+    /**
+     * Groups the given URIs by their domains. Retrievers that implement the
+     * {@link SameAsRetriever} interface get all URIs of a domain as a single
+     * batch.
+     */
+    @Override
+    public Map<String, Set<String>> retrieveSameURIs(Collection<String> uris) {
+        Map<String, List<String>> domainUris = new HashMap<String, List<String>>();
+        List<String> urisOfDomain;
+        String domain;
+        for (String uri : uris) {
+            if (uri != null) {
+                domain = SimpleDomainExtractor.extractDomain(uri);
+                urisOfDomain = domainUris.get(domain);
+                if (urisOfDomain == null) {
+                    urisOfDomain = new ArrayList<String>();
+                    domainUris.put(domain, urisOfDomain);
+                }
+                urisOfDomain.add(uri);
+            }
+        }
+        Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+        for (Entry<String, List<String>> entry : domainUris.entrySet()) {
+            domain = entry.getKey();
+            if ((domain != null) && (domainRetrieverMapping.containsKey(domain))) {
+                for (SingleUriSameAsRetriever retriever : domainRetrieverMapping.get(domain)) {
+                    result = SameAsRetrieverUtils.mergeSameURIs(result,
+                            retrieveSameURIs(retriever, domain, entry.getValue()));
+                }
+            } else {
+                for (SingleUriSameAsRetriever retriever : defaultRetrievers) {
+                    result = SameAsRetrieverUtils.mergeSameURIs(result,
+                            retrieveSameURIs(retriever, domain, entry.getValue()));
+                }
+            }
+            for (SingleUriSameAsRetriever retriever : staticRetrievers) {
+                result = SameAsRetrieverUtils.mergeSameURIs(result,
+                        retrieveSameURIs(retriever, domain, entry.getValue()));
+            }
+        }
+        return result;
+    }
+
+    protected static Map<String, Set<String>> retrieveSameURIs(SingleUriSameAsRetriever retriever, String domain,
+            List<String> uris) {
+        if (retriever instanceof SameAsRetriever) {
+            return ((SameAsRetriever) retriever).retrieveSameURIs(uris);
+        }
+        Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+        Set<String> sameUris;
+        for (String uri : uris) {
+            sameUris = retriever.retrieveSameURIs(domain, uri);
+            if (sameUris != null) {
+                result.put(uri, sameUris);
+            }
+        }
+        return result;
+    }
+
     @Override
     public void addSameURIs(Set<String> uris) {
         Set<String> temp = new HashSet<String>();
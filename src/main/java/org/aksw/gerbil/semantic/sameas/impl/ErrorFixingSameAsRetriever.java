@@ -62,5 +62,4 @@ public class ErrorFixingSameAsRetriever implements SameAsRetriever {
         }
         return uris;
     }
-
 }
@@ -0,0 +1,96 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.sameas.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aksw.gerbil.semantic.sameas.SameAsRetriever;
+
+/**
+ * Records the URIs that are requested from the decorated retriever, e.g., to
+ * persist them as hot keys for the next warm up of the caches (see
+ * {@link org.aksw.gerbil.dataset.CacheWarmer}). The number of recorded URIs is
+ * limited. If the limit is reached, further URIs are not recorded.
+ */
+public class HotKeyRecordingSameAsRetriever extends AbstractSameAsRetrieverDecorator {
+
+    public static final int DEFAULT_MAX_NUMBER_OF_HOT_KEYS = 100000;
+
+    private final int maxNumberOfHotKeys;
+    private final Set<String> hotKeys = ConcurrentHashMap.newKeySet();
+
+    public HotKeyRecordingSameAsRetriever(SameAsRetriever decoratedRetriever) {
+        this(decoratedRetriever, DEFAULT_MAX_NUMBER_OF_HOT_KEYS);
+    }
+
+    public HotKeyRecordingSameAsRetriever(SameAsRetriever decoratedRetriever, int maxNumberOfHotKeys) {
+        super(decoratedRetriever);
+        this.maxNumberOfHotKeys = maxNumberOfHotKeys;
+    }
+
+    @Override
+    public Set<String> retrieveSameURIs(String uri) {
+        record(uri);
+        return decoratedRetriever.retrieveSameURIs(uri);
+    }
+
+    @Override
+    public Set<String> retrieveSameURIs(String domain, String uri) {
+        record(uri);
+        return decoratedRetriever.retrieveSameURIs(domain, uri);
+    }
+
+    @Override
+    public Map<String, Set<String>> retrieveSameURIs(Collection<String> uris) {
+        record(uris);
+        return decoratedRetriever.retrieveSameURIs(uris);
+    }
+
+    /**
+     * Records the given URI if the maximum number of hot keys has not been
+     * reached.
+     */
+    public void record(String uri) {
+        // the size check is not atomic, i.e., the limit can be exceeded
+        // slightly by concurrent calls
+        if ((uri != null) && (hotKeys.size() < maxNumberOfHotKeys)) {
+            hotKeys.add(uri);
+        }
+    }
+
+    public void record(Collection<String> uris) {
+        for (String uri : uris) {
+            record(uri);
+        }
+    }
+
+    /**
+     * @return a copy of the recorded URIs
+     */
+    public List<String> getHotKeys() {
+        return new ArrayList<String>(hotKeys);
+    }
+
+    public int getNumberOfHotKeys() {
+        return hotKeys.size();
+    }
+}
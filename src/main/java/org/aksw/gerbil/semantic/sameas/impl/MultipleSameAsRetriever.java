@@ -16,10 +16,14 @@
  */
 package org.aksw.gerbil.semantic.sameas.impl;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.aksw.gerbil.semantic.sameas.SameAsRetriever;
+import org.aksw.gerbil.semantic.sameas.SameAsRetrieverUtils;
 
 public class MultipleSameAsRetriever implements SameAsRetriever {
 
@@ -58,6 +62,15 @@ public class MultipleSameAsRetriever implements SameAsRetriever {
         uris.addAll(temp);
     }
 
+    @Override
+    public Map<String, Set<String>> retrieveSameURIs(Collection<String> uris) {
+        Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+        for (int i = 0; i < retriever.length; ++i) {
+            result = SameAsRetrieverUtils.mergeSameURIs(result, retriever[i].retrieveSameURIs(uris));
+        }
+        return result;
+    }
+
     public SameAsRetriever[] getRetriever() {
         return retriever;
     }
@@ -0,0 +1,138 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.sameas.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.aksw.gerbil.semantic.sameas.NoSameAsBloomFilter;
+import org.aksw.gerbil.semantic.sameas.SameAsRetriever;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * A decorator that answers requests for URIs that are known to have no sameAs
+ * links without handing them to the decorated retriever. URIs starting with
+ * one of the given namespaces (e.g., the namespace of synthetic URIs of
+ * emerging entities) never have sameAs links.
+ * </p>
+ * <p>
+ * Optionally, a read-only {@link NoSameAsBloomFilter} can be used. Since the
+ * filter can have false positives and can not forget a URI, it should only be
+ * used to decorate the retrievers sending remote requests, i.e., behind the
+ * caches. Thus, it is only asked after the live cache missed the URI and it
+ * can not hide links that became known after the filter has been built. The
+ * filter is never changed by this decorator. It has to be (re)built with the
+ * {@link org.aksw.gerbil.tools.NoSameAsBloomFilterTool}.
+ * </p>
+ */
+public class NoSameAsFilteringSameAsRetrieverDecorator extends AbstractSameAsRetrieverDecorator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NoSameAsFilteringSameAsRetrieverDecorator.class);
+
+    /**
+     * Creates the decorator using the filter stored in the given file. If the
+     * file does not exist or can not be read, only the given namespaces are
+     * used.
+     */
+    public static NoSameAsFilteringSameAsRetrieverDecorator create(SameAsRetriever decoratedRetriever,
+            File filterFile, String... noSameAsNamespaces) {
+        NoSameAsBloomFilter filter = null;
+        if (filterFile.exists()) {
+            try {
+                filter = NoSameAsBloomFilter.readFrom(filterFile);
+                LOGGER.info("Loaded filter containing {} URIs without sameAs links.", filter.getNumberOfUris());
+                if (filter.isSaturated()) {
+                    LOGGER.warn(
+                            "The filter {} contains more URIs than expected. It should be rebuilt with the NoSameAsBloomFilterTool.",
+                            filterFile);
+                }
+            } catch (IOException e) {
+                LOGGER.error("Couldn't read the filter file. It won't be used.", e);
+            }
+        } else {
+            LOGGER.warn("The filter file {} does not exist. It won't be used.", filterFile);
+        }
+        return new NoSameAsFilteringSameAsRetrieverDecorator(decoratedRetriever, filter, noSameAsNamespaces);
+    }
+
+    private NoSameAsBloomFilter filter;
+    private String noSameAsNamespaces[];
+
+    /**
+     * Constructor.
+     *
+     * @param filter
+     *            the filter containing URIs without sameAs links or null if
+     *            only the namespaces should be used
+     */
+    public NoSameAsFilteringSameAsRetrieverDecorator(SameAsRetriever decoratedRetriever,
+            NoSameAsBloomFilter filter, String... noSameAsNamespaces) {
+        super(decoratedRetriever);
+        this.filter = filter;
+        this.noSameAsNamespaces = noSameAsNamespaces;
+    }
+
+    @Override
+    public Set<String> retrieveSameURIs(String uri) {
+        if (hasNoSameAs(uri)) {
+            return null;
+        }
+        return decoratedRetriever.retrieveSameURIs(uri);
+    }
+
+    @Override
+    public Set<String> retrieveSameURIs(String domain, String uri) {
+        if (hasNoSameAs(uri)) {
+            return null;
+        }
+        return decoratedRetriever.retrieveSameURIs(domain, uri);
+    }
+
+    @Override
+    public Map<String, Set<String>> retrieveSameURIs(Collection<String> uris) {
+        List<String> remainingUris = new ArrayList<String>(uris.size());
+        for (String uri : uris) {
+            if (!hasNoSameAs(uri)) {
+                remainingUris.add(uri);
+            }
+        }
+        return decoratedRetriever.retrieveSameURIs(remainingUris);
+    }
+
+    protected boolean hasNoSameAs(String uri) {
+        if (uri == null) {
+            return true;
+        }
+        for (int i = 0; i < noSameAsNamespaces.length; ++i) {
+            if (uri.startsWith(noSameAsNamespaces[i])) {
+                return true;
+            }
+        }
+        return (filter != null) && filter.hasNoSameAs(uri);
+    }
+
+    public NoSameAsBloomFilter getFilter() {
+        return filter;
+    }
+}
@@ -19,6 +19,8 @@ package org.aksw.gerbil.semantic.sameas.impl;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import org.aksw.gerbil.semantic.sameas.SameAsRetriever;
@@ -61,6 +63,15 @@ public class UriFilteringSameAsRetrieverDecorator extends AbstractSameAsRetrieve
         return filter(decoratedRetriever.retrieveSameURIs(domain, uri));
     }
 
+    @Override
+    public Map<String, Set<String>> retrieveSameURIs(Collection<String> uris) {
+        Map<String, Set<String>> result = decoratedRetriever.retrieveSameURIs(uris);
+        for (Entry<String, Set<String>> entry : result.entrySet()) {
+            entry.setValue(filter(entry.getValue()));
+        }
+        return result;
+    }
+
     protected Set<String> filter(Set<String> uris) {
         if (uris == null) {
             return null;
@@ -24,21 +24,32 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Semaphore;
 
 import org.aksw.gerbil.semantic.sameas.SameAsRetriever;
 import org.aksw.gerbil.semantic.sameas.impl.AbstractSameAsRetrieverDecorator;
+import org.aksw.gerbil.utils.RequestCoalescer;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.carrotsearch.hppc.IntArrayList;
-import com.carrotsearch.hppc.IntOpenHashSet;
 import com.carrotsearch.hppc.ObjectIntOpenHashMap;
 
+/**
+ * A sameAs cache that is stored in a file. The sets of URIs are kept in a
+ * {@link SameAsEquivalenceStore}, i.e., merging sets does not copy them.
+ */
 public class FileBasedCachingSameAsRetriever extends AbstractSameAsRetrieverDecorator {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FileBasedCachingSameAsRetriever.class);
@@ -70,37 +81,51 @@ public class FileBasedCachingSameAsRetriever extends AbstractSameAsRetrieverDeco
                 }
             }
         }
-        ObjectIntOpenHashMap<String> uriSetIdMapping;
-        List<Set<String>> sets;
+        SameAsEquivalenceStore store;
         // if the reading didn't worked, create new cache objects
         if (objects == null) {
             LOGGER.warn("Couldn't read cache from files. Creating new empty cache.");
-            uriSetIdMapping = new ObjectIntOpenHashMap<String>();
-            sets = new ArrayList<Set<String>>();
+            store = new SameAsEquivalenceStore();
         } else {
-            uriSetIdMapping = (ObjectIntOpenHashMap<String>) objects[0];
-            sets = (List<Set<String>>) objects[1];
+            store = createStore((ObjectIntOpenHashMap<String>) objects[0], (List<Set<String>>) objects[1]);
         }
-        return new FileBasedCachingSameAsRetriever(decoratedRetriever, uriSetIdMapping, sets, requestEntitiesNotFound,
-                cacheFile, tempCacheFile);
+        return new FileBasedCachingSameAsRetriever(decoratedRetriever, store, requestEntitiesNotFound, cacheFile,
+                tempCacheFile);
     }
 
-    protected ObjectIntOpenHashMap<String> uriSetIdMapping;
-    protected List<Set<String>> sets;
+    /**
+     * Creates an equivalence store from the content of a cache file.
+     */
+    public static SameAsEquivalenceStore createStore(ObjectIntOpenHashMap<String> uriSetIdMapping,
+            Collection<Set<String>> sets) {
+        SameAsEquivalenceStore store = new SameAsEquivalenceStore(uriSetIdMapping.assigned);
+        for (int i = 0; i < uriSetIdMapping.allocated.length; ++i) {
+            if (uriSetIdMapping.allocated[i] && (uriSetIdMapping.values[i] == ENTITY_NOT_FOUND)) {
+                store.markNotFound((String) ((Object[]) uriSetIdMapping.keys)[i]);
+            }
+        }
+        for (Set<String> set : sets) {
+            if (set != null) {
+                store.addSet(set);
+            }
+        }
+        return store;
+    }
+
+    protected SameAsEquivalenceStore store;
     private int cacheChanges = 0;
     private int forceStorageAfterChanges = 1000;
     private Semaphore cacheReadMutex = new Semaphore(MAX_CONCURRENT_READERS);
     private Semaphore cacheWriteMutex = new Semaphore(1);
     private boolean requestEntitiesNotFound;
+    private RequestCoalescer<String, Set<String>> coalescer = new RequestCoalescer<String, Set<String>>();
     protected File cacheFile;
     protected File tempCacheFile;
 
-    protected FileBasedCachingSameAsRetriever(SameAsRetriever decoratedRetriever,
-            ObjectIntOpenHashMap<String> uriSetIdMapping, List<Set<String>> sets, boolean requestEntitiesNotFound,
-            File cacheFile, File tempCacheFile) {
+    protected FileBasedCachingSameAsRetriever(SameAsRetriever decoratedRetriever, SameAsEquivalenceStore store,
+            boolean requestEntitiesNotFound, File cacheFile, File tempCacheFile) {
         super(decoratedRetriever);
-        this.uriSetIdMapping = uriSetIdMapping;
-        this.sets = sets;
+        this.store = store;
         this.requestEntitiesNotFound = requestEntitiesNotFound;
         this.cacheFile = cacheFile;
         this.tempCacheFile = tempCacheFile;
@@ -119,12 +144,10 @@ public class FileBasedCachingSameAsRetriever extends AbstractSameAsRetrieverDeco
             return null;
         }
         try {
-            uriIsCached = uriSetIdMapping.containsKey(uri);
-            if (uriIsCached) {
-                int setId = uriSetIdMapping.get(uri);
-                if (setId != ENTITY_NOT_FOUND) {
-                    result = sets.get(setId);
-                }
+            int id = store.getId(uri);
+            uriIsCached = id != SameAsEquivalenceStore.NOT_INTERNED;
+            if (uriIsCached && !store.isNotFound(id)) {
+                result = store.getMembers(id);
             }
         } finally {
             cacheReadMutex.release();
@@ -132,11 +155,32 @@ public class FileBasedCachingSameAsRetriever extends AbstractSameAsRetrieverDeco
         // If the URI is not in the cache, or it has been cached but the result
         // is null and the request should be retried
         if (!uriIsCached || (uriIsCached && (result == null) && requestEntitiesNotFound)) {
-            result = requestUri(uri);
+            result = coalescedRequestUri(uri);
         }
         return result;
     }
 
+    /**
+     * Requests the set for the given URI using {@link #requestUri(String)}.
+     * If the URI is already requested by another thread, its result is used
+     * instead of sending the same request again.
+     */
+    protected Set<String> coalescedRequestUri(final String uri) {
+        try {
+            Set<String> result = coalescer.request(uri, new Callable<Set<String>>() {
+                @Override
+                public Set<String> call() throws Exception {
+                    return requestUri(uri);
+                }
+            });
+            // the set might be shared with other threads
+            return (result == null) ? null : new HashSet<String>(result);
+        } catch (InterruptedException | ExecutionException e) {
+            LOGGER.error("Exception while requesting sameAs links. Returning null.", e);
+            return null;
+        }
+    }
+
     /**
      * Requests the set for the given URI from the decorated retriever.
      * 
@@ -163,19 +207,19 @@ public class FileBasedCachingSameAsRetriever extends AbstractSameAsRetrieverDeco
             // Make sure that the read mutex is released
             try {
                 // Check again that nobody already added the uri
-                if (uriSetIdMapping.containsKey(uri)) {
+                int id = store.getId(uri);
+                if (id != SameAsEquivalenceStore.NOT_INTERNED) {
                     // use the cached result
-                    int setId = uriSetIdMapping.get(uri);
-                    if (setId != ENTITY_NOT_FOUND) {
-                        result = sets.get(setId);
+                    if (!store.isNotFound(id)) {
+                        result = store.getMembers(id);
                     } else {
                         result = null;
                     }
                 } else {
                     if (result != null) {
-                        mergeSetIntoCache(result);
+                        result = mergeSetIntoCache(result);
                     } else {
-                        uriSetIdMapping.put(uri, ENTITY_NOT_FOUND);
+                        store.markNotFound(uri);
                     }
                     ++cacheChanges;
                     if ((forceStorageAfterChanges > 0) && (cacheChanges >= forceStorageAfterChanges)) {
@@ -196,35 +240,141 @@ public class FileBasedCachingSameAsRetriever extends AbstractSameAsRetrieverDeco
         return result;
     }
 
-    protected void mergeSetIntoCache(Set<String> result) {
-        // In most cases we shouldn't need this objects
-        IntOpenHashSet alreadyExistingSets = null;
-        int setId;
-        for (String uri : result) {
-            if (uriSetIdMapping.containsKey(uri)) {
-                setId = uriSetIdMapping.get(uri);
-                if (setId != ENTITY_NOT_FOUND) {
-                    if (alreadyExistingSets == null) {
-                        alreadyExistingSets = new IntOpenHashSet();
-                    }
-                    alreadyExistingSets.add(setId);
+    @Override
+    public Map<String, Set<String>> retrieveSameURIs(Collection<String> uris) {
+        Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+        List<String> missingUris = new ArrayList<String>();
+        try {
+            cacheReadMutex.acquire();
+        } catch (InterruptedException e) {
+            LOGGER.error("Exception while waiting for read mutex. Returning empty result.", e);
+            return result;
+        }
+        try {
+            int id;
+            for (String uri : uris) {
+                id = store.getId(uri);
+                if (id == SameAsEquivalenceStore.NOT_INTERNED) {
+                    missingUris.add(uri);
+                } else if (!store.isNotFound(id)) {
+                    result.put(uri, store.getMembers(id));
+                } else if (requestEntitiesNotFound) {
+                    missingUris.add(uri);
                 }
             }
+        } finally {
+            cacheReadMutex.release();
         }
-        // if a joining is needed
-        if (alreadyExistingSets != null) {
-            for (int i = 0; i < alreadyExistingSets.allocated.length; i++) {
-                if (alreadyExistingSets.allocated[i] && (alreadyExistingSets.keys[i] != ENTITY_NOT_FOUND)) {
-                    result.addAll(sets.get(alreadyExistingSets.keys[i]));
-                    sets.set(alreadyExistingSets.keys[i], null);
-                }
+        if (missingUris.size() > 0) {
+            result.putAll(coalescedRequestUris(missingUris));
+        }
+        return result;
+    }
+
+    /**
+     * Requests the sets for the given URIs using {@link #requestUris(List)}.
+     * URIs that are already requested by other threads are not requested
+     * again. Instead, their results are used.
+     */
+    protected Map<String, Set<String>> coalescedRequestUris(List<String> uris) {
+        Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+        try {
+            Map<String, Set<String>> retrievedUris = coalescer.requestAll(uris,
+                    new RequestCoalescer.BatchRequest<String, Set<String>>() {
+                        @Override
+                        public Map<String, Set<String>> request(List<String> keys) throws Exception {
+                            return requestUris(keys);
+                        }
+                    });
+            // the sets might be shared with other threads
+            for (Entry<String, Set<String>> entry : retrievedUris.entrySet()) {
+                result.put(entry.getKey(), new HashSet<String>(entry.getValue()));
             }
+        } catch (InterruptedException | ExecutionException e) {
+            LOGGER.error("Exception while requesting sameAs links. Returning empty result.", e);
         }
-        setId = sets.size();
-        sets.add(result);
-        for (String uri : result) {
-            uriSetIdMapping.put(uri, setId);
+        return result;
+    }
+
+    /**
+     * Requests the sets for the given URIs from the decorated retriever as a
+     * single batch and adds all of them to the cache at once.
+     */
+    protected Map<String, Set<String>> requestUris(List<String> uris) {
+        Map<String, Set<String>> retrievedUris = decoratedRetriever.retrieveSameURIs(uris);
+        Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+        try {
+            cacheWriteMutex.acquire();
+        } catch (InterruptedException e) {
+            LOGGER.error("Exception while waiting for write mutex. Returning empty result.", e);
+            return result;
         }
+        // Make sure that the write mutex is released
+        try {
+            try {
+                // now we need all other read mutexes
+                cacheReadMutex.acquire(MAX_CONCURRENT_READERS);
+            } catch (InterruptedException e) {
+                LOGGER.error("Exception while waiting for read mutex. Returning empty result.", e);
+                return result;
+            }
+            // Make sure that the read mutex is released
+            try {
+                // first, add all retrieved sets since they might be merged
+                int setIds[] = new int[uris.size()];
+                Set<String> retrieved;
+                int i = 0;
+                for (String uri : uris) {
+                    retrieved = retrievedUris.get(uri);
+                    setIds[i] = SameAsEquivalenceStore.NOT_INTERNED;
+                    if (retrieved != null) {
+                        setIds[i] = store.addSet(retrieved);
+                        ++cacheChanges;
+                    } else if (!store.contains(uri)) {
+                        store.markNotFound(uri);
+                        ++cacheChanges;
+                    }
+                    ++i;
+                }
+                int id;
+                i = 0;
+                for (String uri : uris) {
+                    id = store.getId(uri);
+                    if (id == SameAsEquivalenceStore.NOT_INTERNED) {
+                        // the retrieved set does not contain the URI itself
+                        // (or is empty), i.e., the URI is not cached but the
+                        // set is returned like in requestUri(String)
+                        id = setIds[i];
+                    }
+                    if ((id >= 0) && !store.isNotFound(id)) {
+                        result.put(uri, store.getMembers(id));
+                    }
+                    ++i;
+                }
+                if ((forceStorageAfterChanges > 0) && (cacheChanges >= forceStorageAfterChanges)) {
+                    LOGGER.info("Storing the cache has been forced...");
+                    try {
+                        performCacheStorage();
+                    } catch (IOException e) {
+                        LOGGER.error("Exception while writing cache to file. Aborting.", e);
+                    }
+                }
+            } finally {
+                cacheReadMutex.release(MAX_CONCURRENT_READERS);
+            }
+        } finally {
+            cacheWriteMutex.release();
+        }
+        return result;
+    }
+
+    /**
+     * Merges the given set with all sets of the cache that share URIs with it.
+     *
+     * @return the merged set
+     */
+    protected Set<String> mergeSetIntoCache(Set<String> result) {
+        return store.getMembers(store.addSet(result));
     }
 
     public void storeCache() {
@@ -244,28 +394,43 @@ public class FileBasedCachingSameAsRetriever extends AbstractSameAsRetrieverDeco
     }
 
     private void performCacheStorage() throws IOException {
-        checkSetMapping();
+        // number the sets, i.e., the roots of the classes that are not marked
+        // as not found
+        int numberOfUris = store.getNumberOfUris();
+        int rootSetIds[] = new int[numberOfUris];
+        Arrays.fill(rootSetIds, ENTITY_NOT_FOUND);
+        IntArrayList setRoots = new IntArrayList();
+        int root;
+        for (int i = 0; i < numberOfUris; ++i) {
+            if (!store.isNotFound(i)) {
+                root = store.find(i);
+                if (rootSetIds[root] == ENTITY_NOT_FOUND) {
+                    rootSetIds[root] = setRoots.size();
+                    setRoots.add(root);
+                }
+            }
+        }
         FileOutputStream fout = null;
         ObjectOutputStream oout = null;
         try {
             fout = new FileOutputStream(tempCacheFile);
             oout = new ObjectOutputStream(fout);
             // first, serialize the number of URIs
-            oout.writeInt(uriSetIdMapping.assigned);
-            // go over the mapping and serialize all existing pairs
-            for (int i = 0; i < uriSetIdMapping.allocated.length; ++i) {
-                if (uriSetIdMapping.allocated[i]) {
-                    oout.writeObject(((Object[]) uriSetIdMapping.keys)[i]);
-                    oout.writeInt(uriSetIdMapping.values[i]);
-                }
+            oout.writeInt(numberOfUris);
+            // go over the URIs and serialize their set ids
+            for (int i = 0; i < numberOfUris; ++i) {
+                oout.writeObject(store.getUri(i));
+                oout.writeInt(store.isNotFound(i) ? ENTITY_NOT_FOUND : rootSetIds[store.find(i)]);
             }
             // write the number of sets
-            oout.writeInt(sets.size());
+            oout.writeInt(setRoots.size());
             // write the single sets
-            for (Set<String> set : sets) {
-                oout.writeInt(set.size());
-                for (String uri : set) {
-                    oout.writeObject(uri);
+            int members[];
+            for (int i = 0; i < setRoots.size(); ++i) {
+                members = store.getMemberIds(setRoots.get(i));
+                oout.writeInt(members.length);
+                for (int j = 0; j < members.length; ++j) {
+                    oout.writeObject(store.getUri(members[j]));
                 }
             }
         } finally {
@@ -283,40 +448,6 @@ public class FileBasedCachingSameAsRetriever extends AbstractSameAsRetrieverDeco
         cacheChanges = 0;
     }
 
-    private void checkSetMapping() {
-        IntArrayList missingSets = null;
-        for (int i = 0; i < sets.size(); ++i) {
-            if (sets.get(i) == null) {
-                if (missingSets == null) {
-                    missingSets = new IntArrayList();
-                }
-                missingSets.add(i);
-            }
-        }
-        if (missingSets != null) {
-            LOGGER.info("The cache contains sets that have been merged. Renumbering the existing sets.");
-            // very simple approach: go through the missing sets starting with
-            // the highest id, remove the null from the list of sets and reduce
-            // the ids of all uris referencing a set with a higher id than the
-            // deleted one
-            int setId;
-            for (int i = (missingSets.elementsCount - 1); i >= 0; --i) {
-                setId = missingSets.buffer[i];
-                sets.remove(setId);
-                for (int j = 0; j < uriSetIdMapping.allocated.length; ++j) {
-                    if (uriSetIdMapping.allocated[j]) {
-                        if (uriSetIdMapping.values[j] == setId) {
-                            LOGGER.error("Found a uri pointing to a non existing set!");
-                        }
-                        if (uriSetIdMapping.values[j] > setId) {
-                            --uriSetIdMapping.values[j];
-                        }
-                    }
-                }
-            }
-        }
-    }
-
     public static Object[] readCacheFile(File cacheFile) {
         if (!cacheFile.exists() || cacheFile.isDirectory()) {
             return null;
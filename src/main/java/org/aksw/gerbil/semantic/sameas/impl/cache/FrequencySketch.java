@@ -0,0 +1,120 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.sameas.impl.cache;
+
+/**
+ * A count-min sketch with 4-bit counters that estimates how often an element
+ * has been accessed within the recent past. Each element is mapped to four
+ * counters and its frequency is the minimum of them. After a sample of
+ * accesses, all counters are halved so that the sketch forgets elements that
+ * have been popular a long time ago (the aging of TinyLFU).
+ * 
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ */
+public class FrequencySketch {
+
+    /**
+     * The maximum value of a counter.
+     */
+    public static final int MAX_FREQUENCY = 15;
+
+    private static final long SEEDS[] = new long[] { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+            0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    /**
+     * Every long contains 16 counters.
+     */
+    private final long table[];
+    private final int tableMask;
+    private final int sampleSize;
+    private int size = 0;
+
+    /**
+     * @param expectedElements
+     *            the number of elements that should be distinguishable, e.g.,
+     *            the maximum number of elements of a cache
+     */
+    public FrequencySketch(long expectedElements) {
+        int length = ceilingPowerOfTwo((int) Math.min(Math.max(expectedElements, 16), 1 << 24));
+        table = new long[length];
+        tableMask = length - 1;
+        sampleSize = 10 * length;
+    }
+
+    private static int ceilingPowerOfTwo(int x) {
+        return 1 << (32 - Integer.numberOfLeadingZeros(x - 1));
+    }
+
+    /**
+     * @return the estimated number of accesses of the element with the given
+     *         hash code (at most {@link #MAX_FREQUENCY})
+     */
+    public int frequency(int hashCode) {
+        int frequency = MAX_FREQUENCY;
+        for (int i = 0; i < SEEDS.length; ++i) {
+            frequency = Math.min(frequency, getCounter(indexOf(hashCode, i)));
+        }
+        return frequency;
+    }
+
+    /**
+     * Records an access of the element with the given hash code.
+     */
+    public void increment(int hashCode) {
+        boolean incremented = false;
+        long index;
+        for (int i = 0; i < SEEDS.length; ++i) {
+            index = indexOf(hashCode, i);
+            if (getCounter(index) < MAX_FREQUENCY) {
+                table[(int) (index >>> 4)] += 1L << ((index & 15) << 2);
+                incremented = true;
+            }
+        }
+        if (incremented && (++size == sampleSize)) {
+            reset();
+        }
+    }
+
+    /**
+     * Halves all counters.
+     */
+    protected void reset() {
+        for (int i = 0; i < table.length; ++i) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size /= 2;
+    }
+
+    /**
+     * @return the position of the i-th counter of the given hash code. The
+     *         upper bits are the position of the long inside the table while
+     *         the lowest 4 bits are the position of the counter inside the
+     *         long.
+     */
+    private long indexOf(int hashCode, int i) {
+        long hash = (hashCode + SEEDS[i]) * SEEDS[i];
+        hash += hash >>> 32;
+        return (((hash >>> 4) & tableMask) << 4) | (hash & 15);
+    }
+
+    private int getCounter(long index) {
+        return (int) ((table[(int) (index >>> 4)] >>> ((index & 15) << 2)) & 15);
+    }
+}
@@ -16,51 +16,78 @@
  */
 package org.aksw.gerbil.semantic.sameas.impl.cache;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Callable;
 
 import org.aksw.gerbil.semantic.sameas.SameAsRetriever;
 import org.aksw.gerbil.semantic.sameas.SameAsRetrieverDecorator;
+import org.aksw.gerbil.utils.RequestCoalescer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
 
-public class InMemoryCachingSameAsRetriever extends CacheLoader<String, Set<String>>
-        implements SameAsRetrieverDecorator {
+/**
+ * An in-memory cache for sameAs links based on a {@link TinyLfuCache}. The
+ * cache is bounded by the sum of the sizes of the cached URI sets instead of
+ * the number of entries and popular URIs are not replaced by URIs that are
+ * requested only once.
+ */
+public class InMemoryCachingSameAsRetriever implements SameAsRetrieverDecorator {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryCachingSameAsRetriever.class);
 
-    private static final int DEFAULT_CACHE_SIZE = 10000;
+    /**
+     * The default maximum weight, i.e., the maximum number of URIs of all
+     * cached sets.
+     */
+    public static final long DEFAULT_MAXIMUM_WEIGHT = 50000;
     private static final Set<String> NULL_SENTINEL = new HashSet<String>(0);
+    /**
+     * Every entry has a weight of at least 1, i.e., URIs without sameAs links
+     * are counted as well.
+     */
+    private static final Weigher<String, Set<String>> SET_SIZE_WEIGHER = new Weigher<String, Set<String>>() {
+        @Override
+        public int weigh(String key, Set<String> value) {
+            return Math.max(1, value.size());
+        }
+    };
 
     protected SameAsRetriever decoratedRetriever;
-    private LoadingCache<String, Set<String>> cache;
+    private TinyLfuCache<String, Set<String>> cache;
+    private RequestCoalescer<String, Set<String>> coalescer = new RequestCoalescer<String, Set<String>>();
 
     public InMemoryCachingSameAsRetriever(SameAsRetriever decoratedRetriever) {
-        this(decoratedRetriever, DEFAULT_CACHE_SIZE);
+        this(decoratedRetriever, DEFAULT_MAXIMUM_WEIGHT);
     }
 
-    public InMemoryCachingSameAsRetriever(SameAsRetriever decoratedRetriever, int cacheSize) {
+    /**
+     * @param maximumWeight
+     *            the maximum sum of the sizes of the cached URI sets
+     */
+    public InMemoryCachingSameAsRetriever(SameAsRetriever decoratedRetriever, long maximumWeight) {
         this.decoratedRetriever = decoratedRetriever;
-        cache = CacheBuilder.newBuilder().maximumSize(cacheSize).build(this);
+        cache = new TinyLfuCache<String, Set<String>>(maximumWeight, SET_SIZE_WEIGHER);
     }
 
     @Override
     public Set<String> retrieveSameURIs(String uri) {
-        try {
-            Set<String> result = cache.get(uri);
-            if (result == NULL_SENTINEL) {
-                return null;
-            } else {
-                return result;
-            }
-        } catch (ExecutionException e) {
-            LOGGER.error("Couldn't retrieve sameAs links. Returning null.", e);
+        Set<String> result = cache.getIfPresent(uri);
+        if (result == null) {
+            result = load(uri);
+        }
+        if (result == NULL_SENTINEL) {
             return null;
+        } else {
+            return result;
         }
     }
 
@@ -69,6 +96,26 @@ public class InMemoryCachingSameAsRetriever extends CacheLoader<String, Set<Stri
         return retrieveSameURIs(uri);
     }
 
+    @Override
+    public Map<String, Set<String>> retrieveSameURIs(Collection<String> uris) {
+        Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+        List<String> missingUris = new ArrayList<String>();
+        Set<String> cached;
+        for (String uri : uris) {
+            cached = cache.getIfPresent(uri);
+            if (cached == null) {
+                missingUris.add(uri);
+            } else if (cached != NULL_SENTINEL) {
+                result.put(uri, cached);
+            }
+        }
+        // the URIs that are not cached are loaded with a single call
+        if (missingUris.size() > 0) {
+            result.putAll(loadAll(missingUris));
+        }
+        return result;
+    }
+
     @Override
     public SameAsRetriever getDecorated() {
         return decoratedRetriever;
@@ -81,20 +128,96 @@ public class InMemoryCachingSameAsRetriever extends CacheLoader<String, Set<Stri
         for (String uri : uris) {
             result = retrieveSameURIs(uri);
             if (result != null) {
-                temp.addAll(retrieveSameURIs(uri));
+                temp.addAll(result);
             }
         }
         uris.addAll(temp);
     }
 
-    @Override
-    public Set<String> load(String key) throws Exception {
-        Set<String> result = decoratedRetriever.retrieveSameURIs(key);
-        if (result == null) {
+    /**
+     * Loads the set of the given URI and adds it to the cache. The
+     * {@link #coalescer} makes sure that a URI is not requested twice at the
+     * same time.
+     * 
+     * @return the loaded set or {@link #NULL_SENTINEL} if there are no sameAs
+     *         links or they couldn't be retrieved
+     */
+    protected Set<String> load(final String uri) {
+        long startTime = System.nanoTime();
+        Set<String> result;
+        try {
+            result = coalescer.request(uri, new Callable<Set<String>>() {
+                @Override
+                public Set<String> call() throws Exception {
+                    return decoratedRetriever.retrieveSameURIs(uri);
+                }
+            });
+        } catch (Exception e) {
+            cache.recordLoadException(System.nanoTime() - startTime);
+            LOGGER.error("Couldn't retrieve sameAs links. Returning null.", e);
             return NULL_SENTINEL;
-        } else {
-            return result;
         }
+        cache.recordLoadSuccess(System.nanoTime() - startTime);
+        if (result == null) {
+            result = NULL_SENTINEL;
+        }
+        cache.put(uri, result);
+        return result;
+    }
+
+    /**
+     * Loads the sets of the given URIs with a single batch request and adds
+     * them to the cache.
+     * 
+     * @return the loaded sets. URIs without sameAs links are not part of the
+     *         result.
+     */
+    protected Map<String, Set<String>> loadAll(List<String> uris) {
+        long startTime = System.nanoTime();
+        Map<String, Set<String>> retrievedUris;
+        try {
+            retrievedUris = coalescer.requestAll(uris, new RequestCoalescer.BatchRequest<String, Set<String>>() {
+                @Override
+                public Map<String, Set<String>> request(List<String> keys) throws Exception {
+                    return decoratedRetriever.retrieveSameURIs(keys);
+                }
+            });
+        } catch (Exception e) {
+            cache.recordLoadException(System.nanoTime() - startTime);
+            LOGGER.error("Couldn't retrieve sameAs links. Returning empty result.", e);
+            return new HashMap<String, Set<String>>();
+        }
+        cache.recordLoadSuccess(System.nanoTime() - startTime);
+        Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+        Set<String> retrieved;
+        for (String uri : uris) {
+            retrieved = retrievedUris.get(uri);
+            if (retrieved == null) {
+                cache.put(uri, NULL_SENTINEL);
+            } else {
+                cache.put(uri, retrieved);
+                result.put(uri, retrieved);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the hit, miss, load and eviction statistics of the cache
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * @return the sum of the sizes of the cached URI sets
+     */
+    public long getWeightedSize() {
+        return cache.weightedSize();
+    }
+
+    public int getNumberOfCachedUris() {
+        return cache.size();
     }
 
 }
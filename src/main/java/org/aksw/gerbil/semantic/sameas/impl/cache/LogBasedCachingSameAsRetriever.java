@@ -0,0 +1,623 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.sameas.impl.cache;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.aksw.gerbil.semantic.sameas.SameAsRetriever;
+import org.aksw.gerbil.semantic.sameas.impl.AbstractSameAsRetrieverDecorator;
+import org.aksw.gerbil.utils.RequestCoalescer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+
+/**
+ * <p>
+ * A persistent sameAs cache that can be used by several threads at the same
+ * time. In contrast to the {@link FileBasedCachingSameAsRetriever}, reading
+ * from this cache does not need any lock and writing only locks the stripes
+ * of the URIs that are changed. The cache is persisted as an append-only
+ * {@link SameAsCacheLog}, i.e., the costs of writing depend on the size of the
+ * change instead of the size of the cache. If the log grows too large compared
+ * to the state it describes, it is compacted.
+ * </p>
+ * <p>
+ * Every URI of a cached set points to the same (unmodifiable) set instance.
+ * Callers get a copy of this set.
+ * URIs for which no sameAs links could be found are marked as not found.
+ * </p>
+ * <p>
+ * Optionally, a {@link MappedSameAsCache} snapshot of the log (created with the
+ * {@link org.aksw.gerbil.tools.SameAsCacheSnapshotTool}) can be used as
+ * backing store. In this case, only the records that have been appended to
+ * the log after the snapshot has been created are loaded into the heap. URIs
+ * that are not part of these records are looked up in the snapshot. Since the
+ * snapshot refers to a position in the log, the log is not compacted while a
+ * snapshot is used. Instead, the snapshot should be recreated from time to
+ * time.
+ * </p>
+ */
+public class LogBasedCachingSameAsRetriever extends AbstractSameAsRetrieverDecorator implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogBasedCachingSameAsRetriever.class);
+
+    private static final int DEFAULT_NUMBER_OF_STRIPES = 64;
+    /**
+     * The log is compacted if it contains more than this factor times the
+     * records of the last compaction.
+     */
+    private static final int COMPACTION_FACTOR = 2;
+    /**
+     * Minimum number of records that have to be appended to the log before it
+     * is compacted.
+     */
+    private static final int MIN_RECORDS_BEFORE_COMPACTION = 1000;
+
+    protected static final Set<String> ENTITY_NOT_FOUND = Collections.unmodifiableSet(new HashSet<String>(0));
+
+    /**
+     * Creates a cache based on the given log file. If the log file does not
+     * exist but the given legacy cache file of a
+     * {@link FileBasedCachingSameAsRetriever} exists, its content is imported.
+     *
+     * @param decoratedRetriever
+     *            the retriever that is used to retrieve URIs that are not
+     *            cached
+     * @param requestEntitiesNotFound
+     *            if true, URIs for which no sameAs links have been found are
+     *            requested again
+     * @param logFile
+     *            the file containing the log of the cache
+     * @param legacyCacheFile
+     *            a cache file of a {@link FileBasedCachingSameAsRetriever} or
+     *            null
+     * @return the cache or null if the log file couldn't be opened
+     */
+    public static LogBasedCachingSameAsRetriever create(SameAsRetriever decoratedRetriever,
+            boolean requestEntitiesNotFound, File logFile, File legacyCacheFile) {
+        return create(decoratedRetriever, requestEntitiesNotFound, logFile, legacyCacheFile, null);
+    }
+
+    /**
+     * Creates a cache based on the given log file that uses the given snapshot
+     * file as backing store (if it exists). If the log file does not exist but
+     * the given legacy cache file of a {@link FileBasedCachingSameAsRetriever}
+     * exists, its content is imported.
+     *
+     * @param decoratedRetriever
+     *            the retriever that is used to retrieve URIs that are not
+     *            cached
+     * @param requestEntitiesNotFound
+     *            if true, URIs for which no sameAs links have been found are
+     *            requested again
+     * @param logFile
+     *            the file containing the log of the cache
+     * @param legacyCacheFile
+     *            a cache file of a {@link FileBasedCachingSameAsRetriever} or
+     *            null
+     * @param snapshotFile
+     *            a {@link MappedSameAsCache} snapshot of the log or null
+     * @return the cache or null if the log file couldn't be opened
+     */
+    public static LogBasedCachingSameAsRetriever create(SameAsRetriever decoratedRetriever,
+            boolean requestEntitiesNotFound, File logFile, File legacyCacheFile, File snapshotFile) {
+        final LogBasedCachingSameAsRetriever cache = new LogBasedCachingSameAsRetriever(decoratedRetriever,
+                requestEntitiesNotFound, DEFAULT_NUMBER_OF_STRIPES);
+        boolean importLegacyCache = !logFile.exists() && (legacyCacheFile != null) && legacyCacheFile.exists();
+        SameAsCacheLog.LogPosition snapshotPosition = null;
+        if ((snapshotFile != null) && snapshotFile.exists()) {
+            try {
+                cache.snapshot = MappedSameAsCache.open(snapshotFile);
+                snapshotPosition = cache.snapshot.getLogPosition();
+                LOGGER.info("Mapped sameAs cache snapshot with {} URIs from {}.", cache.snapshot.getNumberOfUris(),
+                        snapshotFile);
+            } catch (IOException e) {
+                LOGGER.error("Couldn't map the sameAs cache snapshot. It won't be used.", e);
+            }
+        }
+        try {
+            // if a snapshot is used, only the records that are not part of it
+            // are loaded
+            cache.log = SameAsCacheLog.open(logFile, new SameAsCacheLog.RecordHandler() {
+                @Override
+                public void handleSet(Collection<String> uris) {
+                    cache.mergeIntoCache(uris);
+                }
+
+                @Override
+                public void handleNotFound(String uri) {
+                    if (cache.getSet(uri) == null) {
+                        cache.cache.putIfAbsent(uri, ENTITY_NOT_FOUND);
+                    }
+                }
+            }, snapshotPosition);
+        } catch (IOException e) {
+            LOGGER.error("Couldn't open sameAs cache log. Returning null.", e);
+            if (cache.snapshot != null) {
+                cache.snapshot.close();
+            }
+            return null;
+        }
+        cache.compactedRecords = cache.log.getNumberOfRecords();
+        if (importLegacyCache) {
+            cache.importLegacyCache(legacyCacheFile);
+        }
+        LOGGER.info("Loaded sameAs cache with {} URIs from {}.", cache.cache.size(), logFile);
+        return cache;
+    }
+
+    protected ConcurrentMap<String, Set<String>> cache = new ConcurrentHashMap<String, Set<String>>();
+    private ReentrantLock stripes[];
+    private boolean requestEntitiesNotFound;
+    private RequestCoalescer<String, Set<String>> coalescer = new RequestCoalescer<String, Set<String>>();
+    private SameAsCacheLog log;
+    /**
+     * The snapshot that is used as backing store or null.
+     */
+    private MappedSameAsCache snapshot = null;
+    /**
+     * The number of records the log had after its last compaction.
+     */
+    private long compactedRecords = 0;
+
+    protected LogBasedCachingSameAsRetriever(SameAsRetriever decoratedRetriever, boolean requestEntitiesNotFound,
+            int numberOfStripes) {
+        super(decoratedRetriever);
+        this.requestEntitiesNotFound = requestEntitiesNotFound;
+        stripes = new ReentrantLock[numberOfStripes];
+        for (int i = 0; i < stripes.length; ++i) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public Set<String> retrieveSameURIs(String uri) {
+        Set<String> result = getSet(uri);
+        if ((result == null) || ((result == ENTITY_NOT_FOUND) && requestEntitiesNotFound)) {
+            result = coalescedRequestUri(uri);
+        } else if (result == ENTITY_NOT_FOUND) {
+            result = null;
+        }
+        // the cached sets are shared and can not be changed, so the caller
+        // gets its own copy
+        return (result == null) ? null : new HashSet<String>(result);
+    }
+
+    @Override
+    public Set<String> retrieveSameURIs(String domain, String uri) {
+        return retrieveSameURIs(uri);
+    }
+
+    @Override
+    public Map<String, Set<String>> retrieveSameURIs(Collection<String> uris) {
+        Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+        List<String> missingUris = new ArrayList<String>();
+        Set<String> cachedSet;
+        for (String uri : uris) {
+            cachedSet = getSet(uri);
+            if ((cachedSet == null) || ((cachedSet == ENTITY_NOT_FOUND) && requestEntitiesNotFound)) {
+                missingUris.add(uri);
+            } else if (cachedSet != ENTITY_NOT_FOUND) {
+                result.put(uri, new HashSet<String>(cachedSet));
+            }
+        }
+        if (missingUris.size() > 0) {
+            try {
+                // request all missing URIs as a single batch (URIs that are
+                // requested by other threads are not requested again)
+                Map<String, Set<String>> retrievedUris = coalescer.requestAll(missingUris,
+                        new RequestCoalescer.BatchRequest<String, Set<String>>() {
+                            @Override
+                            public Map<String, Set<String>> request(List<String> keys) throws Exception {
+                                return requestUris(keys);
+                            }
+                        });
+                for (Entry<String, Set<String>> entry : retrievedUris.entrySet()) {
+                    result.put(entry.getKey(), new HashSet<String>(entry.getValue()));
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                LOGGER.error("Exception while requesting sameAs links. Returning the cached links.", e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Requests the set for the given URI using {@link #requestUri(String)}.
+     * If the URI is already requested by another thread, its result is used
+     * instead of sending the same request again.
+     */
+    protected Set<String> coalescedRequestUri(final String uri) {
+        try {
+            return coalescer.request(uri, new Callable<Set<String>>() {
+                @Override
+                public Set<String> call() throws Exception {
+                    return requestUri(uri);
+                }
+            });
+        } catch (InterruptedException | ExecutionException e) {
+            LOGGER.error("Exception while requesting sameAs links. Returning null.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Requests the sets for the given URIs from the decorated retriever as a
+     * single batch and adds them to the cache.
+     *
+     * @return the cached sets of the URIs that have been found
+     */
+    protected Map<String, Set<String>> requestUris(List<String> uris) {
+        Map<String, Set<String>> retrievedUris = decoratedRetriever.retrieveSameURIs(uris);
+        Map<String, Set<String>> addedSets = new HashMap<String, Set<String>>();
+        Set<String> retrieved;
+        for (String uri : uris) {
+            retrieved = retrievedUris.get(uri);
+            if (retrieved != null) {
+                addedSets.put(uri, addSet(retrieved));
+            } else {
+                addNotFound(uri);
+            }
+        }
+        // the sets of the URIs might have been merged with each other
+        Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+        Set<String> cachedSet;
+        for (String uri : uris) {
+            cachedSet = getSet(uri);
+            if (cachedSet == null) {
+                // the retrieved set does not contain the URI itself, i.e.,
+                // the URI is not cached but the set is returned like in
+                // requestUri(String)
+                cachedSet = addedSets.get(uri);
+            }
+            if ((cachedSet != null) && (cachedSet != ENTITY_NOT_FOUND)) {
+                result.put(uri, cachedSet);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Requests the set for the given URI from the decorated retriever and adds
+     * it to the cache.
+     */
+    protected Set<String> requestUri(String uri) {
+        Set<String> result = decoratedRetriever.retrieveSameURIs(uri);
+        if (result == null) {
+            return addNotFound(uri);
+        } else {
+            return addSet(result);
+        }
+    }
+
+    /**
+     * Marks the given URI as not found if it is not already cached.
+     *
+     * @return the cached set of the URI or null if it is not found
+     */
+    protected Set<String> addNotFound(String uri) {
+        Set<String> result;
+        ReentrantLock lock = stripes[stripe(uri)];
+        lock.lock();
+        try {
+            result = getSnapshotSet(uri);
+            if (result == null) {
+                result = cache.putIfAbsent(uri, ENTITY_NOT_FOUND);
+                if (result == null) {
+                    appendToLog(null, uri);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return (result == ENTITY_NOT_FOUND) ? null : result;
+    }
+
+    /**
+     * Merges the given set with all cached sets that share URIs with it and
+     * writes the change to the log.
+     *
+     * @return the merged set
+     */
+    protected Set<String> addSet(Set<String> uris) {
+        Set<String> union = new HashSet<String>(uris);
+        int lockedStripes[];
+        while (true) {
+            addCachedSets(union);
+            lockedStripes = lockStripes(union);
+            try {
+                // make sure that no other thread changed one of the sets in
+                // the meantime
+                if (isClosed(union)) {
+                    Set<String> mergedSet = Collections.unmodifiableSet(union);
+                    for (String uri : union) {
+                        cache.put(uri, mergedSet);
+                    }
+                    // only the new URIs have to be written since the replay
+                    // merges them with the existing sets
+                    appendToLog(uris, null);
+                    return mergedSet;
+                }
+            } finally {
+                unlockStripes(lockedStripes);
+            }
+        }
+    }
+
+    /**
+     * Adds the URIs of all cached sets that overlap with the given set to it.
+     */
+    private void addCachedSets(Set<String> union) {
+        Set<String> cachedSet;
+        String uris[] = union.toArray(new String[union.size()]);
+        for (int i = 0; i < uris.length; ++i) {
+            cachedSet = getSet(uris[i]);
+            if ((cachedSet != null) && (cachedSet != ENTITY_NOT_FOUND)) {
+                union.addAll(cachedSet);
+            }
+        }
+    }
+
+    /**
+     * @return true if all cached sets of the given URIs are subsets of the
+     *         given set.
+     */
+    private boolean isClosed(Set<String> union) {
+        Set<String> cachedSet;
+        for (String uri : union) {
+            cachedSet = getSet(uri);
+            if ((cachedSet != null) && (cachedSet != ENTITY_NOT_FOUND) && (!union.containsAll(cachedSet))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the cached set of the given URI. Sets that are in the heap
+     * (i.e., that have been added after the snapshot has been created)
+     * override the sets of the snapshot.
+     *
+     * @return the cached set, {@link #ENTITY_NOT_FOUND} or null if the URI is
+     *         not cached
+     */
+    protected Set<String> getSet(String uri) {
+        Set<String> result = cache.get(uri);
+        if (result == null) {
+            result = getSnapshotSet(uri);
+        }
+        return result;
+    }
+
+    /**
+     * @return the set of the given URI stored in the snapshot,
+     *         {@link #ENTITY_NOT_FOUND} or null if the snapshot does not
+     *         contain the URI
+     */
+    private Set<String> getSnapshotSet(String uri) {
+        if (snapshot == null) {
+            return null;
+        }
+        int id = snapshot.getId(uri);
+        if (id == MappedSameAsCache.NOT_CONTAINED) {
+            return null;
+        }
+        Set<String> result = snapshot.getMembers(id);
+        return (result == null) ? ENTITY_NOT_FOUND : Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * Locks the stripes of all given URIs in ascending order to avoid dead
+     * locks.
+     *
+     * @return the locked stripes
+     */
+    private int[] lockStripes(Set<String> uris) {
+        boolean needed[] = new boolean[stripes.length];
+        int count = 0;
+        int stripe;
+        for (String uri : uris) {
+            stripe = stripe(uri);
+            if (!needed[stripe]) {
+                needed[stripe] = true;
+                ++count;
+            }
+        }
+        int lockedStripes[] = new int[count];
+        count = 0;
+        for (int i = 0; i < needed.length; ++i) {
+            if (needed[i]) {
+                stripes[i].lock();
+                lockedStripes[count] = i;
+                ++count;
+            }
+        }
+        return lockedStripes;
+    }
+
+    private void unlockStripes(int lockedStripes[]) {
+        for (int i = lockedStripes.length - 1; i >= 0; --i) {
+            stripes[lockedStripes[i]].unlock();
+        }
+    }
+
+    private int stripe(String uri) {
+        int hash = uri.hashCode();
+        hash ^= (hash >>> 16);
+        return (hash & 0x7FFFFFFF) % stripes.length;
+    }
+
+    /**
+     * Merges the given URIs into the cache without locking and logging. This
+     * method is used while the cache is loaded.
+     */
+    protected void mergeIntoCache(Collection<String> uris) {
+        Set<String> union = new HashSet<String>(uris);
+        addCachedSets(union);
+        Set<String> mergedSet = Collections.unmodifiableSet(union);
+        for (String uri : union) {
+            cache.put(uri, mergedSet);
+        }
+    }
+
+    private void appendToLog(Set<String> uris, String notFoundUri) {
+        if (log == null) {
+            return;
+        }
+        synchronized (log) {
+            try {
+                if (uris != null) {
+                    log.appendSet(uris);
+                } else {
+                    log.appendNotFound(notFoundUri);
+                }
+                // the records of the log that are part of the snapshot are
+                // not in the heap, so the log can not be compacted
+                if ((snapshot == null) && (log.getNumberOfRecords() >= ((COMPACTION_FACTOR * compactedRecords)
+                        + MIN_RECORDS_BEFORE_COMPACTION))) {
+                    compactLog();
+                }
+            } catch (IOException e) {
+                LOGGER.error("Exception while writing to the sameAs cache log. The change might get lost.", e);
+            }
+        }
+    }
+
+    /**
+     * Replaces the log with a snapshot of the current cache. Has to be called
+     * while holding the monitor of the log.
+     */
+    private void compactLog() throws IOException {
+        LOGGER.info("Compacting the sameAs cache log...");
+        compactedRecords = log.compact(new SameAsCacheLog.Snapshot() {
+            @Override
+            public void writeTo(SameAsCacheLog.RecordWriter writer) throws IOException {
+                // every set is shared by all its URIs, so we have to make sure
+                // that it is written only once
+                Map<Set<String>, Boolean> writtenSets = new IdentityHashMap<Set<String>, Boolean>();
+                for (Entry<String, Set<String>> entry : cache.entrySet()) {
+                    if (entry.getValue() == ENTITY_NOT_FOUND) {
+                        writer.writeNotFound(entry.getKey());
+                    } else if (!writtenSets.containsKey(entry.getValue())) {
+                        writtenSets.put(entry.getValue(), Boolean.TRUE);
+                        writer.writeSet(entry.getValue());
+                    }
+                }
+            }
+        });
+        LOGGER.info("Compacted the sameAs cache log to {} records.", compactedRecords);
+    }
+
+    /**
+     * Imports the content of a cache file of the
+     * {@link FileBasedCachingSameAsRetriever}.
+     */
+    @SuppressWarnings("unchecked")
+    protected void importLegacyCache(File legacyCacheFile) {
+        Object objects[] = FileBasedCachingSameAsRetriever.readCacheFile(legacyCacheFile);
+        if (objects == null) {
+            return;
+        }
+        LOGGER.info("Importing the sameAs cache file {}...", legacyCacheFile);
+        ObjectIntOpenHashMap<String> uriSetIdMapping = (ObjectIntOpenHashMap<String>) objects[0];
+        for (int i = 0; i < uriSetIdMapping.allocated.length; ++i) {
+            if (uriSetIdMapping.allocated[i]
+                    && (uriSetIdMapping.values[i] == FileBasedCachingSameAsRetriever.ENTITY_NOT_FOUND)) {
+                cache.putIfAbsent((String) ((Object[]) uriSetIdMapping.keys)[i], ENTITY_NOT_FOUND);
+            }
+        }
+        for (Set<String> set : (List<Set<String>>) objects[1]) {
+            if (set != null) {
+                mergeIntoCache(set);
+            }
+        }
+        // the log did not exist before, i.e., the heap contains all records
+        // that have to be written
+        if (log != null) {
+            synchronized (log) {
+                try {
+                    compactLog();
+                } catch (IOException e) {
+                    LOGGER.error("Exception while compacting the sameAs cache log.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compacts the log, i.e., writes the complete cache into a new log file.
+     * If a snapshot is used, the log is not compacted.
+     */
+    public void storeCache() {
+        if ((log == null) || (snapshot != null)) {
+            return;
+        }
+        synchronized (log) {
+            try {
+                compactLog();
+            } catch (IOException e) {
+                LOGGER.error("Exception while compacting the sameAs cache log.", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (log != null) {
+            synchronized (log) {
+                log.close();
+            }
+        }
+        if (snapshot != null) {
+            snapshot.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LogBasedCachingSameAsRetriever(uris=" + cache.size() + ", stripes=" + stripes.length + ", log="
+                + ((log == null) ? null : log.getLogFile()) + ", snapshotUris="
+                + ((snapshot == null) ? 0 : snapshot.getNumberOfUris()) + ")";
+    }
+
+    /**
+     * @return the cached set of the given URI (or null). Only used for
+     *         testing.
+     */
+    protected Set<String> getCachedSet(String uri) {
+        Set<String> result = getSet(uri);
+        return (result == ENTITY_NOT_FOUND) ? null : result;
+    }
+}
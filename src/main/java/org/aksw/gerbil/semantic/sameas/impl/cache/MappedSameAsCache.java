@@ -0,0 +1,334 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.sameas.impl.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.aksw.gerbil.utils.ChunkedMappedFile;
+
+import com.carrotsearch.hppc.IntArrayList;
+
+/**
+ * <p>
+ * A read-only snapshot of a sameAs cache that is stored in a memory-mapped
+ * file. Opening the snapshot does not read its content. Instead, the
+ * operating system loads the pages that are needed. Thus, the snapshot does
+ * not use heap memory and can be shared by several JVMs on the same host.
+ * </p>
+ * <p>
+ * The file contains (after a header containing the {@link SameAsCacheLog}
+ * position up to which the snapshot contains the records of the log)
+ * <ul>
+ * <li>the offsets of the URIs in the string section (long[#URIs + 1]),</li>
+ * <li>the class ids of the URIs or -1 if no sameAs links have been found for
+ * the URI (int[#URIs]),</li>
+ * <li>the offsets of the classes in the member section (int[#classes +
+ * 1]),</li>
+ * <li>the URI ids of the members of the classes (int[]),</li>
+ * <li>a hash table with linear probing mapping URIs to their ids + 1 (int[]),
+ * and</li>
+ * <li>the UTF-8 encoded URIs.</li>
+ * </ul>
+ * A snapshot is written with
+ * {@link #write(File, SameAsEquivalenceStore, SameAsCacheLog.LogPosition)}. The
+ * file is replaced atomically, so JVMs that mapped the old file can continue
+ * to use it.
+ * </p>
+ */
+public class MappedSameAsCache implements Closeable {
+
+    public static final int NOT_CONTAINED = -1;
+
+    private static final int MAGIC_NUMBER = 0x53414D43;
+    private static final int VERSION = 2;
+    /**
+     * Snapshots of the first version do not contain a log position.
+     */
+    private static final int VERSION_WITHOUT_LOG_POSITION = 1;
+    private static final int HEADER_LENGTH = 37;
+    private static final int HEADER_LENGTH_WITHOUT_LOG_POSITION = 20;
+    private static final int ENTITY_NOT_FOUND = -1;
+
+    public static MappedSameAsCache open(File file) throws IOException {
+        return open(file, ChunkedMappedFile.DEFAULT_CHUNK_SIZE_BITS);
+    }
+
+    protected static MappedSameAsCache open(File file, int chunkSizeBits) throws IOException {
+        ChunkedMappedFile mappedFile = ChunkedMappedFile.map(file, chunkSizeBits);
+        int version = (mappedFile.length() < HEADER_LENGTH_WITHOUT_LOG_POSITION) ? 0 : mappedFile.getInt(4);
+        if ((mappedFile.length() < HEADER_LENGTH_WITHOUT_LOG_POSITION) || (mappedFile.getInt(0) != MAGIC_NUMBER)
+                || ((version != VERSION) && (version != VERSION_WITHOUT_LOG_POSITION))
+                || ((version == VERSION) && (mappedFile.length() < HEADER_LENGTH))) {
+            mappedFile.close();
+            throw new IOException("The file " + file + " is not a mapped sameAs cache of version " + VERSION + ".");
+        }
+        if (version == VERSION_WITHOUT_LOG_POSITION) {
+            return new MappedSameAsCache(mappedFile, HEADER_LENGTH_WITHOUT_LOG_POSITION, mappedFile.getInt(8),
+                    mappedFile.getInt(12), mappedFile.getInt(16), null);
+        }
+        SameAsCacheLog.LogPosition logPosition = null;
+        if (mappedFile.getByte(20) != 0) {
+            logPosition = new SameAsCacheLog.LogPosition(mappedFile.getLong(21), mappedFile.getLong(29));
+        }
+        return new MappedSameAsCache(mappedFile, HEADER_LENGTH, mappedFile.getInt(8), mappedFile.getInt(12),
+                mappedFile.getInt(16), logPosition);
+    }
+
+    /**
+     * Writes the content of the given store into the given file.
+     */
+    public static void write(File file, SameAsEquivalenceStore store) throws IOException {
+        write(file, store, null);
+    }
+
+    /**
+     * Writes the content of the given store into the given file.
+     *
+     * @param logPosition
+     *            the position up to which the store contains the records of
+     *            the log it has been read from or null if the store has not
+     *            been read from a {@link SameAsCacheLog}
+     */
+    public static void write(File file, SameAsEquivalenceStore store, SameAsCacheLog.LogPosition logPosition)
+            throws IOException {
+        int numberOfUris = store.getNumberOfUris();
+        // number the classes of all URIs that have not been marked as not
+        // found
+        int uriClasses[] = new int[numberOfUris];
+        Arrays.fill(uriClasses, ENTITY_NOT_FOUND);
+        int rootClassIds[] = new int[numberOfUris];
+        Arrays.fill(rootClassIds, ENTITY_NOT_FOUND);
+        IntArrayList classRoots = new IntArrayList();
+        int root;
+        for (int i = 0; i < numberOfUris; ++i) {
+            if (!store.isNotFound(i)) {
+                root = store.find(i);
+                if (rootClassIds[root] == ENTITY_NOT_FOUND) {
+                    rootClassIds[root] = classRoots.size();
+                    classRoots.add(root);
+                }
+                uriClasses[i] = rootClassIds[root];
+            }
+        }
+        int tableSize = 2;
+        while (tableSize < (2L * numberOfUris)) {
+            tableSize <<= 1;
+        }
+        int table[] = new int[tableSize];
+        int slot;
+        for (int i = 0; i < numberOfUris; ++i) {
+            slot = hash(store.getUri(i)) & (tableSize - 1);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & (tableSize - 1);
+            }
+            table[slot] = i + 1;
+        }
+
+        File tempFile = new File(file.getAbsolutePath() + "_temp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+        try {
+            out.writeInt(MAGIC_NUMBER);
+            out.writeInt(VERSION);
+            out.writeInt(numberOfUris);
+            out.writeInt(classRoots.size());
+            out.writeInt(tableSize);
+            if (logPosition != null) {
+                out.writeByte(1);
+                out.writeLong(logPosition.getGeneration());
+                out.writeLong(logPosition.getOffset());
+            } else {
+                out.writeByte(0);
+                out.writeLong(0);
+                out.writeLong(0);
+            }
+            // string offsets
+            long offset = 0;
+            for (int i = 0; i < numberOfUris; ++i) {
+                out.writeLong(offset);
+                offset += store.getUri(i).getBytes(StandardCharsets.UTF_8).length;
+            }
+            out.writeLong(offset);
+            // classes of the URIs
+            for (int i = 0; i < numberOfUris; ++i) {
+                out.writeInt(uriClasses[i]);
+            }
+            // class offsets
+            int memberOffset = 0;
+            for (int i = 0; i < classRoots.size(); ++i) {
+                out.writeInt(memberOffset);
+                memberOffset += store.getClassSize(classRoots.get(i));
+            }
+            out.writeInt(memberOffset);
+            // members
+            int members[];
+            for (int i = 0; i < classRoots.size(); ++i) {
+                members = store.getMemberIds(classRoots.get(i));
+                for (int j = 0; j < members.length; ++j) {
+                    out.writeInt(members[j]);
+                }
+            }
+            // hash table
+            for (int i = 0; i < table.length; ++i) {
+                out.writeInt(table[i]);
+            }
+            // strings
+            for (int i = 0; i < numberOfUris; ++i) {
+                out.write(store.getUri(i).getBytes(StandardCharsets.UTF_8));
+            }
+        } finally {
+            out.close();
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * A hash function that is stable across JVMs (based on
+     * {@link String#hashCode()} which is specified).
+     */
+    private static int hash(String uri) {
+        int h = uri.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    private ChunkedMappedFile file;
+    private int numberOfUris;
+    private int numberOfClasses;
+    private int tableMask;
+    private long stringOffsetsStart;
+    private long uriClassesStart;
+    private long classOffsetsStart;
+    private long membersStart;
+    private long tableStart;
+    private long stringsStart;
+    private SameAsCacheLog.LogPosition logPosition;
+
+    protected MappedSameAsCache(ChunkedMappedFile file, int headerLength, int numberOfUris, int numberOfClasses,
+            int tableSize, SameAsCacheLog.LogPosition logPosition) {
+        this.file = file;
+        this.numberOfUris = numberOfUris;
+        this.numberOfClasses = numberOfClasses;
+        this.tableMask = tableSize - 1;
+        this.logPosition = logPosition;
+        stringOffsetsStart = headerLength;
+        uriClassesStart = stringOffsetsStart + (8L * (numberOfUris + 1));
+        classOffsetsStart = uriClassesStart + (4L * numberOfUris);
+        membersStart = classOffsetsStart + (4L * (numberOfClasses + 1));
+        tableStart = membersStart + (4L * file.getInt(classOffsetsStart + (4L * numberOfClasses)));
+        stringsStart = tableStart + (4L * tableSize);
+    }
+
+    /**
+     * @return the id of the given URI or {@link #NOT_CONTAINED} if the
+     *         snapshot does not contain the URI
+     */
+    public int getId(String uri) {
+        byte bytes[] = uri.getBytes(StandardCharsets.UTF_8);
+        int slot = hash(uri) & tableMask;
+        int entry = file.getInt(tableStart + (4L * slot));
+        while (entry != 0) {
+            if (uriEquals(entry - 1, bytes)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & tableMask;
+            entry = file.getInt(tableStart + (4L * slot));
+        }
+        return NOT_CONTAINED;
+    }
+
+    private boolean uriEquals(int id, byte bytes[]) {
+        long start = file.getLong(stringOffsetsStart + (8L * id));
+        long end = file.getLong(stringOffsetsStart + (8L * (id + 1)));
+        if ((end - start) != bytes.length) {
+            return false;
+        }
+        start += stringsStart;
+        for (int i = 0; i < bytes.length; ++i) {
+            if (file.getByte(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getUri(int id) {
+        long start = file.getLong(stringOffsetsStart + (8L * id));
+        byte bytes[] = new byte[(int) (file.getLong(stringOffsetsStart + (8L * (id + 1))) - start)];
+        file.getBytes(stringsStart + start, bytes, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return true if no sameAs links have been found for the URI with the
+     *         given id
+     */
+    public boolean isNotFound(int id) {
+        return file.getInt(uriClassesStart + (4L * id)) == ENTITY_NOT_FOUND;
+    }
+
+    /**
+     * @return a new set containing all URIs that are the same as the URI with
+     *         the given id or null if no sameAs links have been found for it
+     */
+    public Set<String> getMembers(int id) {
+        int classId = file.getInt(uriClassesStart + (4L * id));
+        if (classId == ENTITY_NOT_FOUND) {
+            return null;
+        }
+        int start = file.getInt(classOffsetsStart + (4L * classId));
+        int end = file.getInt(classOffsetsStart + (4L * (classId + 1)));
+        Set<String> members = new HashSet<String>(2 * (end - start));
+        for (int i = start; i < end; ++i) {
+            members.add(getUri(file.getInt(membersStart + (4L * i))));
+        }
+        return members;
+    }
+
+    public int getNumberOfUris() {
+        return numberOfUris;
+    }
+
+    public int getNumberOfClasses() {
+        return numberOfClasses;
+    }
+
+    /**
+     * @return the position up to which the snapshot contains the records of
+     *         the log it has been created from or null if it is unknown
+     */
+    public SameAsCacheLog.LogPosition getLogPosition() {
+        return logPosition;
+    }
+
+    @Override
+    public void close() {
+        file.close();
+    }
+}
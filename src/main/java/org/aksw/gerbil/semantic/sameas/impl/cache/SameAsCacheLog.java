@@ -0,0 +1,428 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.sameas.impl.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.UUID;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * An append-only log file containing the changes of a sameAs cache. Every
+ * record is either a set of URIs that are known to be the same or a single
+ * URI for which no sameAs links could be found. Reading the log from the
+ * beginning and applying all records in their order recreates the state of
+ * the cache.
+ * </p>
+ * <p>
+ * Since the log grows with every change, it can be compacted, i.e., replaced
+ * by a snapshot of the current state of the cache. The snapshot is written to
+ * a temporary file that replaces the log afterwards. Every compaction creates a
+ * new generation of the log. Together with an offset in the log file, the
+ * generation forms a {@link LogPosition} which can be used to replay only the
+ * records that have been appended after this position.
+ * </p>
+ * <p>
+ * Note that this class is not thread-safe.
+ * </p>
+ */
+public class SameAsCacheLog implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SameAsCacheLog.class);
+
+    private static final int MAGIC_NUMBER = 0x53414C47;
+    private static final int VERSION = 2;
+    /**
+     * Logs of the first version do not have a generation.
+     */
+    private static final int VERSION_WITHOUT_GENERATION = 1;
+    private static final int HEADER_LENGTH = 16;
+    private static final int HEADER_LENGTH_WITHOUT_GENERATION = 8;
+
+    private static final byte SET_RECORD = 1;
+    private static final byte NOT_FOUND_RECORD = 2;
+
+    /**
+     * Visitor that is used to replay the records of a log.
+     */
+    public static interface RecordHandler {
+
+        /**
+         * Handles a set of URIs that are known to be the same.
+         */
+        public void handleSet(Collection<String> uris);
+
+        /**
+         * Handles a URI for which no sameAs links could be found.
+         */
+        public void handleNotFound(String uri);
+    }
+
+    /**
+     * A position in a log, i.e., the generation of the log and the offset of a
+     * record in the log file.
+     */
+    public static class LogPosition {
+
+        private long generation;
+        private long offset;
+
+        public LogPosition(long generation, long offset) {
+            this.generation = generation;
+            this.offset = offset;
+        }
+
+        public long getGeneration() {
+            return generation;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+    }
+
+    /**
+     * Snapshot of the current state of a cache that is used for compacting
+     * the log.
+     */
+    public static interface Snapshot {
+
+        /**
+         * Writes all records of the current state to the given writer.
+         */
+        public void writeTo(RecordWriter writer) throws IOException;
+    }
+
+    /**
+     * Writer that is handed to a {@link Snapshot}.
+     */
+    public static interface RecordWriter {
+
+        public void writeSet(Collection<String> uris) throws IOException;
+
+        public void writeNotFound(String uri) throws IOException;
+    }
+
+    /**
+     * Reads the given log file and hands its records to the given handler. If
+     * the log ends with an incomplete or corrupted record (e.g., because the
+     * program has been killed while writing it), the log is truncated after
+     * the last complete record.
+     *
+     * @return the opened log that can be used to append further records
+     */
+    public static SameAsCacheLog open(File logFile, RecordHandler handler) throws IOException {
+        return open(logFile, handler, null);
+    }
+
+    /**
+     * Reads the records of the given log file that have been appended after
+     * the given position and hands them to the given handler. If the position
+     * is null or does not belong to the current generation of the log (i.e.,
+     * the log has been compacted in the meantime), all records are read. If
+     * the log ends with an incomplete or corrupted record, the log is
+     * truncated after the last complete record.
+     *
+     * @return the opened log that can be used to append further records
+     */
+    public static SameAsCacheLog open(File logFile, RecordHandler handler, LogPosition start) throws IOException {
+        long validLength = 0;
+        long records[] = new long[1];
+        if (logFile.exists()) {
+            validLength = read(logFile, handler, start, records).getOffset();
+            if (validLength < logFile.length()) {
+                LOGGER.warn(
+                        "The sameAs cache log {} ends with an incomplete or corrupted record. The log will be truncated after the last complete record.",
+                        logFile);
+                truncate(logFile, validLength);
+            }
+        }
+        SameAsCacheLog log = new SameAsCacheLog(logFile, records[0]);
+        log.openOutput(validLength < HEADER_LENGTH_WITHOUT_GENERATION);
+        return log;
+    }
+
+    /**
+     * Reads the given log file and hands its records to the given handler
+     * without changing the file, i.e., the log can be read while another
+     * process is appending records. An incomplete record at the end of the
+     * log is ignored.
+     *
+     * @return the position after the last complete record that has been read
+     */
+    public static LogPosition replay(File logFile, RecordHandler handler) throws IOException {
+        return read(logFile, handler, null, new long[1]);
+    }
+
+    /**
+     * Reads the records of the given log file starting at the given position
+     * (or at the beginning of the log if the position can not be used).
+     *
+     * @return the position after the last complete record, i.e., its offset
+     *         is the length of the part of the file containing complete
+     *         records
+     */
+    private static LogPosition read(File logFile, RecordHandler handler, LogPosition start, long records[])
+            throws IOException {
+        long fileLength = logFile.length();
+        long validLength = 0;
+        long generation = 0;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)));
+            if (fileLength >= HEADER_LENGTH_WITHOUT_GENERATION) {
+                if (in.readInt() != MAGIC_NUMBER) {
+                    throw new IOException("The file " + logFile + " is not a sameAs cache log.");
+                }
+                int version = in.readInt();
+                if (version == VERSION) {
+                    if (fileLength < HEADER_LENGTH) {
+                        // the header is incomplete
+                        return new LogPosition(generation, 0);
+                    }
+                    generation = in.readLong();
+                    validLength = HEADER_LENGTH;
+                } else if (version == VERSION_WITHOUT_GENERATION) {
+                    validLength = HEADER_LENGTH_WITHOUT_GENERATION;
+                } else {
+                    throw new IOException(
+                            "The file " + logFile + " is not a sameAs cache log of version " + VERSION + ".");
+                }
+                if (start != null) {
+                    if ((start.getGeneration() == generation) && (start.getOffset() >= validLength)
+                            && (start.getOffset() <= fileLength)) {
+                        IOUtils.skipFully(in, start.getOffset() - validLength);
+                        validLength = start.getOffset();
+                    } else {
+                        LOGGER.info(
+                                "The given position does not belong to the current generation of the sameAs cache log {}. Reading the complete log.",
+                                logFile);
+                    }
+                }
+                try {
+                    while (validLength < fileLength) {
+                        validLength += readRecord(in, handler, fileLength - validLength);
+                        ++records[0];
+                    }
+                } catch (EOFException e) {
+                    // the last record is incomplete or corrupted
+                }
+            }
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+        return new LogPosition(generation, validLength);
+    }
+
+    /**
+     * Reads a single record. A record that can not be complete, i.e., that has
+     * an unknown type or a count or length exceeding the remaining bytes of
+     * the file, is handled like a record that has not been written
+     * completely.
+     *
+     * @param remaining
+     *            the number of bytes of the file that have not been read
+     * @return the length of the record in bytes
+     * @throws EOFException
+     *             if the record is incomplete or corrupted
+     */
+    private static long readRecord(DataInputStream in, RecordHandler handler, long remaining) throws IOException {
+        byte type = in.readByte();
+        long length = 1;
+        switch (type) {
+        case SET_RECORD: {
+            int count = in.readInt();
+            length += 4;
+            // every URI needs at least 4 bytes for its length
+            if ((count < 0) || (4L * count > remaining - length)) {
+                throw new EOFException("Got a set record with an invalid number of URIs (" + count + ").");
+            }
+            String uris[] = new String[count];
+            for (int i = 0; i < count; ++i) {
+                uris[i] = readString(in, remaining - length);
+                length += 4 + uris[i].getBytes(StandardCharsets.UTF_8).length;
+            }
+            handler.handleSet(Arrays.asList(uris));
+            return length;
+        }
+        case NOT_FOUND_RECORD: {
+            String uri = readString(in, remaining - length);
+            handler.handleNotFound(uri);
+            return length + 4 + uri.getBytes(StandardCharsets.UTF_8).length;
+        }
+        default: {
+            throw new EOFException("Got an unknown record type " + type + ".");
+        }
+        }
+    }
+
+    private static String readString(DataInputStream in, long remaining) throws IOException {
+        int length = in.readInt();
+        if ((length < 0) || (length > remaining - 4)) {
+            throw new EOFException("Got a string with an invalid length (" + length + ").");
+        }
+        byte bytes[] = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte bytes[] = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void truncate(File file, long length) throws IOException {
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            raf.setLength(length);
+        } finally {
+            IOUtils.closeQuietly(raf);
+        }
+    }
+
+    private File logFile;
+    private DataOutputStream out;
+    /**
+     * Number of records that are currently stored in the log file.
+     */
+    private long records;
+
+    protected SameAsCacheLog(File logFile, long records) {
+        this.logFile = logFile;
+        this.records = records;
+    }
+
+    private void openOutput(boolean writeHeader) throws IOException {
+        if (writeHeader) {
+            // (re)create the file
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile, false)));
+            writeHeader(out);
+            out.flush();
+        } else {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile, true)));
+        }
+    }
+
+    /**
+     * Writes the header of a new generation of the log.
+     */
+    private static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC_NUMBER);
+        out.writeInt(VERSION);
+        out.writeLong(UUID.randomUUID().getMostSignificantBits());
+    }
+
+    public void appendSet(Collection<String> uris) throws IOException {
+        writeSet(out, uris);
+        out.flush();
+        ++records;
+    }
+
+    public void appendNotFound(String uri) throws IOException {
+        writeNotFound(out, uri);
+        out.flush();
+        ++records;
+    }
+
+    private static void writeSet(DataOutputStream out, Collection<String> uris) throws IOException {
+        out.writeByte(SET_RECORD);
+        out.writeInt(uris.size());
+        for (String uri : uris) {
+            writeString(out, uri);
+        }
+    }
+
+    private static void writeNotFound(DataOutputStream out, String uri) throws IOException {
+        out.writeByte(NOT_FOUND_RECORD);
+        writeString(out, uri);
+    }
+
+    /**
+     * Replaces the content of the log with the records of the given snapshot.
+     *
+     * @return the number of records of the snapshot
+     */
+    public long compact(Snapshot snapshot) throws IOException {
+        File tempFile = new File(logFile.getAbsolutePath() + "_temp");
+        final DataOutputStream tempOut = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile, false)));
+        final long counter[] = new long[1];
+        try {
+            writeHeader(tempOut);
+            snapshot.writeTo(new RecordWriter() {
+                @Override
+                public void writeSet(Collection<String> uris) throws IOException {
+                    SameAsCacheLog.writeSet(tempOut, uris);
+                    ++counter[0];
+                }
+
+                @Override
+                public void writeNotFound(String uri) throws IOException {
+                    SameAsCacheLog.writeNotFound(tempOut, uri);
+                    ++counter[0];
+                }
+            });
+        } finally {
+            tempOut.close();
+        }
+        out.close();
+        try {
+            Files.move(tempFile.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            records = counter[0];
+        } finally {
+            // continue appending to the (old or new) log file
+            openOutput(false);
+        }
+        return records;
+    }
+
+    /**
+     * @return the number of records that are currently stored in the log file
+     */
+    public long getNumberOfRecords() {
+        return records;
+    }
+
+    public File getLogFile() {
+        return logFile;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
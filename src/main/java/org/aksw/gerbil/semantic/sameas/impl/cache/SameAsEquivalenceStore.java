@@ -0,0 +1,258 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.sameas.impl.cache;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.carrotsearch.hppc.BitSet;
+import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+
+/**
+ * <p>
+ * Stores equivalence classes of URIs, i.e., sets of URIs that are known to be
+ * the same, using a union-find structure. Every URI is interned and gets an
+ * int id. Merging two classes needs nearly constant time (union by rank and
+ * path compression) and does not copy any URIs.
+ * </p>
+ * <p>
+ * The members of a class are linked in a circular list, i.e., starting from
+ * any member, following the {@link #next} pointers enumerates all members of
+ * the class. Merging two classes simply swaps the successors of two members.
+ * </p>
+ * <p>
+ * Additionally, the store can mark URIs for which no sameAs links could be
+ * found. Such a URI keeps its mark until it is added as part of a set.
+ * </p>
+ * <p>
+ * Note that this class is not thread-safe. Since the path compression changes
+ * the internal state, concurrent readers are only allowed if no writer is
+ * active at the same time. The compression only replaces a parent with one of
+ * its ancestors, so readers that see stale values still find the correct root.
+ * </p>
+ */
+public class SameAsEquivalenceStore {
+
+    public static final int NOT_INTERNED = -1;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Mapping of URIs to their ids + 1. Since the map returns 0 for unknown
+     * URIs, a lookup needs only a single (read-only) call.
+     */
+    private ObjectIntOpenHashMap<String> uriIds;
+    private String uris[];
+    private int parent[];
+    private byte rank[];
+    /**
+     * Successor of a URI in the circular list of its class.
+     */
+    private int next[];
+    /**
+     * Size of the class (only valid for roots).
+     */
+    private int classSize[];
+    private BitSet notFound = new BitSet();
+    private int numberOfUris = 0;
+    private int numberOfClasses = 0;
+
+    public SameAsEquivalenceStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SameAsEquivalenceStore(int capacity) {
+        capacity = Math.max(capacity, 1);
+        uriIds = new ObjectIntOpenHashMap<String>(capacity);
+        uris = new String[capacity];
+        parent = new int[capacity];
+        rank = new byte[capacity];
+        next = new int[capacity];
+        classSize = new int[capacity];
+    }
+
+    /**
+     * @return the id of the given URI or {@link #NOT_INTERNED} if it is not
+     *         part of this store
+     */
+    public int getId(String uri) {
+        return uriIds.get(uri) - 1;
+    }
+
+    public String getUri(int id) {
+        return uris[id];
+    }
+
+    public boolean contains(String uri) {
+        return getId(uri) != NOT_INTERNED;
+    }
+
+    /**
+     * Returns the id of the given URI. If the URI is unknown, it is added as a
+     * new class containing only this URI.
+     */
+    public int intern(String uri) {
+        int id = getId(uri);
+        if (id != NOT_INTERNED) {
+            return id;
+        }
+        if (numberOfUris == uris.length) {
+            grow();
+        }
+        id = numberOfUris;
+        ++numberOfUris;
+        uriIds.put(uri, id + 1);
+        uris[id] = uri;
+        parent[id] = id;
+        next[id] = id;
+        classSize[id] = 1;
+        ++numberOfClasses;
+        return id;
+    }
+
+    private void grow() {
+        int capacity = uris.length << 1;
+        uris = Arrays.copyOf(uris, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        rank = Arrays.copyOf(rank, capacity);
+        next = Arrays.copyOf(next, capacity);
+        classSize = Arrays.copyOf(classSize, capacity);
+    }
+
+    /**
+     * @return the id of the root of the class of the URI with the given id
+     */
+    public int find(int id) {
+        // path halving: every visited node is linked to its grandparent
+        while (parent[id] != id) {
+            parent[id] = parent[parent[id]];
+            id = parent[id];
+        }
+        return id;
+    }
+
+    /**
+     * Merges the classes of the two given ids.
+     *
+     * @return the root of the merged class
+     */
+    public int union(int id1, int id2) {
+        int root1 = find(id1);
+        int root2 = find(id2);
+        if (root1 == root2) {
+            return root1;
+        }
+        if (rank[root1] < rank[root2]) {
+            int temp = root1;
+            root1 = root2;
+            root2 = temp;
+        } else if (rank[root1] == rank[root2]) {
+            ++rank[root1];
+        }
+        parent[root2] = root1;
+        classSize[root1] += classSize[root2];
+        // join the two circular member lists
+        int temp = next[root1];
+        next[root1] = next[root2];
+        next[root2] = temp;
+        --numberOfClasses;
+        return root1;
+    }
+
+    /**
+     * Adds the given URIs as a set of URIs that are the same, i.e., merges
+     * their classes. The URIs lose their not found marks.
+     *
+     * @return the root of the class containing the given URIs or
+     *         {@link #NOT_INTERNED} if the given collection is empty
+     */
+    public int addSet(Collection<String> uriSet) {
+        int root = NOT_INTERNED;
+        int id;
+        for (String uri : uriSet) {
+            id = intern(uri);
+            notFound.clear(id);
+            root = (root == NOT_INTERNED) ? find(id) : union(root, id);
+        }
+        return root;
+    }
+
+    /**
+     * Marks the given URI as a URI for which no sameAs links could be found.
+     */
+    public void markNotFound(String uri) {
+        notFound.set(intern(uri));
+    }
+
+    public boolean isNotFound(int id) {
+        return notFound.get(id);
+    }
+
+    /**
+     * @return the number of members of the class of the given id
+     */
+    public int getClassSize(int id) {
+        return classSize[find(id)];
+    }
+
+    /**
+     * Enumerates the members of the class of the given id.
+     *
+     * @return the ids of all members of the class
+     */
+    public int[] getMemberIds(int id) {
+        int members[] = new int[getClassSize(id)];
+        int member = id;
+        for (int i = 0; i < members.length; ++i) {
+            members[i] = member;
+            member = next[member];
+        }
+        return members;
+    }
+
+    /**
+     * @return a new set containing the URIs of the class of the given id
+     */
+    public Set<String> getMembers(int id) {
+        int size = getClassSize(id);
+        Set<String> members = new HashSet<String>(2 * size);
+        int member = id;
+        for (int i = 0; i < size; ++i) {
+            members.add(uris[member]);
+            member = next[member];
+        }
+        return members;
+    }
+
+    /**
+     * @return the number of interned URIs. The ids of the URIs are
+     *         0,...,(numberOfUris - 1).
+     */
+    public int getNumberOfUris() {
+        return numberOfUris;
+    }
+
+    /**
+     * @return the number of classes, including the classes of URIs marked as
+     *         not found
+     */
+    public int getNumberOfClasses() {
+        return numberOfClasses;
+    }
+}
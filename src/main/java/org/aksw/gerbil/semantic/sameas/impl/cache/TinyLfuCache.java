@@ -0,0 +1,233 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.sameas.impl.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+import com.google.common.cache.AbstractCache.SimpleStatsCounter;
+import com.google.common.cache.AbstractCache.StatsCounter;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+
+/**
+ * A weight bounded cache with a TinyLFU admission policy. New entries are
+ * added to a small LRU window (1% of the maximum weight). Entries that are
+ * evicted from the window have to compete with the least recently used
+ * entries of the main LRU region and are only admitted if they have been
+ * accessed more often than the entries they would replace. The access
+ * frequencies are estimated with a {@link FrequencySketch}. Hence, a single
+ * pass over many URIs that are used only once does not replace the popular
+ * entries of the cache.
+ * 
+ * <p>
+ * All methods are synchronized. The values should be loaded outside of this
+ * cache and added using {@link #put(Object, Object)}.
+ * </p>
+ */
+public class TinyLfuCache<K, V> {
+
+    private static final int WINDOW_PERCENTAGE = 1;
+
+    private final long maximumWeight;
+    private final long windowMaximumWeight;
+    private final long mainMaximumWeight;
+    private final Weigher<? super K, ? super V> weigher;
+    private final FrequencySketch sketch;
+    private final StatsCounter statsCounter = new SimpleStatsCounter();
+    /**
+     * The entries of the window and the main region in the order of their
+     * last access.
+     */
+    private final LinkedHashMap<K, WeightedValue<V>> window = new LinkedHashMap<K, WeightedValue<V>>(16, 0.75f, true);
+    private final LinkedHashMap<K, WeightedValue<V>> main = new LinkedHashMap<K, WeightedValue<V>>(16, 0.75f, true);
+    private long windowWeight = 0;
+    private long mainWeight = 0;
+
+    public TinyLfuCache(long maximumWeight, Weigher<? super K, ? super V> weigher) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("The maximum weight has to be positive.");
+        }
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        windowMaximumWeight = Math.max(1, (maximumWeight * WINDOW_PERCENTAGE) / 100);
+        mainMaximumWeight = Math.max(1, maximumWeight - windowMaximumWeight);
+        sketch = new FrequencySketch(maximumWeight);
+    }
+
+    /**
+     * Returns the cached value of the given key and records the access as hit
+     * or miss.
+     * 
+     * @return the cached value or null if the key is not cached
+     */
+    public synchronized V getIfPresent(K key) {
+        sketch.increment(key.hashCode());
+        WeightedValue<V> value = window.get(key);
+        if (value == null) {
+            value = main.get(key);
+        }
+        if (value == null) {
+            statsCounter.recordMisses(1);
+            return null;
+        } else {
+            statsCounter.recordHits(1);
+            return value.value;
+        }
+    }
+
+    /**
+     * Adds the given value to the cache. Values that are heavier than the
+     * maximum weight of the cache are not cached.
+     */
+    public synchronized void put(K key, V value) {
+        int weight = weigher.weigh(key, value);
+        WeightedValue<V> newValue = new WeightedValue<V>(value, weight);
+        WeightedValue<V> oldValue = main.get(key);
+        if (oldValue != null) {
+            main.put(key, newValue);
+            mainWeight += weight - oldValue.weight;
+            evictFromMain();
+            return;
+        }
+        oldValue = window.put(key, newValue);
+        windowWeight += weight;
+        if (oldValue != null) {
+            windowWeight -= oldValue.weight;
+        }
+        Iterator<Entry<K, WeightedValue<V>>> iterator;
+        Entry<K, WeightedValue<V>> candidate;
+        while (windowWeight > windowMaximumWeight) {
+            iterator = window.entrySet().iterator();
+            candidate = iterator.next();
+            iterator.remove();
+            windowWeight -= candidate.getValue().weight;
+            admit(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    /**
+     * Moves the given candidate that has been evicted from the window into
+     * the main region if its frequency is higher than the frequencies of all
+     * victims that have to be evicted to make room for it. The admission is
+     * decided before any victim is evicted, i.e., if the candidate is
+     * rejected, the main region is not changed.
+     */
+    private void admit(K key, WeightedValue<V> candidate) {
+        if (candidate.weight > mainMaximumWeight) {
+            statsCounter.recordEviction();
+            return;
+        }
+        int candidateFrequency = sketch.frequency(key.hashCode());
+        // determine the least recently used entries that have to be evicted
+        long weightToFree = mainWeight + candidate.weight - mainMaximumWeight;
+        int numberOfVictims = 0;
+        Iterator<Entry<K, WeightedValue<V>>> iterator = main.entrySet().iterator();
+        Entry<K, WeightedValue<V>> victim;
+        while ((weightToFree > 0) && iterator.hasNext()) {
+            victim = iterator.next();
+            if (candidateFrequency <= sketch.frequency(victim.getKey().hashCode())) {
+                // the candidate is rejected
+                statsCounter.recordEviction();
+                return;
+            }
+            weightToFree -= victim.getValue().weight;
+            ++numberOfVictims;
+        }
+        // the candidate is admitted
+        iterator = main.entrySet().iterator();
+        for (int i = 0; i < numberOfVictims; ++i) {
+            victim = iterator.next();
+            iterator.remove();
+            mainWeight -= victim.getValue().weight;
+            statsCounter.recordEviction();
+        }
+        main.put(key, candidate);
+        mainWeight += candidate.weight;
+    }
+
+    /**
+     * Evicts the least recently used entries of the main region until its
+     * weight is below its maximum.
+     */
+    private void evictFromMain() {
+        Iterator<Entry<K, WeightedValue<V>>> iterator = main.entrySet().iterator();
+        while ((mainWeight > mainMaximumWeight) && iterator.hasNext()) {
+            mainWeight -= iterator.next().getValue().weight;
+            iterator.remove();
+            statsCounter.recordEviction();
+        }
+    }
+
+    public void recordLoadSuccess(long loadTime) {
+        statsCounter.recordLoadSuccess(loadTime);
+    }
+
+    public void recordLoadException(long loadTime) {
+        statsCounter.recordLoadException(loadTime);
+    }
+
+    /**
+     * @return a snapshot of the hit, miss, load and eviction counts of this
+     *         cache
+     */
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    public synchronized int size() {
+        return window.size() + main.size();
+    }
+
+    /**
+     * @return the sum of the weights of all cached entries
+     */
+    public synchronized long weightedSize() {
+        return windowWeight + mainWeight;
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    public synchronized void invalidateAll() {
+        window.clear();
+        main.clear();
+        windowWeight = 0;
+        mainWeight = 0;
+    }
+
+    /**
+     * A value together with its weight, which is needed to update the weight
+     * of the region when the value is removed.
+     */
+    private static class WeightedValue<V> {
+        private final V value;
+        private final int weight;
+
+        public WeightedValue(V value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TinyLfuCache [maximumWeight=" + maximumWeight + ", " + stats() + "]";
+    }
+}
@@ -177,5 +177,4 @@ public class HTTPBasedSameAsRetriever extends AbstractHttpRequestEmitter impleme
     public Set<String> retrieveSameURIs(String domain, String uri) {
         return retrieveSameURIs(uri);
     }
-
 }
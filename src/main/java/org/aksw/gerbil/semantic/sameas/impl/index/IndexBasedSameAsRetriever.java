@@ -16,17 +16,24 @@
  */
 package org.aksw.gerbil.semantic.sameas.impl.index;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import org.aksw.gerbil.exceptions.GerbilException;
 import org.aksw.gerbil.semantic.sameas.SameAsRetriever;
 import org.aksw.gerbil.semantic.sameas.index.Searcher;
+import org.aksw.gerbil.utils.IndexPointerWatcher.IndexSwapper;
 import org.aksw.gerbil.utils.URIValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class IndexBasedSameAsRetriever implements SameAsRetriever {
+public class IndexBasedSameAsRetriever implements SameAsRetriever, IndexSwapper {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(IndexBasedSameAsRetriever.class);
 	private Searcher searcher;
@@ -35,6 +42,23 @@ public class IndexBasedSameAsRetriever implements SameAsRetriever {
 		searcher = new Searcher(indexPath);
 	}
 
+	/**
+	 * Replaces the index with the newly built index in the given directory
+	 * without interrupting running requests.
+	 *
+	 * @return true if the new index is used, false if it couldn't be opened
+	 */
+	@Override
+	public boolean swapIndex(String indexPath) {
+		try {
+			searcher.swapIndex(indexPath);
+			return true;
+		} catch (GerbilException e) {
+			LOGGER.error("Exception while switching to the new sameAs index. The old index is still used.", e);
+			return false;
+		}
+	}
+
 	@Override
 	public Set<String> retrieveSameURIs(String uri) {
 		if ((uri == null) || (uri.isEmpty())) {
@@ -79,4 +103,36 @@ public class IndexBasedSameAsRetriever implements SameAsRetriever {
 		return retrieveSameURIs(uri);
 	}
 
+	@Override
+	public Map<String, Set<String>> retrieveSameURIs(Collection<String> uris) {
+		Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+		List<String> requestedUris = new ArrayList<String>(uris.size());
+		for (String uri : uris) {
+			if ((uri != null) && (!uri.isEmpty())) {
+				requestedUris.add(uri);
+			}
+		}
+		if (requestedUris.isEmpty()) {
+			return result;
+		}
+		try {
+			// search all URIs with batched queries
+			Map<String, Collection<String>> retrievedURIs = searcher.search(requestedUris);
+			Set<String> ret;
+			for (Entry<String, Collection<String>> entry : retrievedURIs.entrySet()) {
+				// check validity
+				ret = new HashSet<String>();
+				for (String receivedURI : entry.getValue()) {
+					if (URIValidator.isValidURI(receivedURI)) {
+						ret.add(receivedURI);
+					}
+				}
+				result.put(entry.getKey(), ret);
+			}
+		} catch (GerbilException e) {
+			LOGGER.warn("Could not retrieve Same Uris", e);
+		}
+		return result;
+	}
+
 }
@@ -31,7 +31,7 @@ import org.apache.jena.vocabulary.OWL;
 
 public abstract class AbstractRDFModelBasedSameAsRetriever implements SameAsRetriever {
 
-    private static final Property SAME_AS_PROPERTIES[] = new Property[] { OWL.sameAs, DBO.wikiPageRedirects };
+    protected static final Property SAME_AS_PROPERTIES[] = new Property[] { OWL.sameAs, DBO.wikiPageRedirects };
 
     protected abstract Model getModel(String uri);
 
@@ -16,12 +16,26 @@
  */
 package org.aksw.gerbil.semantic.sameas.impl.model;
 
+import java.util.Set;
+
 import org.aksw.gerbil.dataset.Dataset;
 import org.aksw.gerbil.dataset.RdfModelContainingDataset;
-
+import org.aksw.gerbil.semantic.sameas.impl.cache.SameAsEquivalenceStore;
+import org.aksw.gerbil.utils.URIValidator;
 import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
 import org.apache.jena.vocabulary.OWL;
 
+/**
+ * A sameAs retriever based on the RDF model of a dataset. Since the model does
+ * not change, all connected components of its sameAs and redirect links are
+ * computed once when the retriever is created. After that, a request is
+ * answered by looking up the component of the URI without traversing the
+ * model. Since the components are not changed after their creation, the
+ * retriever can be used by several threads.
+ */
 public class DatasetBasedSameAsRetriever extends RDFModelBasedSameAsRetriever {
 
     /**
@@ -47,9 +61,60 @@ public class DatasetBasedSameAsRetriever extends RDFModelBasedSameAsRetriever {
 
     @SuppressWarnings("unused")
     private RdfModelContainingDataset dataset;
+    private SameAsEquivalenceStore components;
 
     protected DatasetBasedSameAsRetriever(Model model, RdfModelContainingDataset dataset) {
         super(model);
         this.dataset = dataset;
+        this.components = createComponents(model);
+    }
+
+    /**
+     * Creates the connected components of all valid URIs that are linked with
+     * each other. Like the traversal of the model, links to invalid URIs are
+     * ignored.
+     */
+    protected static SameAsEquivalenceStore createComponents(Model model) {
+        SameAsEquivalenceStore components = new SameAsEquivalenceStore();
+        StmtIterator iterator;
+        Statement statement;
+        String subjectUri, objectUri;
+        for (int i = 0; i < SAME_AS_PROPERTIES.length; ++i) {
+            iterator = model.listStatements(null, SAME_AS_PROPERTIES[i], (RDFNode) null);
+            while (iterator.hasNext()) {
+                statement = iterator.next();
+                // blank nodes and literals are ignored
+                if (statement.getSubject().isURIResource() && statement.getObject().isURIResource()) {
+                    subjectUri = statement.getSubject().getURI();
+                    objectUri = statement.getObject().asResource().getURI();
+                    if (URIValidator.isValidURI(subjectUri) && URIValidator.isValidURI(objectUri)) {
+                        components.union(components.intern(subjectUri), components.intern(objectUri));
+                    }
+                }
+            }
+        }
+        return components;
+    }
+
+    @Override
+    public Set<String> retrieveSameURIs(String uri) {
+        if ((uri == null) || (uri.isEmpty())) {
+            return null;
+        }
+        int id = components.getId(uri);
+        if (id == SameAsEquivalenceStore.NOT_INTERNED) {
+            // the traversal starts at invalid URIs even if they can not be
+            // part of a component
+            if (URIValidator.isValidURI(uri)) {
+                return null;
+            } else {
+                return super.retrieveSameURIs(uri);
+            }
+        }
+        if (components.getClassSize(id) > 1) {
+            return components.getMembers(id);
+        } else {
+            return null;
+        }
     }
 }
@@ -17,11 +17,19 @@
 package org.aksw.gerbil.semantic.sameas.impl.wiki;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import org.aksw.gerbil.http.AbstractHttpRequestEmitter;
-import org.aksw.gerbil.semantic.sameas.SingleUriSameAsRetriever;
+import org.aksw.gerbil.semantic.sameas.SameAsRetriever;
+import org.aksw.gerbil.semantic.sameas.SameAsRetrieverUtils;
 import org.aksw.gerbil.semantic.sameas.impl.SimpleDomainExtractor;
 import org.aksw.gerbil.utils.URIValidator;
 import org.aksw.gerbil.utils.WikipediaHelper;
@@ -36,13 +44,25 @@ import org.slf4j.LoggerFactory;
 import com.google.common.escape.Escaper;
 import com.google.common.net.UrlEscapers;
 
+/**
+ * Retrieves the redirects of Wikipedia URIs using the MediaWiki API. If
+ * several URIs are given at once, their titles are grouped by domain and sent
+ * with requests containing up to {@link #MAX_TITLES_PER_REQUEST} titles.
+ */
 public class WikipediaApiBasedSingleUriSameAsRetriever extends AbstractHttpRequestEmitter
-        implements SingleUriSameAsRetriever {
+        implements SameAsRetriever {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(WikipediaApiBasedSingleUriSameAsRetriever.class);
 
+    /**
+     * The maximum number of titles the MediaWiki API accepts within a single
+     * request.
+     */
+    public static final int MAX_TITLES_PER_REQUEST = 50;
+
     private static final String URL_PROTOCOL_PART = "http://";
     private static final String URL_QUERY_PART = "/w/api.php?format=xml&action=query&redirects=true&titles=";
+    private static final char TITLE_SEPARATOR = '|';
     private static final String CHARSET_NAME = "UTF-8";
     private static final Escaper TITLE_ESCAPER = UrlEscapers.urlFormParameterEscaper();
 
@@ -63,7 +83,56 @@ public class WikipediaApiBasedSingleUriSameAsRetriever extends AbstractHttpReque
         if (title == null) {
             return null;
         }
-        String redirectedTitle = queryRedirect(domain, title);
+        return createSameURIs(domain, uri, title, queryRedirect(domain, title));
+    }
+
+    @Override
+    public Map<String, Set<String>> retrieveSameURIs(Collection<String> uris) {
+        // collect the titles of the URIs grouped by their domains
+        Map<String, Map<String, List<String>>> titlesOfDomains = new HashMap<String, Map<String, List<String>>>();
+        Map<String, List<String>> titles;
+        List<String> urisOfTitle;
+        String domain, title;
+        for (String uri : uris) {
+            domain = SimpleDomainExtractor.extractDomain(uri);
+            title = WikipediaHelper.getWikipediaTitle(uri);
+            if ((domain != null) && (title != null)) {
+                titles = titlesOfDomains.get(domain);
+                if (titles == null) {
+                    titles = new HashMap<String, List<String>>();
+                    titlesOfDomains.put(domain, titles);
+                }
+                urisOfTitle = titles.get(title);
+                if (urisOfTitle == null) {
+                    urisOfTitle = new ArrayList<String>(1);
+                    titles.put(title, urisOfTitle);
+                }
+                urisOfTitle.add(uri);
+            }
+        }
+        Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+        Map<String, String> redirects;
+        Set<String> sameUris;
+        for (Entry<String, Map<String, List<String>>> domainEntry : titlesOfDomains.entrySet()) {
+            redirects = queryRedirects(domainEntry.getKey(), domainEntry.getValue().keySet());
+            for (Entry<String, String> redirect : redirects.entrySet()) {
+                for (String uri : domainEntry.getValue().get(redirect.getKey())) {
+                    sameUris = createSameURIs(domainEntry.getKey(), uri, redirect.getKey(), redirect.getValue());
+                    if (sameUris != null) {
+                        result.put(uri, sameUris);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void addSameURIs(Set<String> uris) {
+        SameAsRetrieverUtils.addSameURIs(retrieveSameURIs(uris), uris);
+    }
+
+    private Set<String> createSameURIs(String domain, String uri, String title, String redirectedTitle) {
         if ((redirectedTitle != null) && (!title.equals(redirectedTitle))) {
             Set<String> uris = new HashSet<String>();
             uris.add(uri);
@@ -80,31 +149,71 @@ public class WikipediaApiBasedSingleUriSameAsRetriever extends AbstractHttpReque
     public void setCharset(String charset) {
         this.charset = charset;
     }
-    
+
     public String queryRedirect(String domain, String title) {
-        StringBuilder urlBuilder = new StringBuilder(150);
+        return queryRedirects(domain, Arrays.asList(title)).get(title);
+    }
+
+    /**
+     * Queries the redirects of the given titles. The titles are sent with
+     * requests containing up to {@link #MAX_TITLES_PER_REQUEST} titles.
+     *
+     * @param domain
+     *            the domain of the Wikipedia that should be queried
+     * @param titles
+     *            the titles for which the redirects should be retrieved
+     * @return a mapping of the given titles to the titles they are redirected
+     *         to. Titles that are not redirected or for which the request
+     *         failed are not part of the mapping.
+     */
+    public Map<String, String> queryRedirects(String domain, Collection<String> titles) {
+        Map<String, String> redirects = new HashMap<String, String>();
+        List<String> chunk = new ArrayList<String>(Math.min(titles.size(), MAX_TITLES_PER_REQUEST));
+        for (String title : titles) {
+            chunk.add(title);
+            if (chunk.size() == MAX_TITLES_PER_REQUEST) {
+                redirects.putAll(queryRedirectsOfChunk(domain, chunk));
+                chunk.clear();
+            }
+        }
+        if (chunk.size() > 0) {
+            redirects.putAll(queryRedirectsOfChunk(domain, chunk));
+        }
+        return redirects;
+    }
+
+    protected Map<String, String> queryRedirectsOfChunk(String domain, List<String> titles) {
+        StringBuilder titlesBuilder = new StringBuilder();
+        for (String title : titles) {
+            if (titlesBuilder.length() > 0) {
+                titlesBuilder.append(TITLE_SEPARATOR);
+            }
+            titlesBuilder.append(title);
+        }
+        StringBuilder urlBuilder = new StringBuilder(100 + titlesBuilder.length());
         urlBuilder.append(URL_PROTOCOL_PART);
         urlBuilder.append(domain);
         urlBuilder.append(URL_QUERY_PART);
-        urlBuilder.append(TITLE_ESCAPER.escape(title));
+        urlBuilder.append(TITLE_ESCAPER.escape(titlesBuilder.toString()));
 
         HttpGet request = null;
         try {
             request = createGetRequest(urlBuilder.toString());
         } catch (IllegalArgumentException e) {
             LOGGER.error("Got an exception while creating a request querying the wiki api of \"" + domain
-                    + "\". Returning null.", e);
-            return null;
+                    + "\". Returning empty result.", e);
+            return new HashMap<String, String>();
         }
         CloseableHttpResponse response = null;
         HttpEntity entity = null;
         try {
             response = sendRequest(request);
             entity = response.getEntity();
-            return parser.extractRedirect(IOUtils.toString(entity.getContent(), charset));
+            return parser.extractRedirects(IOUtils.toString(entity.getContent(), charset), titles);
         } catch (Exception e) {
-            LOGGER.error("Got an exception while querying the wiki api of \"" + domain + "\". Returning null.", e);
-            return null;
+            LOGGER.error("Got an exception while querying the wiki api of \"" + domain + "\". Returning empty result.",
+                    e);
+            return new HashMap<String, String>();
         } finally {
             if (entity != null) {
                 try {
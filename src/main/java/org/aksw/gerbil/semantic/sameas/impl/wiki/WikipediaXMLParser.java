@@ -16,6 +16,10 @@
  */
 package org.aksw.gerbil.semantic.sameas.impl.wiki;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.apache.commons.lang3.StringEscapeUtils;
 
 public class WikipediaXMLParser {
@@ -26,6 +30,10 @@ public class WikipediaXMLParser {
     private static final char XML_REDIRECT_TAG_END = '>';
     private static final String XML_REDIRECT_TO_ATTRIBUTE_START = "to=\"";
     private static final char XML_REDIRECT_TO_ATTRIBUTE_END = '"';
+    private static final String XML_REDIRECT_FROM_ATTRIBUTE_START = "from=\"";
+    private static final String XML_NORMALIZED_START_TAG = "<normalized>";
+    private static final String XML_NORMALIZED_END_TAG = "</normalized>";
+    private static final String XML_NORMALIZATION_TAG_START = "<n";
 
     /**
      * <p>
@@ -95,4 +103,118 @@ public class WikipediaXMLParser {
         return StringEscapeUtils.unescapeXml(xmlString.substring(startPos, endPos));
     }
 
+    /**
+     * <p>
+     * Extracts the redirects of the given titles from the response of a query
+     * containing several titles. The titles are mapped to their normalized
+     * form using the <code>normalized</code> element of the response before
+     * the redirects are followed.
+     * </p>
+     * 
+     * <p>
+     * It is assumed that the given String looks like this: <code>
+     * ...
+     * &lt;normalized&gt;
+     * &lt;n from="title" to="normalized title"/&gt;
+     * ...
+     * &lt;/normalized&gt;
+     * &lt;redirects&gt;
+     * &lt;r from="normalized title" to="redirected title"/&gt;
+     * ...
+     * &lt;/redirects&gt;
+     * ...
+     * </code>
+     * </p>
+     * 
+     * @param xmlString
+     *            XML string from which the redirects should be parsed.
+     * @param titles
+     *            the titles that have been sent with the query
+     * @return a mapping of the given titles to the titles to which they are
+     *         redirected. Titles that are not redirected are not part of the
+     *         mapping.
+     */
+    public Map<String, String> extractRedirects(String xmlString, Collection<String> titles) {
+        Map<String, String> normalizations = extractMapping(xmlString, XML_NORMALIZED_START_TAG,
+                XML_NORMALIZED_END_TAG, XML_NORMALIZATION_TAG_START);
+        Map<String, String> redirects = extractMapping(xmlString, XML_REDIRECTS_START_TAG, XML_REDIRECTS_END_TAG,
+                XML_REDIRECT_TAG_START);
+        Map<String, String> result = new HashMap<String, String>();
+        if (redirects.isEmpty()) {
+            return result;
+        }
+        String currentTitle, redirectedTitle;
+        int steps;
+        for (String title : titles) {
+            currentTitle = normalizations.containsKey(title) ? normalizations.get(title) : title;
+            redirectedTitle = null;
+            steps = 0;
+            // follow chains of redirects (but make sure that we do not end up
+            // in a circle)
+            while (redirects.containsKey(currentTitle) && (steps < redirects.size())) {
+                currentTitle = redirects.get(currentTitle);
+                redirectedTitle = currentTitle;
+                ++steps;
+            }
+            if (redirectedTitle != null) {
+                result.put(title, redirectedTitle);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Extracts the values of the <code>from</code> and <code>to</code>
+     * attributes of all elements starting with the given element tag start
+     * that can be found inside the given list element.
+     */
+    protected Map<String, String> extractMapping(String xmlString, String listStartTag, String listEndTag,
+            String elementTagStart) {
+        Map<String, String> mapping = new HashMap<String, String>();
+        if (xmlString == null) {
+            return mapping;
+        }
+        int startPos = xmlString.indexOf(listStartTag);
+        if (startPos < 0) {
+            return mapping;
+        }
+        startPos += listStartTag.length();
+        int listEnd = xmlString.indexOf(listEndTag, startPos);
+        if (listEnd < 0) {
+            // couldn't find the end tag of the list (no valid XML)
+            return mapping;
+        }
+        int tagEndPos;
+        String from, to;
+        startPos = xmlString.indexOf(elementTagStart, startPos);
+        while ((startPos >= 0) && (startPos < listEnd)) {
+            startPos += elementTagStart.length();
+            tagEndPos = xmlString.indexOf(XML_REDIRECT_TAG_END, startPos);
+            if ((tagEndPos < 0) || (tagEndPos >= listEnd)) {
+                // couldn't find the end of the tag (no valid XML)
+                return mapping;
+            }
+            from = extractAttribute(xmlString, XML_REDIRECT_FROM_ATTRIBUTE_START, startPos, tagEndPos);
+            to = extractAttribute(xmlString, XML_REDIRECT_TO_ATTRIBUTE_START, startPos, tagEndPos);
+            if ((from != null) && (to != null)) {
+                mapping.put(from, to);
+            }
+            startPos = xmlString.indexOf(elementTagStart, tagEndPos);
+        }
+        return mapping;
+    }
+
+    private String extractAttribute(String xmlString, String attributeStart, int tagStartPos, int tagEndPos) {
+        int startPos = xmlString.indexOf(attributeStart, tagStartPos);
+        if ((startPos < 0) || (startPos >= tagEndPos)) {
+            return null;
+        }
+        startPos += attributeStart.length();
+        int endPos = xmlString.indexOf(XML_REDIRECT_TO_ATTRIBUTE_END, startPos);
+        if ((endPos < 0) || (endPos >= tagEndPos)) {
+            return null;
+        }
+        return StringEscapeUtils.unescapeXml(xmlString.substring(startPos, endPos));
+    }
+
 }
@@ -3,6 +3,8 @@ package org.aksw.gerbil.semantic.sameas.index;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import org.aksw.gerbil.datatypes.ErrorTypes;
 import org.aksw.gerbil.exceptions.GerbilException;
@@ -10,16 +12,25 @@ import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.index.TieredMergePolicy;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Creates a sameAs index. Every indexed set of URIs is stored as a single
+ * document. All URIs of the set are indexed as exact terms of the multi-valued
+ * {@link #URIS} field, so that searching any of them returns the document.
+ * The members of the set are stored in the compact binary {@link #MEMBERS}
+ * field. The indexer can be used by several threads at the same time.
+ */
 public class Indexer extends LuceneConstants {
 
 	private static final Logger LOGGER = LoggerFactory
@@ -29,13 +40,44 @@ public class Indexer extends LuceneConstants {
 	private Directory dir;
 	
 
+	/**
+	 * Segments per tier and maximum segment size of the merge policy used
+	 * for bulk loads. Allowing more and larger segments reduces the merging
+	 * work while the index is built.
+	 */
+	private static final int BULK_SEGMENTS_PER_TIER = 20;
+	private static final double BULK_MAX_MERGED_SEGMENT_MB = 10 * 1024;
+
 	public Indexer(String path)
 			throws GerbilException {
+		this(path, IndexWriterConfig.DEFAULT_RAM_BUFFER_SIZE_MB, false);
+	}
+
+	/**
+	 * Creates an indexer for building a large index using several threads.
+	 * 
+	 * @param ramBufferSizeMB
+	 *            the amount of RAM that is used for buffering documents before
+	 *            they are flushed to a new segment
+	 */
+	public Indexer(String path, double ramBufferSizeMB) throws GerbilException {
+		this(path, ramBufferSizeMB, true);
+	}
+
+	protected Indexer(String path, double ramBufferSizeMB, boolean bulkLoad)
+			throws GerbilException {
 		try {
 			dir = FSDirectory.open(new File(path).toPath());
 			Analyzer analyzer = new StandardAnalyzer();
 			IndexWriterConfig config = new IndexWriterConfig(analyzer);
 			config.setOpenMode(OpenMode.CREATE);
+			config.setRAMBufferSizeMB(ramBufferSizeMB);
+			if (bulkLoad) {
+				TieredMergePolicy mergePolicy = new TieredMergePolicy();
+				mergePolicy.setSegmentsPerTier(BULK_SEGMENTS_PER_TIER);
+				mergePolicy.setMaxMergedSegmentMB(BULK_MAX_MERGED_SEGMENT_MB);
+				config.setMergePolicy(mergePolicy);
+			}
 			writer = new IndexWriter(dir, config);
 		} catch (IOException e) {
 			LOGGER.error("Error occured during accesing file " + path, e);
@@ -53,36 +95,29 @@ public class Indexer extends LuceneConstants {
 		}
 	}
 
-	public void index(String uri, Collection<String> uris) {
+	public void index(String uri, Collection<String> uris) throws IOException {
 			indexSameAs(uri, uris);
 	}
 
-	private String listToStr(Collection<String> uris) {
-		String entity = "";
-		for (String uri : uris) {
-			entity += uri + " ";
-		}
-		return entity;
-	}
-
-	public void indexSameAs(String uri, Collection<String> uris) {
-		Document doc = convertTerm(uri, listToStr(uris));
-			try {
-				writer.addDocument(doc);
-			} catch (IOException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
-			}
-		
+	/**
+	 * Adds the set of the given URI and its sameAs URIs to the index.
+	 * 
+	 * @throws IOException
+	 *             if the document couldn't be added to the index
+	 */
+	public void indexSameAs(String uri, Collection<String> uris) throws IOException {
+		Set<String> members = new LinkedHashSet<String>(uris.size() + 1);
+		members.add(uri);
+		members.addAll(uris);
+		writer.addDocument(convertTerm(members));
 	}
 
-	private Document convertTerm(String uri, String sameAs) {
+	private Document convertTerm(Set<String> members) {
 		Document document = new Document();
-		Field contentField = new StringField(CONTENTS, uri, Field.Store.YES);
-		Field sameAsField = new StringField(SAMEAS, sameAs, Field.Store.YES);
-		document.add(contentField);
-		document.add(sameAsField);
-
+		for (String member : members) {
+			document.add(new StringField(URIS, member, Field.Store.NO));
+		}
+		document.add(new StoredField(MEMBERS, encodeMembers(members)));
 		return document;
 	}
 
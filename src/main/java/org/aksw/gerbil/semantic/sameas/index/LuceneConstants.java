@@ -1,10 +1,74 @@
 package org.aksw.gerbil.semantic.sameas.index;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.OutputStreamDataOutput;
+import org.apache.lucene.util.BytesRef;
+
 public abstract class LuceneConstants {
 
+	/**
+	 * Field of the legacy index format containing the URI of the document.
+	 */
 	protected static final String CONTENTS = "contents";
 
+	/**
+	 * Field of the legacy index format containing the space separated URIs
+	 * that are the same as the URI of the document.
+	 */
 	protected static final String SAMEAS = "sameAs";
 
+	/**
+	 * Multi-valued field containing every member of the equivalence class of
+	 * the document as exact (not analyzed) term.
+	 */
+	protected static final String URIS = "uris";
+
+	/**
+	 * Stored binary field containing the members of the equivalence class of
+	 * the document (see {@link #encodeMembers(Collection)}).
+	 */
+	protected static final String MEMBERS = "members";
+
 	protected static final int MAX_SEARCH = 100;
+
+	/**
+	 * Encodes the given URIs as the number of URIs (vInt) followed by the
+	 * URIs (vInt length + UTF-8 bytes).
+	 */
+	protected static BytesRef encodeMembers(Collection<String> uris) {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		OutputStreamDataOutput out = new OutputStreamDataOutput(bout);
+		try {
+			out.writeVInt(uris.size());
+			for (String uri : uris) {
+				out.writeString(uri);
+			}
+		} catch (IOException e) {
+			// can not happen since the data is written to memory
+			throw new IllegalStateException(e);
+		}
+		return new BytesRef(bout.toByteArray());
+	}
+
+	/**
+	 * Decodes the URIs encoded by {@link #encodeMembers(Collection)} and adds
+	 * them to the given set.
+	 */
+	protected static Set<String> decodeMembers(BytesRef bytes, Set<String> uris) {
+		ByteArrayDataInput in = new ByteArrayDataInput(bytes.bytes, bytes.offset, bytes.length);
+		int size = in.readVInt();
+		if (uris == null) {
+			uris = new HashSet<String>(2 * size);
+		}
+		for (int i = 0; i < size; ++i) {
+			uris.add(in.readString());
+		}
+		return uris;
+	}
 }
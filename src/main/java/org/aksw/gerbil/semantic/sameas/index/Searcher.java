@@ -2,91 +2,318 @@ package org.aksw.gerbil.semantic.sameas.index;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.aksw.gerbil.datatypes.ErrorTypes;
 import org.aksw.gerbil.exceptions.GerbilException;
-import org.apache.commons.io.IOUtils;
+import org.aksw.gerbil.utils.SwappableSearcherManager;
+import org.aksw.gerbil.utils.SwappableSearcherManager.WarmingQueryMapper;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.CorruptIndexException;
-import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiFields;
 import org.apache.lucene.index.Term;
 //import org.apache.lucene.queryParser.ParseException;
 //import org.apache.lucene.queryParser.QueryParser;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
-import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
 
+/**
+ * Searches a sameAs index created by the {@link Indexer}. Indexes of the
+ * legacy format (a document per URI with a stored string of space separated
+ * URIs) are still supported. The index can be replaced with a newly built
+ * index while the searcher is in use (see {@link #swapIndex(String)}).
+ */
 public class Searcher extends LuceneConstants {
 
-    private IndexSearcher indexSearcher;
-	private Directory indexDirectory;
-	private IndexReader indexReader;
+	/**
+	 * Maximum number of URIs that are searched with a single query (has to be
+	 * lower than the maximum number of clauses of a {@link BooleanQuery}).
+	 */
+	private static final int MAX_TERMS_PER_QUERY = 512;
+
+	private SwappableSearcherManager searcherManager;
+	/**
+	 * The format of the index that has been used last.
+	 */
+	private volatile IndexFormat format;
 
 	public Searcher(String indexDirectoryPath) throws GerbilException {
 
 		try {
-			indexDirectory = FSDirectory.open(new File(
-					indexDirectoryPath).toPath());
-			indexReader = DirectoryReader.open(indexDirectory);
-			indexSearcher = new IndexSearcher(indexReader);
+			searcherManager = SwappableSearcherManager.open(new File(indexDirectoryPath));
 		} catch (IOException e) {
 			throw new GerbilException("Could not initialize Searcher", ErrorTypes.UNEXPECTED_EXCEPTION);
 		}
+		// the URIs are searched in a different field if the new index has a
+		// different format
+		searcherManager.setWarmingQueryMapper(new WarmingQueryMapper() {
+			@Override
+			public Query map(Query query, IndexSearcher searcher) throws IOException {
+				return mapWarmingQuery(query, getFormat(searcher));
+			}
+		});
+	}
+
+	/**
+	 * Maps a query for a URI to the URI field of the given format.
+	 */
+	private static Query mapWarmingQuery(Query query, IndexFormat format) {
+		if (query instanceof TermQuery) {
+			Term term = ((TermQuery) query).getTerm();
+			if (!format.uriField.equals(term.field())
+					&& (CONTENTS.equals(term.field()) || URIS.equals(term.field()))) {
+				return new TermQuery(new Term(format.uriField, term.bytes()));
+			}
+		}
+		return query;
 	}
 
+	/**
+	 * Replaces the index with the index in the given directory. Searches that
+	 * are running in parallel are not affected.
+	 */
+	public void swapIndex(String indexDirectoryPath) throws GerbilException {
+		try {
+			searcherManager.swapIndex(new File(indexDirectoryPath));
+		} catch (IOException e) {
+			throw new GerbilException("Could not switch to the new index", e, ErrorTypes.UNEXPECTED_EXCEPTION);
+		}
+	}
+
+	/**
+	 * Note that the returned document ids might refer to a different index
+	 * if the index is swapped before the documents are loaded.
+	 */
 	public TopDocs searchTops(String searchQuery) throws IOException {
-			return searchTerm(searchQuery);
+		IndexSearcher indexSearcher = searcherManager.acquire();
+		try {
+			return searchTerm(indexSearcher, getFormat(indexSearcher), searchQuery);
+		} finally {
+			searcherManager.release(indexSearcher);
+		}
 	}
-		
-	private TopDocs searchTerm(String searchQuery) throws IOException{
-		TermQuery query = new TermQuery(new Term(CONTENTS, searchQuery));
+
+	private TopDocs searchTerm(IndexSearcher indexSearcher, IndexFormat format, String searchQuery)
+			throws IOException {
+		TermQuery query = new TermQuery(new Term(format.uriField, searchQuery));
+		searcherManager.addWarmingQuery(query);
 		return indexSearcher.search(query, MAX_SEARCH);
 	}
 
-	
+
 	public Document getDocument(ScoreDoc scoreDoc)
 			throws CorruptIndexException, IOException {
-		return indexSearcher.doc(scoreDoc.doc);
+		IndexSearcher indexSearcher = searcherManager.acquire();
+		try {
+			return getDocument(indexSearcher, getFormat(indexSearcher), scoreDoc);
+		} finally {
+			searcherManager.release(indexSearcher);
+		}
+	}
+
+	private Document getDocument(IndexSearcher indexSearcher, IndexFormat format, ScoreDoc scoreDoc)
+			throws IOException {
+		return indexSearcher.doc(scoreDoc.doc, format.fieldsToLoad);
 	}
 
     public void close() throws IOException {
-        IOUtils.closeQuietly(indexReader);
-        IOUtils.closeQuietly(indexDirectory);
+        searcherManager.close();
     }
 
 	public Collection<String> search(String uri) throws GerbilException{
 
 			return searchSameAsTerm(uri);
 	}
-	
+
 	public Collection<String> searchSameAsTerm(String uri) throws GerbilException{
-		TopDocs docs;
+		IndexSearcher indexSearcher;
 		try {
-			docs = searchTops(uri);
-		} catch (IOException e1) {
-			throw new GerbilException("Could not parse index files", ErrorTypes.UNEXPECTED_EXCEPTION);
+			indexSearcher = searcherManager.acquire();
+		} catch (IOException e) {
+			throw new GerbilException("Could not access index", ErrorTypes.UNEXPECTED_EXCEPTION);
 		}
-		Collection<String> uris = new HashSet<String>();
-		for (ScoreDoc scoreDoc : docs.scoreDocs) {
-			Document doc;
+		try {
+			IndexFormat format = getFormat(indexSearcher);
+			TopDocs docs;
 			try {
-				doc = getDocument(scoreDoc);
-			} catch (IOException e) {
-				throw new GerbilException("Could not load Hits", ErrorTypes.UNEXPECTED_EXCEPTION);
+				docs = searchTerm(indexSearcher, format, uri);
+			} catch (IOException e1) {
+				throw new GerbilException("Could not parse index files", ErrorTypes.UNEXPECTED_EXCEPTION);
+			}
+			Set<String> uris = new HashSet<String>();
+			for (ScoreDoc scoreDoc : docs.scoreDocs) {
+				Document doc;
+				try {
+					doc = getDocument(indexSearcher, format, scoreDoc);
+				} catch (IOException e) {
+					throw new GerbilException("Could not load Hits", ErrorTypes.UNEXPECTED_EXCEPTION);
+				}
+				addUris(format, doc, uris);
 			}
-			String content = doc.get(CONTENTS);
-			uris.add(content);
-			String sameAs  = doc.get(SAMEAS);
-			for (String uriStr : sameAs.split(" "))
+			return uris;
+		} finally {
+			release(indexSearcher);
+		}
+	}
+
+	/**
+	 * Adds the URIs of the given document to the given set.
+	 */
+	private static void addUris(IndexFormat format, Document doc, Set<String> uris) {
+		if (format.legacyFormat) {
+			uris.add(doc.get(CONTENTS));
+			for (String uriStr : doc.get(SAMEAS).split(" "))
 				uris.add(uriStr);
+		} else {
+			BytesRef members = doc.getBinaryValue(MEMBERS);
+			if (members != null) {
+				decodeMembers(members, uris);
+			}
+		}
+	}
+
+	/**
+	 * Searches the sameAs links of all given URIs using one query for every
+	 * {@link #MAX_TERMS_PER_QUERY} URIs.
+	 *
+	 * @return a mapping of the URIs to the URIs found for them. URIs for which
+	 *         nothing has been found are not part of the mapping.
+	 */
+	public Map<String, Collection<String>> search(Collection<String> uris) throws GerbilException {
+		IndexSearcher indexSearcher;
+		try {
+			indexSearcher = searcherManager.acquire();
+		} catch (IOException e) {
+			throw new GerbilException("Could not access index", ErrorTypes.UNEXPECTED_EXCEPTION);
+		}
+		try {
+			return search(indexSearcher, getFormat(indexSearcher), uris);
+		} finally {
+			release(indexSearcher);
+		}
+	}
+
+	private Map<String, Collection<String>> search(IndexSearcher indexSearcher, IndexFormat format,
+			Collection<String> uris) throws GerbilException {
+		Map<String, Collection<String>> result = new HashMap<String, Collection<String>>();
+		List<String> uriList = new ArrayList<String>(uris);
+		List<String> chunk;
+		Set<String> chunkUris;
+		Set<String> docUris = new HashSet<String>();
+		BooleanQuery.Builder builder;
+		TermQuery termQuery;
+		TopDocs docs;
+		for (int start = 0; start < uriList.size(); start += MAX_TERMS_PER_QUERY) {
+			chunk = uriList.subList(start, Math.min(start + MAX_TERMS_PER_QUERY, uriList.size()));
+			chunkUris = new HashSet<String>(chunk);
+			builder = new BooleanQuery.Builder();
+			for (String uri : chunkUris) {
+				termQuery = new TermQuery(new Term(format.uriField, uri));
+				builder.add(termQuery, Occur.SHOULD);
+				searcherManager.addWarmingQuery(termQuery);
+			}
+			try {
+				docs = indexSearcher.search(builder.build(), chunk.size() * MAX_SEARCH);
+			} catch (IOException e) {
+				throw new GerbilException("Could not parse index files", ErrorTypes.UNEXPECTED_EXCEPTION);
+			}
+			for (ScoreDoc scoreDoc : docs.scoreDocs) {
+				Document doc;
+				try {
+					doc = getDocument(indexSearcher, format, scoreDoc);
+				} catch (IOException e) {
+					throw new GerbilException("Could not load Hits", ErrorTypes.UNEXPECTED_EXCEPTION);
+				}
+				docUris.clear();
+				addUris(format, doc, docUris);
+				if (format.legacyFormat) {
+					// the content of the document is the URI that has been
+					// searched
+					addFoundUris(result, doc.get(CONTENTS), docUris);
+				} else {
+					// the document has been found for all searched URIs that
+					// are members of it
+					for (String uri : docUris) {
+						if (chunkUris.contains(uri)) {
+							addFoundUris(result, uri, docUris);
+						}
+					}
+				}
+			}
 		}
-		return uris;
+		return result;
 	}
 
+	private static void addFoundUris(Map<String, Collection<String>> result, String uri, Set<String> docUris) {
+		Collection<String> foundUris = result.get(uri);
+		if (foundUris == null) {
+			foundUris = new HashSet<String>();
+			result.put(uri, foundUris);
+		}
+		foundUris.addAll(docUris);
+	}
+
+	private void release(IndexSearcher indexSearcher) throws GerbilException {
+		try {
+			searcherManager.release(indexSearcher);
+		} catch (IOException e) {
+			throw new GerbilException("Could not release index", ErrorTypes.UNEXPECTED_EXCEPTION);
+		}
+	}
+
+	/**
+	 * @return the format of the index of the given searcher
+	 */
+	private IndexFormat getFormat(IndexSearcher indexSearcher) throws IOException {
+		IndexFormat currentFormat = format;
+		if ((currentFormat == null) || (currentFormat.reader != indexSearcher.getIndexReader())) {
+			currentFormat = new IndexFormat(indexSearcher.getIndexReader());
+			format = currentFormat;
+		}
+		return currentFormat;
+	}
+
+	/**
+	 * The format of the index read by a certain reader.
+	 */
+	private static class IndexFormat {
+		private final IndexReader reader;
+		private final boolean legacyFormat;
+		/**
+		 * The field that contains the URIs of a document as exact terms.
+		 */
+		private final String uriField;
+		/**
+		 * The fields that have to be loaded from a document of the index.
+		 */
+		private final Set<String> fieldsToLoad;
+
+		public IndexFormat(IndexReader reader) throws IOException {
+			this.reader = reader;
+			legacyFormat = (MultiFields.getTerms(reader, URIS) == null)
+					&& (MultiFields.getTerms(reader, CONTENTS) != null);
+			if (legacyFormat) {
+				uriField = CONTENTS;
+				fieldsToLoad = new HashSet<String>(Arrays.asList(CONTENTS, SAMEAS));
+			} else {
+				uriField = URIS;
+				fieldsToLoad = Collections.singleton(MEMBERS);
+			}
+		}
+	}
 }
@@ -0,0 +1,239 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.subclass;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.apache.jena.vocabulary.OWL;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+
+import com.carrotsearch.hppc.BitSet;
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+
+/**
+ * An immutable, precompiled version of a class hierarchy. All class URIs are
+ * interned to int ids and URIs that are connected via <code>owl:sameAs</code>
+ * or <code>owl:equivalentClass</code> share the same node id. For every node,
+ * the transitive closure of its sub classes (including the node itself) is
+ * precomputed as {@link BitSet}. Thus, the inference of sub classes is reduced
+ * to a lookup and the comparison of two sets of classes can be done with bit
+ * operations.
+ *
+ * <p>
+ * The semantics are the same as the ones of a {@link SimpleSubClassInferencer}
+ * working on a model that has been enriched with the rules of the
+ * {@link SimpleSubClassInferencerFactory}.
+ * </p>
+ */
+public class CompiledClassHierarchy {
+
+    public static final int UNKNOWN_CLASS = -1;
+
+    /**
+     * Compiles the class hierarchy contained in the given model.
+     *
+     * @param classModel
+     *            the model containing the class hierarchy
+     * @return the compiled class hierarchy
+     */
+    public static CompiledClassHierarchy create(Model classModel) {
+        ObjectIntOpenHashMap<String> uriIds = new ObjectIntOpenHashMap<String>();
+        List<String> uris = new ArrayList<String>();
+        IntArrayList parents = new IntArrayList();
+        IntArrayList subClassEdges = new IntArrayList();
+
+        // intern all URIs and merge equivalent classes
+        StmtIterator iterator = classModel.listStatements();
+        Statement stmt;
+        RDFNode object;
+        int subjectId, objectId;
+        while (iterator.hasNext()) {
+            stmt = iterator.next();
+            if (stmt.getSubject().isAnon()) {
+                continue;
+            }
+            object = stmt.getObject();
+            if (stmt.getPredicate().equals(RDF.type)) {
+                internUri(stmt.getSubject().getURI(), uriIds, uris, parents);
+            } else if (object.isURIResource() && (stmt.getPredicate().equals(OWL.sameAs)
+                    || stmt.getPredicate().equals(OWL.equivalentClass)
+                    || stmt.getPredicate().equals(RDFS.subClassOf))) {
+                subjectId = internUri(stmt.getSubject().getURI(), uriIds, uris, parents);
+                objectId = internUri(((Resource) object).getURI(), uriIds, uris, parents);
+                if (stmt.getPredicate().equals(RDFS.subClassOf)) {
+                    subClassEdges.add(subjectId);
+                    subClassEdges.add(objectId);
+                } else {
+                    union(parents, subjectId, objectId);
+                }
+            }
+        }
+
+        // assign node ids to the sets of equivalent URIs
+        int uriToNode[] = new int[uris.size()];
+        int rootToNode[] = new int[uris.size()];
+        Arrays.fill(rootToNode, UNKNOWN_CLASS);
+        List<List<String>> nodeUriLists = new ArrayList<List<String>>();
+        int root;
+        for (int i = 0; i < uriToNode.length; ++i) {
+            root = find(parents, i);
+            if (rootToNode[root] == UNKNOWN_CLASS) {
+                rootToNode[root] = nodeUriLists.size();
+                nodeUriLists.add(new ArrayList<String>(1));
+            }
+            uriToNode[i] = rootToNode[root];
+            nodeUriLists.get(uriToNode[i]).add(uris.get(i));
+        }
+        int numberOfNodes = nodeUriLists.size();
+        ObjectIntOpenHashMap<String> uriToNodeId = new ObjectIntOpenHashMap<String>(uriIds.size());
+        for (int i = 0; i < uriToNode.length; ++i) {
+            uriToNodeId.put(uris.get(i), uriToNode[i]);
+        }
+        String nodeUris[][] = new String[numberOfNodes][];
+        for (int i = 0; i < numberOfNodes; ++i) {
+            nodeUris[i] = nodeUriLists.get(i).toArray(new String[nodeUriLists.get(i).size()]);
+        }
+
+        // create the direct sub class lists of the single nodes
+        IntArrayList directSubClasses[] = new IntArrayList[numberOfNodes];
+        int subClass, superClass;
+        for (int i = 0; i < subClassEdges.elementsCount; i += 2) {
+            subClass = uriToNode[subClassEdges.buffer[i]];
+            superClass = uriToNode[subClassEdges.buffer[i + 1]];
+            if (directSubClasses[superClass] == null) {
+                directSubClasses[superClass] = new IntArrayList();
+            }
+            directSubClasses[superClass].add(subClass);
+        }
+
+        // compute the transitive closure of every node
+        BitSet closures[] = new BitSet[numberOfNodes];
+        IntArrayList queue = new IntArrayList();
+        int node;
+        for (int i = 0; i < numberOfNodes; ++i) {
+            closures[i] = new BitSet(numberOfNodes);
+            closures[i].set(i);
+            queue.add(i);
+            while (queue.elementsCount > 0) {
+                node = queue.buffer[--queue.elementsCount];
+                if (directSubClasses[node] != null) {
+                    for (int j = 0; j < directSubClasses[node].elementsCount; ++j) {
+                        subClass = directSubClasses[node].buffer[j];
+                        if (!closures[i].get(subClass)) {
+                            closures[i].set(subClass);
+                            queue.add(subClass);
+                        }
+                    }
+                }
+            }
+        }
+        return new CompiledClassHierarchy(uriToNodeId, nodeUris, closures);
+    }
+
+    private static int internUri(String uri, ObjectIntOpenHashMap<String> uriIds, List<String> uris,
+            IntArrayList parents) {
+        if (uriIds.containsKey(uri)) {
+            return uriIds.lget();
+        }
+        int id = uris.size();
+        uriIds.put(uri, id);
+        uris.add(uri);
+        parents.add(id);
+        return id;
+    }
+
+    private static int find(IntArrayList parents, int id) {
+        int root = id;
+        while (parents.buffer[root] != root) {
+            root = parents.buffer[root];
+        }
+        // path compression
+        int next;
+        while (parents.buffer[id] != root) {
+            next = parents.buffer[id];
+            parents.buffer[id] = root;
+            id = next;
+        }
+        return root;
+    }
+
+    private static void union(IntArrayList parents, int id1, int id2) {
+        int root1 = find(parents, id1);
+        int root2 = find(parents, id2);
+        if (root1 != root2) {
+            // keep the smaller id as root to get a deterministic numbering
+            if (root1 < root2) {
+                parents.buffer[root2] = root1;
+            } else {
+                parents.buffer[root1] = root2;
+            }
+        }
+    }
+
+    private final ObjectIntOpenHashMap<String> uriToNodeId;
+    private final String nodeUris[][];
+    private final BitSet subClassClosures[];
+
+    protected CompiledClassHierarchy(ObjectIntOpenHashMap<String> uriToNodeId, String[][] nodeUris,
+            BitSet[] subClassClosures) {
+        this.uriToNodeId = uriToNodeId;
+        this.nodeUris = nodeUris;
+        this.subClassClosures = subClassClosures;
+    }
+
+    /**
+     * @return the id of the node representing the given class URI or
+     *         {@link #UNKNOWN_CLASS} if the URI is not part of the hierarchy.
+     */
+    public int getNodeId(String uri) {
+        if (uriToNodeId.containsKey(uri)) {
+            return uriToNodeId.lget();
+        } else {
+            return UNKNOWN_CLASS;
+        }
+    }
+
+    public int getNumberOfNodes() {
+        return nodeUris.length;
+    }
+
+    /**
+     * @return all URIs that are known to represent the node with the given id.
+     *         The returned array must not be changed.
+     */
+    public String[] getUris(int nodeId) {
+        return nodeUris[nodeId];
+    }
+
+    /**
+     * @return the ids of all (transitive) sub classes of the given node
+     *         including the node itself. The returned {@link BitSet} must not
+     *         be changed.
+     */
+    public BitSet getSubClasses(int nodeId) {
+        return subClassClosures[nodeId];
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.subclass;
+
+import org.apache.jena.rdf.model.Model;
+
+import com.carrotsearch.hppc.BitSet;
+
+/**
+ * A {@link SubClassInferencer} that is based on a
+ * {@link CompiledClassHierarchy}, i.e., it does not need to query an RDF model
+ * for every single class URI.
+ */
+public class CompiledSubClassInferencer implements SubClassInferencer {
+
+    private CompiledClassHierarchy hierarchy;
+
+    public CompiledSubClassInferencer(Model classModel) {
+        this(CompiledClassHierarchy.create(classModel));
+    }
+
+    public CompiledSubClassInferencer(CompiledClassHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+    }
+
+    @Override
+    public void inferSubClasses(String classURI, ClassSet classes, ClassNodeFactory<? extends ClassNode> factory) {
+        int nodeId = hierarchy.getNodeId(classURI);
+        if (nodeId == CompiledClassHierarchy.UNKNOWN_CLASS) {
+            ClassNode node = classes.getNode(classURI);
+            if (node == null) {
+                classes.addNode(factory.createNode(classURI));
+            } else {
+                factory.updateNode(node);
+            }
+            return;
+        }
+        BitSet subClasses = hierarchy.getSubClasses(nodeId);
+        for (int id = subClasses.nextSetBit(0); id >= 0; id = subClasses.nextSetBit(id + 1)) {
+            addOrUpdateNode(hierarchy.getUris(id), classes, factory);
+        }
+    }
+
+    private void addOrUpdateNode(String uris[], ClassSet classes, ClassNodeFactory<? extends ClassNode> factory) {
+        ClassNode node = null;
+        for (int i = 0; (node == null) && (i < uris.length); ++i) {
+            node = classes.getNode(uris[i]);
+        }
+        if (node == null) {
+            node = factory.createNode(uris[0]);
+            classes.addNode(node);
+        } else {
+            factory.updateNode(node);
+        }
+        for (int i = 0; i < uris.length; ++i) {
+            if (!node.getUris().contains(uris[i])) {
+                classes.addUriToNode(node, uris[i]);
+            }
+        }
+    }
+
+    public CompiledClassHierarchy getHierarchy() {
+        return hierarchy;
+    }
+}
@@ -1,17 +1,36 @@
 package org.aksw.gerbil.tools;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
+import org.aksw.gerbil.dataset.check.index.FingerprintIndexBuilder;
 import org.aksw.gerbil.dataset.check.index.Indexer;
+import org.aksw.gerbil.dataset.check.index.MappedFingerprintEntityChecker;
 import org.aksw.gerbil.exceptions.GerbilException;
 import org.aksw.gerbil.semantic.sameas.impl.UriEncodingHandlingSameAsRetriever;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
@@ -25,10 +44,16 @@ import org.apache.jena.riot.system.StreamRDFBase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.code.externalsorting.ExternalSort;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
  * This tool can be used to create the Lucene index that can be used for entity
  * checking. A file can be used as source for the data, e.g., the mapping from
- * DBpedia resource to Wikipedia ID.
+ * DBpedia resource to Wikipedia ID. Additionally, the files of a
+ * {@link MappedFingerprintEntityChecker} are written into the output folder.
+ * The URIs of the DBpedia dumps are deduplicated before they are added, i.e.,
+ * the index can be bulk loaded without updating existing documents.
  * 
  * @author Michael R&ouml;der (roeder@informatik.uni-leipzig.de)
  *
@@ -39,60 +64,173 @@ public class DBpediaEntityCheckIndexTool {
 
 	private static final String INPUT_FOLDER = "C:/Daten/DBpedia";
 	private static final String OUTPUT_FOLDER = "indexes/dbpedia_check";
+	private static final String TEMP_FOLDER = "indexes/dbpedia_check_tmp";
 
 	private static final String DBPEDIA_DUMP = "http://downloads.dbpedia.org/current/core-i18n/en/";
 
+	/**
+	 * Number of threads used for parsing dumps and for indexing.
+	 */
+	private static final int NUMBER_OF_THREADS = Runtime.getRuntime().availableProcessors();
+	/**
+	 * RAM buffer of the index writer.
+	 */
+	private static final double RAM_BUFFER_SIZE_MB = 512;
+	/**
+	 * The external sort sizes its batches based on the complete free heap.
+	 * Thus, only one dump is sorted at a time while the other threads are
+	 * still able to parse their dumps.
+	 */
+	private static final Semaphore SORT_PERMITS = new Semaphore(1);
+
 	public static void main(String[] args) throws GerbilException, IOException {
-		Indexer index = Indexer.create(OUTPUT_FOLDER);
+		File tempFolder = new File(TEMP_FOLDER);
+		tempFolder.mkdirs();
+		Indexer index = Indexer.createForBulkLoad(OUTPUT_FOLDER, RAM_BUFFER_SIZE_MB);
+		FingerprintIndexBuilder builder = new FingerprintIndexBuilder(tempFolder);
 		SimpleDateFormat format = new SimpleDateFormat();
 		Date start = Calendar.getInstance().getTime();
 		LOGGER.info("Start indexing at {}", format.format(start));
-		indexStream(index, DBPEDIA_DUMP);
+		indexStream(index, builder, DBPEDIA_DUMP, tempFolder);
+		LOGGER.info("Merging index...");
+		index.forceMerge();
 		index.close();
+		builder.build(new File(OUTPUT_FOLDER, MappedFingerprintEntityChecker.FINGERPRINT_FILE_NAME),
+				new File(OUTPUT_FOLDER, MappedFingerprintEntityChecker.VERIFICATION_FILE_NAME));
+		builder.close();
 		Date end = Calendar.getInstance().getTime();
 		LOGGER.info("Indexing finished at {}", format.format(end));
 		LOGGER.info("Indexing took: " + DurationFormatUtils.formatDurationHMS(end.getTime() - start.getTime()));
 	}
 
-	private static void indexStream(Indexer index, String url) throws IOException {
+	/**
+	 * Indexes the subjects of all dumps that can be found at the given URL. The
+	 * dumps are parsed in parallel and the URIs of every dump are written to a
+	 * file which is sorted and deduplicated. After that, the sorted runs of
+	 * all dumps are merged and the unique URIs are added to the index by
+	 * several threads, which avoids the costly updates of existing documents.
+	 */
+	private static void indexStream(Indexer index, FingerprintIndexBuilder builder, String url, final File tempFolder)
+			throws IOException {
 		Set<String> downloads = InitialIndexTool.getDownloadsOfUrl(url, new String[] { ".ttl.bz2", ".ttl" });
-		URIIndexerStream sink = new URIIndexerStream(index);
-		for (String download : downloads) {
-			URL streamUrl = new URL(download);
-			if (streamUrl.toString().endsWith(".ttl.bz2")) {
-				try (InputStream fi = streamUrl.openStream();
-						InputStream bi = new BufferedInputStream(fi);
-						InputStream bzip2is = new BZip2CompressorInputStream(bi)) {
-					LOGGER.info("Searching in {} ...", download);
-					RDFDataMgr.parse(sink, bzip2is, Lang.TURTLE);
-					LOGGER.info("...finished");
-				} catch (Exception e) {
-					e.printStackTrace();
+		List<File> sortedRuns = new ArrayList<File>();
+		ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS,
+				new ThreadFactoryBuilder().setNameFormat("DumpParser-%d").build());
+		try (final ThroughputReporter reporter = new ThroughputReporter("Parsed")) {
+			List<Future<List<File>>> futures = new ArrayList<Future<List<File>>>(downloads.size());
+			for (final String download : downloads) {
+				futures.add(executor.submit(new Callable<List<File>>() {
+					@Override
+					public List<File> call() throws Exception {
+						return parseDump(download, tempFolder, reporter);
+					}
+				}));
+			}
+			for (Future<List<File>> future : futures) {
+				try {
+					sortedRuns.addAll(future.get());
+				} catch (ExecutionException e) {
+					// an index without the URIs of a dump would mark them as
+					// outdated
+					throw new IOException("Couldn't process dump. Aborting.", e.getCause());
 				}
-			}else if(streamUrl.toString().endsWith(".ttl")) {
-				try (InputStream fi = streamUrl.openStream();
-						InputStream bi = new BufferedInputStream(fi)) {
-					LOGGER.info("Searching in {} ...", download);
-					RDFDataMgr.parse(sink, bi, Lang.TURTLE);
-					LOGGER.info("...finished");
-				} catch (Exception e) {
-					e.printStackTrace();
+			}
+		} catch (InterruptedException e) {
+			throw new IOException("Interrupted while waiting for the dumps to be parsed.", e);
+		} finally {
+			executor.shutdownNow();
+		}
+		// merge the sorted runs of all dumps and remove duplicates
+		File sorted = File.createTempFile("uris", ".sorted", tempFolder);
+		ExternalSort.mergeSortedFiles(sortedRuns, sorted, ExternalSort.defaultcomparator, StandardCharsets.UTF_8,
+				true);
+		try {
+			indexSortedFile(index, builder, sorted);
+		} finally {
+			sorted.delete();
+		}
+		LOGGER.info("Indexed {} Uris", index.docs());
+	}
+
+	/**
+	 * Parses a single dump and returns the sorted runs of the (deduplicated)
+	 * URIs found in it.
+	 */
+	private static List<File> parseDump(String download, File tempFolder, ThroughputReporter reporter)
+			throws IOException, InterruptedException {
+		File uriFile = File.createTempFile("uris", ".tmp", tempFolder);
+		try (URICollectorStream sink = new URICollectorStream(uriFile, reporter);
+				InputStream fi = new URL(download).openStream();
+				InputStream bi = new BufferedInputStream(fi);
+				InputStream in = download.endsWith(".bz2") ? new BZip2CompressorInputStream(bi) : bi) {
+			LOGGER.info("Searching in {} ...", download);
+			RDFDataMgr.parse(sink, in, Lang.TURTLE);
+			LOGGER.info("...finished {}", download);
+		}
+		SORT_PERMITS.acquire();
+		try {
+			return ExternalSort.sortInBatch(uriFile, ExternalSort.defaultcomparator, ExternalSort.DEFAULTMAXTEMPFILES,
+					StandardCharsets.UTF_8, tempFolder, true);
+		} finally {
+			SORT_PERMITS.release();
+			uriFile.delete();
+		}
+	}
+
+	/**
+	 * Adds the URIs of the given file (which must not contain duplicates) to
+	 * the index and the fingerprint builder.
+	 */
+	private static void indexSortedFile(final Indexer index, FingerprintIndexBuilder builder, File file)
+			throws IOException {
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+				ThroughputReporter reporter = new ThroughputReporter("Indexed");
+				ParallelBlockIndexer<String> uriIndexer = new ParallelBlockIndexer<String>(10000, NUMBER_OF_THREADS,
+						reporter) {
+					@Override
+					protected long index(String uri) throws IOException {
+						index.add(uri);
+						return 1;
+					}
+				}) {
+			String uri;
+			while ((uri = reader.readLine()) != null) {
+				if (!uri.isEmpty()) {
+					uriIndexer.add(uri);
+					if (builder != null) {
+						builder.add(uri);
+					}
 				}
 			}
-			LOGGER.info("Indexed {} Uris", index.docs());
 		}
 	}
 
 	public static void indexFolder(Indexer index, String folder) {
+		indexFolder(index, null, folder);
+	}
+
+	public static void indexFolder(Indexer index, FingerprintIndexBuilder builder, String folder) {
 		File dir = new File(folder);
 		for (File f : dir.listFiles()) {
 			if (f.getName().endsWith(".ttl")) {
-				index(index, f.getAbsolutePath());
+				index(index, builder, f.getAbsolutePath());
 			}
 		}
 	}
 
 	public static void index(Indexer indexer, String file) {
+		index(indexer, null, file);
+	}
+
+	/**
+	 * Indexes the subjects of the given file.
+	 * 
+	 * @param builder
+	 *            the fingerprint index to which the URIs are added as well or
+	 *            null if only the Lucene index should be created
+	 */
+	public static void index(Indexer indexer, FingerprintIndexBuilder builder, String file) {
 		UriEncodingHandlingSameAsRetriever retriever = new UriEncodingHandlingSameAsRetriever();
 		LineIterator iterator = null;
 		long size = 0, rounds = 0;
@@ -122,9 +260,15 @@ public class DBpediaEntityCheckIndexTool {
 						if (uris != null) {
 							for (String u : uris) {
 								indexer.index(u);
+								if (builder != null) {
+									builder.add(u);
+								}
 							}
 						} else {
 							indexer.index(uri);
+							if (builder != null) {
+								builder.add(uri);
+							}
 						}
 					}
 					size++;
@@ -147,41 +291,54 @@ public class DBpediaEntityCheckIndexTool {
 
 }
 
-class URIIndexerStream extends StreamRDFBase {
+/**
+ * Writes the subject URIs of the parsed triples (together with their other
+ * writings) line by line into a file.
+ */
+class URICollectorStream extends StreamRDFBase implements Closeable {
 
-	UriEncodingHandlingSameAsRetriever retriever = new UriEncodingHandlingSameAsRetriever();
+	private UriEncodingHandlingSameAsRetriever retriever = new UriEncodingHandlingSameAsRetriever();
 
-	Indexer indexer;
+	private Writer writer;
+	private ThroughputReporter reporter;
+	private String oldURI = null;
 
-	public URIIndexerStream(Indexer indexer) {
-		this.indexer = indexer;
+	public URICollectorStream(File file, ThroughputReporter reporter) throws IOException {
+		this.reporter = reporter;
+		writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
 	}
 
-	String oldURI = null;
-
 	@Override
 	public void triple(Triple triple) {
+		reporter.add(1);
+		if (!triple.getSubject().isURI()) {
+			return;
+		}
 		String newURI = triple.getSubject().getURI();
 		if (!newURI.equals(oldURI)) {
 			Set<String> uris = retriever.retrieveSameURIs(newURI);
-			long seqNo;
-			if (uris != null) {
-				for (String u : uris) {
-					seqNo = indexer.index(u);
-					if(seqNo%10000000==0) {
-						System.out.println("SeqNo "+seqNo);
+			try {
+				if (uris != null) {
+					for (String u : uris) {
+						write(u);
 					}
+				} else {
+					write(newURI);
 				}
-			} else {
-				seqNo = indexer.index(newURI);
-				if(seqNo%10000000==0) {
-					System.out.println("SeqNo "+seqNo);
-				}
+			} catch (IOException e) {
+				throw new IllegalStateException("Couldn't write URI to temporary file.", e);
 			}
-			
 		}
-		oldURI=newURI;
+		oldURI = newURI;
+	}
 
+	private void write(String uri) throws IOException {
+		writer.write(uri);
+		writer.write('\n');
 	}
 
-}
\ No newline at end of file
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+}
@@ -15,14 +15,23 @@ import java.net.URLConnection;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.text.SimpleDateFormat;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -45,7 +54,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.code.externalsorting.ExternalSort;
-
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Creates the sameAs index. The DBpedia dumps are downloaded, decompressed
+ * and parsed in parallel. The sameAs triples of every dump are sorted
+ * separately before the sorted runs are merged. The merged file is indexed by
+ * several threads.
+ */
 public class InitialIndexTool {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(InitialIndexTool.class);
@@ -59,8 +75,23 @@ public class InitialIndexTool {
 
 	private static String owlSameAs = "<http://www.w3.org/2002/07/owl#sameAs>";
 
+	/**
+	 * Number of threads used for parsing dumps and for indexing.
+	 */
+	protected static final int NUMBER_OF_THREADS = Runtime.getRuntime().availableProcessors();
+	/**
+	 * RAM buffer of the index writer.
+	 */
+	private static final double RAM_BUFFER_SIZE_MB = 512;
+	/**
+	 * The external sort sizes its batches based on the complete free heap.
+	 * Thus, only one dump is sorted at a time while the other threads are
+	 * still able to parse their dumps.
+	 */
+	private static final Semaphore SORT_PERMITS = new Semaphore(1);
+
 	public static void main(String[] args) throws GerbilException, IOException {
-		Indexer index = new Indexer(OUTPUT_FOLDER);
+		Indexer index = new Indexer(OUTPUT_FOLDER, RAM_BUFFER_SIZE_MB);
 		SimpleDateFormat format = new SimpleDateFormat();
 		Date start = Calendar.getInstance().getTime();
 		LOGGER.info("Start indexing at {}", format.format(start));
@@ -78,14 +109,27 @@ public class InitialIndexTool {
 		LOGGER.info("Indexing took: " + DurationFormatUtils.formatDurationHMS(end.getTime() - start.getTime()));
 	}
 
+	/**
+	 * Creates a {@link ParallelBlockIndexer} that adds the given sameAs blocks
+	 * to the given index. The reporter counts the indexed URIs.
+	 */
+	private static ParallelBlockIndexer<Map.Entry<String, Set<String>>> createBlockIndexer(final Indexer index,
+			ThroughputReporter reporter) {
+		return new ParallelBlockIndexer<Map.Entry<String, Set<String>>>(1000, NUMBER_OF_THREADS, reporter) {
+			@Override
+			protected long index(Map.Entry<String, Set<String>> block) throws IOException {
+				index.index(block.getKey(), block.getValue());
+				return block.getValue().size();
+			}
+		};
+	}
+
 	private static void indexSortedFile(Indexer index, String file) throws IOException {
-		try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+		try (BufferedReader br = new BufferedReader(new FileReader(file));
+				ThroughputReporter reporter = new ThroughputReporter("Indexed");
+				ParallelBlockIndexer<Map.Entry<String, Set<String>>> blockIndexer = createBlockIndexer(index, reporter)) {
 			String line;
 			String old = null;
-			//long total = 0; has never been used
-			long size = 0;
-			long rounds = 0;
-			Date start = Calendar.getInstance().getTime();
 			Set<String> sameAsBlock = new HashSet<String>();
 			while ((line = br.readLine()) != null) {
 				String[] split = line.split("\\s+");
@@ -96,10 +140,9 @@ public class InitialIndexTool {
 					sameAsBlock.add(node2.toString());
 				} else if (old != null) {
 					// Enitity is finished
-					index.index(old.toString(), sameAsBlock);
-					// total += sameAsBlock.size();
-
-					sameAsBlock.clear();
+					blockIndexer.add(new SimpleImmutableEntry<String, Set<String>>(old.toString(), sameAsBlock));
+					// the block is indexed by another thread
+					sameAsBlock = new HashSet<String>();
 					// Add Uri
 					sameAsBlock.add(node2.toString());
 					old = node1;
@@ -108,18 +151,14 @@ public class InitialIndexTool {
 					sameAsBlock.add(node2.toString());
 					old = node1;
 				}
-				size++;
-				if (size % 1000000 == 0) {
-					Date end = Calendar.getInstance().getTime();
-					rounds++;
-					String avgTime = DurationFormatUtils.formatDurationHMS((end.getTime() - start.getTime()) / rounds);
-					LOGGER.info("Got 1000000 triples...(Sum: {}, AvgTime: {})", size, avgTime);
-				}
+			}
+			if (!sameAsBlock.isEmpty()) {
+				blockIndexer.add(new SimpleImmutableEntry<String, Set<String>>(old.toString(), sameAsBlock));
 			}
 		}
 	}
 
-	public static void index(Indexer index) throws GerbilException {
+	public static void index(Indexer index) throws GerbilException, IOException {
 		int offset = 0;
 		int limit = 10000;
 		boolean test = true;
@@ -195,34 +234,69 @@ public class InitialIndexTool {
 
 	public static void indexStream(Indexer index, String url) throws IOException, GerbilException {
 		Set<String> downloads = getDownloadsOfUrl(url, DOWNLOAD_SUFFIX);
-		String fileName = UUID.randomUUID().toString();
-		SameAsCollectorStreamFile sink = new SameAsCollectorStreamFile(fileName);
-		for (String download : downloads) {
-			File current = null;
-			try {
-				LOGGER.info("Searching in {} ...", download);
-				current = downloadUrl(new URL(download));
-				try (InputStream fi = Files.newInputStream(current.toPath());
-						InputStream bi = new BufferedInputStream(fi);
-						InputStream bzip2is = new BZip2CompressorInputStream(bi)) {
-					indexStream(index, bzip2is, sink);
-					LOGGER.info("...finished");
-
+		List<File> sortedRuns = new ArrayList<File>();
+		ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS,
+				new ThreadFactoryBuilder().setNameFormat("DumpParser-%d").build());
+		try (final ThroughputReporter reporter = new ThroughputReporter("Parsed")) {
+			List<Future<List<File>>> futures = new ArrayList<Future<List<File>>>(downloads.size());
+			for (final String download : downloads) {
+				futures.add(executor.submit(new Callable<List<File>>() {
+					@Override
+					public List<File> call() throws Exception {
+						return parseDump(download, reporter);
+					}
+				}));
+			}
+			for (Future<List<File>> future : futures) {
+				try {
+					sortedRuns.addAll(future.get());
+				} catch (ExecutionException e) {
+					// an index without the links of a dump is incomplete
+					throw new IOException("Couldn't process dump. Aborting.", e.getCause());
 				}
-			} catch (Exception e) {
-				e.printStackTrace();
-			} finally {
-				if (current != null)
-					current.delete();
 			}
+		} catch (InterruptedException e) {
+			throw new IOException("Interrupted while waiting for the dumps to be parsed.", e);
+		} finally {
+			executor.shutdownNow();
 		}
-		sink.close();
-		// sort that file
-		File sorted = new File(sink.getFile().getName() + "_sorted");
-		ExternalSort.mergeSortedFiles(ExternalSort.sortInBatch(sink.getFile()), sorted);
+		// merge the sorted runs of all dumps
+		File sorted = new File(UUID.randomUUID().toString() + "_sorted");
+		ExternalSort.mergeSortedFiles(sortedRuns, sorted);
 		// then index that file
 		indexSortedFile(index, sorted.getAbsolutePath());
-		sink.getFile().delete();
+	}
+
+	/**
+	 * Downloads, decompresses and parses a single dump and sorts the sameAs
+	 * triples found in it.
+	 */
+	private static List<File> parseDump(String download, ThroughputReporter reporter)
+			throws IOException, InterruptedException {
+		SameAsCollectorStreamFile sink = new SameAsCollectorStreamFile(UUID.randomUUID().toString(), reporter);
+		File current = null;
+		try {
+			LOGGER.info("Searching in {} ...", download);
+			current = downloadUrl(new URL(download));
+			try (InputStream fi = Files.newInputStream(current.toPath());
+					InputStream bi = new BufferedInputStream(fi);
+					InputStream bzip2is = new BZip2CompressorInputStream(bi)) {
+				RDFDataMgr.parse(sink, bzip2is, Lang.TURTLE);
+				LOGGER.info("...finished {}", download);
+			}
+		} finally {
+			sink.close();
+			if (current != null)
+				current.delete();
+		}
+		// sort the triples of this dump, the sorted runs are merged later on
+		SORT_PERMITS.acquire();
+		try {
+			return ExternalSort.sortInBatch(sink.getFile());
+		} finally {
+			SORT_PERMITS.release();
+			sink.getFile().delete();
+		}
 	}
 
 	private static File downloadUrl(URL url) throws IOException {
@@ -257,7 +331,8 @@ public class InitialIndexTool {
 		}
 	}
 
-	private static void indexStreamMem(Indexer index, InputStream in, SameAsCollectorStreamMem sink) {
+	private static void indexStreamMem(Indexer index, InputStream in, SameAsCollectorStreamMem sink)
+			throws IOException {
 		RDFDataMgr.parse(sink, in, Lang.TURTLE);
 		LOGGER.info("Found {} instances of owl:sameAs", sink.getMapping().size());
 		for (String key : sink.getMapping().keySet()) {
@@ -265,14 +340,6 @@ public class InitialIndexTool {
 		}
 	}
 
-	private static void indexStream(Indexer index, InputStream in, SameAsCollectorStreamFile sink)
-			throws IOException, GerbilException {
-		// write everyhting to tmp file usiong SameAsCollectorStream
-
-		RDFDataMgr.parse(sink, in, Lang.TURTLE);
-
-	}
-
 	static Set<String> getDownloadsOfUrl(String url, String[] downloadSuffix) throws IOException {
 		URL site = new URL(url);
 		Set<String> downloads = new HashSet<String>();
@@ -326,58 +393,50 @@ public class InitialIndexTool {
 	}
 
 	public static void index(Indexer index, String file) throws GerbilException, IOException {
-		BufferedReader reader = new BufferedReader(
-				new InputStreamReader(new FileInputStream(file), Charset.forName("UTF-8")));
-
 		// Create here!
 		Set<String> sameAsBlock = new HashSet<String>();
 
 		long total = 0;
-		long size = 0;
-		long rounds = 0;
 		String line = "";
 		String old = null;
-		Date start = Calendar.getInstance().getTime();
-		while ((line = reader.readLine()) != null) {
-			String[] split = line.split("\\s+");
-			if (!split[1].equals(owlSameAs)) {
-				continue;
-			}
-			String node1 = split[0].replace("<", "").replace(">", "");
-			String node2 = split[2];
-			node2 = node2.substring(node2.indexOf("<") + 1, node2.lastIndexOf(">")).trim();
-
-			if (node1.equals(old)) {
-				sameAsBlock.add(node2.toString());
-			} else if (old != null) {
-				// Enitity is finished
-				index.index(old.toString(), sameAsBlock);
-				total += sameAsBlock.size();
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(file), Charset.forName("UTF-8")));
+				ThroughputReporter reporter = new ThroughputReporter("Indexed");
+				ParallelBlockIndexer<Map.Entry<String, Set<String>>> blockIndexer = createBlockIndexer(index, reporter)) {
+			while ((line = reader.readLine()) != null) {
+				String[] split = line.split("\\s+");
+				if (!split[1].equals(owlSameAs)) {
+					continue;
+				}
+				String node1 = split[0].replace("<", "").replace(">", "");
+				String node2 = split[2];
+				node2 = node2.substring(node2.indexOf("<") + 1, node2.lastIndexOf(">")).trim();
 
-				sameAsBlock.clear();
-				// Add Uri
-				sameAsBlock.add(node2.toString());
-				old = node1;
-			} else {
-				// First run
-				sameAsBlock.add(node2.toString());
-				old = node1;
-			}
-			size++;
-			if (size % 100000 == 0) {
-				Date end = Calendar.getInstance().getTime();
-				rounds++;
-				String avgTime = DurationFormatUtils.formatDurationHMS((end.getTime() - start.getTime()) / rounds);
-				LOGGER.info("Got 100000 triples...(Sum: {}, AvgTime: {})", size, avgTime);
+				if (node1.equals(old)) {
+					sameAsBlock.add(node2.toString());
+				} else if (old != null) {
+					// Enitity is finished
+					blockIndexer.add(new SimpleImmutableEntry<String, Set<String>>(old.toString(), sameAsBlock));
+					total += sameAsBlock.size();
+
+					// the block is indexed by another thread
+					sameAsBlock = new HashSet<String>();
+					// Add Uri
+					sameAsBlock.add(node2.toString());
+					old = node1;
+				} else {
+					// First run
+					sameAsBlock.add(node2.toString());
+					old = node1;
+				}
 			}
-		}
 
-		// done
-		if (!sameAsBlock.isEmpty()) {
-			index.index(old.toString(), sameAsBlock);
-			sameAsBlock.clear();
+			// done
+			if (!sameAsBlock.isEmpty()) {
+				blockIndexer.add(new SimpleImmutableEntry<String, Set<String>>(old.toString(), sameAsBlock));
+				total += sameAsBlock.size();
+			}
 		}
-		reader.close();
 		LOGGER.info("Successfully indexed {} triples", total);
 	}
 
@@ -391,8 +450,19 @@ class SameAsCollectorStreamFile extends StreamRDFBase {
 
 	private File file;
 	private PrintWriter pw;
+	private ThroughputReporter reporter;
 
 	public SameAsCollectorStreamFile(String fileName) throws IOException {
+		this(fileName, null);
+	}
+
+	/**
+	 * @param reporter
+	 *            reporter that is informed about the parsed triples or null if
+	 *            the progress should be printed by this sink
+	 */
+	public SameAsCollectorStreamFile(String fileName, ThroughputReporter reporter) throws IOException {
+		this.reporter = reporter;
 		this.file = new File(fileName);
 		this.file.createNewFile();
 		this.pw = new PrintWriter(new FileOutputStream(this.file, true));
@@ -409,7 +479,9 @@ class SameAsCollectorStreamFile extends StreamRDFBase {
 			pw.println(triple);
 			sameAsCount++;
 		}
-		if (count % 1000000 == 0) {
+		if (reporter != null) {
+			reporter.add(1);
+		} else if (count % 1000000 == 0) {
 			System.out.println("Searched through " + count + " triples and found " + sameAsCount + " sameAs instances");
 			System.out
 					.println("RAM usage: " + (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()));
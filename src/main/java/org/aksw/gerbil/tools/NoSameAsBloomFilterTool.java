@@ -0,0 +1,71 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.tools;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.aksw.gerbil.semantic.sameas.NoSameAsBloomFilter;
+import org.aksw.gerbil.semantic.sameas.impl.cache.SameAsEquivalenceStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This tool (re)builds the {@link NoSameAsBloomFilter} from the URIs that a
+ * sameAs cache knows to have no sameAs links. The source can be any cache
+ * that can be read by the {@link SameAsCacheSnapshotTool}. The size of the
+ * filter is chosen based on the number of URIs in the cache.
+ */
+public class NoSameAsBloomFilterTool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NoSameAsBloomFilterTool.class);
+
+    private static final String DEFAULT_SOURCE_FILE = "gerbil_data/cache/sameAs.log";
+    private static final String DEFAULT_FILTER_FILE = "gerbil_data/cache/noSameAs.bloom";
+
+    public static void main(String[] args) throws IOException {
+        File sourceFile = new File(args.length > 0 ? args[0] : DEFAULT_SOURCE_FILE);
+        File filterFile = new File(args.length > 1 ? args[1] : DEFAULT_FILTER_FILE);
+        SameAsEquivalenceStore store = SameAsCacheSnapshotTool.readStore(sourceFile);
+        if (store == null) {
+            LOGGER.error("Couldn't read the sameAs cache {}. Aborting.", sourceFile);
+            return;
+        }
+        NoSameAsBloomFilter filter = buildFilter(store);
+        LOGGER.info("Writing filter with {} URIs to {}...", filter.getNumberOfUris(), filterFile);
+        filter.writeTo(filterFile);
+        LOGGER.info("Finished.");
+    }
+
+    public static NoSameAsBloomFilter buildFilter(SameAsEquivalenceStore store) {
+        int numberOfUris = 0;
+        for (int i = 0; i < store.getNumberOfUris(); ++i) {
+            if (store.isNotFound(i)) {
+                ++numberOfUris;
+            }
+        }
+        NoSameAsBloomFilter filter = NoSameAsBloomFilter.create(
+                Math.max(NoSameAsBloomFilter.DEFAULT_EXPECTED_INSERTIONS, numberOfUris),
+                NoSameAsBloomFilter.DEFAULT_FALSE_POSITIVE_PROBABILITY);
+        for (int i = 0; i < store.getNumberOfUris(); ++i) {
+            if (store.isNotFound(i)) {
+                filter.addUriWithoutSameAs(store.getUri(i));
+            }
+        }
+        return filter;
+    }
+}
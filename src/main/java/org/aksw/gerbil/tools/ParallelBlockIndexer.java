@@ -0,0 +1,138 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.tools;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Indexes blocks (e.g., sets of sameAs links or single URIs) using several
+ * threads. The blocks are collected in batches by the calling thread. If all
+ * threads are busy, the calling thread indexes the batch itself, which limits
+ * the number of blocks waiting in memory. If a batch can not be indexed, the
+ * exception is thrown by the next call of {@link #add(Object)} or
+ * {@link #close()}. Sub classes define how a single block is indexed.
+ *
+ * @param <T>
+ *            the type of the indexed blocks
+ */
+public abstract class ParallelBlockIndexer<T> implements Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ParallelBlockIndexer.class);
+
+	private int blocksPerBatch;
+	private ThroughputReporter reporter;
+	private ThreadPoolExecutor executor;
+	private List<T> blocks;
+	private AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+	public ParallelBlockIndexer(int blocksPerBatch, int numberOfThreads, ThroughputReporter reporter) {
+		this.blocksPerBatch = blocksPerBatch;
+		this.reporter = reporter;
+		blocks = new ArrayList<T>(blocksPerBatch);
+		executor = new ThreadPoolExecutor(numberOfThreads, numberOfThreads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(2 * numberOfThreads),
+				new ThreadFactoryBuilder().setNameFormat("Indexer-%d").build(),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	/**
+	 * Adds the given block to the current batch. Note that the given block
+	 * must not be changed afterwards.
+	 *
+	 * @throws IOException
+	 *             if an earlier batch couldn't be indexed
+	 */
+	public void add(T block) throws IOException {
+		checkFailure();
+		blocks.add(block);
+		if (blocks.size() == blocksPerBatch) {
+			submitBatch();
+		}
+	}
+
+	/**
+	 * Indexes a single block.
+	 *
+	 * @return the number of indexed elements that is added to the
+	 *         {@link ThroughputReporter}
+	 * @throws IOException
+	 *             if the block couldn't be indexed
+	 */
+	protected abstract long index(T block) throws IOException;
+
+	private void submitBatch() {
+		final List<T> batch = blocks;
+		blocks = new ArrayList<T>(blocksPerBatch);
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				long count = 0;
+				try {
+					for (T block : batch) {
+						count += index(block);
+					}
+				} catch (Throwable e) {
+					if (!failure.compareAndSet(null, e)) {
+						LOGGER.error("Exception while indexing a batch of blocks.", e);
+					}
+				} finally {
+					reporter.add(count);
+				}
+			}
+		});
+	}
+
+	private void checkFailure() throws IOException {
+		Throwable e = failure.get();
+		if (e != null) {
+			throw new IOException("Exception while indexing a batch of blocks.", e);
+		}
+	}
+
+	/**
+	 * Indexes the remaining blocks and waits until all batches have been
+	 * indexed.
+	 *
+	 * @throws IOException
+	 *             if one of the batches couldn't be indexed
+	 */
+	@Override
+	public void close() throws IOException {
+		if ((blocks.size() > 0) && (failure.get() == null)) {
+			submitBatch();
+		}
+		executor.shutdown();
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+		} catch (InterruptedException e) {
+			throw new IOException("Interrupted while waiting for the indexing threads.", e);
+		}
+		checkFailure();
+	}
+}
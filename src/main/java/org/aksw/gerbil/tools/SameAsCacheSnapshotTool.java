@@ -0,0 +1,113 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.aksw.gerbil.semantic.sameas.impl.cache.FileBasedCachingSameAsRetriever;
+import org.aksw.gerbil.semantic.sameas.impl.cache.MappedSameAsCache;
+import org.aksw.gerbil.semantic.sameas.impl.cache.SameAsCacheLog;
+import org.aksw.gerbil.semantic.sameas.impl.cache.SameAsEquivalenceStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+
+/**
+ * This tool creates a snapshot of a sameAs cache that can be used as backing
+ * store of the
+ * {@link org.aksw.gerbil.semantic.sameas.impl.cache.LogBasedCachingSameAsRetriever}.
+ * The source can be the log of a
+ * {@link org.aksw.gerbil.semantic.sameas.impl.cache.LogBasedCachingSameAsRetriever}
+ * (file ending with ".log") or the cache file of a
+ * {@link FileBasedCachingSameAsRetriever}. If the source is a log, the
+ * snapshot stores the position up to which it has been read. Thus, the cache
+ * only has to load the records that have been appended after this position.
+ */
+public class SameAsCacheSnapshotTool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SameAsCacheSnapshotTool.class);
+
+    private static final String DEFAULT_SOURCE_FILE = "gerbil_data/cache/sameAs.log";
+    private static final String DEFAULT_SNAPSHOT_FILE = "gerbil_data/cache/sameAs.snapshot";
+
+    public static void main(String[] args) throws IOException {
+        File sourceFile = new File(args.length > 0 ? args[0] : DEFAULT_SOURCE_FILE);
+        File snapshotFile = new File(args.length > 1 ? args[1] : DEFAULT_SNAPSHOT_FILE);
+        SameAsEquivalenceStore store = null;
+        SameAsCacheLog.LogPosition logPosition = null;
+        if (sourceFile.exists() && sourceFile.getName().endsWith(".log")) {
+            store = new SameAsEquivalenceStore();
+            logPosition = readLog(sourceFile, store);
+        } else {
+            store = readStore(sourceFile);
+        }
+        if (store == null) {
+            LOGGER.error("Couldn't read the sameAs cache {}. Aborting.", sourceFile);
+            return;
+        }
+        LOGGER.info("Writing snapshot with {} URIs to {}...", store.getNumberOfUris(), snapshotFile);
+        MappedSameAsCache.write(snapshotFile, store, logPosition);
+        LOGGER.info("Finished.");
+    }
+
+    /**
+     * Adds the records of the given sameAs cache log to the given store. The
+     * log is only read, since it might be in use.
+     *
+     * @return the position up to which the log has been read
+     */
+    public static SameAsCacheLog.LogPosition readLog(File logFile, final SameAsEquivalenceStore store)
+            throws IOException {
+        return SameAsCacheLog.replay(logFile, new SameAsCacheLog.RecordHandler() {
+            @Override
+            public void handleSet(Collection<String> uris) {
+                store.addSet(uris);
+            }
+
+            @Override
+            public void handleNotFound(String uri) {
+                if (!store.contains(uri)) {
+                    store.markNotFound(uri);
+                }
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public static SameAsEquivalenceStore readStore(File sourceFile) throws IOException {
+        if (!sourceFile.exists()) {
+            return null;
+        }
+        if (sourceFile.getName().endsWith(".log")) {
+            SameAsEquivalenceStore store = new SameAsEquivalenceStore();
+            readLog(sourceFile, store);
+            return store;
+        } else {
+            Object objects[] = FileBasedCachingSameAsRetriever.readCacheFile(sourceFile);
+            if (objects == null) {
+                return null;
+            }
+            return FileBasedCachingSameAsRetriever.createStore((ObjectIntOpenHashMap<String>) objects[0],
+                    (List<Set<String>>) objects[1]);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.tools;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Counts processed triples and logs the throughput in regular intervals.
+ */
+public class ThroughputReporter implements Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ThroughputReporter.class);
+
+	private static final long REPORT_INTERVAL_SECONDS = 30;
+
+	private final String action;
+	private final LongAdder triples = new LongAdder();
+	private final long startTime = System.currentTimeMillis();
+	private long lastTime = startTime;
+	private long lastCount = 0;
+	private ScheduledExecutorService scheduler;
+
+	public ThroughputReporter(String action) {
+		this.action = action;
+		scheduler = Executors.newSingleThreadScheduledExecutor(
+				new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ThroughputReporter-%d").build());
+		scheduler.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				report();
+			}
+		}, REPORT_INTERVAL_SECONDS, REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+	}
+
+	public void add(long numberOfTriples) {
+		triples.add(numberOfTriples);
+	}
+
+	protected synchronized void report() {
+		long now = System.currentTimeMillis();
+		long count = triples.sum();
+		LOGGER.info("{} {} triples ({} triples/s, average: {} triples/s)", action, count,
+				((count - lastCount) * 1000) / Math.max(1, now - lastTime),
+				(count * 1000) / Math.max(1, now - startTime));
+		lastTime = now;
+		lastCount = count;
+	}
+
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+		report();
+	}
+}
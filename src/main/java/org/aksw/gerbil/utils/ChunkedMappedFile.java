@@ -0,0 +1,146 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * <p>
+ * A file that is mapped read-only into memory. Since a single
+ * {@link MappedByteBuffer} can not be larger than 2GB, the file is mapped in
+ * several chunks. Values are read with absolute positions, i.e., the mapping
+ * can be used by several threads at the same time. The values are expected to
+ * be written in big endian order, e.g., with a
+ * {@link java.io.DataOutputStream}.
+ * </p>
+ * <p>
+ * The mapped pages are loaded lazily by the operating system and can be
+ * shared with other processes mapping the same file.
+ * </p>
+ */
+public class ChunkedMappedFile implements Closeable {
+
+    /**
+     * Default size of a chunk (1GB).
+     */
+    public static final int DEFAULT_CHUNK_SIZE_BITS = 30;
+
+    public static ChunkedMappedFile map(File file) throws IOException {
+        return map(file, DEFAULT_CHUNK_SIZE_BITS);
+    }
+
+    /**
+     * Maps the given file.
+     *
+     * @param file
+     *            the file that should be mapped
+     * @param chunkSizeBits
+     *            the size of a single chunk as power of two (max. 30)
+     */
+    public static ChunkedMappedFile map(File file, int chunkSizeBits) throws IOException {
+        if ((chunkSizeBits < 3) || (chunkSizeBits > 30)) {
+            throw new IllegalArgumentException("The chunk size has to be in [2^3, 2^30].");
+        }
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            FileChannel channel = raf.getChannel();
+            long length = channel.size();
+            long chunkSize = 1L << chunkSizeBits;
+            MappedByteBuffer chunks[] = new MappedByteBuffer[(int) ((length + chunkSize - 1) >>> chunkSizeBits)];
+            long position;
+            for (int i = 0; i < chunks.length; ++i) {
+                position = ((long) i) << chunkSizeBits;
+                chunks[i] = channel.map(MapMode.READ_ONLY, position, Math.min(chunkSize, length - position));
+            }
+            // the mapping stays valid after the channel has been closed
+            return new ChunkedMappedFile(chunks, chunkSizeBits, length);
+        } finally {
+            IOUtils.closeQuietly(raf);
+        }
+    }
+
+    private MappedByteBuffer chunks[];
+    private int chunkSizeBits;
+    private long chunkMask;
+    private long length;
+
+    protected ChunkedMappedFile(MappedByteBuffer chunks[], int chunkSizeBits, long length) {
+        this.chunks = chunks;
+        this.chunkSizeBits = chunkSizeBits;
+        this.chunkMask = (1L << chunkSizeBits) - 1;
+        this.length = length;
+    }
+
+    public byte getByte(long position) {
+        return chunks[(int) (position >>> chunkSizeBits)].get((int) (position & chunkMask));
+    }
+
+    public int getInt(long position) {
+        int offset = (int) (position & chunkMask);
+        MappedByteBuffer chunk = chunks[(int) (position >>> chunkSizeBits)];
+        if ((offset + 4) <= chunk.limit()) {
+            return chunk.getInt(offset);
+        }
+        // the value is split between two chunks
+        int value = 0;
+        for (int i = 0; i < 4; ++i) {
+            value = (value << 8) | (getByte(position + i) & 0xFF);
+        }
+        return value;
+    }
+
+    public long getLong(long position) {
+        int offset = (int) (position & chunkMask);
+        MappedByteBuffer chunk = chunks[(int) (position >>> chunkSizeBits)];
+        if ((offset + 8) <= chunk.limit()) {
+            return chunk.getLong(offset);
+        }
+        return (((long) getInt(position)) << 32) | (getInt(position + 4) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Copies the given number of bytes starting at the given position into
+     * the given array.
+     */
+    public void getBytes(long position, byte bytes[], int length) {
+        for (int i = 0; i < length; ++i) {
+            bytes[i] = getByte(position + i);
+        }
+    }
+
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Releases the references to the mapped chunks. Note that the memory is
+     * unmapped by the garbage collector.
+     */
+    @Override
+    public void close() {
+        chunks = null;
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * <p>
+ * Watches the pointer file of an index and swaps the index if the pointer
+ * changes. The pointer file is placed next to the configured index directory
+ * and has the same name with the suffix {@value #POINTER_FILE_SUFFIX}, e.g.,
+ * {@code indexes/dbpedia.current} for the index {@code indexes/dbpedia}. It
+ * contains the path of the directory of the index that should be used.
+ * </p>
+ * <p>
+ * Hence, a new index can be built in a separate directory while the old index
+ * is in use. After the new index is complete, its path is written to the
+ * pointer file and the index is swapped with the next check. If the swap
+ * fails, it is retried after the pointer file has been written again.
+ * </p>
+ */
+public class IndexPointerWatcher implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexPointerWatcher.class);
+
+    public static final String POINTER_FILE_SUFFIX = ".current";
+
+    /**
+     * An index that can be replaced while it is in use.
+     */
+    public static interface IndexSwapper {
+
+        /**
+         * Replaces the index with the index in the given directory.
+         * 
+         * @return true if the new index is used, false if it couldn't be opened
+         */
+        public boolean swapIndex(String indexDirectoryPath);
+    }
+
+    /**
+     * @return the pointer file of the given index directory
+     */
+    public static File getPointerFile(String indexDirectoryPath) {
+        return new File(new File(indexDirectoryPath).getAbsolutePath() + POINTER_FILE_SUFFIX);
+    }
+
+    /**
+     * Returns the directory of the index that should be used, i.e., the path
+     * of the pointer file (if it exists and is not empty) or the given index
+     * directory.
+     */
+    public static String getCurrentIndex(String indexDirectoryPath) {
+        String pointer = readPointer(getPointerFile(indexDirectoryPath));
+        return (pointer != null) ? pointer : indexDirectoryPath;
+    }
+
+    private static String readPointer(File pointerFile) {
+        if (!pointerFile.exists()) {
+            return null;
+        }
+        try {
+            String pointer = FileUtils.readFileToString(pointerFile, StandardCharsets.UTF_8).trim();
+            return pointer.isEmpty() ? null : pointer;
+        } catch (IOException e) {
+            LOGGER.error("Couldn't read the index pointer file " + pointerFile + ".", e);
+            return null;
+        }
+    }
+
+    /**
+     * Starts watching the pointer file of the given index directory.
+     * 
+     * @param indexDirectoryPath
+     *            the configured directory of the index
+     * @param currentIndex
+     *            the directory of the index that is currently used
+     * @param swapper
+     *            the index that is swapped if the pointer changes
+     * @param checkInterval
+     *            the interval (in ms) in which the pointer file is checked
+     */
+    public static IndexPointerWatcher start(String indexDirectoryPath, String currentIndex, IndexSwapper swapper,
+            long checkInterval) {
+        IndexPointerWatcher watcher = new IndexPointerWatcher(getPointerFile(indexDirectoryPath), currentIndex,
+                swapper);
+        watcher.start(checkInterval);
+        return watcher;
+    }
+
+    private File pointerFile;
+    private IndexSwapper swapper;
+    /**
+     * The directory of the index that is currently used.
+     */
+    private String currentIndex;
+    /**
+     * The modification time of the pointer file when it has been read last.
+     */
+    private long lastModified;
+    private ScheduledExecutorService executor;
+
+    public IndexPointerWatcher(File pointerFile, String currentIndex, IndexSwapper swapper) {
+        this.pointerFile = pointerFile;
+        this.currentIndex = currentIndex;
+        this.swapper = swapper;
+        lastModified = pointerFile.lastModified();
+    }
+
+    protected void start(long checkInterval) {
+        executor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("IndexPointerWatcher-%d").build());
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                check();
+            }
+        }, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+        LOGGER.info("Watching the index pointer file {} every {} ms.", pointerFile, checkInterval);
+    }
+
+    /**
+     * Swaps the index if the pointer file has been changed since the last
+     * check and points to a different index.
+     * 
+     * @return true if the index has been swapped
+     */
+    public synchronized boolean check() {
+        long modified = pointerFile.lastModified();
+        if (modified == lastModified) {
+            return false;
+        }
+        lastModified = modified;
+        String pointer = readPointer(pointerFile);
+        if ((pointer == null) || pointer.equals(currentIndex)) {
+            return false;
+        }
+        try {
+            if (swapper.swapIndex(pointer)) {
+                currentIndex = pointer;
+                return true;
+            }
+        } catch (Exception e) {
+            LOGGER.error("Exception while swapping to the index " + pointer + ". The old index is still used.", e);
+        }
+        return false;
+    }
+
+    public synchronized String getCurrentIndex() {
+        return currentIndex;
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * <p>
+ * Coalesces concurrent requests for the same key (single-flight). The first
+ * thread requesting a key performs the request while all other threads
+ * requesting the same key in the meantime wait for its result instead of
+ * sending the same request again.
+ * </p>
+ * <p>
+ * Note that a key is only known as long as its request is in flight, i.e.,
+ * the request should store its result in the cache before it returns.
+ * Otherwise, a thread that checks the cache after the request finished but
+ * before the result has been stored will send the request again.
+ * </p>
+ *
+ * @param <K>
+ *            the type of the requested keys
+ * @param <V>
+ *            the type of the results. A result can be null.
+ */
+public class RequestCoalescer<K, V> {
+
+    /**
+     * A request that retrieves the results of several keys at once.
+     */
+    public static interface BatchRequest<K, V> {
+
+        /**
+         * @return a mapping of the given keys to their results. Keys without
+         *         a result can be omitted.
+         */
+        public Map<K, V> request(List<K> keys) throws Exception;
+    }
+
+    private ConcurrentMap<K, CompletableFuture<V>> inFlightRequests = new ConcurrentHashMap<K, CompletableFuture<V>>();
+
+    /**
+     * Returns the result of the given request for the given key. If a request
+     * for this key is already in flight, the result of this request is
+     * returned instead.
+     *
+     * @throws ExecutionException
+     *             if the request (of this or another thread) threw an
+     *             exception
+     * @throws InterruptedException
+     *             if the thread has been interrupted while waiting for the
+     *             request of another thread
+     */
+    public V request(K key, Callable<V> request) throws ExecutionException, InterruptedException {
+        CompletableFuture<V> future = new CompletableFuture<V>();
+        CompletableFuture<V> existing = inFlightRequests.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing.get();
+        }
+        try {
+            V result = request.call();
+            future.complete(result);
+            return result;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw new ExecutionException(e);
+        } finally {
+            inFlightRequests.remove(key, future);
+        }
+    }
+
+    /**
+     * Returns the results for the given keys. All keys that are not already
+     * requested by another thread are requested using a single call of the
+     * given batch request. After that, the results of the keys requested by
+     * other threads are collected.
+     *
+     * @return a mapping of the keys to their results. Keys with a null result
+     *         are not part of the mapping.
+     * @throws ExecutionException
+     *             if the request (of this or another thread) threw an
+     *             exception
+     * @throws InterruptedException
+     *             if the thread has been interrupted while waiting for the
+     *             request of another thread
+     */
+    public Map<K, V> requestAll(Collection<K> keys, BatchRequest<K, V> request)
+            throws ExecutionException, InterruptedException {
+        Map<K, CompletableFuture<V>> ownRequests = new HashMap<K, CompletableFuture<V>>();
+        Map<K, CompletableFuture<V>> foreignRequests = new HashMap<K, CompletableFuture<V>>();
+        CompletableFuture<V> future, existing;
+        for (K key : keys) {
+            if (!ownRequests.containsKey(key) && !foreignRequests.containsKey(key)) {
+                future = new CompletableFuture<V>();
+                existing = inFlightRequests.putIfAbsent(key, future);
+                if (existing == null) {
+                    ownRequests.put(key, future);
+                } else {
+                    foreignRequests.put(key, existing);
+                }
+            }
+        }
+        Map<K, V> results = new HashMap<K, V>();
+        // the own requests are finished before waiting for other threads
+        // which makes sure that two threads can not wait for each other
+        if (ownRequests.size() > 0) {
+            Map<K, V> ownResults = null;
+            Throwable error = null;
+            try {
+                ownResults = request.request(new ArrayList<K>(ownRequests.keySet()));
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                for (Entry<K, CompletableFuture<V>> entry : ownRequests.entrySet()) {
+                    if (error != null) {
+                        entry.getValue().completeExceptionally(error);
+                    } else {
+                        entry.getValue().complete((ownResults == null) ? null : ownResults.get(entry.getKey()));
+                    }
+                    inFlightRequests.remove(entry.getKey(), entry.getValue());
+                }
+            }
+            if (error != null) {
+                throw new ExecutionException(error);
+            }
+            if (ownResults != null) {
+                V result;
+                for (K key : ownRequests.keySet()) {
+                    result = ownResults.get(key);
+                    if (result != null) {
+                        results.put(key, result);
+                    }
+                }
+            }
+        }
+        V result;
+        for (Entry<K, CompletableFuture<V>> entry : foreignRequests.entrySet()) {
+            result = entry.getValue().get();
+            if (result != null) {
+                results.put(entry.getKey(), result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return the number of keys that are currently requested
+     */
+    public int getNumberOfInFlightRequests() {
+        return inFlightRequests.size();
+    }
+}
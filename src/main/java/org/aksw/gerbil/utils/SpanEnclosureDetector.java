@@ -0,0 +1,145 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.utils;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.aksw.gerbil.transfer.nif.Span;
+
+/**
+ * <p>
+ * Detects {@link Span}s that are completely enclosed by other spans using a
+ * single sweep over the spans sorted by their start position and (in reverse
+ * order) by their length. Thus, the detection needs O(n log n) instead of the
+ * O(n&sup2;) of a pairwise comparison.
+ * </p>
+ * <p>
+ * A span that is not enclosed by another span is called <i>maximal</i>. For
+ * every enclosed span, the detector returns the longest maximal span that
+ * encloses it. If there are several identical spans, the one with the highest
+ * index is treated as maximal span. If several maximal spans with the same
+ * length enclose a span, the one with the highest index is chosen.
+ * </p>
+ */
+public class SpanEnclosureDetector {
+
+    /**
+     * Marks a span that is not enclosed by another span.
+     */
+    public static final int NOT_ENCLOSED = -1;
+
+    /**
+     * Determines for every given span the id of the longest maximal span that
+     * encloses it.
+     *
+     * @param spans
+     *            the spans that should be checked
+     * @return an array containing for every span the index of the longest
+     *         maximal span enclosing it or {@link #NOT_ENCLOSED} if the span is
+     *         maximal
+     */
+    public static int[] findEnclosingSpans(final Span spans[]) {
+        int enclosingSpans[] = new int[spans.length];
+        Arrays.fill(enclosingSpans, NOT_ENCLOSED);
+        if (spans.length < 2) {
+            return enclosingSpans;
+        }
+        Integer order[] = new Integer[spans.length];
+        for (int i = 0; i < order.length; ++i) {
+            order[i] = i;
+        }
+        // sort by start (ascending), length (descending) and id (descending)
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer id1, Integer id2) {
+                int diff = Integer.compare(spans[id1].getStartPosition(), spans[id2].getStartPosition());
+                if (diff == 0) {
+                    diff = Integer.compare(spans[id2].getLength(), spans[id1].getLength());
+                    if (diff == 0) {
+                        diff = Integer.compare(id2, id1);
+                    }
+                }
+                return diff;
+            }
+        });
+        // The maximal spans in the order in which they have been found. Their
+        // start and end positions are strictly increasing.
+        int maximalSpans[] = new int[spans.length];
+        int maximalSpanEnds[] = new int[spans.length];
+        int numberOfMaximalSpans = 0;
+        // Positions (in maximalSpans) of the maximal spans that are preferred
+        // over all maximal spans found after them. Their preference is strictly
+        // decreasing. The first entry with a position >= p is the preferred
+        // span of all maximal spans starting at position p.
+        int candidates[] = new int[spans.length];
+        int numberOfCandidates = 0;
+        int id, end, first, candidate;
+        for (int i = 0; i < order.length; ++i) {
+            id = order[i];
+            end = spans[id].getStartPosition() + spans[id].getLength();
+            if ((numberOfMaximalSpans == 0) || (end > maximalSpanEnds[numberOfMaximalSpans - 1])) {
+                // this span is not enclosed by one of the spans seen so far
+                maximalSpans[numberOfMaximalSpans] = id;
+                maximalSpanEnds[numberOfMaximalSpans] = end;
+                while ((numberOfCandidates > 0)
+                        && isPreferred(spans, id, maximalSpans[candidates[numberOfCandidates - 1]])) {
+                    --numberOfCandidates;
+                }
+                candidates[numberOfCandidates] = numberOfMaximalSpans;
+                ++numberOfCandidates;
+                ++numberOfMaximalSpans;
+            } else {
+                // every maximal span that starts before this span and does not
+                // end before it, encloses the span
+                first = firstPositionNotSmaller(maximalSpanEnds, numberOfMaximalSpans, end);
+                candidate = firstPositionNotSmaller(candidates, numberOfCandidates, first);
+                enclosingSpans[id] = maximalSpans[candidates[candidate]];
+            }
+        }
+        return enclosingSpans;
+    }
+
+    /**
+     * @return true if the span with the first id is longer than the span with
+     *         the second id or if they have the same length and the first id
+     *         is larger.
+     */
+    private static boolean isPreferred(Span spans[], int id1, int id2) {
+        int diff = spans[id1].getLength() - spans[id2].getLength();
+        return (diff > 0) || ((diff == 0) && (id1 > id2));
+    }
+
+    /**
+     * Binary search for the first position in the given (strictly increasing)
+     * array that has a value &ge; the given value.
+     */
+    private static int firstPositionNotSmaller(int values[], int length, int value) {
+        int low = 0;
+        int high = length - 1;
+        int middle;
+        while (low < high) {
+            middle = (low + high) >>> 1;
+            if (values[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
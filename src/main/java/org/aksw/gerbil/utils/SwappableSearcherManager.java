@@ -0,0 +1,237 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * Manages the {@link IndexSearcher} of an index, similar to Lucene's
+ * {@link SearcherManager}. Additionally, the manager can switch to an index
+ * in a different directory while it is in use (see
+ * {@link #swapIndex(File)}).
+ * </p>
+ * <p>
+ * A searcher has to be acquired before it is used and released afterwards:
+ * 
+ * <pre>
+ * IndexSearcher searcher = manager.acquire();
+ * try {
+ *     // search
+ * } finally {
+ *     manager.release(searcher);
+ * }
+ * </pre>
+ * 
+ * The readers are reference counted. The reader of an old index (and its
+ * directory) is closed as soon as the last searcher using it has been
+ * released.
+ * </p>
+ * <p>
+ * Before a new searcher replaces the current one, it is warmed up by running
+ * the queries that have been added using {@link #addWarmingQuery(Query)}
+ * recently. Thus, the caches of the operating system already contain the
+ * parts of the new index that are needed most. If the new index has a
+ * different format, a {@link WarmingQueryMapper} can adapt the queries to it.
+ * </p>
+ */
+public class SwappableSearcherManager extends ReferenceManager<IndexSearcher> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SwappableSearcherManager.class);
+
+    public static final int DEFAULT_NUMBER_OF_WARMING_QUERIES = 1000;
+
+    /**
+     * Adapts a warming query to the index of the searcher that is warmed.
+     */
+    public static interface WarmingQueryMapper {
+
+        /**
+         * @return the query that should be run on the given searcher or null
+         *         if the query should be skipped
+         */
+        public Query map(Query query, IndexSearcher searcher) throws IOException;
+    }
+
+    /**
+     * Opens the index in the given directory.
+     */
+    public static SwappableSearcherManager open(File indexDirectory) throws IOException {
+        return new SwappableSearcherManager(indexDirectory, DEFAULT_NUMBER_OF_WARMING_QUERIES);
+    }
+
+    /**
+     * The directory of the index of the current searcher.
+     */
+    private volatile File indexDirectory;
+    /**
+     * The directory that should be used with the next refresh or null if the
+     * current directory should be kept.
+     */
+    private volatile File pendingIndexDirectory;
+    private SearcherFactory searcherFactory;
+    private AtomicReferenceArray<Query> warmingQueries;
+    private AtomicInteger warmingQueryCount = new AtomicInteger();
+    private volatile WarmingQueryMapper warmingQueryMapper;
+
+    public SwappableSearcherManager(File indexDirectory, int numberOfWarmingQueries) throws IOException {
+        warmingQueries = new AtomicReferenceArray<Query>(numberOfWarmingQueries);
+        searcherFactory = new SearcherFactory() {
+            @Override
+            public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) throws IOException {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                warm(searcher);
+                return searcher;
+            }
+        };
+        this.indexDirectory = indexDirectory;
+        current = SearcherManager.getSearcher(searcherFactory, openReader(indexDirectory), null);
+    }
+
+    /**
+     * Opens a reader for the index in the given directory. The directory is
+     * closed together with the reader.
+     */
+    protected static DirectoryReader openReader(File indexDirectory) throws IOException {
+        final Directory directory = FSDirectory.open(indexDirectory.toPath());
+        DirectoryReader reader = null;
+        try {
+            reader = DirectoryReader.open(directory);
+        } finally {
+            if (reader == null) {
+                IOUtils.closeQuietly(directory);
+            }
+        }
+        reader.addReaderClosedListener(new IndexReader.ReaderClosedListener() {
+            @Override
+            public void onClose(IndexReader reader) throws IOException {
+                directory.close();
+            }
+        });
+        return reader;
+    }
+
+    /**
+     * Replaces the current index with the index in the given directory. The
+     * new index is opened and warmed before it replaces the current index.
+     * Searches that are running in parallel still use the old index which is
+     * closed after they released it.
+     */
+    public void swapIndex(File newIndexDirectory) throws IOException {
+        LOGGER.info("Switching from index {} to index {}...", indexDirectory, newIndexDirectory);
+        synchronized (this) {
+            pendingIndexDirectory = newIndexDirectory;
+            maybeRefreshBlocking();
+        }
+        LOGGER.info("Switched to index {}.", indexDirectory);
+    }
+
+    @Override
+    protected IndexSearcher refreshIfNeeded(IndexSearcher referenceToRefresh) throws IOException {
+        File newIndexDirectory = pendingIndexDirectory;
+        IndexReader reader;
+        if (newIndexDirectory != null) {
+            pendingIndexDirectory = null;
+            reader = openReader(newIndexDirectory);
+        } else {
+            // check whether the current index has been changed
+            reader = DirectoryReader.openIfChanged((DirectoryReader) referenceToRefresh.getIndexReader());
+            if (reader == null) {
+                return null;
+            }
+        }
+        IndexSearcher searcher = SearcherManager.getSearcher(searcherFactory, reader,
+                referenceToRefresh.getIndexReader());
+        if (newIndexDirectory != null) {
+            indexDirectory = newIndexDirectory;
+        }
+        return searcher;
+    }
+
+    /**
+     * Remembers the given query for warming up new searchers. Only the
+     * latest queries are kept.
+     */
+    public void addWarmingQuery(Query query) {
+        int length = warmingQueries.length();
+        if (length > 0) {
+            warmingQueries.set((warmingQueryCount.getAndIncrement() & Integer.MAX_VALUE) % length, query);
+        }
+    }
+
+    /**
+     * Sets the mapper that adapts the warming queries to the index of a new
+     * searcher.
+     */
+    public void setWarmingQueryMapper(WarmingQueryMapper warmingQueryMapper) {
+        this.warmingQueryMapper = warmingQueryMapper;
+    }
+
+    protected void warm(IndexSearcher searcher) throws IOException {
+        WarmingQueryMapper mapper = warmingQueryMapper;
+        Query query;
+        int count = 0;
+        for (int i = 0; i < warmingQueries.length(); ++i) {
+            query = warmingQueries.get(i);
+            if ((query != null) && (mapper != null)) {
+                query = mapper.map(query, searcher);
+            }
+            if (query != null) {
+                searcher.search(query, 1);
+                ++count;
+            }
+        }
+        if (count > 0) {
+            LOGGER.info("Warmed new searcher with {} queries.", count);
+        }
+    }
+
+    public File getIndexDirectory() {
+        return indexDirectory;
+    }
+
+    @Override
+    protected void decRef(IndexSearcher reference) throws IOException {
+        reference.getIndexReader().decRef();
+    }
+
+    @Override
+    protected boolean tryIncRef(IndexSearcher reference) throws IOException {
+        return reference.getIndexReader().tryIncRef();
+    }
+
+    @Override
+    protected int getRefCount(IndexSearcher reference) {
+        return reference.getIndexReader().getRefCount();
+    }
+}
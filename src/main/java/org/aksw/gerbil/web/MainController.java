@@ -67,6 +67,7 @@ public class MainController {
     private static final String GOOGLE_ANALYTICS_FILE_NAME = "google1d91bc68c8a56517.html";
 
     private static boolean isInitialized = false;
+    private static boolean isCacheWarmerStarted = false;
     
     private static final String RESNAME_PROP = "org.aksw.gerbil.database.ResultNameSequence";
 
@@ -85,6 +86,14 @@ public class MainController {
     @PostConstruct
     public void init() {
         initialize(dao);
+        startCacheWarmer(adapterManager);
+    }
+
+    private static synchronized void startCacheWarmer(AdapterManager adapterManager) {
+        if (!isCacheWarmerStarted) {
+            RootConfig.startCacheWarmer(adapterManager);
+            isCacheWarmerStarted = true;
+        }
     }
 
     @Autowired
@@ -25,12 +25,17 @@ import java.util.List;
 import java.util.Set;
 
 import org.aksw.gerbil.config.GerbilConfiguration;
+import org.aksw.gerbil.dataset.CacheWarmer;
+import org.aksw.gerbil.dataset.DatasetConfiguration;
+import org.aksw.gerbil.dataset.check.EntityChecker;
 import org.aksw.gerbil.dataset.check.EntityCheckerManager;
 import org.aksw.gerbil.dataset.check.impl.EntityCheckerManagerImpl;
 import org.aksw.gerbil.dataset.check.impl.FileBasedCachingEntityCheckerManager;
+import org.aksw.gerbil.dataset.check.impl.FingerprintCachingEntityCheckerManager;
 import org.aksw.gerbil.dataset.check.impl.HttpBasedEntityChecker;
 import org.aksw.gerbil.dataset.check.impl.InMemoryCachingEntityCheckerManager;
 import org.aksw.gerbil.dataset.check.index.IndexBasedEntityChecker;
+import org.aksw.gerbil.dataset.check.index.MappedFingerprintEntityChecker;
 import org.aksw.gerbil.datatypes.ExperimentType;
 import org.aksw.gerbil.evaluate.EvaluatorFactory;
 import org.aksw.gerbil.exceptions.GerbilException;
@@ -42,23 +47,30 @@ import org.aksw.gerbil.semantic.sameas.SingleUriSameAsRetriever;
 import org.aksw.gerbil.semantic.sameas.impl.CrawlingSameAsRetrieverDecorator;
 import org.aksw.gerbil.semantic.sameas.impl.DomainBasedSameAsRetrieverManager;
 import org.aksw.gerbil.semantic.sameas.impl.ErrorFixingSameAsRetriever;
+import org.aksw.gerbil.semantic.sameas.impl.HotKeyRecordingSameAsRetriever;
+import org.aksw.gerbil.semantic.sameas.impl.NoSameAsFilteringSameAsRetrieverDecorator;
 import org.aksw.gerbil.semantic.sameas.impl.UriEncodingHandlingSameAsRetriever;
 import org.aksw.gerbil.semantic.sameas.impl.UriFilteringSameAsRetrieverDecorator;
 import org.aksw.gerbil.semantic.sameas.impl.cache.FileBasedCachingSameAsRetriever;
 import org.aksw.gerbil.semantic.sameas.impl.cache.InMemoryCachingSameAsRetriever;
+import org.aksw.gerbil.semantic.sameas.impl.cache.LogBasedCachingSameAsRetriever;
 import org.aksw.gerbil.semantic.sameas.impl.http.HTTPBasedSameAsRetriever;
 import org.aksw.gerbil.semantic.sameas.impl.index.IndexBasedSameAsRetriever;
 import org.aksw.gerbil.semantic.sameas.impl.wiki.WikiDbPediaBridgingSameAsRetriever;
 import org.aksw.gerbil.semantic.sameas.impl.wiki.WikipediaApiBasedSingleUriSameAsRetriever;
 import org.aksw.gerbil.semantic.subclass.ClassHierarchyLoader;
+import org.aksw.gerbil.semantic.subclass.CompiledSubClassInferencer;
 import org.aksw.gerbil.semantic.subclass.SimpleSubClassInferencer;
 import org.aksw.gerbil.semantic.subclass.SubClassInferencer;
+import org.aksw.gerbil.utils.IndexPointerWatcher;
+import org.aksw.gerbil.utils.IndexPointerWatcher.IndexSwapper;
 import org.aksw.simba.topicmodeling.concurrent.overseers.pool.DefeatableOverseer;
 import org.aksw.simba.topicmodeling.concurrent.overseers.pool.ExecutorBasedOverseer;
 import org.aksw.simba.topicmodeling.concurrent.reporter.LogReporter;
 import org.aksw.simba.topicmodeling.concurrent.reporter.Reporter;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConversionException;
+import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
@@ -98,7 +110,27 @@ public class RootConfig {
     private static final String NUMBER_OF_WORKERS_KEY = "org.aksw.gerbil.web.config.overseerWorkers";
 
     private static final String SAME_AS_CACHE_FILE_KEY = "org.aksw.gerbil.semantic.sameas.CachingSameAsRetriever.cacheFile";
+    private static final String SAME_AS_CACHE_LOG_FILE_KEY = "org.aksw.gerbil.semantic.sameas.impl.cache.LogBasedCachingSameAsRetriever.logFile";
+    private static final String SAME_AS_CACHE_SNAPSHOT_FILE_KEY = "org.aksw.gerbil.semantic.sameas.impl.cache.LogBasedCachingSameAsRetriever.snapshotFile";
+    private static final String SAME_AS_IN_MEMORY_CACHE_MAX_WEIGHT_KEY = "org.aksw.gerbil.semantic.sameas.InMemoryCachingSameAsRetriever.maximumWeight";
+    /**
+     * The old size of the in-memory cache (number of cached sets). It is only
+     * used if {@link #SAME_AS_IN_MEMORY_CACHE_MAX_WEIGHT_KEY} is not defined.
+     */
+    @Deprecated
     private static final String SAME_AS_IN_MEMORY_CACHE_SIZE_KEY = "org.aksw.gerbil.semantic.sameas.InMemoryCachingSameAsRetriever.cacheSize";
+    /**
+     * The estimated number of URIs per cached set used to transform the
+     * deprecated cache size into a maximum weight (the old default of 5000
+     * sets corresponds to the new default weight of 50000).
+     */
+    private static final int SAME_AS_IN_MEMORY_CACHE_URIS_PER_SET = 10;
+    private static final String SAME_AS_NO_SAME_AS_FILTER_FILE_KEY = "org.aksw.gerbil.semantic.sameas.NoSameAsBloomFilter.filterFile";
+    private static final String SAME_AS_NO_SAME_AS_NAMESPACES_KEY = "org.aksw.gerbil.semantic.sameas.NoSameAsBloomFilter.namespaces";
+    private static final String SAME_AS_CRAWLING_THREADS_KEY = "org.aksw.gerbil.semantic.sameas.impl.CrawlingSameAsRetrieverDecorator.numberOfThreads";
+    private static final String SAME_AS_CRAWLING_REQUESTS_PER_DOMAIN_KEY = "org.aksw.gerbil.semantic.sameas.impl.CrawlingSameAsRetrieverDecorator.maxRequestsPerDomain";
+    private static final String SAME_AS_CRAWLING_MAX_DEPTH_KEY = "org.aksw.gerbil.semantic.sameas.impl.CrawlingSameAsRetrieverDecorator.maxDepth";
+    private static final String SAME_AS_CRAWLING_MAX_URIS_KEY = "org.aksw.gerbil.semantic.sameas.impl.CrawlingSameAsRetrieverDecorator.maxUris";
 
     private static final String ANNOTATOR_OUTPUT_WRITER_USAGE_KEY = "org.aksw.gerbil.execute.AnnotatorOutputWriter.printAnnotatorResults";
     private static final String ANNOTATOR_OUTPUT_WRITER_DIRECTORY_KEY = "org.aksw.gerbil.execute.AnnotatorOutputWriter.outputDirectory";
@@ -108,6 +140,7 @@ public class RootConfig {
     private static final String ENTITY_CHECKING_MANAGER_USE_PERSISTENT_CACHE_KEY = "org.aksw.gerbil.dataset.check.EntityCheckerManagerImpl.usePersistentCache";
     private static final String ENTITY_CHECKING_MANAGER_PERSISTENT_CACHE_FILE_NAME_KEY = "org.aksw.gerbil.dataset.check.FileBasedCachingEntityCheckerManager.cacheFile";
     private static final String ENTITY_CHECKING_MANAGER_PERSISTENT_CACHE_DURATION_KEY = "org.aksw.gerbil.dataset.check.FileBasedCachingEntityCheckerManager.cacheDuration";
+    private static final String ENTITY_CHECKING_MANAGER_FINGERPRINT_CACHE_DIRECTORY_KEY = "org.aksw.gerbil.dataset.check.FingerprintCachingEntityCheckerManager.cacheDirectory";
     private static final String ENTITY_CHECKING_MANAGER_IN_MEM_CACHE_SIZE_KEY = "org.aksw.gerbil.dataset.check.InMemoryCachingEntityCheckerManager.cacheSize";
     private static final String ENTITY_CHECKING_MANAGER_IN_MEM_CACHE_DURATION_KEY = "org.aksw.gerbil.dataset.check.InMemoryCachingEntityCheckerManager.cacheDuration";
     private static final String HTTP_BASED_ENTITY_CHECKING_NAMESPACE_KEY = "org.aksw.gerbil.dataset.check.HttpBasedEntityChecker.namespace";
@@ -117,6 +150,24 @@ public class RootConfig {
     private static final String INDEXED_BASED_SAME_AS_RETRIEVER_FOLDER_KEY = "org.aksw.gerbil.semantic.sameas.impl.index.IndexBasedSameAsRetriever.folder";
     private static final String INDEXED_BASED_SAME_AS_RETRIEVER_DOMAIN_KEY = "org.aksw.gerbil.semantic.sameas.impl.index.IndexBasedSameAsRetriever.domain";
 
+    private static final String INDEX_POINTER_WATCHER_CHECK_INTERVAL_KEY = "org.aksw.gerbil.utils.IndexPointerWatcher.checkInterval";
+    private static final long DEFAULT_INDEX_POINTER_CHECK_INTERVAL = 60000;
+
+    private static final String CACHE_WARMER_ENABLED_KEY = "org.aksw.gerbil.dataset.CacheWarmer.enabled";
+    private static final String CACHE_WARMER_HOT_KEY_FILE_KEY = "org.aksw.gerbil.dataset.CacheWarmer.hotKeyFile";
+    private static final String CACHE_WARMER_WALK_DATASETS_KEY = "org.aksw.gerbil.dataset.CacheWarmer.walkDatasets";
+    private static final String CACHE_WARMER_RECORD_HOT_KEYS_KEY = "org.aksw.gerbil.dataset.CacheWarmer.recordHotKeys";
+    private static final String CACHE_WARMER_MAX_HOT_KEYS_KEY = "org.aksw.gerbil.dataset.CacheWarmer.maxHotKeys";
+
+    /**
+     * Flag enabling the {@link CompiledSubClassInferencer}. Note that it
+     * evaluates the class hierarchy transitively, merges sameAs and
+     * equivalentClass nodes and treats unknown types as single nodes. Hence, it
+     * can lead to different ETyping scores than the default
+     * {@link SimpleSubClassInferencer}.
+     */
+    private static final String SUB_CLASS_INFERENCER_COMPILED_KEY = "org.aksw.gerbil.semantic.subclass.SubClassInferencer.compiled";
+
     private static final String AVAILABLE_EXPERIMENT_TYPES_KEY = "org.aksw.gerbil.web.MainController.availableExperimentTypes";
 
     private static final String DEFAULT_WELL_KNOWN_KBS_PARAMETER_KEY = "org.aksw.gerbil.evaluate.DefaultWellKnownKB";
@@ -160,9 +211,33 @@ public class RootConfig {
                         + hierarchyFiles[i + 2] + "\".", e);
             }
         }
+        if (GerbilConfiguration.getInstance().getBoolean(SUB_CLASS_INFERENCER_COMPILED_KEY, false)) {
+            LOGGER.info("Using the compiled sub class inferencer.");
+            return new CompiledSubClassInferencer(classModel);
+        }
         return new SimpleSubClassInferencer(classModel);
     }
 
+    private static CrawlingSameAsRetrieverDecorator createCrawlingSameAsRetriever(SameAsRetriever sameAsRetriever) {
+        Configuration config = GerbilConfiguration.getInstance();
+        CrawlingSameAsRetrieverDecorator crawler = null;
+        try {
+            crawler = new CrawlingSameAsRetrieverDecorator(sameAsRetriever,
+                    config.getInt(SAME_AS_CRAWLING_THREADS_KEY, 0));
+            crawler.setMaxRequestsPerDomain(config.getInt(SAME_AS_CRAWLING_REQUESTS_PER_DOMAIN_KEY,
+                    CrawlingSameAsRetrieverDecorator.DEFAULT_MAX_REQUESTS_PER_DOMAIN));
+            crawler.setMaxDepth(
+                    config.getInt(SAME_AS_CRAWLING_MAX_DEPTH_KEY, CrawlingSameAsRetrieverDecorator.DEFAULT_MAX_DEPTH));
+            crawler.setMaxUris(
+                    config.getInt(SAME_AS_CRAWLING_MAX_URIS_KEY, CrawlingSameAsRetrieverDecorator.DEFAULT_MAX_URIS));
+        } catch (ConversionException | IllegalArgumentException e) {
+            LOGGER.warn("Exception while trying to load the sameAs crawling parameters. Using sequential crawling.", e);
+            IOUtils.closeQuietly(crawler);
+            crawler = new CrawlingSameAsRetrieverDecorator(sameAsRetriever);
+        }
+        return crawler;
+    }
+
     public static @Bean SameAsRetriever createSameAsRetriever() {
         DomainBasedSameAsRetrieverManager retrieverManager = new DomainBasedSameAsRetrieverManager();
         retrieverManager.addStaticRetriever(new ErrorFixingSameAsRetriever());
@@ -181,9 +256,14 @@ public class RootConfig {
         if (GerbilConfiguration.getInstance().containsKey(INDEXED_BASED_SAME_AS_RETRIEVER_FOLDER_KEY)) {
             SameAsRetriever retriever;
             try {
-                retriever = new IndexBasedSameAsRetriever(
-                        GerbilConfiguration.getInstance().getString(INDEXED_BASED_SAME_AS_RETRIEVER_FOLDER_KEY));
-
+                // the index can be swapped by writing the path of a new index
+                // to its pointer file
+                String indexFolder = GerbilConfiguration.getInstance()
+                        .getString(INDEXED_BASED_SAME_AS_RETRIEVER_FOLDER_KEY);
+                String currentIndex = IndexPointerWatcher.getCurrentIndex(indexFolder);
+                IndexBasedSameAsRetriever indexRetriever = new IndexBasedSameAsRetriever(currentIndex);
+                startIndexPointerWatcher(indexFolder, currentIndex, indexRetriever);
+                retriever = indexRetriever;
             } catch (GerbilException e) {
                 LOGGER.error("Could not load Index Retriever. using HTTPBasedSameAs Retriever instead");
                 if (httpRetriever == null) {
@@ -219,24 +299,55 @@ public class RootConfig {
         }
 
         // same as crawling
-        sameAsRetriever = new CrawlingSameAsRetrieverDecorator(sameAsRetriever);
+        sameAsRetriever = createCrawlingSameAsRetriever(sameAsRetriever);
+
+        // the (optional) filter of URIs without sameAs links is placed behind
+        // the caches. Thus, it only saves remote requests for URIs the caches
+        // do not know
+        if (GerbilConfiguration.getInstance().containsKey(SAME_AS_NO_SAME_AS_FILTER_FILE_KEY)) {
+            sameAsRetriever = NoSameAsFilteringSameAsRetrieverDecorator.create(sameAsRetriever,
+                    new File(GerbilConfiguration.getInstance().getString(SAME_AS_NO_SAME_AS_FILTER_FILE_KEY)));
+        }
 
         SameAsRetriever decoratedRetriever = null;
-        if (GerbilConfiguration.getInstance().containsKey(SAME_AS_CACHE_FILE_KEY)) {
+        if (GerbilConfiguration.getInstance().containsKey(SAME_AS_CACHE_LOG_FILE_KEY)) {
+            // the log based cache imports an existing cache file and uses a
+            // memory-mapped snapshot of the log as backing store (if it
+            // exists)
+            decoratedRetriever = LogBasedCachingSameAsRetriever.create(sameAsRetriever, false,
+                    new File(GerbilConfiguration.getInstance().getString(SAME_AS_CACHE_LOG_FILE_KEY)),
+                    GerbilConfiguration.getInstance().containsKey(SAME_AS_CACHE_FILE_KEY)
+                            ? new File(GerbilConfiguration.getInstance().getString(SAME_AS_CACHE_FILE_KEY)) : null,
+                    GerbilConfiguration.getInstance().containsKey(SAME_AS_CACHE_SNAPSHOT_FILE_KEY)
+                            ? new File(GerbilConfiguration.getInstance().getString(SAME_AS_CACHE_SNAPSHOT_FILE_KEY))
+                            : null);
+        }
+        if ((decoratedRetriever == null) && GerbilConfiguration.getInstance().containsKey(SAME_AS_CACHE_FILE_KEY)) {
             decoratedRetriever = FileBasedCachingSameAsRetriever.create(sameAsRetriever, false,
                     new File(GerbilConfiguration.getInstance().getString(SAME_AS_CACHE_FILE_KEY)));
         }
 
         if (decoratedRetriever == null) {
             LOGGER.warn("Couldn't create file based cache for sameAs retrieving. Trying to create in Memory cache.");
-            if (GerbilConfiguration.getInstance().containsKey(SAME_AS_IN_MEMORY_CACHE_SIZE_KEY)) {
+            if (GerbilConfiguration.getInstance().containsKey(SAME_AS_IN_MEMORY_CACHE_MAX_WEIGHT_KEY)) {
                 try {
-                    int cacheSize = GerbilConfiguration.getInstance().getInt(SAME_AS_IN_MEMORY_CACHE_SIZE_KEY);
-                    decoratedRetriever = new InMemoryCachingSameAsRetriever(sameAsRetriever, cacheSize);
+                    long maximumWeight = GerbilConfiguration.getInstance()
+                            .getLong(SAME_AS_IN_MEMORY_CACHE_MAX_WEIGHT_KEY);
+                    decoratedRetriever = new InMemoryCachingSameAsRetriever(sameAsRetriever, maximumWeight);
                 } catch (ConversionException e) {
-                    LOGGER.warn(
-                            "Exception while trying to load parameter \"" + SAME_AS_IN_MEMORY_CACHE_SIZE_KEY + "\".",
-                            e);
+                    LOGGER.warn("Exception while trying to load parameter \"" + SAME_AS_IN_MEMORY_CACHE_MAX_WEIGHT_KEY
+                            + "\".", e);
+                }
+            } else if (GerbilConfiguration.getInstance().containsKey(SAME_AS_IN_MEMORY_CACHE_SIZE_KEY)) {
+                LOGGER.warn("The parameter \"{}\" is deprecated. Please use \"{}\" instead.",
+                        SAME_AS_IN_MEMORY_CACHE_SIZE_KEY, SAME_AS_IN_MEMORY_CACHE_MAX_WEIGHT_KEY);
+                try {
+                    long maximumWeight = (long) GerbilConfiguration.getInstance()
+                            .getInt(SAME_AS_IN_MEMORY_CACHE_SIZE_KEY) * SAME_AS_IN_MEMORY_CACHE_URIS_PER_SET;
+                    decoratedRetriever = new InMemoryCachingSameAsRetriever(sameAsRetriever, maximumWeight);
+                } catch (ConversionException e) {
+                    LOGGER.warn("Exception while trying to load parameter \"" + SAME_AS_IN_MEMORY_CACHE_SIZE_KEY
+                            + "\".", e);
                 }
             }
             if (decoratedRetriever == null) {
@@ -251,6 +362,20 @@ public class RootConfig {
             decoratedRetriever = null;
         }
 
+        // URIs of namespaces that never have sameAs links do not reach the
+        // caches
+        if (GerbilConfiguration.getInstance().containsKey(SAME_AS_NO_SAME_AS_NAMESPACES_KEY)) {
+            sameAsRetriever = new NoSameAsFilteringSameAsRetrieverDecorator(sameAsRetriever, null,
+                    GerbilConfiguration.getInstance().getStringArray(SAME_AS_NO_SAME_AS_NAMESPACES_KEY));
+        }
+
+        // record the requested URIs as hot keys for the next cache warm up
+        if (isHotKeyRecordingEnabled()) {
+            int maxHotKeys = GerbilConfiguration.getInstance().getInt(CACHE_WARMER_MAX_HOT_KEYS_KEY,
+                    HotKeyRecordingSameAsRetriever.DEFAULT_MAX_NUMBER_OF_HOT_KEYS);
+            sameAsRetriever = new HotKeyRecordingSameAsRetriever(sameAsRetriever, maxHotKeys);
+        }
+
         return sameAsRetriever;
     }
 
@@ -269,6 +394,47 @@ public class RootConfig {
         }
     }
 
+    /**
+     * Starts the background warm up of the sameAs and entity checking caches
+     * if it is enabled.
+     * 
+     * @return the thread of the warm up or null if it is not enabled
+     */
+    public static Thread startCacheWarmer(AdapterManager adapterManager) {
+        Configuration config = GerbilConfiguration.getInstance();
+        if (!config.getBoolean(CACHE_WARMER_ENABLED_KEY, false)) {
+            return null;
+        }
+        File hotKeyFile = null;
+        if (config.containsKey(CACHE_WARMER_HOT_KEY_FILE_KEY)) {
+            hotKeyFile = new File(config.getString(CACHE_WARMER_HOT_KEY_FILE_KEY));
+        }
+        List<DatasetConfiguration> datasets = null;
+        if (config.getBoolean(CACHE_WARMER_WALK_DATASETS_KEY, false)) {
+            datasets = adapterManager.getDatasets().getConfigurations();
+        }
+        SameAsRetriever globalRetriever = adapterManager.getGlobalRetriever();
+        HotKeyRecordingSameAsRetriever hotKeyRecorder = null;
+        if (globalRetriever instanceof HotKeyRecordingSameAsRetriever) {
+            hotKeyRecorder = (HotKeyRecordingSameAsRetriever) globalRetriever;
+        }
+        LOGGER.info("Starting the cache warm up (hot key file: {}, walking datasets: {}, recording hot keys: {}).",
+                hotKeyFile, datasets != null, hotKeyRecorder != null);
+        return new CacheWarmer(datasets, globalRetriever, adapterManager.getEntityCheckerManager(), hotKeyFile,
+                hotKeyRecorder).start();
+    }
+
+    /**
+     * @return true if the cache warm up is enabled, has a hot key file and
+     *         the recording of hot keys is not disabled
+     */
+    private static boolean isHotKeyRecordingEnabled() {
+        Configuration config = GerbilConfiguration.getInstance();
+        return config.getBoolean(CACHE_WARMER_ENABLED_KEY, false)
+                && config.containsKey(CACHE_WARMER_HOT_KEY_FILE_KEY)
+                && config.getBoolean(CACHE_WARMER_RECORD_HOT_KEYS_KEY, true);
+    }
+
     @SuppressWarnings("unchecked")
     public static @Bean EntityCheckerManager getEntityCheckerManager() {
         EntityCheckerManager manager = null;
@@ -276,11 +442,18 @@ public class RootConfig {
         if (config.containsKey(ENTITY_CHECKING_MANAGER_USE_PERSISTENT_CACHE_KEY)
                 && config.getBoolean(ENTITY_CHECKING_MANAGER_USE_PERSISTENT_CACHE_KEY)
                 && config.containsKey(ENTITY_CHECKING_MANAGER_PERSISTENT_CACHE_DURATION_KEY)) {
-            LOGGER.info("Using file based cache for entity checking.");
             try {
                 long duration = config.getLong(ENTITY_CHECKING_MANAGER_PERSISTENT_CACHE_DURATION_KEY);
                 String cacheFile = config.getString(ENTITY_CHECKING_MANAGER_PERSISTENT_CACHE_FILE_NAME_KEY);
-                manager = FileBasedCachingEntityCheckerManager.create(duration, new File(cacheFile));
+                if (config.containsKey(ENTITY_CHECKING_MANAGER_FINGERPRINT_CACHE_DIRECTORY_KEY)) {
+                    LOGGER.info("Using fingerprint based cache for entity checking.");
+                    manager = FingerprintCachingEntityCheckerManager.create(duration,
+                            new File(config.getString(ENTITY_CHECKING_MANAGER_FINGERPRINT_CACHE_DIRECTORY_KEY)),
+                            (cacheFile != null) ? new File(cacheFile) : null);
+                } else {
+                    LOGGER.info("Using file based cache for entity checking.");
+                    manager = FileBasedCachingEntityCheckerManager.create(duration, new File(cacheFile));
+                }
             } catch (ConversionException e) {
                 LOGGER.error("Exception while parsing parameter.", e);
             }
@@ -312,8 +485,19 @@ public class RootConfig {
             String key = keyIterator.next().toString();
             namespaces = config.getList(key);
             if (!namespaces.isEmpty()) {
-                // the first "namespace" is the directory of the index
-                IndexBasedEntityChecker indexBasedChecker = IndexBasedEntityChecker.create(namespaces.get(0));
+                // the first "namespace" is the directory of the index. The
+                // mapped fingerprints are preferred over the Lucene index.
+                EntityChecker indexBasedChecker = MappedFingerprintEntityChecker.create(namespaces.get(0));
+                if (indexBasedChecker == null) {
+                    // the index can be swapped by writing the path of a new
+                    // index to its pointer file
+                    String currentIndex = IndexPointerWatcher.getCurrentIndex(namespaces.get(0));
+                    IndexBasedEntityChecker checker = IndexBasedEntityChecker.create(currentIndex);
+                    if (checker != null) {
+                        startIndexPointerWatcher(namespaces.get(0), currentIndex, checker);
+                    }
+                    indexBasedChecker = checker;
+                }
                 if (indexBasedChecker != null) {
                     boolean first = true;
                     for (String namespace : namespaces) {
@@ -338,6 +522,24 @@ public class RootConfig {
         return manager;
     }
 
+    /**
+     * Starts watching the pointer file of the given index directory (see
+     * {@link IndexPointerWatcher}) if the check interval is positive.
+     */
+    private static void startIndexPointerWatcher(String indexDirectory, String currentIndex, IndexSwapper swapper) {
+        long checkInterval = DEFAULT_INDEX_POINTER_CHECK_INTERVAL;
+        try {
+            checkInterval = GerbilConfiguration.getInstance().getLong(INDEX_POINTER_WATCHER_CHECK_INTERVAL_KEY,
+                    DEFAULT_INDEX_POINTER_CHECK_INTERVAL);
+        } catch (ConversionException e) {
+            LOGGER.warn("Couldn't load the check interval of the index pointer files. Using default "
+                    + DEFAULT_INDEX_POINTER_CHECK_INTERVAL + "ms.", e);
+        }
+        if (checkInterval > 0) {
+            IndexPointerWatcher.start(indexDirectory, currentIndex, swapper, checkInterval);
+        }
+    }
+
     public static ExperimentType[] getAvailableExperimentTypes() {
         Configuration config = GerbilConfiguration.getInstance();
         Set<ExperimentType> types = new HashSet<ExperimentType>();
@@ -0,0 +1,160 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.dataset;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.aksw.gerbil.dataset.check.BulkEntityChecker;
+import org.aksw.gerbil.dataset.check.EntityCheckerManager;
+import org.aksw.gerbil.dataset.check.impl.InMemoryCachingEntityCheckerManager;
+import org.aksw.gerbil.datatypes.ExperimentType;
+import org.aksw.gerbil.semantic.sameas.impl.ErrorFixingSameAsRetriever;
+import org.aksw.gerbil.semantic.sameas.impl.HotKeyRecordingSameAsRetriever;
+import org.aksw.gerbil.transfer.nif.Document;
+import org.aksw.gerbil.transfer.nif.Marking;
+import org.aksw.gerbil.transfer.nif.data.Annotation;
+import org.aksw.gerbil.transfer.nif.data.DocumentImpl;
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that the {@link CacheWarmer} checks the URIs of the datasets or the
+ * recorded URIs, stores them as hot keys and replays them after a restart.
+ */
+public class CacheWarmerTest {
+
+    private static final Set<String> DATASET_URIS = new HashSet<String>(
+            Arrays.asList("http://example.org/a", "http://example.org/b"));
+
+    @Test
+    public void testWarmUpAndReplay() throws IOException {
+        File hotKeyFile = File.createTempFile("hotKeys", ".txt");
+        Assert.assertTrue(hotKeyFile.delete());
+        try {
+            // first start: the dataset is walked
+            EntityCheckerManager manager = new InMemoryCachingEntityCheckerManager();
+            RecordingBulkEntityChecker checker = new RecordingBulkEntityChecker();
+            manager.registerEntityChecker("http://example.org/", checker);
+            List<DatasetConfiguration> datasets = new ArrayList<DatasetConfiguration>();
+            datasets.add(createDatasetConfig(manager));
+            CacheWarmer warmer = new CacheWarmer(datasets, null, manager, hotKeyFile);
+            warmer.run();
+
+            Assert.assertEquals(DATASET_URIS, checker.checkedUris);
+            Assert.assertEquals(DATASET_URIS.size(), warmer.getNumberOfWarmedUris());
+            Assert.assertTrue(hotKeyFile.exists());
+            Assert.assertEquals(DATASET_URIS, new HashSet<String>(FileUtils.readLines(hotKeyFile, "UTF-8")));
+
+            // restart: the hot keys are replayed without loading the dataset
+            manager = new InMemoryCachingEntityCheckerManager();
+            checker = new RecordingBulkEntityChecker();
+            manager.registerEntityChecker("http://example.org/", checker);
+            warmer = new CacheWarmer(null, null, manager, hotKeyFile);
+            warmer.run();
+
+            Assert.assertEquals(DATASET_URIS, checker.checkedUris);
+            // the URIs are cached now
+            manager.checkUris(DATASET_URIS);
+            Assert.assertEquals(1, checker.numberOfRequests);
+        } finally {
+            hotKeyFile.delete();
+        }
+    }
+
+    @Test
+    public void testRecordedHotKeys() throws IOException {
+        File hotKeyFile = File.createTempFile("hotKeys", ".txt");
+        Assert.assertTrue(hotKeyFile.delete());
+        try {
+            // first start: the datasets are not walked but the requested URIs
+            // are recorded
+            HotKeyRecordingSameAsRetriever recorder = new HotKeyRecordingSameAsRetriever(
+                    new ErrorFixingSameAsRetriever());
+            EntityCheckerManager manager = new InMemoryCachingEntityCheckerManager();
+            manager.registerEntityChecker("http://example.org/", new RecordingBulkEntityChecker());
+            CacheWarmer warmer = new CacheWarmer(null, recorder, manager, hotKeyFile, recorder);
+            warmer.run();
+            Assert.assertFalse(hotKeyFile.exists());
+            for (String uri : DATASET_URIS) {
+                recorder.retrieveSameURIs(uri);
+            }
+            // simulates the shutdown
+            warmer.storeRecordedHotKeys();
+            Assert.assertEquals(DATASET_URIS, new HashSet<String>(FileUtils.readLines(hotKeyFile, "UTF-8")));
+
+            // restart: the recorded hot keys are replayed and recorded again
+            recorder = new HotKeyRecordingSameAsRetriever(new ErrorFixingSameAsRetriever());
+            manager = new InMemoryCachingEntityCheckerManager();
+            RecordingBulkEntityChecker checker = new RecordingBulkEntityChecker();
+            manager.registerEntityChecker("http://example.org/", checker);
+            warmer = new CacheWarmer(null, recorder, manager, hotKeyFile, recorder);
+            warmer.run();
+
+            Assert.assertEquals(DATASET_URIS, checker.checkedUris);
+            Assert.assertEquals(DATASET_URIS, new HashSet<String>(recorder.getHotKeys()));
+        } finally {
+            hotKeyFile.delete();
+        }
+    }
+
+    private static DatasetConfiguration createDatasetConfig(EntityCheckerManager manager) {
+        return new AbstractDatasetConfiguration("test", false, ExperimentType.D2KB, manager, null) {
+            @Override
+            protected Dataset loadDataset() throws Exception {
+                List<Document> documents = new ArrayList<Document>();
+                documents.add(new DocumentImpl("text", "http://example.org/doc1",
+                        new ArrayList<Marking>(Arrays.asList(new Annotation(new HashSet<String>(DATASET_URIS))))));
+                return new InstanceListBasedDataset(documents, ExperimentType.D2KB);
+            }
+        };
+    }
+
+    /**
+     * Every URI exists.
+     */
+    private static class RecordingBulkEntityChecker implements BulkEntityChecker {
+
+        private Set<String> checkedUris = new HashSet<String>();
+        private int numberOfRequests = 0;
+
+        @Override
+        public boolean entityExists(String uri) {
+            return entitiesExist(Arrays.asList(uri)).get(uri);
+        }
+
+        @Override
+        public Map<String, Boolean> entitiesExist(Collection<String> uris) {
+            ++numberOfRequests;
+            checkedUris.addAll(uris);
+            Map<String, Boolean> results = new HashMap<String, Boolean>();
+            for (String uri : uris) {
+                results.put(uri, true);
+            }
+            return results;
+        }
+    }
+}
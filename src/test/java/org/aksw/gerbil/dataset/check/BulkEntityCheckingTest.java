@@ -0,0 +1,211 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.dataset.check;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.aksw.gerbil.dataset.check.impl.EntityCheckerManagerImpl;
+import org.aksw.gerbil.dataset.check.impl.FileBasedCachingEntityCheckerManager;
+import org.aksw.gerbil.dataset.check.impl.FingerprintCachingEntityCheckerManager;
+import org.aksw.gerbil.dataset.check.impl.InMemoryCachingEntityCheckerManager;
+import org.aksw.gerbil.transfer.nif.data.Annotation;
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that the URIs of a {@link BulkEntityChecker} are handed to it at once
+ * and that cached URIs are not checked again.
+ */
+public class BulkEntityCheckingTest {
+
+    @Test
+    public void testBulkCheck() {
+        EntityCheckerManager manager = new EntityCheckerManagerImpl();
+        RecordingBulkEntityChecker checker = new RecordingBulkEntityChecker();
+        manager.registerEntityChecker("http://example.org/", checker);
+
+        Annotation annotations[] = new Annotation[] {
+                new Annotation(new HashSet<String>(Arrays.asList("http://example.org/a", "http://example.org/b"))),
+                new Annotation(new HashSet<String>(Arrays.asList("http://example.org/a", "http://other.org/a"))) };
+        manager.checkMeanings(Arrays.asList(annotations));
+
+        Assert.assertEquals(1, checker.requests.size());
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("http://example.org/a", "http://example.org/b")),
+                new HashSet<String>(checker.requests.get(0)));
+        Assert.assertEquals(2, checker.requests.get(0).size());
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("http://example.org/a",
+                "http://aksw.org/unknown_entity/http___example_org_b")), annotations[0].getUris());
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("http://example.org/a", "http://other.org/a")),
+                annotations[1].getUris());
+    }
+
+    @Test
+    public void testCachedUrisAreFiltered() {
+        EntityCheckerManager manager = new InMemoryCachingEntityCheckerManager();
+        RecordingBulkEntityChecker checker = new RecordingBulkEntityChecker();
+        manager.registerEntityChecker("http://example.org/", checker);
+
+        Map<String, Boolean> results = manager.checkUris(Arrays.asList("http://example.org/a", "http://other.org/a"));
+        Assert.assertEquals(Boolean.TRUE, results.get("http://example.org/a"));
+        Assert.assertEquals(Boolean.TRUE, results.get("http://other.org/a"));
+        Assert.assertEquals(1, checker.requests.size());
+
+        results = manager.checkUris(Arrays.asList("http://example.org/a", "http://example.org/b"));
+        Assert.assertEquals(Boolean.TRUE, results.get("http://example.org/a"));
+        Assert.assertEquals(Boolean.FALSE, results.get("http://example.org/b"));
+        Assert.assertEquals(2, checker.requests.size());
+        Assert.assertEquals(Arrays.asList("http://example.org/b"), checker.requests.get(1));
+
+        // all URIs are cached
+        manager.checkUris(Arrays.asList("http://example.org/a", "http://example.org/b"));
+        Assert.assertEquals(2, checker.requests.size());
+    }
+
+    @Test
+    public void testConcurrentChecksAreCoalesced() throws Exception {
+        runCoalescingTest(new InMemoryCachingEntityCheckerManager());
+
+        File cacheFile = File.createTempFile("temp_", ".cache");
+        cacheFile.delete();
+        runCoalescingTest(FileBasedCachingEntityCheckerManager.create(60000, cacheFile));
+        FileUtils.deleteQuietly(cacheFile);
+
+        File cacheDirectory = new File(FileUtils.getTempDirectory(), "entityCheck" + System.nanoTime());
+        FingerprintCachingEntityCheckerManager manager = FingerprintCachingEntityCheckerManager.create(60000,
+                cacheDirectory, null);
+        runCoalescingTest(manager);
+        manager.close();
+        FileUtils.deleteQuietly(cacheDirectory);
+    }
+
+    /**
+     * A URI that is part of a batch check of another thread should not be
+     * checked again, neither by a single nor by a batch check.
+     */
+    private void runCoalescingTest(final EntityCheckerManagerImpl manager) throws InterruptedException, IOException {
+        final CountDownLatch batchStarted = new CountDownLatch(1);
+        final CountDownLatch releaseBatch = new CountDownLatch(1);
+        final RecordingBulkEntityChecker checker = new RecordingBulkEntityChecker() {
+            @Override
+            public Map<String, Boolean> entitiesExist(Collection<String> uris) {
+                Map<String, Boolean> results = super.entitiesExist(uris);
+                if (batchStarted.getCount() > 0) {
+                    batchStarted.countDown();
+                    try {
+                        releaseBatch.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return results;
+            }
+        };
+        manager.registerEntityChecker("http://example.org/", checker);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final Map<String, Boolean> batchResult = new HashMap<String, Boolean>();
+        Thread batchThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    batchResult.putAll(
+                            manager.checkUris(Arrays.asList("http://example.org/a", "http://example.org/b")));
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            }
+        });
+        batchThread.start();
+        batchStarted.await();
+
+        final Map<String, Boolean> otherResults = new HashMap<String, Boolean>();
+        Thread singleThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    boolean exists = manager.checkUri("http://example.org/a");
+                    synchronized (otherResults) {
+                        otherResults.put("single", exists);
+                    }
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            }
+        });
+        Thread otherBatchThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Map<String, Boolean> results = manager.checkUris(Arrays.asList("http://example.org/b"));
+                    synchronized (otherResults) {
+                        otherResults.putAll(results);
+                    }
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            }
+        });
+        singleThread.start();
+        otherBatchThread.start();
+        // give the other threads the time to wait for the first batch
+        Thread.sleep(200);
+        releaseBatch.countDown();
+        batchThread.join();
+        singleThread.join();
+        otherBatchThread.join();
+
+        Assert.assertNull(error.get());
+        Assert.assertEquals(1, checker.requests.size());
+        Assert.assertEquals(Boolean.TRUE, batchResult.get("http://example.org/a"));
+        Assert.assertEquals(Boolean.FALSE, batchResult.get("http://example.org/b"));
+        Assert.assertEquals(Boolean.TRUE, otherResults.get("single"));
+        Assert.assertEquals(Boolean.FALSE, otherResults.get("http://example.org/b"));
+    }
+
+    /**
+     * Only http://example.org/a exists.
+     */
+    private static class RecordingBulkEntityChecker implements BulkEntityChecker {
+
+        private List<List<String>> requests = new ArrayList<List<String>>();
+
+        @Override
+        public boolean entityExists(String uri) {
+            return entitiesExist(Arrays.asList(uri)).get(uri);
+        }
+
+        @Override
+        public synchronized Map<String, Boolean> entitiesExist(Collection<String> uris) {
+            requests.add(new ArrayList<String>(uris));
+            Map<String, Boolean> results = new HashMap<String, Boolean>();
+            for (String uri : uris) {
+                results.put(uri, "http://example.org/a".equals(uri));
+            }
+            return results;
+        }
+    }
+}
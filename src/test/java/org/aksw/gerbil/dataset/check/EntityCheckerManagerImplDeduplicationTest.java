@@ -0,0 +1,65 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.dataset.check;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.aksw.gerbil.dataset.check.impl.EntityCheckerManagerImpl;
+import org.aksw.gerbil.transfer.nif.data.Annotation;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that a URI that is part of several meanings is checked only once.
+ */
+public class EntityCheckerManagerImplDeduplicationTest {
+
+    @Test
+    public void test() {
+        EntityCheckerManager manager = new EntityCheckerManagerImpl();
+        CountingEntityChecker checker = new CountingEntityChecker();
+        manager.registerEntityChecker("http://example.org/", checker);
+
+        Annotation annotations[] = new Annotation[] {
+                new Annotation(new HashSet<String>(Arrays.asList("http://example.org/a", "http://example.org/b"))),
+                new Annotation(new HashSet<String>(Arrays.asList("http://example.org/a"))),
+                new Annotation(new HashSet<String>(Arrays.asList("http://example.org/b", "http://other.org/a"))) };
+        manager.checkMeanings(Arrays.asList(annotations));
+
+        Assert.assertEquals(2, checker.numberOfChecks);
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("http://example.org/a",
+                "http://aksw.org/unknown_entity/http___example_org_b")), annotations[0].getUris());
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("http://example.org/a")), annotations[1].getUris());
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("http://aksw.org/unknown_entity/http___example_org_b",
+                "http://other.org/a")), annotations[2].getUris());
+    }
+
+    /**
+     * Only http://example.org/a exists.
+     */
+    private static class CountingEntityChecker implements EntityChecker {
+
+        private int numberOfChecks = 0;
+
+        @Override
+        public boolean entityExists(String uri) {
+            ++numberOfChecks;
+            return "http://example.org/a".equals(uri);
+        }
+    }
+}
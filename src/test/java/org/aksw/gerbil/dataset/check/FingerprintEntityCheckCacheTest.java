@@ -0,0 +1,89 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.dataset.check;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.aksw.gerbil.dataset.check.impl.FingerprintEntityCheckCache;
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FingerprintEntityCheckCacheTest {
+
+    private static final long CACHE_DURATION = 60000;
+    private static final int NUMBER_OF_URIS = 100000;
+
+    @Test
+    public void testGetAndPut() {
+        FingerprintEntityCheckCache cache = new FingerprintEntityCheckCache(new File("unused"), CACHE_DURATION);
+        for (int i = 0; i < NUMBER_OF_URIS; ++i) {
+            cache.put("http://example.org/" + i, (i % 3) == 0);
+        }
+        Assert.assertEquals(NUMBER_OF_URIS, cache.size());
+        for (int i = 0; i < NUMBER_OF_URIS; ++i) {
+            Assert.assertEquals(((i % 3) == 0) ? FingerprintEntityCheckCache.EXISTS
+                    : FingerprintEntityCheckCache.DOES_NOT_EXIST, cache.get("http://example.org/" + i));
+        }
+        Assert.assertEquals(FingerprintEntityCheckCache.NOT_CACHED, cache.get("http://example.org/unknown"));
+        // replace a result
+        cache.put("http://example.org/1", true);
+        Assert.assertEquals(FingerprintEntityCheckCache.EXISTS, cache.get("http://example.org/1"));
+        Assert.assertEquals(NUMBER_OF_URIS, cache.size());
+    }
+
+    @Test
+    public void testExpiration() {
+        FingerprintEntityCheckCache cache = new FingerprintEntityCheckCache(new File("unused"), CACHE_DURATION);
+        long now = System.currentTimeMillis();
+        cache.put("http://example.org/old", true, now - (2 * CACHE_DURATION));
+        cache.put("http://example.org/new", false, now);
+        Assert.assertEquals(FingerprintEntityCheckCache.NOT_CACHED, cache.get("http://example.org/old"));
+        Assert.assertEquals(FingerprintEntityCheckCache.DOES_NOT_EXIST, cache.get("http://example.org/new"));
+        Assert.assertEquals(1, cache.removeExpiredEntries());
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(FingerprintEntityCheckCache.DOES_NOT_EXIST, cache.get("http://example.org/new"));
+    }
+
+    @Test
+    public void testStorage() throws IOException {
+        File cacheDirectory = new File(FileUtils.getTempDirectory(), "entityCheck" + System.nanoTime());
+        try {
+            FingerprintEntityCheckCache cache = new FingerprintEntityCheckCache(cacheDirectory, CACHE_DURATION);
+            for (int i = 0; i < NUMBER_OF_URIS; ++i) {
+                cache.put("http://example.org/" + i, (i % 2) == 0);
+            }
+            Assert.assertTrue(cache.store() > 0);
+            // nothing has changed
+            Assert.assertEquals(0, cache.store());
+            cache.put("http://example.org/new", true);
+            Assert.assertEquals(1, cache.store());
+
+            FingerprintEntityCheckCache loadedCache = FingerprintEntityCheckCache.load(cacheDirectory,
+                    CACHE_DURATION);
+            Assert.assertEquals(NUMBER_OF_URIS + 1, loadedCache.size());
+            for (int i = 0; i < NUMBER_OF_URIS; ++i) {
+                Assert.assertEquals(((i % 2) == 0) ? FingerprintEntityCheckCache.EXISTS
+                        : FingerprintEntityCheckCache.DOES_NOT_EXIST, loadedCache.get("http://example.org/" + i));
+            }
+            Assert.assertEquals(FingerprintEntityCheckCache.EXISTS, loadedCache.get("http://example.org/new"));
+        } finally {
+            FileUtils.deleteQuietly(cacheDirectory);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.dataset.check.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Builds temporary fingerprint indexes using the
+ * {@link FingerprintIndexBuilder} and checks the results of the
+ * {@link MappedFingerprintEntityChecker}.
+ */
+public class MappedFingerprintEntityCheckerTest {
+
+    public static final String[] CORRECT_URIS = new String[] { "http://dbpedia.org/resource/Berlin",
+            "http://dbpedia.org/resource/Michael_Müller_(politician)",
+            "http://dbpedia.org/resource/Michael_M%C3%BCller_%28politician%29" };
+
+    public static final String[] WRONG_URIS = new String[] { "http://dbpedia.org/resource/Paris",
+            "http://dbpedia.org/resource/Michael_Muller_(politician)", "" };
+
+    private static final int NUMBER_OF_RANDOM_URIS = 10000;
+
+    @Test
+    public void testWithVerification() throws IOException {
+        test(true);
+    }
+
+    @Test
+    public void testWithoutVerification() throws IOException {
+        test(false);
+    }
+
+    @Test
+    public void testEmptyIndex() throws IOException {
+        File indexDir = createTempDir();
+        try {
+            FingerprintIndexBuilder builder = new FingerprintIndexBuilder(indexDir);
+            Assert.assertEquals(0,
+                    builder.build(new File(indexDir, MappedFingerprintEntityChecker.FINGERPRINT_FILE_NAME),
+                            new File(indexDir, MappedFingerprintEntityChecker.VERIFICATION_FILE_NAME)));
+            MappedFingerprintEntityChecker checker = MappedFingerprintEntityChecker.create(indexDir.getAbsolutePath());
+            Assert.assertNotNull(checker);
+            Assert.assertFalse(checker.entityExists(CORRECT_URIS[0]));
+            checker.close();
+        } finally {
+            FileUtils.deleteQuietly(indexDir);
+        }
+    }
+
+    @Test
+    public void testMissingIndex() throws IOException {
+        File indexDir = createTempDir();
+        try {
+            Assert.assertNull(MappedFingerprintEntityChecker.create(indexDir.getAbsolutePath()));
+        } finally {
+            FileUtils.deleteQuietly(indexDir);
+        }
+    }
+
+    private void test(boolean withVerification) throws IOException {
+        File indexDir = createTempDir();
+        try {
+            Random random = new Random(42);
+            Set<String> randomUris = new HashSet<String>();
+            while (randomUris.size() < NUMBER_OF_RANDOM_URIS) {
+                randomUris.add("http://example.org/" + Long.toHexString(random.nextLong()));
+            }
+            FingerprintIndexBuilder builder = new FingerprintIndexBuilder(indexDir);
+            for (String uri : CORRECT_URIS) {
+                builder.add(uri);
+                // duplicates have to be removed
+                builder.add(uri);
+            }
+            for (String uri : randomUris) {
+                builder.add(uri);
+            }
+            long count = builder.build(new File(indexDir, MappedFingerprintEntityChecker.FINGERPRINT_FILE_NAME),
+                    withVerification ? new File(indexDir, MappedFingerprintEntityChecker.VERIFICATION_FILE_NAME)
+                            : null);
+            Assert.assertEquals(CORRECT_URIS.length + NUMBER_OF_RANDOM_URIS, count);
+
+            MappedFingerprintEntityChecker checker = MappedFingerprintEntityChecker.create(indexDir.getAbsolutePath());
+            Assert.assertNotNull(checker);
+            Assert.assertEquals(count, checker.getNumberOfUris());
+            for (String uri : CORRECT_URIS) {
+                Assert.assertTrue(uri, checker.entityExists(uri));
+            }
+            for (String uri : randomUris) {
+                Assert.assertTrue(uri, checker.entityExists(uri));
+            }
+            for (String uri : WRONG_URIS) {
+                Assert.assertFalse(uri, checker.entityExists(uri));
+            }
+            for (int i = 0; i < NUMBER_OF_RANDOM_URIS; ++i) {
+                String uri = "http://example.org/" + Long.toHexString(random.nextLong());
+                Assert.assertEquals(uri, randomUris.contains(uri), checker.entityExists(uri));
+            }
+            checker.close();
+        } finally {
+            FileUtils.deleteQuietly(indexDir);
+        }
+    }
+
+    private static File createTempDir() {
+        File indexDir = new File(FileUtils.getTempDirectory(), "fingerprints" + System.nanoTime());
+        indexDir.mkdirs();
+        return indexDir;
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.evaluate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.aksw.gerbil.datatypes.marking.ClassifiedSpanMeaning;
+import org.aksw.gerbil.datatypes.marking.MarkingClasses;
+import org.aksw.gerbil.evaluate.impl.ClassifyingEvaluatorDecorator;
+import org.aksw.gerbil.evaluate.impl.GSInKBClassifyingEvaluatorDecorator;
+import org.aksw.gerbil.matching.impl.StrongSpanMatchingsSearcher;
+import org.aksw.gerbil.matching.impl.clas.EmergingEntityMeaningClassifier;
+import org.aksw.gerbil.matching.impl.clas.UriBasedMeaningClassifier;
+import org.aksw.gerbil.semantic.kb.SimpleWhiteListBasedUriKBClassifier;
+import org.aksw.gerbil.semantic.kb.UriKBClassifier;
+import org.aksw.gerbil.transfer.nif.MeaningSpan;
+import org.aksw.gerbil.transfer.nif.data.NamedEntity;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EvaluationContextTest {
+
+    @Test
+    public void testMemoization() {
+        EvaluationContext context = new EvaluationContext();
+        final int counter[] = new int[1];
+        EvaluationContext.Computation<Integer> computation = new EvaluationContext.Computation<Integer>() {
+            @Override
+            public Integer compute() {
+                return ++counter[0];
+            }
+        };
+        Object input1 = new ArrayList<Object>();
+        Object input2 = new ArrayList<Object>();
+        Assert.assertEquals(1, (int) context.getOrCompute("op", computation, input1));
+        // same operation and same input
+        Assert.assertEquals(1, (int) context.getOrCompute(new String("op"), computation, input1));
+        // equal but not identical input
+        Assert.assertEquals(2, (int) context.getOrCompute("op", computation, input2));
+        // different operation
+        Assert.assertEquals(3, (int) context.getOrCompute("op2", computation, input1));
+        Assert.assertEquals(3, context.size());
+    }
+
+    /**
+     * Two classifying decorators with equal classifiers have to share their
+     * classified lists while the GSInKB classification of one of them must not
+     * influence the other one.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testSharedClassification() {
+        EvaluationContext context = new EvaluationContext();
+        UriKBClassifier classifier = new SimpleWhiteListBasedUriKBClassifier("http://kb/");
+        List<List<MeaningSpan>> goldStandard = Arrays.asList(Arrays.asList(
+                (MeaningSpan) new NamedEntity(0, 5, "http://kb/a"), new NamedEntity(10, 5, "http://ee/b")));
+        List<List<MeaningSpan>> annotatorResults = Arrays.asList(Arrays.asList(
+                (MeaningSpan) new NamedEntity(0, 5, new HashSet<String>(Arrays.asList("http://kb/a")))));
+
+        CollectingEvaluator first = new CollectingEvaluator();
+        CollectingEvaluator second = new CollectingEvaluator();
+        new ClassifyingEvaluatorDecorator<MeaningSpan, ClassifiedSpanMeaning>(
+                new GSInKBClassifyingEvaluatorDecorator<ClassifiedSpanMeaning>(first,
+                        new StrongSpanMatchingsSearcher<ClassifiedSpanMeaning>()),
+                context, new UriBasedMeaningClassifier<ClassifiedSpanMeaning>(classifier, MarkingClasses.IN_KB),
+                new EmergingEntityMeaningClassifier<ClassifiedSpanMeaning>()).evaluate(annotatorResults,
+                        goldStandard, new EvaluationResultContainer());
+        new ClassifyingEvaluatorDecorator<MeaningSpan, ClassifiedSpanMeaning>(second, context,
+                new UriBasedMeaningClassifier<ClassifiedSpanMeaning>(classifier, MarkingClasses.IN_KB),
+                new EmergingEntityMeaningClassifier<ClassifiedSpanMeaning>()).evaluate(annotatorResults,
+                        goldStandard, new EvaluationResultContainer());
+
+        // both lists have been classified only once
+        Assert.assertEquals(2, context.size());
+        Assert.assertTrue(first.goldStandard.get(0).get(0).hasClass(MarkingClasses.GS_IN_KB));
+        Assert.assertTrue(first.annotatorResults.get(0).get(0).hasClass(MarkingClasses.GS_IN_KB));
+        Assert.assertTrue(second.goldStandard.get(0).get(0).hasClass(MarkingClasses.IN_KB));
+        Assert.assertFalse(second.goldStandard.get(0).get(0).hasClass(MarkingClasses.GS_IN_KB));
+        Assert.assertFalse(second.annotatorResults.get(0).get(0).hasClass(MarkingClasses.GS_IN_KB));
+        Assert.assertTrue(second.goldStandard.get(0).get(1).hasClass(MarkingClasses.EE));
+    }
+
+    private static class CollectingEvaluator implements Evaluator<ClassifiedSpanMeaning> {
+
+        private List<List<ClassifiedSpanMeaning>> annotatorResults;
+        private List<List<ClassifiedSpanMeaning>> goldStandard;
+
+        @Override
+        public void evaluate(List<List<ClassifiedSpanMeaning>> annotatorResults,
+                List<List<ClassifiedSpanMeaning>> goldStandard, EvaluationResultContainer results) {
+            this.annotatorResults = annotatorResults;
+            this.goldStandard = goldStandard;
+        }
+    }
+}
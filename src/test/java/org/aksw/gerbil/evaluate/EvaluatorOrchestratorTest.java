@@ -0,0 +1,76 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.evaluate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aksw.gerbil.transfer.nif.Span;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EvaluatorOrchestratorTest {
+
+    private static final int NUMBER_OF_EVALUATORS = 10;
+
+    @After
+    public void resetMode() {
+        EvaluatorOrchestrator.setConcurrentEvaluation(false);
+    }
+
+    @Test
+    public void testResultOrder() {
+        EvaluatorOrchestrator.setConcurrentEvaluation(true);
+        List<Evaluator<? extends Span>> evaluators = new ArrayList<Evaluator<? extends Span>>();
+        for (int i = 0; i < NUMBER_OF_EVALUATORS; ++i) {
+            // the first evaluators need the longest time
+            evaluators.add(new SleepingEvaluator(i, (NUMBER_OF_EVALUATORS - i) * 10));
+        }
+        EvaluationResultContainer results = new EvaluationResultContainer();
+        EvaluatorOrchestrator.evaluate(evaluators, new ArrayList<List<Span>>(), new ArrayList<List<Span>>(),
+                results);
+        Assert.assertEquals(2 * NUMBER_OF_EVALUATORS, results.getResults().size());
+        for (int i = 0; i < results.getResults().size(); ++i) {
+            Assert.assertEquals(Integer.toString(i / 2), results.getResults().get(i).getName());
+            Assert.assertEquals(i % 2, ((IntEvaluationResult) results.getResults().get(i)).getValueAsInt());
+        }
+    }
+
+    private static class SleepingEvaluator implements Evaluator<Span> {
+
+        private int id;
+        private long sleepTime;
+
+        public SleepingEvaluator(int id, long sleepTime) {
+            this.id = id;
+            this.sleepTime = sleepTime;
+        }
+
+        @Override
+        public void evaluate(List<List<Span>> annotatorResults, List<List<Span>> goldStandard,
+                EvaluationResultContainer results) {
+            results.addResult(new IntEvaluationResult(Integer.toString(id), 0));
+            try {
+                Thread.sleep(sleepTime);
+            } catch (InterruptedException e) {
+                Assert.fail();
+            }
+            results.addResult(new IntEvaluationResult(Integer.toString(id), 1));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.evaluate.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.aksw.gerbil.evaluate.EvaluationResult;
+import org.aksw.gerbil.evaluate.EvaluationResultContainer;
+import org.aksw.gerbil.matching.impl.MatchingsCounterImpl;
+import org.aksw.gerbil.matching.impl.StrongSpanMatchingsSearcher;
+import org.aksw.gerbil.transfer.nif.Span;
+import org.aksw.gerbil.transfer.nif.data.ScoredSpanImpl;
+import org.aksw.gerbil.transfer.nif.data.SpanImpl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that the parallel counting of the {@link ConfidenceBasedFMeasureCalculator}
+ * leads to exactly the same results as the serial counting.
+ */
+public class ConfidenceBasedFMeasureCalculatorTest {
+
+    private static final int NUMBER_OF_DOCUMENTS = 200;
+    private static final int MAX_SPANS_PER_DOCUMENT = 20;
+
+    @After
+    public void resetMode() {
+        ConfidenceBasedFMeasureCalculator.setParallelEvaluation(false);
+        ConfidenceBasedFMeasureCalculator.setDocumentsPerTask(8);
+    }
+
+    @Test
+    public void testParallelCounting() {
+        Random random = new Random(42);
+        List<List<Span>> goldStandard = new ArrayList<List<Span>>(NUMBER_OF_DOCUMENTS);
+        List<List<Span>> annotatorResults = new ArrayList<List<Span>>(NUMBER_OF_DOCUMENTS);
+        List<Span> spans;
+        int count;
+        for (int i = 0; i < NUMBER_OF_DOCUMENTS; ++i) {
+            count = random.nextInt(MAX_SPANS_PER_DOCUMENT);
+            spans = new ArrayList<Span>(count);
+            for (int j = 0; j < count; ++j) {
+                spans.add(new SpanImpl(random.nextInt(50), 1 + random.nextInt(5)));
+            }
+            goldStandard.add(spans);
+            count = random.nextInt(MAX_SPANS_PER_DOCUMENT);
+            spans = new ArrayList<Span>(count);
+            for (int j = 0; j < count; ++j) {
+                spans.add(new ScoredSpanImpl(random.nextInt(50), 1 + random.nextInt(5), random.nextDouble()));
+            }
+            annotatorResults.add(spans);
+        }
+
+        ConfidenceBasedFMeasureCalculator.setParallelEvaluation(false);
+        List<EvaluationResult> serialResults = evaluate(annotatorResults, goldStandard);
+        ConfidenceBasedFMeasureCalculator.setParallelEvaluation(true);
+        ConfidenceBasedFMeasureCalculator.setDocumentsPerTask(3);
+        List<EvaluationResult> parallelResults = evaluate(annotatorResults, goldStandard);
+
+        Assert.assertEquals(serialResults.size(), parallelResults.size());
+        for (int i = 0; i < serialResults.size(); ++i) {
+            Assert.assertEquals(serialResults.get(i).getName(), parallelResults.get(i).getName());
+            Assert.assertEquals(serialResults.get(i).getValue(), parallelResults.get(i).getValue());
+        }
+    }
+
+    private List<EvaluationResult> evaluate(List<List<Span>> annotatorResults, List<List<Span>> goldStandard) {
+        ConfidenceBasedFMeasureCalculator<Span> calculator = new ConfidenceBasedFMeasureCalculator<Span>(
+                new MatchingsCounterImpl<Span>(new StrongSpanMatchingsSearcher<Span>()));
+        EvaluationResultContainer results = new EvaluationResultContainer();
+        calculator.evaluate(annotatorResults, goldStandard, results);
+        return results.getResults();
+    }
+}
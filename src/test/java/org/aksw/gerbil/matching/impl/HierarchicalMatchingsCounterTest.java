@@ -24,7 +24,9 @@ import java.util.List;
 
 import org.aksw.gerbil.matching.EvaluationCounts;
 import org.aksw.gerbil.semantic.kb.SimpleWhiteListBasedUriKBClassifier;
+import org.aksw.gerbil.semantic.subclass.CompiledSubClassInferencer;
 import org.aksw.gerbil.semantic.subclass.SimpleSubClassInferencerFactory;
+import org.aksw.gerbil.semantic.subclass.SubClassInferencer;
 import org.aksw.gerbil.transfer.nif.data.TypedNamedEntity;
 import org.junit.Assert;
 import org.junit.Test;
@@ -272,10 +274,18 @@ public class HierarchicalMatchingsCounterTest {
 
     @Test
     public void test() {
+        test(SimpleSubClassInferencerFactory.createInferencer(typeHierarchy));
+    }
+
+    @Test
+    public void testCompiledHierarchy() {
+        test(new CompiledSubClassInferencer(typeHierarchy));
+    }
+
+    private void test(SubClassInferencer inferencer) {
         HierarchicalMatchingsCounter<TypedNamedEntity> counter = new HierarchicalMatchingsCounter<TypedNamedEntity>(
                 new WeakSpanMatchingsSearcher<TypedNamedEntity>(),
-                new SimpleWhiteListBasedUriKBClassifier(KNOWN_KB_URIS),
-                SimpleSubClassInferencerFactory.createInferencer(typeHierarchy));
+                new SimpleWhiteListBasedUriKBClassifier(KNOWN_KB_URIS), inferencer);
 
         List<TypedNamedEntity> annotatorResult = new ArrayList<TypedNamedEntity>();
         annotatorResult.add(createTypedNamedEntities(annotatorResults, 0));
@@ -0,0 +1,74 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.kb;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NamespacePrefixMatcherTest {
+
+    @Test
+    public void testLongestMatch() {
+        Map<String, Integer> namespaces = new HashMap<String, Integer>();
+        namespaces.put("http://dbpedia.org/", 1);
+        namespaces.put("http://dbpedia.org/resource/", 2);
+        namespaces.put("http://de.dbpedia.org/resource/", 3);
+        namespaces.put("https://www.wikidata.org/entity/", 4);
+        NamespacePrefixMatcher<Integer> matcher = NamespacePrefixMatcher.create(namespaces);
+
+        Assert.assertEquals(Integer.valueOf(2), matcher.getLongestMatch("http://dbpedia.org/resource/Berlin"));
+        Assert.assertEquals(Integer.valueOf(2), matcher.getLongestMatch("http://dbpedia.org/resource/"));
+        Assert.assertEquals(Integer.valueOf(1), matcher.getLongestMatch("http://dbpedia.org/ontology/Place"));
+        Assert.assertEquals(Integer.valueOf(3), matcher.getLongestMatch("http://de.dbpedia.org/resource/Berlin"));
+        Assert.assertEquals(Integer.valueOf(4), matcher.getLongestMatch("https://www.wikidata.org/entity/Q64"));
+        Assert.assertNull(matcher.getLongestMatch("http://dbpedia.org"));
+        Assert.assertNull(matcher.getLongestMatch("http://fr.dbpedia.org/resource/Berlin"));
+        Assert.assertNull(matcher.getLongestMatch(""));
+        Assert.assertNull(matcher.getLongestMatch(null));
+    }
+
+    @Test
+    public void testMatches() {
+        NamespacePrefixMatcher<String> matcher = NamespacePrefixMatcher
+                .create(Arrays.asList("http://dbpedia.org/resource/", "http://yago-knowledge.org/resource/"));
+
+        Assert.assertTrue(matcher.matches("http://dbpedia.org/resource/Berlin"));
+        Assert.assertTrue(matcher.matches("http://yago-knowledge.org/resource/Berlin"));
+        Assert.assertTrue(matcher.matches("http://dbpedia.org/resource/"));
+        Assert.assertFalse(matcher.matches("http://dbpedia.org/resourc"));
+        Assert.assertFalse(matcher.matches("http://de.dbpedia.org/resource/Berlin"));
+        Assert.assertFalse(matcher.matches(null));
+        Assert.assertEquals("http://dbpedia.org/resource/",
+                matcher.getLongestMatch("http://dbpedia.org/resource/Berlin"));
+    }
+
+    @Test
+    public void testEmptyNamespace() {
+        NamespacePrefixMatcher<String> matcher = NamespacePrefixMatcher.create(Arrays.asList(""));
+        Assert.assertTrue(matcher.matches("http://example.org/"));
+        Assert.assertTrue(matcher.matches(""));
+        Assert.assertEquals("", matcher.getLongestMatch("http://example.org/"));
+
+        matcher = NamespacePrefixMatcher.create(Arrays.<String> asList());
+        Assert.assertFalse(matcher.matches("http://example.org/"));
+        Assert.assertNull(matcher.getLongestMatch("http://example.org/"));
+    }
+}
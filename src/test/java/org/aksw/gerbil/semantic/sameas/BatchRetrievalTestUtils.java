@@ -0,0 +1,136 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.sameas;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+
+/**
+ * Helper methods for tests that make sure that the batch retrieval of a
+ * {@link SameAsRetriever} returns the same results as the retrieval of single
+ * URIs.
+ */
+public class BatchRetrievalTestUtils {
+
+    /**
+     * The number of URIs of {@link #createUris(String)}. It is larger than the
+     * number of URIs that are handled with a single query or request by most
+     * of the retrievers (e.g., 512 for the Lucene based retriever).
+     */
+    public static final int NUMBER_OF_URIS = 1200;
+
+    /**
+     * Creates {@link #NUMBER_OF_URIS} URIs that can be answered by a
+     * {@link PairReturningSameAsRetriever} and 100 URIs that are unknown to
+     * it.
+     */
+    public static List<String> createUris(String prefix) {
+        List<String> uris = new ArrayList<String>();
+        for (int i = 0; i < NUMBER_OF_URIS; ++i) {
+            uris.add(prefix + i);
+        }
+        for (int i = 0; i < 100; ++i) {
+            uris.add(prefix + "unknown_" + i);
+        }
+        return uris;
+    }
+
+    /**
+     * Compares the result of a batch request of the given URIs sent to the
+     * first retriever with the results of the single URI requests sent to the
+     * second retriever. URIs for which the single request returns null must
+     * not be part of the batch result. The batch request is sent twice to make
+     * sure that the results are the same if they have been cached.
+     */
+    public static void assertBatchEqualsSingle(SameAsRetriever batchRetriever, SameAsRetriever singleRetriever,
+            List<String> uris) {
+        Map<String, Set<String>> batchResult = batchRetriever.retrieveSameURIs(uris);
+        Map<String, Set<String>> secondBatchResult = batchRetriever.retrieveSameURIs(uris);
+        Set<String> single;
+        for (String uri : uris) {
+            single = singleRetriever.retrieveSameURIs(uri);
+            if (single == null) {
+                Assert.assertNull("Got a batch result for " + uri + " while the single result is null.",
+                        batchResult.get(uri));
+                Assert.assertNull("Got a cached batch result for " + uri + " while the single result is null.",
+                        secondBatchResult.get(uri));
+            } else {
+                Assert.assertEquals("Got a wrong batch result for " + uri + ".", single, batchResult.get(uri));
+                Assert.assertEquals("Got a wrong cached batch result for " + uri + ".", single,
+                        secondBatchResult.get(uri));
+            }
+        }
+        Assert.assertTrue(uris.containsAll(batchResult.keySet()));
+        Assert.assertTrue(uris.containsAll(secondBatchResult.keySet()));
+    }
+
+    /**
+     * A retriever that knows the URIs prefix + i for 0 &le; i &lt;
+     * {@link BatchRetrievalTestUtils#NUMBER_OF_URIS}. Every 5th URI has no
+     * sameAs links while the other URIs form pairs of i and i + N/2. All other
+     * URIs are unknown, i.e., null is returned. Every request creates a new
+     * set and is counted.
+     */
+    public static class PairReturningSameAsRetriever implements SameAsRetriever {
+
+        private String prefix;
+        private int numberOfRequestedUris = 0;
+
+        public PairReturningSameAsRetriever(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public synchronized Set<String> retrieveSameURIs(String uri) {
+            ++numberOfRequestedUris;
+            if ((uri == null) || (!uri.startsWith(prefix))) {
+                return null;
+            }
+            int id;
+            try {
+                id = Integer.parseInt(uri.substring(prefix.length()));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if ((id < 0) || (id >= NUMBER_OF_URIS) || ((id % 5) == 0)) {
+                return null;
+            }
+            return new HashSet<String>(
+                    Arrays.asList(uri, prefix + ((id + (NUMBER_OF_URIS / 2)) % NUMBER_OF_URIS)));
+        }
+
+        @Override
+        public Set<String> retrieveSameURIs(String domain, String uri) {
+            return retrieveSameURIs(uri);
+        }
+
+        @Override
+        public void addSameURIs(Set<String> uris) {
+            SameAsRetrieverUtils.addSameURIs(retrieveSameURIs(uris), uris);
+        }
+
+        public synchronized int getNumberOfRequestedUris() {
+            return numberOfRequestedUris;
+        }
+    }
+}
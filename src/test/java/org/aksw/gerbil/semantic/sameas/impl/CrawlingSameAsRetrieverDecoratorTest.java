@@ -0,0 +1,182 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.sameas.impl;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aksw.gerbil.semantic.sameas.SameAsRetriever;
+import org.aksw.gerbil.semantic.sameas.SameAsRetrieverUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CrawlingSameAsRetrieverDecoratorTest {
+
+    private static final int NUMBER_OF_CLASSES = 50;
+    private static final int CLASS_SIZE = 6;
+    private static final int NUMBER_OF_DOMAINS = 3;
+    private static final int NUMBER_OF_WORKERS = 8;
+    private static final int REQUESTS_PER_WORKER = 50;
+    private static final int MAX_REQUESTS_PER_DOMAIN = 2;
+
+    @Test
+    public void testParallelCrawling() throws Exception {
+        final ChainReturningSameAsRetriever decorated = new ChainReturningSameAsRetriever();
+        final CrawlingSameAsRetrieverDecorator crawler = new CrawlingSameAsRetrieverDecorator(decorated, 4);
+        crawler.setMaxRequestsPerDomain(MAX_REQUESTS_PER_DOMAIN);
+        final AtomicInteger errors = new AtomicInteger();
+        Thread workers[] = new Thread[NUMBER_OF_WORKERS];
+        for (int i = 0; i < workers.length; ++i) {
+            final Random random = new Random(i);
+            workers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    int classId, memberId;
+                    for (int j = 0; j < REQUESTS_PER_WORKER; ++j) {
+                        // overlapping classes are crawled at the same time
+                        classId = random.nextInt(NUMBER_OF_CLASSES / 5);
+                        memberId = random.nextInt(CLASS_SIZE);
+                        if (!createClass(classId).equals(crawler.retrieveSameURIs(createUri(classId, memberId)))) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            workers[i].start();
+        }
+        for (int i = 0; i < workers.length; ++i) {
+            workers[i].join();
+        }
+        crawler.close();
+        Assert.assertEquals(0, errors.get());
+        Assert.assertTrue("Too many parallel requests per domain: " + decorated.maxParallelRequests.get(),
+                decorated.maxParallelRequests.get() <= MAX_REQUESTS_PER_DOMAIN);
+    }
+
+    @Test
+    public void testBatchCrawling() throws IOException {
+        CrawlingSameAsRetrieverDecorator crawler = new CrawlingSameAsRetrieverDecorator(
+                new ChainReturningSameAsRetriever(), 4);
+        Set<String> uris = new HashSet<String>();
+        for (int i = 0; i < NUMBER_OF_CLASSES; ++i) {
+            uris.add(createUri(i, i % CLASS_SIZE));
+        }
+        Map<String, Set<String>> result = crawler.retrieveSameURIs(uris);
+        crawler.close();
+        Assert.assertEquals(NUMBER_OF_CLASSES, result.size());
+        for (int i = 0; i < NUMBER_OF_CLASSES; ++i) {
+            Assert.assertEquals(createClass(i), result.get(createUri(i, i % CLASS_SIZE)));
+        }
+    }
+
+    @Test
+    public void testBudgets() {
+        CrawlingSameAsRetrieverDecorator crawler = new CrawlingSameAsRetrieverDecorator(
+                new ChainReturningSameAsRetriever());
+        Assert.assertEquals(createClass(0), crawler.retrieveSameURIs(createUri(0, 0)));
+        // two levels reach the first three URIs of the chain
+        crawler.setMaxDepth(2);
+        Assert.assertEquals(3, crawler.retrieveSameURIs(createUri(0, 0)).size());
+        crawler.setMaxDepth(CrawlingSameAsRetrieverDecorator.DEFAULT_MAX_DEPTH);
+        crawler.setMaxUris(3);
+        Assert.assertTrue(crawler.retrieveSameURIs(createUri(0, 0)).size() < CLASS_SIZE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxRequestsPerDomain() {
+        CrawlingSameAsRetrieverDecorator crawler = new CrawlingSameAsRetrieverDecorator(
+                new ChainReturningSameAsRetriever());
+        crawler.setMaxRequestsPerDomain(0);
+    }
+
+    private static String createUri(int classId, int memberId) {
+        return "http://d" + (memberId % NUMBER_OF_DOMAINS) + ".example.org/class" + classId + "_" + memberId;
+    }
+
+    private static Set<String> createClass(int classId) {
+        Set<String> uris = new HashSet<String>();
+        for (int i = 0; i < CLASS_SIZE; ++i) {
+            uris.add(createUri(classId, i));
+        }
+        return uris;
+    }
+
+    /**
+     * Links every member of a class to its predecessor and successor, i.e.,
+     * the complete class can only be found by crawling.
+     */
+    public static class ChainReturningSameAsRetriever implements SameAsRetriever {
+
+        private ConcurrentMap<String, AtomicInteger> runningRequests = new ConcurrentHashMap<String, AtomicInteger>();
+        private AtomicInteger maxParallelRequests = new AtomicInteger();
+
+        @Override
+        public Set<String> retrieveSameURIs(String uri) {
+            int pos = uri.indexOf("/class");
+            String ids[] = uri.substring(pos + 6).split("_");
+            int classId = Integer.parseInt(ids[0]);
+            int memberId = Integer.parseInt(ids[1]);
+            Set<String> result = new HashSet<String>();
+            result.add(uri);
+            if (memberId > 0) {
+                result.add(createUri(classId, memberId - 1));
+            }
+            if (memberId < (CLASS_SIZE - 1)) {
+                result.add(createUri(classId, memberId + 1));
+            }
+            return result;
+        }
+
+        @Override
+        public Set<String> retrieveSameURIs(String domain, String uri) {
+            return retrieveSameURIs(uri);
+        }
+
+        @Override
+        public void addSameURIs(Set<String> uris) {
+            SameAsRetrieverUtils.addSameURIs(retrieveSameURIs(uris), uris);
+        }
+
+        @Override
+        public Map<String, Set<String>> retrieveSameURIs(Collection<String> uris) {
+            String domain = SimpleDomainExtractor.extractDomain(uris.iterator().next());
+            runningRequests.putIfAbsent(domain, new AtomicInteger());
+            AtomicInteger running = runningRequests.get(domain);
+            int parallelRequests = running.incrementAndGet();
+            int max = maxParallelRequests.get();
+            while ((parallelRequests > max) && !maxParallelRequests.compareAndSet(max, parallelRequests)) {
+                max = maxParallelRequests.get();
+            }
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+            }
+            try {
+                return SameAsRetrieverUtils.retrieveSameURIs(this, uris);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.sameas.impl;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.aksw.gerbil.semantic.sameas.BatchRetrievalTestUtils;
+import org.aksw.gerbil.semantic.sameas.BatchRetrievalTestUtils.PairReturningSameAsRetriever;
+import org.aksw.gerbil.semantic.sameas.SingleUriSameAsRetriever;
+import org.junit.Test;
+
+/**
+ * Makes sure that the batch retrieval of the
+ * {@link DomainBasedSameAsRetrieverManager} returns the same results as the
+ * retrieval of single URIs, i.e., that the URIs are handed to the correct
+ * domain specific, default and static retrievers and that their results are
+ * merged.
+ */
+public class DomainBasedSameAsRetrieverManagerTest {
+
+    private static final String DOMAIN_PREFIX = "http://example.org/";
+    private static final String OTHER_PREFIX = "http://other.org/";
+
+    @Test
+    public void testBatchRetrieval() {
+        DomainBasedSameAsRetrieverManager manager = new DomainBasedSameAsRetrieverManager();
+        manager.addDomainSpecificRetriever("example.org", new PairReturningSameAsRetriever(DOMAIN_PREFIX));
+        // a retriever that does not support batch requests
+        manager.addDomainSpecificRetriever("example.org", new SuffixAddingRetriever("_domain", 7));
+        manager.addDefaultRetriever(new PairReturningSameAsRetriever(OTHER_PREFIX));
+        manager.addStaticRetriever(new SuffixAddingRetriever("_static", 11));
+
+        List<String> uris = BatchRetrievalTestUtils.createUris(DOMAIN_PREFIX);
+        uris.addAll(BatchRetrievalTestUtils.createUris(OTHER_PREFIX));
+        BatchRetrievalTestUtils.assertBatchEqualsSingle(manager, manager, uris);
+    }
+
+    /**
+     * Returns the URI and the URI with the given suffix for every URI ending
+     * with a number that can be divided by the given divisor.
+     */
+    private static class SuffixAddingRetriever implements SingleUriSameAsRetriever {
+
+        private String suffix;
+        private int divisor;
+
+        public SuffixAddingRetriever(String suffix, int divisor) {
+            this.suffix = suffix;
+            this.divisor = divisor;
+        }
+
+        @Override
+        public Set<String> retrieveSameURIs(String uri) {
+            int pos = uri.lastIndexOf('/');
+            try {
+                if ((Integer.parseInt(uri.substring(pos + 1)) % divisor) == 0) {
+                    return new HashSet<String>(Arrays.asList(uri, uri + suffix));
+                }
+            } catch (NumberFormatException e) {
+                // the URI is unknown
+            }
+            return null;
+        }
+
+        @Override
+        public Set<String> retrieveSameURIs(String domain, String uri) {
+            return retrieveSameURIs(uri);
+        }
+    }
+}
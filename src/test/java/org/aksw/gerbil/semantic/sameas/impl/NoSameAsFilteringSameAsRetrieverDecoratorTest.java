@@ -0,0 +1,144 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.sameas.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.aksw.gerbil.semantic.sameas.NoSameAsBloomFilter;
+import org.aksw.gerbil.semantic.sameas.SameAsRetriever;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NoSameAsFilteringSameAsRetrieverDecoratorTest {
+
+    private static final String URI_WITH_LINKS = "http://example.org/a";
+    private static final String URI_WITHOUT_LINKS = "http://example.org/b";
+    private static final String SYNTHETIC_NAMESPACE = "http://aksw.org/unknown_entity/";
+
+    @Test
+    public void testNamespaces() {
+        CountingSameAsRetriever counter = new CountingSameAsRetriever();
+        NoSameAsFilteringSameAsRetrieverDecorator retriever = new NoSameAsFilteringSameAsRetrieverDecorator(counter,
+                null, SYNTHETIC_NAMESPACE);
+
+        Assert.assertNotNull(retriever.retrieveSameURIs(URI_WITH_LINKS));
+        Assert.assertNull(retriever.retrieveSameURIs(URI_WITHOUT_LINKS));
+        Assert.assertEquals(2, counter.requests);
+        // URIs without links are not remembered, i.e., they are requested
+        // again (a null result might have been caused by a temporary error)
+        Assert.assertNull(retriever.retrieveSameURIs(URI_WITHOUT_LINKS));
+        Assert.assertEquals(3, counter.requests);
+        // synthetic URIs never reach the decorated retriever
+        Assert.assertNull(retriever.retrieveSameURIs(SYNTHETIC_NAMESPACE + "1"));
+        Assert.assertEquals(3, counter.requests);
+
+        Map<String, Set<String>> result = retriever.retrieveSameURIs(
+                Arrays.asList(URI_WITH_LINKS, URI_WITHOUT_LINKS, SYNTHETIC_NAMESPACE + "2"));
+        Assert.assertEquals(1, result.size());
+        Assert.assertTrue(result.containsKey(URI_WITH_LINKS));
+        Assert.assertEquals(5, counter.requests);
+    }
+
+    @Test
+    public void testFilter() throws IOException {
+        NoSameAsBloomFilter filter = NoSameAsBloomFilter.create();
+        filter.addUriWithoutSameAs(URI_WITHOUT_LINKS);
+        File filterFile = File.createTempFile("noSameAs_", ".bloom");
+        filter.writeTo(filterFile);
+
+        CountingSameAsRetriever counter = new CountingSameAsRetriever();
+        NoSameAsFilteringSameAsRetrieverDecorator retriever = NoSameAsFilteringSameAsRetrieverDecorator
+                .create(counter, filterFile);
+        Assert.assertNotNull(retriever.getFilter());
+
+        Assert.assertNotNull(retriever.retrieveSameURIs(URI_WITH_LINKS));
+        Assert.assertNull(retriever.retrieveSameURIs(URI_WITHOUT_LINKS));
+        Assert.assertNull(retriever.retrieveSameURIs("http://example.org/c"));
+        Assert.assertEquals(2, counter.requests);
+
+        Map<String, Set<String>> result = retriever
+                .retrieveSameURIs(Arrays.asList(URI_WITH_LINKS, URI_WITHOUT_LINKS, "http://example.org/c"));
+        Assert.assertEquals(1, result.size());
+        Assert.assertTrue(result.containsKey(URI_WITH_LINKS));
+        Assert.assertEquals(4, counter.requests);
+
+        // the decorator does not change the filter
+        Assert.assertEquals(1, retriever.getFilter().getNumberOfUris());
+        Assert.assertEquals(1, NoSameAsBloomFilter.readFrom(filterFile).getNumberOfUris());
+        filterFile.delete();
+    }
+
+    @Test
+    public void testMissingFilterFile() throws IOException {
+        File filterFile = File.createTempFile("noSameAs_", ".bloom");
+        filterFile.delete();
+        CountingSameAsRetriever counter = new CountingSameAsRetriever();
+        NoSameAsFilteringSameAsRetrieverDecorator retriever = NoSameAsFilteringSameAsRetrieverDecorator
+                .create(counter, filterFile);
+        Assert.assertNull(retriever.getFilter());
+        Assert.assertNull(retriever.retrieveSameURIs(URI_WITHOUT_LINKS));
+        Assert.assertEquals(1, counter.requests);
+        Assert.assertFalse(filterFile.exists());
+    }
+
+    /**
+     * Returns links only for {@link #URI_WITH_LINKS} and counts the URIs it
+     * has been asked for.
+     */
+    private static class CountingSameAsRetriever implements SameAsRetriever {
+
+        private int requests = 0;
+
+        @Override
+        public Set<String> retrieveSameURIs(String uri) {
+            ++requests;
+            if (URI_WITH_LINKS.equals(uri)) {
+                return new HashSet<String>(Arrays.asList(uri, "http://example.org/a2"));
+            }
+            return null;
+        }
+
+        @Override
+        public Set<String> retrieveSameURIs(String domain, String uri) {
+            return retrieveSameURIs(uri);
+        }
+
+        @Override
+        public Map<String, Set<String>> retrieveSameURIs(Collection<String> uris) {
+            Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+            Set<String> sameUris;
+            for (String uri : uris) {
+                sameUris = retrieveSameURIs(uri);
+                if (sameUris != null) {
+                    result.put(uri, sameUris);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public void addSameURIs(Set<String> uris) {
+        }
+    }
+}
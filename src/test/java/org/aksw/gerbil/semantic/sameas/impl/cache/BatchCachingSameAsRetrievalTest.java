@@ -0,0 +1,161 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.sameas.impl.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.aksw.gerbil.semantic.sameas.BatchRetrievalTestUtils;
+import org.aksw.gerbil.semantic.sameas.BatchRetrievalTestUtils.PairReturningSameAsRetriever;
+import org.aksw.gerbil.semantic.sameas.SameAsRetriever;
+import org.aksw.gerbil.semantic.sameas.SameAsRetrieverUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Makes sure that the batch retrieval of the caches returns the same results
+ * as the retrieval of single URIs.
+ */
+public class BatchCachingSameAsRetrievalTest {
+
+    private static final String PREFIX = "http://example.org/";
+
+    @Test
+    public void testFileBasedCache() throws IOException {
+        File cacheFile = File.createTempFile("cache_test_", ".cache");
+        cacheFile.delete();
+        FileBasedCachingSameAsRetriever cache = FileBasedCachingSameAsRetriever
+                .create(new PairReturningSameAsRetriever(PREFIX), false, cacheFile);
+        BatchRetrievalTestUtils.assertBatchEqualsSingle(cache, new PairReturningSameAsRetriever(PREFIX),
+                BatchRetrievalTestUtils.createUris(PREFIX));
+        cacheFile.delete();
+    }
+
+    @Test
+    public void testFileBasedCacheWithSetWithoutKey() throws IOException {
+        File cacheFile = File.createTempFile("cache_test_", ".cache");
+        cacheFile.delete();
+        FileBasedCachingSameAsRetriever batchCache = FileBasedCachingSameAsRetriever
+                .create(new SetWithoutKeyReturningSameAsRetriever(), false, cacheFile);
+        File otherCacheFile = File.createTempFile("cache_test_", ".cache");
+        otherCacheFile.delete();
+        FileBasedCachingSameAsRetriever singleCache = FileBasedCachingSameAsRetriever
+                .create(new SetWithoutKeyReturningSameAsRetriever(), false, otherCacheFile);
+        BatchRetrievalTestUtils.assertBatchEqualsSingle(batchCache, singleCache,
+                Arrays.asList(PREFIX + "a", PREFIX + "b"));
+        cacheFile.delete();
+        otherCacheFile.delete();
+    }
+
+    @Test
+    public void testLogBasedCache() throws IOException {
+        File logFile = File.createTempFile("cache_test_", ".log");
+        logFile.delete();
+        LogBasedCachingSameAsRetriever cache = LogBasedCachingSameAsRetriever
+                .create(new PairReturningSameAsRetriever(PREFIX), false, logFile, null);
+        BatchRetrievalTestUtils.assertBatchEqualsSingle(cache, new PairReturningSameAsRetriever(PREFIX),
+                BatchRetrievalTestUtils.createUris(PREFIX));
+        cache.close();
+        logFile.delete();
+    }
+
+    @Test
+    public void testLogBasedCacheWithSetWithoutKey() throws IOException {
+        File logFile = File.createTempFile("cache_test_", ".log");
+        logFile.delete();
+        LogBasedCachingSameAsRetriever batchCache = LogBasedCachingSameAsRetriever
+                .create(new SetWithoutKeyReturningSameAsRetriever(), false, logFile, null);
+        File otherLogFile = File.createTempFile("cache_test_", ".log");
+        otherLogFile.delete();
+        LogBasedCachingSameAsRetriever singleCache = LogBasedCachingSameAsRetriever
+                .create(new SetWithoutKeyReturningSameAsRetriever(), false, otherLogFile, null);
+        BatchRetrievalTestUtils.assertBatchEqualsSingle(batchCache, singleCache,
+                Arrays.asList(PREFIX + "a", PREFIX + "b"));
+        batchCache.close();
+        singleCache.close();
+        logFile.delete();
+        otherLogFile.delete();
+    }
+
+    @Test
+    public void testLogBasedCacheWithSnapshot() throws IOException {
+        // the snapshot contains the first 300 pairs (and the URIs without
+        // sameAs links among them)
+        SameAsEquivalenceStore store = new SameAsEquivalenceStore();
+        int half = BatchRetrievalTestUtils.NUMBER_OF_URIS / 2;
+        for (int i = 0; i < 300; ++i) {
+            if ((i % 5) == 0) {
+                store.markNotFound(PREFIX + i);
+                store.markNotFound(PREFIX + (i + half));
+            } else {
+                store.addSet(Arrays.asList(PREFIX + i, PREFIX + (i + half)));
+            }
+        }
+        File file = File.createTempFile("mapped_cache_", ".snapshot");
+        MappedSameAsCache.write(file, store);
+        File logFile = File.createTempFile("cache_test_", ".log");
+        logFile.delete();
+
+        List<String> uris = BatchRetrievalTestUtils.createUris(PREFIX);
+        LogBasedCachingSameAsRetriever cache = LogBasedCachingSameAsRetriever
+                .create(new PairReturningSameAsRetriever(PREFIX), false, logFile, null, file);
+        BatchRetrievalTestUtils.assertBatchEqualsSingle(cache, new PairReturningSameAsRetriever(PREFIX), uris);
+        cache.close();
+        logFile.delete();
+
+        // only the URIs that are not part of the snapshot are forwarded
+        PairReturningSameAsRetriever decorated = new PairReturningSameAsRetriever(PREFIX);
+        cache = LogBasedCachingSameAsRetriever.create(decorated, false, logFile, null, file);
+        cache.retrieveSameURIs(uris);
+        Assert.assertEquals(uris.size() - store.getNumberOfUris(), decorated.getNumberOfRequestedUris());
+        cache.close();
+        logFile.delete();
+        file.delete();
+    }
+
+    @Test
+    public void testInMemoryCache() {
+        BatchRetrievalTestUtils.assertBatchEqualsSingle(
+                new InMemoryCachingSameAsRetriever(new PairReturningSameAsRetriever(PREFIX)),
+                new PairReturningSameAsRetriever(PREFIX), BatchRetrievalTestUtils.createUris(PREFIX));
+    }
+
+    /**
+     * Returns a set that does not contain the requested URI itself.
+     */
+    private static class SetWithoutKeyReturningSameAsRetriever implements SameAsRetriever {
+
+        @Override
+        public Set<String> retrieveSameURIs(String uri) {
+            return new HashSet<String>(Arrays.asList(uri + "_other"));
+        }
+
+        @Override
+        public Set<String> retrieveSameURIs(String domain, String uri) {
+            return retrieveSameURIs(uri);
+        }
+
+        @Override
+        public void addSameURIs(Set<String> uris) {
+            SameAsRetrieverUtils.addSameURIs(retrieveSameURIs(uris), uris);
+        }
+    }
+}
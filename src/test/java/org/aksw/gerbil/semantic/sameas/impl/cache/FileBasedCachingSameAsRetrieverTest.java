@@ -18,20 +18,15 @@ package org.aksw.gerbil.semantic.sameas.impl.cache;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.Semaphore;
 
 import org.aksw.gerbil.semantic.sameas.SameAsRetriever;
-import org.aksw.gerbil.semantic.sameas.impl.cache.FileBasedCachingSameAsRetriever;
 import org.junit.Assert;
 import org.junit.Test;
 
-import com.carrotsearch.hppc.BitSet;
-import com.carrotsearch.hppc.ObjectIntOpenHashMap;
-
 public class FileBasedCachingSameAsRetrieverTest extends FileBasedCachingSameAsRetriever {
 
     private static final int MODULO_NR = 1024;
@@ -44,9 +39,8 @@ public class FileBasedCachingSameAsRetrieverTest extends FileBasedCachingSameAsR
     private Semaphore cacheUsageFinished = new Semaphore(0);
 
     public FileBasedCachingSameAsRetrieverTest() throws IOException {
-        super(new RandomNumberReturningSameAsRetriever(), new ObjectIntOpenHashMap<String>(),
-                new ArrayList<Set<String>>(), false, File.createTempFile("cache_test_", ".cache"),
-                File.createTempFile("cache_test_", ".cache_temp"));
+        super(new RandomNumberReturningSameAsRetriever(), new SameAsEquivalenceStore(), false,
+                File.createTempFile("cache_test_", ".cache"), File.createTempFile("cache_test_", ".cache_temp"));
     }
 
     @Test
@@ -61,27 +55,19 @@ public class FileBasedCachingSameAsRetrieverTest extends FileBasedCachingSameAsR
 
         storeCache();
 
-        int setId;
+        int numberOfUris = store.getNumberOfUris();
         Set<String> uris;
-        BitSet checkedSets = new BitSet(sets.size());
-        for (int i = 0; i < uriSetIdMapping.allocated.length; ++i) {
-            if (uriSetIdMapping.allocated[i]) {
-                setId = uriSetIdMapping.values[i];
-                if (setId != ENTITY_NOT_FOUND) {
-                    // make sure that the set can exist
-                    Assert.assertTrue(setId < sets.size());
-                    uris = sets.get(setId);
-                    // make sure that the URI pointing to this set is part of it
-                    Assert.assertTrue(uris.contains(((Object[]) uriSetIdMapping.keys)[i]));
-                    // If this set does not have been checked before, check all
-                    // the URIs inside
-                    if (!checkedSets.get(setId)) {
-                        for (String s : uris) {
-                            Assert.assertTrue(uriSetIdMapping.containsKey(s));
-                            Assert.assertEquals(setId, uriSetIdMapping.get(s));
-                        }
-                        checkedSets.set(setId);
-                    }
+        String uri;
+        for (int i = 0; i < numberOfUris; ++i) {
+            if (!store.isNotFound(i)) {
+                uris = store.getMembers(i);
+                uri = store.getUri(i);
+                // make sure that the URI is part of its own set
+                Assert.assertTrue(uris.contains(uri));
+                Assert.assertEquals(store.getClassSize(i), uris.size());
+                // make sure that all URIs of the set belong to the same class
+                for (String s : uris) {
+                    Assert.assertEquals(store.find(i), store.find(store.getId(s)));
                 }
             }
         }
@@ -91,32 +77,16 @@ public class FileBasedCachingSameAsRetrieverTest extends FileBasedCachingSameAsR
         FileBasedCachingSameAsRetriever otherCache = FileBasedCachingSameAsRetriever.create(decoratedRetriever, false,
                 cacheFile);
 
-        Assert.assertEquals(sets.size(), otherCache.sets.size());
-        Assert.assertEquals(uriSetIdMapping.assigned, otherCache.uriSetIdMapping.assigned);
-        checkedSets = new BitSet(sets.size());
-        int otherSetId;
-        String uri;
-        Set<String> otherUris;
-        for (int i = 0; i < uriSetIdMapping.allocated.length; ++i) {
-            if (uriSetIdMapping.allocated[i]) {
-                setId = uriSetIdMapping.values[i];
-                uri = (String) ((Object[]) uriSetIdMapping.keys)[i];
-                Assert.assertTrue(otherCache.uriSetIdMapping.containsKey(uri));
-                otherSetId = otherCache.uriSetIdMapping.get(uri);
-                if (setId != ENTITY_NOT_FOUND) {
-                    Assert.assertNotEquals(ENTITY_NOT_FOUND, otherSetId);
-                    uris = sets.get(setId);
-                    otherUris = otherCache.sets.get(otherSetId);
-                    Assert.assertEquals(uris.size(), otherUris.size());
-
-                    for (String s : uris) {
-                        Assert.assertTrue(otherUris.contains(s));
-                        Assert.assertTrue(otherCache.uriSetIdMapping.containsKey(s));
-                        Assert.assertEquals(otherSetId, otherCache.uriSetIdMapping.get(s));
-                    }
-                } else {
-                    Assert.assertEquals(ENTITY_NOT_FOUND, otherSetId);
-                }
+        Assert.assertEquals(numberOfUris, otherCache.store.getNumberOfUris());
+        Assert.assertEquals(store.getNumberOfClasses(), otherCache.store.getNumberOfClasses());
+        int otherId;
+        for (int i = 0; i < numberOfUris; ++i) {
+            uri = store.getUri(i);
+            otherId = otherCache.store.getId(uri);
+            Assert.assertNotEquals(SameAsEquivalenceStore.NOT_INTERNED, otherId);
+            Assert.assertEquals(store.isNotFound(i), otherCache.store.isNotFound(otherId));
+            if (!store.isNotFound(i)) {
+                Assert.assertEquals(store.getMembers(i), otherCache.store.getMembers(otherId));
             }
         }
     }
@@ -196,5 +166,4 @@ public class FileBasedCachingSameAsRetrieverTest extends FileBasedCachingSameAsR
             return retrieveSameURIs(uri);
         }
     }
-
 }
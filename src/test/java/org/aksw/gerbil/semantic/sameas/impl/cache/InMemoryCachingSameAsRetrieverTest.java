@@ -0,0 +1,105 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.sameas.impl.cache;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.aksw.gerbil.semantic.sameas.SameAsRetriever;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InMemoryCachingSameAsRetrieverTest {
+
+    @Test
+    public void test() {
+        CountingSameAsRetriever decorated = new CountingSameAsRetriever();
+        InMemoryCachingSameAsRetriever retriever = new InMemoryCachingSameAsRetriever(decorated, 100);
+
+        Set<String> uris = new HashSet<String>(Arrays.asList("http://example.org/a", "http://example.org/b"));
+        retriever.addSameURIs(uris);
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("http://example.org/a", "http://example.org/b",
+                "http://example.org/a_same")), uris);
+        // every URI is retrieved only once
+        Assert.assertEquals(2, decorated.numberOfRequests);
+        Assert.assertEquals(2, retriever.getStats().missCount());
+
+        Map<String, Set<String>> result = retriever.retrieveSameURIs(
+                Arrays.asList("http://example.org/a", "http://example.org/b", "http://example.org/c"));
+        Assert.assertEquals(1, result.size());
+        Assert.assertTrue(result.containsKey("http://example.org/a"));
+        Assert.assertEquals(3, decorated.numberOfRequests);
+        Assert.assertEquals(2, retriever.getStats().hitCount());
+        // the set of a has a weight of 2, the others a weight of 1
+        Assert.assertEquals(4, retriever.getWeightedSize());
+
+        Assert.assertNull(retriever.retrieveSameURIs("http://example.org/c"));
+        Assert.assertEquals(3, decorated.numberOfRequests);
+    }
+
+    /**
+     * Only http://example.org/a has a sameAs link. Every requested URI is
+     * counted.
+     */
+    private static class CountingSameAsRetriever implements SameAsRetriever {
+
+        private int numberOfRequests = 0;
+
+        @Override
+        public Set<String> retrieveSameURIs(String uri) {
+            ++numberOfRequests;
+            if ("http://example.org/a".equals(uri)) {
+                return new HashSet<String>(Arrays.asList(uri, uri + "_same"));
+            }
+            return null;
+        }
+
+        @Override
+        public Set<String> retrieveSameURIs(String domain, String uri) {
+            return retrieveSameURIs(uri);
+        }
+
+        @Override
+        public Map<String, Set<String>> retrieveSameURIs(Collection<String> uris) {
+            Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+            Set<String> sameUris;
+            for (String uri : uris) {
+                sameUris = retrieveSameURIs(uri);
+                if (sameUris != null) {
+                    result.put(uri, sameUris);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public void addSameURIs(Set<String> uris) {
+            Set<String> temp = new HashSet<String>();
+            for (String uri : uris) {
+                Set<String> sameUris = retrieveSameURIs(uri);
+                if (sameUris != null) {
+                    temp.addAll(sameUris);
+                }
+            }
+            uris.addAll(temp);
+        }
+    }
+}
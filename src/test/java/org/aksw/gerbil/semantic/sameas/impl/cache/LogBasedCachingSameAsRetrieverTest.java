@@ -0,0 +1,217 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.sameas.impl.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+import org.aksw.gerbil.semantic.sameas.BatchRetrievalTestUtils;
+import org.aksw.gerbil.semantic.sameas.BatchRetrievalTestUtils.PairReturningSameAsRetriever;
+import org.aksw.gerbil.semantic.sameas.impl.cache.FileBasedCachingSameAsRetrieverTest.RandomNumberReturningSameAsRetriever;
+import org.aksw.gerbil.tools.SameAsCacheSnapshotTool;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LogBasedCachingSameAsRetrieverTest {
+
+    private static final int MODULO_NR = 1024;
+    private static final int MAX_NR = 10 * MODULO_NR;
+    private static final int NUMBER_OF_WORKERS = 4;
+    private static final int NUMBER_OF_REQUESTS_PER_WORKER = 5000;
+
+    @Test
+    public void test() throws InterruptedException, IOException {
+        File logFile = File.createTempFile("cache_test_", ".log");
+        logFile.delete();
+        LogBasedCachingSameAsRetriever cache = LogBasedCachingSameAsRetriever
+                .create(new RandomNumberReturningSameAsRetriever(), false, logFile, null);
+
+        ///// test the cache itself
+        Semaphore cacheUsageFinished = new Semaphore(0);
+        for (int i = 0; i < NUMBER_OF_WORKERS; ++i) {
+            (new Thread(new CacheUser(cache, cacheUsageFinished))).start();
+        }
+        cacheUsageFinished.acquire(NUMBER_OF_WORKERS);
+        checkCache(cache);
+
+        ///// test the read operation (the log has been compacted several
+        ///// times)
+        cache.close();
+        LogBasedCachingSameAsRetriever otherCache = LogBasedCachingSameAsRetriever
+                .create(new RandomNumberReturningSameAsRetriever(), false, logFile, null);
+        compareCaches(cache, otherCache);
+        otherCache.close();
+
+        ///// an incomplete record at the end of the log is removed
+        RandomAccessFile raf = new RandomAccessFile(logFile, "rw");
+        try {
+            raf.seek(raf.length());
+            // a set record with a single URI which is missing
+            raf.writeByte(1);
+            raf.writeInt(1);
+        } finally {
+            raf.close();
+        }
+        long length = logFile.length();
+        otherCache = LogBasedCachingSameAsRetriever.create(new RandomNumberReturningSameAsRetriever(), false,
+                logFile, null);
+        Assert.assertEquals(length - 5, logFile.length());
+        compareCaches(cache, otherCache);
+        otherCache.close();
+
+        ///// a corrupted record at the end of the log is removed as well
+        raf = new RandomAccessFile(logFile, "rw");
+        try {
+            raf.seek(raf.length());
+            // a record with an unknown type followed by some garbage
+            raf.writeByte(42);
+            raf.writeInt(123456);
+        } finally {
+            raf.close();
+        }
+        length = logFile.length();
+        otherCache = LogBasedCachingSameAsRetriever.create(new RandomNumberReturningSameAsRetriever(), false,
+                logFile, null);
+        Assert.assertEquals(length - 5, logFile.length());
+        compareCaches(cache, otherCache);
+        otherCache.close();
+        logFile.delete();
+    }
+
+    /**
+     * Makes sure that only the records appended to the log after the snapshot
+     * has been created are loaded into the heap and that they override the
+     * sets of the snapshot.
+     */
+    @Test
+    public void testSnapshot() throws IOException {
+        String prefix = "http://example.org/";
+        int half = BatchRetrievalTestUtils.NUMBER_OF_URIS / 2;
+        File logFile = File.createTempFile("cache_test_", ".log");
+        logFile.delete();
+        File snapshotFile = File.createTempFile("cache_test_", ".snapshot");
+        snapshotFile.delete();
+        LogBasedCachingSameAsRetriever cache = LogBasedCachingSameAsRetriever
+                .create(new PairReturningSameAsRetriever(prefix), false, logFile, null, snapshotFile);
+        for (int i = 0; i < 100; ++i) {
+            cache.retrieveSameURIs(prefix + i);
+        }
+        cache.close();
+
+        // create the snapshot and append further records to the log
+        SameAsEquivalenceStore store = new SameAsEquivalenceStore();
+        MappedSameAsCache.write(snapshotFile, store, SameAsCacheSnapshotTool.readLog(logFile, store));
+        PairReturningSameAsRetriever decorated = new PairReturningSameAsRetriever(prefix);
+        cache = LogBasedCachingSameAsRetriever.create(decorated, false, logFile, null, snapshotFile);
+        Assert.assertEquals(0, cache.cache.size());
+        for (int i = 0; i < 110; ++i) {
+            cache.retrieveSameURIs(prefix + i);
+        }
+        Assert.assertEquals(10, decorated.getNumberOfRequestedUris());
+        // extend a set of the snapshot
+        cache.addSet(new HashSet<String>(Arrays.asList(prefix + 1, prefix + "extra")));
+        cache.close();
+
+        decorated = new PairReturningSameAsRetriever(prefix);
+        cache = LogBasedCachingSameAsRetriever.create(decorated, false, logFile, null, snapshotFile);
+        // the 10 URIs, their 8 partners and the 3 URIs of the extended set
+        Assert.assertEquals(21, cache.cache.size());
+        Set<String> expected;
+        for (int i = 0; i < 110; ++i) {
+            if ((i % 5) == 0) {
+                Assert.assertNull(cache.retrieveSameURIs(prefix + i));
+            } else {
+                expected = new HashSet<String>(Arrays.asList(prefix + i, prefix + (i + half)));
+                if (i == 1) {
+                    expected.add(prefix + "extra");
+                }
+                Assert.assertEquals(expected, cache.retrieveSameURIs(prefix + i));
+            }
+        }
+        Assert.assertEquals(new HashSet<String>(Arrays.asList(prefix + 1, prefix + (1 + half), prefix + "extra")),
+                cache.retrieveSameURIs(prefix + "extra"));
+        Assert.assertEquals(0, decorated.getNumberOfRequestedUris());
+        cache.close();
+        logFile.delete();
+        snapshotFile.delete();
+    }
+
+    /**
+     * Makes sure that all URIs of a cached set point to the same set.
+     */
+    private static void checkCache(LogBasedCachingSameAsRetriever cache) {
+        for (Entry<String, Set<String>> entry : cache.cache.entrySet()) {
+            if (entry.getValue() != LogBasedCachingSameAsRetriever.ENTITY_NOT_FOUND) {
+                Assert.assertTrue(entry.getValue().contains(entry.getKey()));
+                for (String uri : entry.getValue()) {
+                    Assert.assertSame(entry.getValue(), cache.cache.get(uri));
+                }
+            }
+        }
+    }
+
+    private static void compareCaches(LogBasedCachingSameAsRetriever cache,
+            LogBasedCachingSameAsRetriever otherCache) {
+        checkCache(otherCache);
+        Assert.assertEquals(cache.cache.size(), otherCache.cache.size());
+        Set<String> otherUris;
+        for (Entry<String, Set<String>> entry : cache.cache.entrySet()) {
+            otherUris = otherCache.cache.get(entry.getKey());
+            if (entry.getValue() == LogBasedCachingSameAsRetriever.ENTITY_NOT_FOUND) {
+                Assert.assertSame(LogBasedCachingSameAsRetriever.ENTITY_NOT_FOUND, otherUris);
+            } else {
+                Assert.assertEquals(entry.getValue(), otherUris);
+            }
+        }
+    }
+
+    public static class CacheUser implements Runnable {
+
+        private Random random = new Random();
+        private LogBasedCachingSameAsRetriever cache;
+        private Semaphore cacheUsageFinished;
+
+        public CacheUser(LogBasedCachingSameAsRetriever cache, Semaphore cacheUsageFinished) {
+            this.cache = cache;
+            this.cacheUsageFinished = cacheUsageFinished;
+        }
+
+        @Override
+        public void run() {
+            Set<String> uris;
+            int uriNr, modValue;
+            for (int i = 0; i < NUMBER_OF_REQUESTS_PER_WORKER; ++i) {
+                uriNr = random.nextInt(MAX_NR);
+                modValue = uriNr % MODULO_NR;
+                uris = cache.retrieveSameURIs(Integer.toString(uriNr));
+                if (uris != null) {
+                    for (String s : uris) {
+                        Assert.assertEquals(modValue, Integer.parseInt(s) % MODULO_NR);
+                    }
+                }
+            }
+            cacheUsageFinished.release();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.sameas.impl.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MappedSameAsCacheTest {
+
+    private static final int NUMBER_OF_SETS = 2000;
+    private static final int MAX_SET_SIZE = 5;
+    private static final int NUMBER_OF_URIS = 5000;
+
+    @Test
+    public void test() throws IOException {
+        Random random = new Random(42);
+        SameAsEquivalenceStore store = new SameAsEquivalenceStore();
+        Set<String> set;
+        for (int i = 0; i < NUMBER_OF_SETS; ++i) {
+            set = new HashSet<String>();
+            for (int j = random.nextInt(MAX_SET_SIZE); j >= 0; --j) {
+                set.add(createUri(random.nextInt(NUMBER_OF_URIS)));
+            }
+            store.addSet(set);
+        }
+        // some URIs for which nothing has been found
+        String uri;
+        for (int i = 0; i < NUMBER_OF_SETS; ++i) {
+            uri = createUri(NUMBER_OF_URIS + random.nextInt(NUMBER_OF_URIS));
+            if (!store.contains(uri)) {
+                store.markNotFound(uri);
+            }
+        }
+
+        File file = File.createTempFile("mapped_cache_", ".snapshot");
+        MappedSameAsCache.write(file, store);
+        // use very small chunks to make sure that values crossing the borders
+        // of chunks are read correctly
+        MappedSameAsCache cache = MappedSameAsCache.open(file, 6);
+        Assert.assertEquals(store.getNumberOfUris(), cache.getNumberOfUris());
+        int id;
+        for (int i = 0; i < store.getNumberOfUris(); ++i) {
+            id = cache.getId(store.getUri(i));
+            Assert.assertNotEquals(MappedSameAsCache.NOT_CONTAINED, id);
+            Assert.assertEquals(store.getUri(i), cache.getUri(id));
+            Assert.assertEquals(store.isNotFound(i), cache.isNotFound(id));
+            if (store.isNotFound(i)) {
+                Assert.assertNull(cache.getMembers(id));
+            } else {
+                Assert.assertEquals(store.getMembers(i), cache.getMembers(id));
+            }
+        }
+        Assert.assertEquals(MappedSameAsCache.NOT_CONTAINED, cache.getId(createUri(3 * NUMBER_OF_URIS)));
+        cache.close();
+        file.delete();
+    }
+
+    private static String createUri(int nr) {
+        // use a non ASCII character to check the UTF-8 handling
+        return "http://example.org/résource_" + nr;
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.sameas.impl.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+
+public class TinyLfuCacheTest {
+
+    private static final Weigher<String, Integer> VALUE_WEIGHER = new Weigher<String, Integer>() {
+        @Override
+        public int weigh(String key, Integer value) {
+            return value;
+        }
+    };
+
+    @Test
+    public void testWeightBound() {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<String, Integer>(100, VALUE_WEIGHER);
+        for (int i = 0; i < 1000; ++i) {
+            cache.put("key" + i, 1 + (i % 7));
+            Assert.assertTrue(cache.weightedSize() <= 100);
+        }
+        // an entry that is heavier than the cache is not cached
+        cache.put("heavy", 101);
+        Assert.assertNull(cache.getIfPresent("heavy"));
+        Assert.assertTrue(cache.weightedSize() <= 100);
+        // updating an entry updates its weight
+        cache.invalidateAll();
+        cache.put("a", 10);
+        cache.put("a", 20);
+        Assert.assertEquals(20, cache.weightedSize());
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testScanResistance() {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<String, Integer>(100, VALUE_WEIGHER);
+        // popular keys are requested between scans over keys that are used
+        // only once (a plain LRU cache would lose all popular keys)
+        for (int round = 0; round < 20; ++round) {
+            for (int i = 0; i < 50; ++i) {
+                request(cache, "hot" + i);
+            }
+            for (int i = 0; i < 500; ++i) {
+                request(cache, "cold" + round + "_" + i);
+            }
+        }
+        int cachedHotKeys = 0;
+        for (int i = 0; i < 50; ++i) {
+            if (cache.getIfPresent("hot" + i) != null) {
+                ++cachedHotKeys;
+            }
+        }
+        Assert.assertTrue("Only " + cachedHotKeys + " popular keys survived the scan.", cachedHotKeys >= 45);
+    }
+
+    @Test
+    public void testRejectionKeepsVictims() {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<String, Integer>(100, VALUE_WEIGHER);
+        // the main region contains a rarely used and a popular entry
+        cache.put("cold", 49);
+        cache.put("hot", 50);
+        for (int i = 0; i < 5; ++i) {
+            Assert.assertNotNull(cache.getIfPresent("hot"));
+        }
+        Assert.assertEquals(99, cache.weightedSize());
+        // the candidate is more popular than the first victim but less
+        // popular than the second one
+        cache.getIfPresent("new");
+        cache.getIfPresent("new");
+        cache.put("new", 50);
+        // the candidate is rejected without evicting the first victim
+        Assert.assertEquals(99, cache.weightedSize());
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNull(cache.getIfPresent("new"));
+        Assert.assertNotNull(cache.getIfPresent("cold"));
+        Assert.assertNotNull(cache.getIfPresent("hot"));
+    }
+
+    @Test
+    public void testStats() {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<String, Integer>(2, VALUE_WEIGHER);
+        request(cache, "a");
+        request(cache, "a");
+        request(cache, "b");
+        request(cache, "c");
+        CacheStats stats = cache.stats();
+        Assert.assertEquals(1, stats.hitCount());
+        Assert.assertEquals(3, stats.missCount());
+        Assert.assertTrue(stats.evictionCount() >= 1);
+        Assert.assertTrue(cache.weightedSize() <= 2);
+    }
+
+    private static void request(TinyLfuCache<String, Integer> cache, String key) {
+        if (cache.getIfPresent(key) == null) {
+            cache.put(key, 1);
+        }
+    }
+}
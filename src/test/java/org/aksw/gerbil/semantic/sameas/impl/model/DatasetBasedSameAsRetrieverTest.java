@@ -0,0 +1,74 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.sameas.impl.model;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.aksw.gerbil.semantic.vocabs.DBO;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.OWL;
+import org.apache.jena.vocabulary.RDFS;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that the precomputed components of the
+ * {@link DatasetBasedSameAsRetriever} lead to the same results as the
+ * traversal of the model.
+ */
+public class DatasetBasedSameAsRetrieverTest {
+
+    private static final String URIS[] = new String[] { "http://example.org/a", "http://example.org/b",
+            "http://example.org/c", "http://example.org/d", "http://example.org/e", "http://example.org/f",
+            "http://example.org/g", "http://example.org/not linked", "http://example.org/unknown" };
+
+    @Test
+    public void test() {
+        Model model = ModelFactory.createDefaultModel();
+        // a - b - c (using sameAs and redirects in both directions)
+        model.add(resource(model, 0), OWL.sameAs, resource(model, 1));
+        model.add(resource(model, 2), DBO.wikiPageRedirects, resource(model, 1));
+        // d - e, e - f
+        model.add(resource(model, 3), OWL.sameAs, resource(model, 4));
+        model.add(resource(model, 4), OWL.sameAs, resource(model, 5));
+        // g links to itself, to an invalid URI and has a literal
+        model.add(resource(model, 6), OWL.sameAs, resource(model, 6));
+        model.add(resource(model, 6), OWL.sameAs, resource(model, 7));
+        model.add(resource(model, 6), RDFS.label, "g");
+        // links of other properties are ignored
+        model.add(resource(model, 0), RDFS.seeAlso, resource(model, 3));
+
+        DatasetBasedSameAsRetriever retriever = new DatasetBasedSameAsRetriever(model, null);
+        RDFModelBasedSameAsRetriever traversingRetriever = new RDFModelBasedSameAsRetriever(model);
+        for (int i = 0; i < URIS.length; ++i) {
+            Assert.assertEquals("Wrong result for " + URIS[i], traversingRetriever.retrieveSameURIs(URIS[i]),
+                    retriever.retrieveSameURIs(URIS[i]));
+        }
+        Assert.assertEquals(new HashSet<String>(Arrays.asList(URIS[0], URIS[1], URIS[2])),
+                retriever.retrieveSameURIs(URIS[2]));
+        Assert.assertNull(retriever.retrieveSameURIs(URIS[6]));
+        Assert.assertNull(retriever.retrieveSameURIs(URIS[8]));
+        Assert.assertNull(retriever.retrieveSameURIs(null));
+    }
+
+    private static Resource resource(Model model, int id) {
+        return model.createResource(URIS[id]);
+    }
+}
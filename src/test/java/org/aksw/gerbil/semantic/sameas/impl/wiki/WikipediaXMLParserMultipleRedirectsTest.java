@@ -0,0 +1,50 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.semantic.sameas.impl.wiki;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WikipediaXMLParserMultipleRedirectsTest {
+
+    @Test
+    public void test() {
+        WikipediaXMLParser parser = new WikipediaXMLParser();
+        String xmlString = "<api batchcomplete=\"\"><query><normalized><n from=\"people's Republic of China\" to=\"People's Republic of China\"/><n from=\"b movie\" to=\"B movie\"/></normalized>"
+                + "<redirects><r from=\"People's Republic of China\" to=\"China\"/><r from=\"&quot;B&quot; Movie\" to=\"B movie\"/><r from=\"A\" to=\"B\"/><r from=\"B\" to=\"C\"/><r from=\"X\" to=\"Y\"/><r from=\"Y\" to=\"X\"/></redirects>"
+                + "<pages><page _idx=\"5405\" pageid=\"5405\" ns=\"0\" title=\"China\"/></pages></query></api>";
+        Map<String, String> redirects = parser.extractRedirects(xmlString, Arrays.asList("people's Republic of China",
+                "\"B\" Movie", "b movie", "A", "X", "China", "Unknown"));
+        Assert.assertEquals("China", redirects.get("people's Republic of China"));
+        Assert.assertEquals("B movie", redirects.get("\"B\" Movie"));
+        // normalized but not redirected
+        Assert.assertNull(redirects.get("b movie"));
+        // chain of redirects
+        Assert.assertEquals("C", redirects.get("A"));
+        // circle of redirects
+        Assert.assertNotNull(redirects.get("X"));
+        Assert.assertNull(redirects.get("China"));
+        Assert.assertNull(redirects.get("Unknown"));
+        Assert.assertEquals(4, redirects.size());
+
+        Assert.assertTrue(parser.extractRedirects(null, Arrays.asList("A")).isEmpty());
+        Assert.assertTrue(parser.extractRedirects("", Arrays.asList("A")).isEmpty());
+    }
+}
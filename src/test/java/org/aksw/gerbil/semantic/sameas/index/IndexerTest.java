@@ -1,14 +1,21 @@
 package org.aksw.gerbil.semantic.sameas.index;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import org.aksw.gerbil.exceptions.GerbilException;
+import org.aksw.gerbil.semantic.sameas.BatchRetrievalTestUtils;
+import org.aksw.gerbil.semantic.sameas.impl.index.IndexBasedSameAsRetriever;
 import org.junit.Test;
 
 public class IndexerTest {
@@ -30,14 +37,53 @@ public class IndexerTest {
 		//3. search for one that exists
 		Searcher search = new Searcher(indexFolder.getAbsolutePath());
 		assertFalse(search.search("http://wikipedia.org/a").isEmpty());
-		assertTrue(search.search("http://wikipedia.org/d").isEmpty());
+		// every member of an indexed set can be searched
+		assertTrue(search.search("http://wikipedia.org/d").contains("http://wikipedia.org/a"));
+		assertEquals(new HashSet<String>(getList("http://wikipedia.org")),
+				search.search("http://wikipedia.org/b"));
 		assertFalse(search.search("http://dbpedia.org/resource/Scar").isEmpty());
 		//4. search for one that dont exist		
 		assertTrue(search.search("http://wikipedia.org/ab").isEmpty());
 		search.close();
 	}
 
-	
+	/**
+	 * Makes sure that searching more URIs than fit into a single query returns
+	 * the same results as searching the URIs one by one.
+	 */
+	@Test
+	public void testBatchSearch() throws GerbilException, IOException {
+		String prefix = "http://example.org/";
+		int half = BatchRetrievalTestUtils.NUMBER_OF_URIS / 2;
+		File indexFolder = createTempDirectory();
+		assertTrue(indexFolder != null);
+		// the same pairs as returned by the PairReturningSameAsRetriever
+		Indexer index = new Indexer(indexFolder.getAbsolutePath());
+		for (int i = 0; i < half; ++i) {
+			if ((i % 5) != 0) {
+				index.index(prefix + i, Arrays.asList(prefix + (i + half)));
+			}
+		}
+		index.close();
+
+		List<String> uris = BatchRetrievalTestUtils.createUris(prefix);
+		Searcher search = new Searcher(indexFolder.getAbsolutePath());
+		Map<String, Collection<String>> batchResult = search.search(uris);
+		Collection<String> single;
+		for (String uri : uris) {
+			single = search.search(uri);
+			if (single.isEmpty()) {
+				assertFalse(batchResult.containsKey(uri));
+			} else {
+				assertEquals(new HashSet<String>(single), new HashSet<String>(batchResult.get(uri)));
+			}
+		}
+		search.close();
+
+		BatchRetrievalTestUtils.assertBatchEqualsSingle(new IndexBasedSameAsRetriever(indexFolder.getAbsolutePath()),
+				new BatchRetrievalTestUtils.PairReturningSameAsRetriever(prefix), uris);
+	}
+
 	public List<String> getList(String prefix){
 		List<String> sameAs = new LinkedList<String>();
 		sameAs.add(prefix+"/a");
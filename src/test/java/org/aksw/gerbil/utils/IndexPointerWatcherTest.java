@@ -0,0 +1,95 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aksw.gerbil.utils.IndexPointerWatcher.IndexSwapper;
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IndexPointerWatcherTest {
+
+    @Test
+    public void test() throws IOException {
+        File indexDir = new File(FileUtils.getTempDirectoryPath() + File.separator + "pointer_" + System.nanoTime());
+        File pointerFile = IndexPointerWatcher.getPointerFile(indexDir.getPath());
+        try {
+            // without a pointer file, the configured index is used
+            Assert.assertEquals(indexDir.getPath(), IndexPointerWatcher.getCurrentIndex(indexDir.getPath()));
+            RecordingIndexSwapper swapper = new RecordingIndexSwapper();
+            IndexPointerWatcher watcher = new IndexPointerWatcher(pointerFile, indexDir.getPath(), swapper);
+            Assert.assertFalse(watcher.check());
+
+            // the pointer is changed
+            writePointer(pointerFile, "/indexes/new", 1000);
+            Assert.assertEquals("/indexes/new", IndexPointerWatcher.getCurrentIndex(indexDir.getPath()));
+            Assert.assertTrue(watcher.check());
+            Assert.assertEquals("/indexes/new", watcher.getCurrentIndex());
+            // the unchanged pointer does not lead to another swap
+            Assert.assertFalse(watcher.check());
+
+            // a failed swap is retried after the pointer has been written
+            // again
+            swapper.accept = false;
+            writePointer(pointerFile, "/indexes/broken", 2000);
+            Assert.assertFalse(watcher.check());
+            Assert.assertFalse(watcher.check());
+            Assert.assertEquals("/indexes/new", watcher.getCurrentIndex());
+            swapper.accept = true;
+            writePointer(pointerFile, "/indexes/broken", 3000);
+            Assert.assertTrue(watcher.check());
+            Assert.assertEquals("/indexes/broken", watcher.getCurrentIndex());
+
+            List<String> expected = new ArrayList<String>();
+            expected.add("/indexes/new");
+            expected.add("/indexes/broken");
+            expected.add("/indexes/broken");
+            Assert.assertEquals(expected, swapper.requestedIndexes);
+            watcher.close();
+        } finally {
+            pointerFile.delete();
+        }
+    }
+
+    /**
+     * Writes the pointer file and sets its modification time since the
+     * resolution of the file system might be too low to distinguish the
+     * writes.
+     */
+    private static void writePointer(File pointerFile, String indexPath, long lastModified) throws IOException {
+        FileUtils.writeStringToFile(pointerFile, indexPath, StandardCharsets.UTF_8);
+        Assert.assertTrue(pointerFile.setLastModified(lastModified));
+    }
+
+    private static class RecordingIndexSwapper implements IndexSwapper {
+
+        private List<String> requestedIndexes = new ArrayList<String>();
+        private boolean accept = true;
+
+        @Override
+        public boolean swapIndex(String indexDirectoryPath) {
+            requestedIndexes.add(indexDirectoryPath);
+            return accept;
+        }
+    }
+}
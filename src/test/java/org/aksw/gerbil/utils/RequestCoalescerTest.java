@@ -0,0 +1,160 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RequestCoalescerTest {
+
+    private static final int NUMBER_OF_THREADS = 10;
+
+    @Test
+    public void testSingleRequests() throws Exception {
+        final RequestCoalescer<String, String> coalescer = new RequestCoalescer<String, String>();
+        final AtomicInteger requests = new AtomicInteger();
+        final CountDownLatch allStarted = new CountDownLatch(NUMBER_OF_THREADS);
+        final AtomicInteger correctResults = new AtomicInteger();
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread threads[] = new Thread[NUMBER_OF_THREADS];
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        allStarted.countDown();
+                        String result = coalescer.request("key", new Callable<String>() {
+                            @Override
+                            public String call() throws Exception {
+                                requests.incrementAndGet();
+                                allStarted.await();
+                                // give the other threads the time to wait for
+                                // this request
+                                Thread.sleep(100);
+                                return "value";
+                            }
+                        });
+                        if ("value".equals(result)) {
+                            correctResults.incrementAndGet();
+                        }
+                    } catch (Throwable e) {
+                        error.compareAndSet(null, e);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i].join();
+        }
+        Assert.assertNull(error.get());
+        Assert.assertEquals(NUMBER_OF_THREADS, correctResults.get());
+        // a thread that arrives after the first request finished sends a new
+        // request, but there should be much less requests than threads
+        Assert.assertTrue(requests.get() < NUMBER_OF_THREADS);
+        Assert.assertEquals(0, coalescer.getNumberOfInFlightRequests());
+    }
+
+    @Test
+    public void testBatchRequests() throws Exception {
+        final RequestCoalescer<String, String> coalescer = new RequestCoalescer<String, String>();
+        final Map<String, AtomicInteger> requests = new HashMap<String, AtomicInteger>();
+        for (String key : Arrays.asList("a", "b", "c", "d")) {
+            requests.put(key, new AtomicInteger());
+        }
+        final CountDownLatch firstRequestStarted = new CountDownLatch(1);
+        final CountDownLatch secondRequestRegistered = new CountDownLatch(1);
+        final RequestCoalescer.BatchRequest<String, String> request = new RequestCoalescer.BatchRequest<String, String>() {
+            @Override
+            public Map<String, String> request(List<String> keys) throws Exception {
+                Map<String, String> result = new HashMap<String, String>();
+                for (String key : keys) {
+                    requests.get(key).incrementAndGet();
+                    // "d" has no result
+                    if (!"d".equals(key)) {
+                        result.put(key, key.toUpperCase());
+                    }
+                }
+                if (firstRequestStarted.getCount() > 0) {
+                    firstRequestStarted.countDown();
+                    // keep "a" and "b" in flight until the second batch has
+                    // been registered
+                    secondRequestRegistered.await();
+                } else {
+                    secondRequestRegistered.countDown();
+                }
+                return result;
+            }
+        };
+        final Map<String, String> firstResult = new HashMap<String, String>();
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread first = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    firstResult.putAll(coalescer.requestAll(Arrays.asList("a", "b"), request));
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            }
+        });
+        first.start();
+        firstRequestStarted.await();
+        // "b" is in flight while the second batch is requested
+        Map<String, String> secondResult = coalescer.requestAll(Arrays.asList("b", "c", "d", "c"), request);
+        first.join();
+
+        Assert.assertNull(error.get());
+        Assert.assertEquals(2, firstResult.size());
+        Assert.assertEquals("A", firstResult.get("a"));
+        Assert.assertEquals("B", firstResult.get("b"));
+        Assert.assertEquals(2, secondResult.size());
+        Assert.assertEquals("B", secondResult.get("b"));
+        Assert.assertEquals("C", secondResult.get("c"));
+        for (String key : requests.keySet()) {
+            Assert.assertEquals(1, requests.get(key).get());
+        }
+        Assert.assertEquals(0, coalescer.getNumberOfInFlightRequests());
+    }
+
+    @Test
+    public void testException() throws Exception {
+        RequestCoalescer<String, String> coalescer = new RequestCoalescer<String, String>();
+        try {
+            coalescer.request("key", new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    throw new IllegalStateException();
+                }
+            });
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        Assert.assertEquals(0, coalescer.getNumberOfInFlightRequests());
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.utils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.aksw.gerbil.transfer.nif.Span;
+import org.aksw.gerbil.transfer.nif.data.SpanImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compares the results of the {@link SpanEnclosureDetector} with a pairwise
+ * comparison of randomly generated spans.
+ */
+public class SpanEnclosureDetectorTest {
+
+    private static final int NUMBER_OF_RUNS = 10000;
+    private static final int MAX_NUMBER_OF_SPANS = 15;
+
+    @Test
+    public void testExamples() {
+        // the spans 1 and 3 are enclosed by 0, 2 is maximal, 4 is identical
+        // with 0 but has a higher id
+        Span spans[] = new Span[] { new SpanImpl(0, 5), new SpanImpl(1, 3), new SpanImpl(2, 6), new SpanImpl(3, 2),
+                new SpanImpl(0, 5) };
+        Assert.assertArrayEquals(new int[] { 4, 4, SpanEnclosureDetector.NOT_ENCLOSED, 2,
+                SpanEnclosureDetector.NOT_ENCLOSED }, SpanEnclosureDetector.findEnclosingSpans(spans));
+    }
+
+    @Test
+    public void testRandomSpans() {
+        Random random = new Random(23);
+        Span spans[];
+        for (int r = 0; r < NUMBER_OF_RUNS; ++r) {
+            spans = new Span[random.nextInt(MAX_NUMBER_OF_SPANS)];
+            for (int i = 0; i < spans.length; ++i) {
+                spans[i] = new SpanImpl(random.nextInt(20), 1 + random.nextInt(8));
+            }
+            Assert.assertArrayEquals(Arrays.toString(spans), findEnclosingSpansPairwise(spans),
+                    SpanEnclosureDetector.findEnclosingSpans(spans));
+        }
+    }
+
+    /**
+     * Determines the longest span enclosing a span by comparing every pair of
+     * spans.
+     */
+    private static int[] findEnclosingSpansPairwise(Span spans[]) {
+        int enclosingSpans[] = new int[spans.length];
+        Arrays.fill(enclosingSpans, SpanEnclosureDetector.NOT_ENCLOSED);
+        int enclosing;
+        for (int i = 0; i < spans.length; ++i) {
+            enclosing = SpanEnclosureDetector.NOT_ENCLOSED;
+            for (int j = 0; j < spans.length; ++j) {
+                // identical spans are enclosed by the span with the higher id
+                if ((i != j) && encloses(spans[j], spans[i])
+                        && ((spans[j].getLength() > spans[i].getLength()) || (j > i))) {
+                    if ((enclosing == SpanEnclosureDetector.NOT_ENCLOSED)
+                            || (spans[j].getLength() > spans[enclosing].getLength())
+                            || ((spans[j].getLength() == spans[enclosing].getLength()) && (j > enclosing))) {
+                        enclosing = j;
+                    }
+                }
+            }
+            enclosingSpans[i] = enclosing;
+        }
+        return enclosingSpans;
+    }
+
+    private static boolean encloses(Span larger, Span smaller) {
+        return (smaller.getStartPosition() >= larger.getStartPosition()) && ((smaller.getStartPosition()
+                + smaller.getLength()) <= (larger.getStartPosition() + larger.getLength()));
+    }
+}
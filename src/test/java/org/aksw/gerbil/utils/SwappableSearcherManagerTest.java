@@ -0,0 +1,85 @@
+/**
+ * This file is part of General Entity Annotator Benchmark.
+ *
+ * General Entity Annotator Benchmark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * General Entity Annotator Benchmark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with General Entity Annotator Benchmark.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.gerbil.utils;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.aksw.gerbil.dataset.check.index.IndexBasedEntityChecker;
+import org.aksw.gerbil.dataset.check.index.Indexer;
+import org.apache.commons.io.FileUtils;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SwappableSearcherManagerTest {
+
+    private static final String OLD_URI = "http://example.org/old";
+    private static final String NEW_URI = "http://example.org/new";
+
+    @Test
+    public void test() throws IOException {
+        File oldIndex = createIndex(OLD_URI);
+        File newIndex = createIndex(NEW_URI);
+
+        SwappableSearcherManager manager = SwappableSearcherManager.open(oldIndex);
+        Assert.assertEquals(1, count(manager, OLD_URI));
+        Assert.assertEquals(0, count(manager, NEW_URI));
+        manager.addWarmingQuery(new TermQuery(new Term(IndexBasedEntityChecker.URI_FIELD_NAME, NEW_URI)));
+
+        // a searcher that is in use while the index is swapped
+        IndexSearcher oldSearcher = manager.acquire();
+        IndexReader oldReader = oldSearcher.getIndexReader();
+
+        manager.swapIndex(newIndex);
+        Assert.assertEquals(newIndex, manager.getIndexDirectory());
+        Assert.assertEquals(0, count(manager, OLD_URI));
+        Assert.assertEquals(1, count(manager, NEW_URI));
+
+        // the old searcher can still be used until it is released
+        Assert.assertEquals(1, oldSearcher.count(new TermQuery(new Term(IndexBasedEntityChecker.URI_FIELD_NAME,
+                OLD_URI))));
+        Assert.assertEquals(1, oldReader.getRefCount());
+        manager.release(oldSearcher);
+        Assert.assertEquals(0, oldReader.getRefCount());
+
+        manager.close();
+        FileUtils.deleteQuietly(oldIndex);
+        FileUtils.deleteQuietly(newIndex);
+    }
+
+    private static int count(SwappableSearcherManager manager, String uri) throws IOException {
+        IndexSearcher searcher = manager.acquire();
+        try {
+            return searcher.count(new TermQuery(new Term(IndexBasedEntityChecker.URI_FIELD_NAME, uri)));
+        } finally {
+            manager.release(searcher);
+        }
+    }
+
+    private static File createIndex(String uri) {
+        File indexDir = new File(FileUtils.getTempDirectoryPath() + File.separator + "swap_" + System.nanoTime());
+        indexDir.mkdir();
+        Indexer indexer = Indexer.create(indexDir.getAbsolutePath());
+        indexer.index(uri);
+        indexer.close();
+        return indexDir;
+    }
+}